@@ -0,0 +1,78 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.datastore.generator.DatasetGenerator;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetSpecification;
+import com.nervestaple.gtdinbox.model.comparator.ActionItemComparator;
+import com.nervestaple.gtdinbox.model.item.Item;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sorting the action items of a generated dataset with the ActionItemComparator. The items are in the
+ * generated order, which is random by creation date, and a copy is sorted every time.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ActionItemComparatorBenchmark {
+
+    /**
+     * Number of action items in the dataset.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int items;
+
+    /**
+     * Action items of the dataset.
+     */
+    private List<Item> actionItems;
+
+    /**
+     * The comparator.
+     */
+    private ActionItemComparator actionItemComparator;
+
+    @Setup
+    public void setUp() {
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(DatasetSpecification.forActionItems(items));
+        datasetGenerator.generate();
+
+        actionItems = new ArrayList<>();
+        for (ActionItem actionItem : datasetGenerator.getActionItems()) {
+            actionItems.add(actionItem);
+        }
+
+        actionItemComparator = new ActionItemComparator();
+    }
+
+    @Benchmark
+    public List<Item> sort() {
+
+        List<Item> sorted = new ArrayList<>(actionItems);
+        Collections.sort(sorted, actionItemComparator);
+
+        return (sorted);
+    }
+}
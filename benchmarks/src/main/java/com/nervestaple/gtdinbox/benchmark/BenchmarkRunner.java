@@ -0,0 +1,76 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Runs the benchmarks and writes their results as JSON, one file per dataset size named after the version of the
+ * application under test, for instance "target/benchmark-results/gtdinbox-1.0-items-10000.json". Compare the files of
+ * two versions to see what changed.
+ * <p/>
+ * Every benchmark is run for one dataset size before the next size, so each dataset is only generated once. The
+ * arguments are JMH's usual command line options, for instance "IndexManager -p items=1000" runs the index
+ * benchmarks on the smallest dataset.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Dataset sizes, in action items.
+     */
+    private final static String[] DATASET_SIZES = {"1000", "10000", "100000"};
+
+    /**
+     * Name of the dataset size parameter of the benchmarks.
+     */
+    private final static String ITEMS_PARAMETER = "items";
+
+    /**
+     * Directory the results are written to.
+     */
+    private final static String RESULTS_DIRECTORY = "target/benchmark-results";
+
+    /**
+     * System property holding the version of the application under test.
+     */
+    private final static String VERSION_PROPERTY = "gtdinbox.version";
+
+    public static void main(String[] args) throws Exception {
+
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        Collection<String> sizes = Arrays.asList(DATASET_SIZES);
+        if (commandLineOptions.getParameter(ITEMS_PARAMETER).hasValue()) {
+            sizes = commandLineOptions.getParameter(ITEMS_PARAMETER).get();
+        }
+
+        File directoryResults = new File(RESULTS_DIRECTORY);
+        directoryResults.mkdirs();
+
+        String version = System.getProperty(VERSION_PROPERTY, "unknown");
+
+        for (String size : sizes) {
+
+            File fileResults = new File(directoryResults, "gtdinbox-" + version + "-" + ITEMS_PARAMETER + "-" + size
+                    + ".json");
+
+            Options options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .param(ITEMS_PARAMETER, size)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(fileResults.getPath())
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactoryException;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetGenerator;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetSpecification;
+import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Provides the data store the benchmarks run against. The application is configured in its testing mode with the
+ * storage location in this module's com.nervestaple.gtdinbox.properties, and the store is filled with a dataset of
+ * the requested size from the DatasetGenerator.
+ * <p/>
+ * The size of the dataset in the store is kept in a file next to the database. A store that already holds a dataset
+ * of the right size is used as it is, otherwise it's emptied and generated again. That takes a while for the larger
+ * sizes, which is why the BenchmarkRunner runs every benchmark for one size before it moves on to the next.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class BenchmarkStore {
+
+    /**
+     * Logger instance.
+     */
+    private static Logger logger = Logger.getLogger(BenchmarkStore.class);
+
+    /**
+     * Name of the file holding the size of the dataset.
+     */
+    private final static String DATASET_FILE = "dataset.properties";
+
+    /**
+     * Key of the size in the dataset file.
+     */
+    private final static String ITEMS_KEY = "items";
+
+    /**
+     * Flag to indicate the application has been configured.
+     */
+    private static boolean configured;
+
+    /**
+     * Makes sure the application is configured and its store holds a dataset of the provided size, a new dataset is
+     * stored through the generator's bulk path.
+     *
+     * @param items number of action items in the dataset
+     * @throws Exception on problems configuring the application or generating the dataset
+     */
+    public static void open(int items) throws Exception {
+
+        open(items, true);
+    }
+
+    /**
+     * Makes sure the application is configured and its store holds a dataset of the provided size.
+     *
+     * @param items number of action items in the dataset
+     * @param bulk  true to store a new dataset through the generator's bulk path, false to store it the way the
+     *              application does
+     * @throws Exception on problems configuring the application or generating the dataset
+     */
+    public static synchronized void open(int items, boolean bulk) throws Exception {
+
+        if (!configured) {
+
+            configure();
+            configured = true;
+        }
+
+        File fileDataset = new File(ConfigurationFactory.getInstance().getApplicationConfiguration()
+                .getDataStorageLocation(), DATASET_FILE);
+
+        if (readItems(fileDataset) == items) {
+            return;
+        }
+
+        logger.info("Generating a dataset of " + items + " action items");
+        long started = System.currentTimeMillis();
+
+        DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+
+        if (dataBaseManager.schemaExists()) {
+            dataBaseManager.dropSchema();
+        }
+        dataBaseManager.createSchema();
+
+        // the database is empty, so this empties the index
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.rebuild();
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(DatasetSpecification.forActionItems(items));
+        datasetGenerator.generate();
+        datasetGenerator.persist(bulk);
+
+        indexManager.flushIndex();
+
+        writeItems(fileDataset, items);
+
+        logger.info("Generated the dataset in " + (System.currentTimeMillis() - started) + " milliseconds");
+    }
+
+    // private methods
+
+    private static void configure() throws ConfigurationFactoryException {
+
+        ConfigurationFactory configurationFactory = ConfigurationFactory.getInstance();
+        configurationFactory.setTestingConfiguration(true);
+
+        try {
+            configurationFactory.configure();
+        } catch (ConfigurationFactoryException e) {
+
+            // the storage location doesn't exist yet
+            File file = configurationFactory.getApplicationConfiguration().createDefaultDataStorageLocation();
+            configurationFactory.getApplicationConfiguration().setDataStorageLocation(file);
+
+            configurationFactory.configure();
+        }
+    }
+
+    private static int readItems(File fileDataset) {
+
+        if (!fileDataset.exists()) {
+            return (-1);
+        }
+
+        Properties properties = new Properties();
+
+        try {
+
+            InputStream inputStream = new FileInputStream(fileDataset);
+            try {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+
+            return (Integer.parseInt(properties.getProperty(ITEMS_KEY, "-1")));
+        } catch (IOException e) {
+            logger.warn(e);
+        } catch (NumberFormatException e) {
+            logger.warn(e);
+        }
+
+        return (-1);
+    }
+
+    private static void writeItems(File fileDataset, int items) throws IOException {
+
+        Properties properties = new Properties();
+        properties.setProperty(ITEMS_KEY, String.valueOf(items));
+
+        OutputStream outputStream = new FileOutputStream(fileDataset);
+        try {
+            properties.store(outputStream, "Benchmark dataset");
+        } finally {
+            outputStream.close();
+        }
+    }
+}
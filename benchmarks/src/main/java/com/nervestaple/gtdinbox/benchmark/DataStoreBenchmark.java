@@ -0,0 +1,75 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.datastore.DataStoreManager;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.project.Project;
+import com.nervestaple.gtdinbox.model.trash.TrashEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the DataStoreManager queries the browser loads its lists with. The application's entity manager is cleared
+ * before each query so the objects are read from the database rather than found in the persistence context, the way
+ * they are when the application starts.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DataStoreBenchmark {
+
+    /**
+     * Number of action items in the dataset.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int items;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        BenchmarkStore.open(items);
+    }
+
+    @Benchmark
+    public Collection<Project> getProjects() throws Exception {
+
+        DataBaseManager.getInstance().getEntityManager().clear();
+
+        return (DataStoreManager.getProjects());
+    }
+
+    @Benchmark
+    public List<TrashEntry> getTrash() throws Exception {
+
+        DataBaseManager.getInstance().getEntityManager().clear();
+
+        return (DataStoreManager.getTrash(0, DataStoreManager.TRASH_PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Collection<ActionItem> getArchive() throws Exception {
+
+        DataBaseManager.getInstance().getEntityManager().clear();
+
+        return (DataStoreManager.getArchive());
+    }
+}
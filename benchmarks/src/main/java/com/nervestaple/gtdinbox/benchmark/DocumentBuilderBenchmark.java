@@ -0,0 +1,138 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.datastore.generator.DatasetGenerator;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetSpecification;
+import com.nervestaple.gtdinbox.datastore.index.DocumentBuilder;
+import com.nervestaple.gtdinbox.datastore.index.IndexSchema;
+import com.nervestaple.gtdinbox.model.Indexable;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import org.apache.commons.beanutils.BeanMap;
+import org.apache.lucene.document.DateTools;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the index documents for the action items of a generated dataset with the IndexSchema's document
+ * builder, against the BeanMap reflection the IndexManager used before. Each call builds a document for every action
+ * item and returns the number of fields built.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DocumentBuilderBenchmark {
+
+    /**
+     * Number of action items in the dataset.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int items;
+
+    /**
+     * Action items of the dataset.
+     */
+    private List<ActionItem> actionItems;
+
+    /**
+     * Document builder for action items.
+     */
+    private DocumentBuilder<Indexable> documentBuilder;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(DatasetSpecification.forActionItems(items));
+        datasetGenerator.generate();
+
+        // the generated items aren't persisted, give them the ids the documents are keyed by
+        actionItems = datasetGenerator.getActionItems();
+        for (int index = 0; index < actionItems.size(); index++) {
+            actionItems.get(index).setId(Long.valueOf(index + 1));
+        }
+
+        documentBuilder = IndexSchema.getDocumentBuilder(ActionItem.class);
+    }
+
+    @Benchmark
+    public int buildWithSchema() {
+
+        int fields = 0;
+        for (ActionItem actionItem : actionItems) {
+
+            fields += documentBuilder.build(actionItem).getFields().size();
+        }
+
+        return (fields);
+    }
+
+    @Benchmark
+    public int buildWithBeanMap() {
+
+        int fields = 0;
+        for (ActionItem actionItem : actionItems) {
+
+            fields += buildBeanMapDocument(actionItem).getFields().size();
+        }
+
+        return (fields);
+    }
+
+    // private methods
+
+    /**
+     * Builds a document for the provided action item the way IndexManager.addBeanMap() did.
+     *
+     * @param actionItem item to index
+     * @return Document
+     */
+    private Document buildBeanMapDocument(ActionItem actionItem) {
+
+        BeanMap beanMap = new BeanMap(actionItem);
+        Document document = new Document();
+
+        Iterator iteratorKeys = beanMap.keyIterator();
+        while (iteratorKeys.hasNext()) {
+
+            Object key = iteratorKeys.next();
+            Object value = beanMap.get(key);
+
+            if (value != null && value instanceof Date) {
+                document.add(
+                        new Field(key.toString(),
+                                DateTools.dateToString((Date) value, DateTools.Resolution.MINUTE),
+                                Field.Store.YES, Field.Index.TOKENIZED));
+            } else if (value != null && value instanceof Class) {
+                document.add(
+                        new Field(key.toString(), ((Class) value).getName().toLowerCase(),
+                                Field.Store.YES, Field.Index.TOKENIZED));
+            } else if (value != null) {
+                document.add(
+                        new Field(key.toString(), value.toString(),
+                                Field.Store.YES, Field.Index.TOKENIZED));
+            }
+        }
+
+        return (document);
+    }
+}
@@ -0,0 +1,235 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.datastore.generator.DatasetGenerator;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetSpecification;
+import com.nervestaple.gtdinbox.datastore.index.DocumentBuilder;
+import com.nervestaple.gtdinbox.datastore.index.IndexDirectoryMode;
+import com.nervestaple.gtdinbox.datastore.index.IndexSchema;
+import com.nervestaple.gtdinbox.model.Indexable;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import org.apache.lucene.analysis.SimpleAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryParser.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.RAMDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures searching and updating an index of the action items of a generated dataset in each of the index directory
+ * modes. Searches open a new searcher every tenth call, as changes to the index would. Updates are made the way
+ * IndexManager.updateIndexable() makes them: a reader deletes the old document by key, then a writer adds the new one.
+ * <p/>
+ * Lucene picks the FSDirectory implementation once per JVM, every mode is run in a forked JVM of its own.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexDirectoryBenchmark {
+
+    /**
+     * Number of searches made with a searcher before a new one is opened.
+     */
+    private final static int SEARCHES_PER_SEARCHER = 10;
+
+    /**
+     * Number of hits collected for a search.
+     */
+    private final static int HITS = 50;
+
+    /**
+     * Number of words in an updated description.
+     */
+    private final static int DESCRIPTION_WORDS = 8;
+
+    /**
+     * Number of action items in the dataset.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int items;
+
+    /**
+     * Configuration value of the index directory mode.
+     */
+    @Param({"fs", "mmap", "heap"})
+    public String mode;
+
+    /**
+     * Location of the index on disk.
+     */
+    private File location;
+
+    /**
+     * The index directory.
+     */
+    private Directory directory;
+
+    /**
+     * Action items of the dataset.
+     */
+    private List<ActionItem> actionItems;
+
+    /**
+     * Document builder for action items.
+     */
+    private DocumentBuilder<Indexable> documentBuilder;
+
+    /**
+     * Parser for the searched words.
+     */
+    private QueryParser queryParser;
+
+    /**
+     * Searcher in use, replaced every tenth search.
+     */
+    private IndexSearcher indexSearcher;
+
+    /**
+     * Number of searches made with the current searcher.
+     */
+    private int searches;
+
+    /**
+     * Random source for picking items and words.
+     */
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        IndexDirectoryMode indexDirectoryMode = IndexDirectoryMode.fromValue(mode);
+
+        if (indexDirectoryMode == IndexDirectoryMode.MEMORY_MAPPED) {
+            System.setProperty("org.apache.lucene.FSDirectory.class", MMapDirectory.class.getName());
+        }
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(DatasetSpecification.forActionItems(items));
+        datasetGenerator.generate();
+
+        // the generated items aren't persisted, give them the ids the documents are keyed by
+        actionItems = datasetGenerator.getActionItems();
+        for (int index = 0; index < actionItems.size(); index++) {
+            actionItems.get(index).setId(Long.valueOf(index + 1));
+        }
+
+        documentBuilder = IndexSchema.getDocumentBuilder(ActionItem.class);
+
+        location = File.createTempFile("gtdinbox-benchmark", "");
+        location.delete();
+
+        directory = indexDirectoryMode == IndexDirectoryMode.HEAP
+                ? new RAMDirectory() : FSDirectory.getDirectory(location, true);
+
+        IndexWriter indexWriter = new IndexWriter(directory, new StandardAnalyzer(), true);
+        for (ActionItem actionItem : actionItems) {
+            indexWriter.addDocument(documentBuilder.build(actionItem));
+        }
+        indexWriter.optimize();
+        indexWriter.close();
+
+        queryParser = new QueryParser("description", new SimpleAnalyzer());
+        random = new Random(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+
+        if (indexSearcher != null) {
+            indexSearcher.close();
+        }
+
+        directory.close();
+
+        File[] files = location.listFiles();
+        if (files != null) {
+
+            for (int index = 0; index < files.length; index++) {
+                files[index].delete();
+            }
+        }
+
+        location.delete();
+    }
+
+    @Benchmark
+    public int search() throws Exception {
+
+        if (indexSearcher == null || searches == SEARCHES_PER_SEARCHER) {
+
+            if (indexSearcher != null) {
+                indexSearcher.close();
+            }
+
+            indexSearcher = new IndexSearcher(directory);
+            searches = 0;
+        }
+
+        searches++;
+
+        Query query = queryParser.parse(pickWord() + " " + pickWord());
+
+        return (indexSearcher.search(query, null, HITS).totalHits);
+    }
+
+    @Benchmark
+    public void update() throws Exception {
+
+        ActionItem actionItem = actionItems.get(random.nextInt(actionItems.size()));
+        actionItem.setDescription(createDescription());
+
+        IndexReader indexReader = IndexReader.open(directory);
+        indexReader.deleteDocuments(new Term(DocumentBuilder.FIELD_KEY,
+                DocumentBuilder.getKey(documentBuilder.getClassName(), actionItem.getId().toString())));
+        indexReader.close();
+
+        IndexWriter indexWriter = new IndexWriter(directory, new StandardAnalyzer(), false);
+        indexWriter.addDocument(documentBuilder.build(actionItem));
+        indexWriter.close();
+    }
+
+    // private methods
+
+    private String pickWord() {
+
+        return (DatasetGenerator.WORDS[random.nextInt(DatasetGenerator.WORDS.length)]);
+    }
+
+    private String createDescription() {
+
+        StringBuilder description = new StringBuilder();
+        for (int index = 0; index < DESCRIPTION_WORDS; index++) {
+            description.append(pickWord()).append(' ');
+        }
+
+        return (description.toString().trim());
+    }
+}
@@ -0,0 +1,178 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetGenerator;
+import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import com.nervestaple.gtdinbox.datastore.index.SearchPage;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding, updating, removing and searching for documents with the IndexManager. Objects are written to the
+ * index directly, the way the IndexManager's add, update and remove methods write them, and the database isn't
+ * changed. Documents added during a trial are removed again at its end.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexManagerBenchmark {
+
+    /**
+     * Number of hits on a page of search results.
+     */
+    private final static int PAGE_SIZE = 25;
+
+    /**
+     * Ids of added objects start this far past the ids in the dataset.
+     */
+    private final static long ID_OFFSET = 10000000;
+
+    /**
+     * Number of action items in the dataset.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int items;
+
+    /**
+     * The index manager.
+     */
+    private IndexManager indexManager;
+
+    /**
+     * Action items in the dataset.
+     */
+    private List<ActionItem> actionItems;
+
+    /**
+     * Action items added during the trial.
+     */
+    private List<ActionItem> actionItemsAdded;
+
+    /**
+     * Random source for picking items and words.
+     */
+    private Random random;
+
+    /**
+     * Id of the next added object.
+     */
+    private long idNext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkStore.open(items);
+
+        indexManager = IndexManager.getInstance();
+
+        actionItems = DataBaseManager.getInstance().getEntityManager()
+                .createQuery("from ActionItem", ActionItem.class).getResultList();
+        actionItemsAdded = new ArrayList<>();
+        random = new Random(1);
+        idNext = ID_OFFSET;
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() throws Exception {
+
+        indexManager.flushIndex();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+
+        for (ActionItem actionItem : actionItemsAdded) {
+            indexManager.removeIndexable(actionItem);
+        }
+
+        indexManager.flushIndex();
+    }
+
+    @Benchmark
+    public void add() throws Exception {
+
+        indexManager.addIndexable(createActionItem());
+    }
+
+    @Benchmark
+    public void update() throws Exception {
+
+        indexManager.updateIndexable(actionItems.get(random.nextInt(actionItems.size())));
+    }
+
+    @Benchmark
+    public void remove(AddedItem addedItem) throws Exception {
+
+        indexManager.removeIndexable(addedItem.actionItem);
+    }
+
+    @Benchmark
+    public SearchPage search() throws Exception {
+
+        // measure the search rather than the result cache
+        indexManager.getQueryResultCache().clear();
+
+        String word = DatasetGenerator.WORDS[random.nextInt(DatasetGenerator.WORDS.length)];
+
+        return (indexManager.search(new TermQuery(new Term("description", word)), PAGE_SIZE));
+    }
+
+    // private methods
+
+    /**
+     * Creates an action item that isn't in the dataset, it's removed from the index at the end of the trial.
+     *
+     * @return ActionItem
+     */
+    private ActionItem createActionItem() {
+
+        ActionItem actionItem = new ActionItem();
+        actionItem.setId(idNext++);
+        actionItem.setDescription(actionItems.get(random.nextInt(actionItems.size())).getDescription());
+
+        actionItemsAdded.add(actionItem);
+
+        return (actionItem);
+    }
+
+    /**
+     * Provides an action item that is in the index, for the remove benchmark. A new one is added before every call.
+     */
+    @State(Scope.Thread)
+    public static class AddedItem {
+
+        private ActionItem actionItem;
+
+        @Setup(Level.Invocation)
+        public void setUp(IndexManagerBenchmark benchmark) throws Exception {
+
+            actionItem = benchmark.createActionItem();
+            benchmark.indexManager.addIndexable(actionItem);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.datastore.DataStoreManager;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetGenerator;
+import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import com.nervestaple.gtdinbox.datastore.index.LatencyHistogram;
+import com.nervestaple.gtdinbox.datastore.index.OperationStatistics;
+import com.nervestaple.gtdinbox.gui.browser.BrowserModel;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Drives the application without its user interface against a generated store and measures what the user waits for
+ * on a large store: starting up, loading the browser's lists, searching and opening the trash and the archive.
+ * <p/>
+ * The store is generated in one JVM and measured in a new one, so the startup time includes opening the database
+ * and the index from disk with nothing cached. The results are printed and written to
+ * "target/load-results/gtdinbox-[version]-items-[items].properties". Run it from the benchmarks project with...
+ * <p/>
+ * <code>mvn package exec:exec -Dbenchmark-runner=com.nervestaple.gtdinbox.benchmark.LoadDriver
+ * -Dbenchmark.args="[items] [bulk|normal] [operations]"</code>
+ * <p/>
+ * A store of the requested size is generated through the generator's bulk path unless "normal" is passed, and is kept
+ * and reused like the benchmarks' store.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class LoadDriver {
+
+    /**
+     * Default number of action items in the store.
+     */
+    private final static int DEFAULT_ITEMS = 10000;
+
+    /**
+     * Default number of measured repetitions of each operation.
+     */
+    private final static int DEFAULT_OPERATIONS = 200;
+
+    /**
+     * Argument that runs the generating phase in this JVM.
+     */
+    private final static String PHASE_GENERATE = "generate";
+
+    /**
+     * Argument that runs the measuring phase in this JVM.
+     */
+    private final static String PHASE_MEASURE = "measure";
+
+    /**
+     * Argument that selects the normal persistence path.
+     */
+    private final static String PATH_NORMAL = "normal";
+
+    /**
+     * Number of results on a search page.
+     */
+    private final static int PAGE_SIZE = 50;
+
+    /**
+     * Directory the results are written to.
+     */
+    private final static String RESULTS_DIRECTORY = "target/load-results";
+
+    /**
+     * System property holding the version of the application under test.
+     */
+    private final static String VERSION_PROPERTY = "gtdinbox.version";
+
+    public static void main(String[] args) throws Exception {
+
+        if (args.length > 0 && args[0].equals(PHASE_GENERATE)) {
+
+            generate(Integer.parseInt(args[1]), !PATH_NORMAL.equals(args[2]));
+            exit();
+        } else if (args.length > 0 && args[0].equals(PHASE_MEASURE)) {
+
+            measure(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            exit();
+        }
+
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITEMS;
+        String path = args.length > 1 ? args[1] : "bulk";
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_OPERATIONS;
+
+        if (runInJvm(PHASE_GENERATE, String.valueOf(items), path) != 0) {
+            throw new IllegalStateException("Couldn't generate the store");
+        }
+
+        if (runInJvm(PHASE_MEASURE, String.valueOf(items), String.valueOf(operations)) != 0) {
+            throw new IllegalStateException("Couldn't measure the store");
+        }
+    }
+
+    // private methods
+
+    /**
+     * Runs a phase in a new JVM with this JVM's class path.
+     *
+     * @param arguments arguments of the phase
+     * @return exit value of the JVM
+     * @throws Exception on problems running the JVM
+     */
+    private static int runInJvm(String... arguments) throws Exception {
+
+        String[] command = new String[5 + arguments.length];
+        command[0] = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        command[1] = "-cp";
+        command[2] = System.getProperty("java.class.path");
+        command[3] = "-D" + VERSION_PROPERTY + "=" + System.getProperty(VERSION_PROPERTY, "unknown");
+        command[4] = LoadDriver.class.getName();
+        System.arraycopy(arguments, 0, command, 5, arguments.length);
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.inheritIO();
+
+        return (processBuilder.start().waitFor());
+    }
+
+    private static void generate(int items, boolean bulk) throws Exception {
+
+        long started = System.nanoTime();
+        BenchmarkStore.open(items, bulk);
+
+        System.out.println("Store of " + items + " action items ready in "
+                + String.format("%.1f", (System.nanoTime() - started) / 1000000000.0) + " seconds");
+    }
+
+    private static void measure(int items, int operations) throws Exception {
+
+        Properties results = new Properties();
+
+        // the store exists, so this only starts the application
+        long started = System.nanoTime();
+        BenchmarkStore.open(items);
+        record(results, "startup", started);
+
+        DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+        IndexManager indexManager = IndexManager.getInstance();
+
+        BrowserModel browserModel = new BrowserModel();
+
+        started = System.nanoTime();
+        browserModel.loadData();
+        record(results, "loadData.first", started);
+
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int index = 0; index < operations; index++) {
+
+            dataBaseManager.getEntityManager().clear();
+
+            started = System.nanoTime();
+            browserModel.loadData();
+            latencyHistogram.record(System.nanoTime() - started);
+        }
+        record(results, "loadData", latencyHistogram);
+
+        Random random = new Random(1);
+        latencyHistogram = new LatencyHistogram();
+        for (int index = 0; index < operations; index++) {
+
+            // measure the search rather than the result cache
+            indexManager.getQueryResultCache().clear();
+
+            String word = DatasetGenerator.WORDS[random.nextInt(DatasetGenerator.WORDS.length)];
+
+            started = System.nanoTime();
+            indexManager.search(new TermQuery(new Term("description", word)), PAGE_SIZE);
+            latencyHistogram.record(System.nanoTime() - started);
+        }
+        record(results, "search", latencyHistogram);
+
+        latencyHistogram = new LatencyHistogram();
+        for (int index = 0; index < operations; index++) {
+
+            dataBaseManager.getEntityManager().clear();
+
+            started = System.nanoTime();
+            DataStoreManager.getTrash(0, DataStoreManager.TRASH_PAGE_SIZE);
+            latencyHistogram.record(System.nanoTime() - started);
+        }
+        record(results, "trash", latencyHistogram);
+
+        latencyHistogram = new LatencyHistogram();
+        for (int index = 0; index < operations; index++) {
+
+            dataBaseManager.getEntityManager().clear();
+
+            started = System.nanoTime();
+            DataStoreManager.getArchive();
+            latencyHistogram.record(System.nanoTime() - started);
+        }
+        record(results, "archive", latencyHistogram);
+
+        writeResults(results, items);
+    }
+
+    private static void record(Properties results, String name, long started) {
+
+        double millis = (System.nanoTime() - started) / 1000000.0;
+        results.setProperty(name + ".millis", String.format("%.3f", millis));
+
+        System.out.println(name + ": " + String.format("%.3f", millis) + " milliseconds");
+    }
+
+    private static void record(Properties results, String name, LatencyHistogram latencyHistogram) {
+
+        OperationStatistics operationStatistics = OperationStatistics.fromHistogram(latencyHistogram);
+
+        results.setProperty(name + ".count", String.valueOf(operationStatistics.getCount()));
+        results.setProperty(name + ".mean.millis", String.format("%.3f", operationStatistics.getMeanMillis()));
+        results.setProperty(name + ".median.millis", String.format("%.3f", operationStatistics.getMedianMillis()));
+        results.setProperty(name + ".p95.millis", String.format("%.3f", operationStatistics.getPercentile95Millis()));
+        results.setProperty(name + ".p99.millis", String.format("%.3f", operationStatistics.getPercentile99Millis()));
+        results.setProperty(name + ".max.millis", String.format("%.3f", operationStatistics.getMaxMillis()));
+
+        System.out.println(name + ": " + operationStatistics.getCount() + " operations, mean "
+                + String.format("%.3f", operationStatistics.getMeanMillis()) + ", 95th percentile "
+                + String.format("%.3f", operationStatistics.getPercentile95Millis()) + ", max "
+                + String.format("%.3f", operationStatistics.getMaxMillis()) + " milliseconds");
+    }
+
+    private static void writeResults(Properties results, int items) throws IOException {
+
+        File directoryResults = new File(RESULTS_DIRECTORY);
+        directoryResults.mkdirs();
+
+        String version = System.getProperty(VERSION_PROPERTY, "unknown");
+        File fileResults = new File(directoryResults, "gtdinbox-" + version + "-items-" + items + ".properties");
+
+        OutputStream outputStream = new FileOutputStream(fileResults);
+        try {
+            results.store(outputStream, "Load test of " + items + " action items");
+        } finally {
+            outputStream.close();
+        }
+
+        System.out.println("Results written to " + fileResults.getPath());
+    }
+
+    /**
+     * Exits the JVM, the application's background threads would keep it running.
+     */
+    private static void exit() {
+
+        System.exit(0);
+    }
+}
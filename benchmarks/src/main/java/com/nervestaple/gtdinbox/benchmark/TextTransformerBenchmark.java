@@ -0,0 +1,77 @@
+package com.nervestaple.gtdinbox.benchmark;
+
+import com.nervestaple.gtdinbox.datastore.generator.DatasetGenerator;
+import com.nervestaple.gtdinbox.datastore.generator.DatasetSpecification;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
+import com.nervestaple.gtdinbox.utility.texttransformer.OutputType;
+import com.nervestaple.gtdinbox.utility.texttransformer.UtilityTextTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the descriptions of every action item in a generated dataset, the way a detail view renders the
+ * items of a large project.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TextTransformerBenchmark {
+
+    /**
+     * Number of action items in the dataset.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int items;
+
+    /**
+     * Action items of the dataset.
+     */
+    private List<ActionItem> actionItems;
+
+    @Setup
+    public void setUp() {
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(DatasetSpecification.forActionItems(items));
+        datasetGenerator.generate();
+
+        actionItems = datasetGenerator.getActionItems();
+    }
+
+    @Benchmark
+    public void renderMarkdown(Blackhole blackhole) {
+
+        for (ActionItem actionItem : actionItems) {
+            blackhole.consume(UtilityTextTransformer.transformTextForDisplay(actionItem.getDescription(),
+                    TextStyleType.MARKDOWN_TEXT, OutputType.DESCRIPTION));
+        }
+    }
+
+    @Benchmark
+    public void renderPlainText(Blackhole blackhole) {
+
+        for (ActionItem actionItem : actionItems) {
+            blackhole.consume(UtilityTextTransformer.transformTextForDisplay(actionItem.getDescription(),
+                    TextStyleType.PLAIN_TEXT, OutputType.DESCRIPTION));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.nervestaple.gtdinbox.configuration.application;
 
 import com.nervestaple.gtdinbox.configuration.ConfigurationFactoryException;
+import com.nervestaple.gtdinbox.datastore.index.IndexDirectoryMode;
 import com.nervestaple.gtdinbox.datastore.index.IndexManager;
 import com.nervestaple.gtdinbox.datastore.index.IndexManagerException;
 import com.nervestaple.utility.Platform;
@@ -62,6 +63,21 @@ public class ApplicationConfiguration {
      */
     private final static Integer DEFAULT_ARCHIVE_DAYS = new Integer(7);
 
+    /**
+     * Index directory mode key.
+     */
+    private final static String INDEX_DIRECTORY_MODE_KEY = "indexDirectoryMode";
+
+    /**
+     * Index snapshot key.
+     */
+    private final static String INDEX_SNAPSHOT_KEY = "indexSnapshot";
+
+    /**
+     * Default for writing a heap-resident index to disk when it's flushed.
+     */
+    private final static boolean DEFAULT_INDEX_SNAPSHOT = true;
+
     /**
      * Configure for testing.
      */
@@ -488,4 +504,52 @@ public class ApplicationConfiguration {
             throw new CouldNotSaveConfigurationException(e);
         }
     }
+
+    /**
+     * Returns how the index is held, the file system unless the configuration says otherwise.
+     *
+     * @return IndexDirectoryMode
+     */
+    public IndexDirectoryMode getIndexDirectoryMode() {
+
+        if (model.getIndexDirectoryMode() == null) {
+            model.setIndexDirectoryMode(IndexDirectoryMode.fromValue(
+                    configuration.getString(INDEX_DIRECTORY_MODE_KEY, IndexDirectoryMode.FILE_SYSTEM.getValue())));
+        }
+
+        return (model.getIndexDirectoryMode());
+    }
+
+    /**
+     * Sets how the index is held. The new mode is used the next time the application starts.
+     *
+     * @param value the mode
+     * @throws CouldNotSaveConfigurationException if the configuration couldn't be saved
+     */
+    public void setIndexDirectoryMode(IndexDirectoryMode value) throws CouldNotSaveConfigurationException {
+
+        model.setIndexDirectoryMode(value);
+
+        configuration.setProperty(INDEX_DIRECTORY_MODE_KEY, value.getValue());
+
+        try {
+            configuration.save();
+        } catch (ConfigurationException e) {
+            throw new CouldNotSaveConfigurationException(e);
+        }
+    }
+
+    /**
+     * Returns true if a heap-resident index is written to the index storage location when it's flushed.
+     *
+     * @return boolean
+     */
+    public boolean isIndexSnapshot() {
+
+        if (model.getIndexSnapshot() == null) {
+            model.setIndexSnapshot(configuration.getBoolean(INDEX_SNAPSHOT_KEY, DEFAULT_INDEX_SNAPSHOT));
+        }
+
+        return (model.getIndexSnapshot());
+    }
 }
@@ -1,5 +1,6 @@
 package com.nervestaple.gtdinbox.configuration.application;
 
+import com.nervestaple.gtdinbox.datastore.index.IndexDirectoryMode;
 import org.apache.log4j.Logger;
 
 import java.beans.PropertyChangeListener;
@@ -44,6 +45,16 @@ public class ApplicationConfigurationModel {
      */
     private Integer archiveDays;
 
+    /**
+     * How the index is held, see IndexDirectoryMode.
+     */
+    private IndexDirectoryMode indexDirectoryMode;
+
+    /**
+     * Flag to indicate a heap-resident index is written to the index storage location when it's flushed.
+     */
+    private Boolean indexSnapshot;
+
     public ApplicationConfigurationModel() {
 
         propertychangesupport = new PropertyChangeSupport(this);
@@ -110,4 +121,24 @@ public class ApplicationConfigurationModel {
         this.archiveDays = archiveDays;
         propertychangesupport.firePropertyChange("archiveDays", valueOld, this.archiveDays);
     }
+
+    public IndexDirectoryMode getIndexDirectoryMode() {
+        return indexDirectoryMode;
+    }
+
+    public void setIndexDirectoryMode(IndexDirectoryMode indexDirectoryMode) {
+        IndexDirectoryMode valueOld = this.indexDirectoryMode;
+        this.indexDirectoryMode = indexDirectoryMode;
+        propertychangesupport.firePropertyChange("indexDirectoryMode", valueOld, this.indexDirectoryMode);
+    }
+
+    public Boolean getIndexSnapshot() {
+        return indexSnapshot;
+    }
+
+    public void setIndexSnapshot(Boolean indexSnapshot) {
+        Boolean valueOld = this.indexSnapshot;
+        this.indexSnapshot = indexSnapshot;
+        propertychangesupport.firePropertyChange("indexSnapshot", valueOld, this.indexSnapshot);
+    }
 }
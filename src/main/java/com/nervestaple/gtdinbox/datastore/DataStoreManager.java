@@ -1,8 +1,12 @@
 package com.nervestaple.gtdinbox.datastore;
 
 import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
 import com.nervestaple.gtdinbox.datastore.database.QueryBuilder;
+import com.nervestaple.gtdinbox.datastore.database.UnitOfWork;
+import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import com.nervestaple.gtdinbox.model.Indexable;
 import com.nervestaple.gtdinbox.model.Trashable;
 import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
 import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
@@ -10,8 +14,12 @@ import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
 import com.nervestaple.gtdinbox.model.project.Project;
 import com.nervestaple.gtdinbox.model.reference.category.Category;
 import com.nervestaple.gtdinbox.model.tag.Tag;
+import com.nervestaple.gtdinbox.model.trash.TrashEntry;
 import org.apache.log4j.Logger;
+import org.hibernate.Session;
 
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import java.util.*;
 
 /**
@@ -24,6 +32,43 @@ public class DataStoreManager {
      */
     private static Logger logger = Logger.getLogger("com.nervestaple.gtdinbox.datastore.DataStoreManager");
 
+    /**
+     * Number of objects written in each JDBC batch by bulkSave(), the persistence context is flushed and cleared after
+     * each one.
+     */
+    private final static int BULK_BATCH_SIZE = 500;
+
+    /**
+     * Number of entries on a page of the trash.
+     */
+    public final static int TRASH_PAGE_SIZE = 500;
+
+    /**
+     * Query for the objects tagged for deletion, one row for each with the type, id, name and the name of the parent.
+     * JPQL can't combine queries over unrelated entities so this is SQL, the table and column names are the default
+     * ones Hibernate picks for the entities.
+     */
+    private final static String TRASH_QUERY = "select cast('ActionItem' as varchar(32)) as entryType,"
+            + " item.id as entryId, item.description as entryName, project.name as parentName"
+            + " from ActionItem item left outer join Project project on item.project_id = project.id"
+            + " where item.deleted = true"
+            + " union all select cast('Project' as varchar(32)), id, name, cast(null as varchar(255))"
+            + " from Project where deleted = true"
+            + " union all select cast('InboxContext' as varchar(32)), id, name, cast(null as varchar(255))"
+            + " from InboxContext where deleted = true"
+            + " union all select cast('Category' as varchar(32)), id, name, cast(null as varchar(255))"
+            + " from Category where deleted = true"
+            + " union all select cast('ReferenceItem' as varchar(32)), item.id, item.name, category.name"
+            + " from ReferenceItem item left outer join Category category on item.category_id = category.id"
+            + " where item.deleted = true"
+            + " union all select cast('Tag' as varchar(32)), id, name, cast(null as varchar(255))"
+            + " from Tag where deleted = true";
+
+    /**
+     * Trashable classes, keyed by the type in the rows of the trash query.
+     */
+    private final static Map<String, Class<? extends Trashable>> TRASH_TYPES;
+
     /**
      * Calendar instance.
      */
@@ -39,11 +84,17 @@ public class DataStoreManager {
     private static QueryBuilder<ActionItem> actionItemQueryBuilder;
     private static QueryBuilder<InboxContext> inboxContextQueryBuilder;
     private static QueryBuilder<Category> categoryQueryBuilder;
-    private static QueryBuilder<ReferenceItem> referenceItemQueryBuilder;
-    private static QueryBuilder<Tag> tagQueryBuilder;
 
     static {
 
+        TRASH_TYPES = new HashMap<>();
+        TRASH_TYPES.put("ActionItem", ActionItem.class);
+        TRASH_TYPES.put("Project", Project.class);
+        TRASH_TYPES.put("InboxContext", InboxContext.class);
+        TRASH_TYPES.put("Category", Category.class);
+        TRASH_TYPES.put("ReferenceItem", ReferenceItem.class);
+        TRASH_TYPES.put("Tag", Tag.class);
+
         dataStoreManager = new DataStoreManager();
     }
 
@@ -53,8 +104,6 @@ public class DataStoreManager {
         actionItemQueryBuilder = new QueryBuilder<>(ActionItem.class);
         inboxContextQueryBuilder = new QueryBuilder<>(InboxContext.class);
         categoryQueryBuilder = new QueryBuilder<>(Category.class);
-        referenceItemQueryBuilder = new QueryBuilder<>(ReferenceItem.class);
-        tagQueryBuilder = new QueryBuilder<>(Tag.class);
     }
 
     /**
@@ -115,30 +164,76 @@ public class DataStoreManager {
     }
 
     /**
-     * Returns a list of all objects that are tagged for deletion in the data store.
+     * Returns every object that is tagged for deletion in the data store, sorted by type and then name. The objects
+     * themselves aren't loaded, only a TrashEntry for each one.
      *
-     * @return A list of objects tagged for deletion.
+     * @return A list of entries for the objects tagged for deletion.
      * @throws DataStoreException On problems reading from the data store
      */
-    public static Collection<Trashable> getTrash() throws DataStoreException {
+    public static List<TrashEntry> getTrash() throws DataStoreException {
 
-        try {
+        return (getTrash(0, 0));
+    }
 
-            List<Trashable> trash = new ArrayList<>();
+    /**
+     * Returns a page of the objects that are tagged for deletion in the data store, sorted by type and then name. The
+     * trash is read with one query over all of the trashable tables, the paging and sorting are done by the database
+     * and the objects themselves aren't loaded, only a TrashEntry for each one.
+     *
+     * @param firstResult position of the first entry of the page
+     * @param maxResults  number of entries on the page, 0 or less for all of them
+     * @return A list of entries for the objects tagged for deletion.
+     * @throws DataStoreException On problems reading from the data store
+     */
+    public static List<TrashEntry> getTrash(final int firstResult, final int maxResults) throws DataStoreException {
 
-            trash.addAll(actionItemQueryBuilder.buildDeletedQuery().getResultList());
-            trash.addAll(projectQueryBuilder.buildDeletedQuery().getResultList());
-            trash.addAll(inboxContextQueryBuilder.buildDeletedQuery().getResultList());
-            trash.addAll(categoryQueryBuilder.buildDeletedQuery().getResultList());
-            trash.addAll(referenceItemQueryBuilder.buildDeletedQuery().getResultList());
-            trash.addAll(tagQueryBuilder.buildDeletedQuery().getResultList());
+        List<TrashEntry> trash = DataBaseManager.getInstance().read(new UnitOfWork<List<TrashEntry>>() {
 
-            logger.debug("Trash contains " + trash.size() + " objects");
-            return (trash);
-        } catch (DataBaseManagerException e) {
+            public List<TrashEntry> run(EntityManager entityManager) throws DataStoreException {
 
-            throw new DataStoreException(e);
-        }
+                Query query = entityManager.createNativeQuery("select * from (" + TRASH_QUERY
+                        + ") trash order by entryType, upper(entryName), entryId");
+
+                query.setFirstResult(firstResult);
+                if (maxResults > 0) {
+                    query.setMaxResults(maxResults);
+                }
+
+                List<TrashEntry> entries = new ArrayList<>();
+
+                for (Object result : query.getResultList()) {
+
+                    Object[] row = (Object[]) result;
+                    entries.add(new TrashEntry(TRASH_TYPES.get(((String) row[0]).trim()),
+                            ((Number) row[1]).longValue(), (String) row[2], (String) row[3]));
+                }
+
+                return (entries);
+            }
+        });
+
+        logger.debug("Trash page contains " + trash.size() + " objects");
+        return (trash);
+    }
+
+    /**
+     * Returns the number of objects that are tagged for deletion in the data store.
+     *
+     * @return number of objects in the trash
+     * @throws DataStoreException On problems reading from the data store
+     */
+    public static int getTrashCount() throws DataStoreException {
+
+        return (DataBaseManager.getInstance().read(new UnitOfWork<Integer>() {
+
+            public Integer run(EntityManager entityManager) throws DataStoreException {
+
+                Number count = (Number) entityManager.createNativeQuery("select count(*) from (" + TRASH_QUERY
+                        + ") trash").getSingleResult();
+
+                return (count.intValue());
+            }
+        }));
     }
 
     /**
@@ -169,4 +264,115 @@ public class DataStoreManager {
             throw new DataStoreException(e);
         }
     }
+
+    /**
+     * Stores a large number of new objects, for instance an import, in one transaction. The inserts are sent in JDBC
+     * batches and the persistence context is flushed and cleared after every batch, so memory use doesn't grow with
+     * the number of objects. The objects aren't indexed as they are stored, they are read back and indexed a page at
+     * a time once they have all been committed.
+     * <p/>
+     * Objects are stored in the order provided, an object must come after the objects it refers to. The objects are
+     * detached when this method returns.
+     *
+     * @param objects new objects to store
+     * @return the number of objects stored
+     * @throws DataStoreException on problems writing to the database or the index
+     */
+    public static int bulkSave(final Collection<?> objects) throws DataStoreException {
+
+        long started = System.currentTimeMillis();
+
+        // ids of the stored objects that need indexing, by class
+        final Map<Class<?>, List<Long>> idsIndexable = new LinkedHashMap<>();
+
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.setIndexingSuspendedOnThread(true);
+
+        try {
+
+            DataBaseManager.getInstance().write(new UnitOfWork<Object>() {
+
+                public Object run(EntityManager entityManager) throws DataStoreException {
+
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(BULK_BATCH_SIZE);
+
+                    int count = 0;
+                    for (Object object : objects) {
+
+                        entityManager.persist(object);
+
+                        if (object instanceof Indexable) {
+
+                            List<Long> ids = idsIndexable.get(object.getClass());
+                            if (ids == null) {
+
+                                ids = new ArrayList<>();
+                                idsIndexable.put(object.getClass(), ids);
+                            }
+
+                            ids.add((Long) ((Indexable) object).getId());
+                        }
+
+                        count++;
+                        if (count % BULK_BATCH_SIZE == 0) {
+
+                            entityManager.flush();
+                            entityManager.clear();
+                        }
+                    }
+
+                    return (null);
+                }
+            });
+        } finally {
+
+            indexManager.setIndexingSuspendedOnThread(false);
+        }
+
+        logger.info("Stored " + objects.size() + " objects in " + (System.currentTimeMillis() - started)
+                + " milliseconds");
+
+        for (Map.Entry<Class<?>, List<Long>> entry : idsIndexable.entrySet()) {
+
+            List<Long> ids = entry.getValue();
+            for (int index = 0; index < ids.size(); index += BULK_BATCH_SIZE) {
+                indexPage(entry.getKey(), ids.subList(index, Math.min(ids.size(), index + BULK_BATCH_SIZE)));
+            }
+        }
+
+        logger.info("Stored and indexed " + objects.size() + " objects in "
+                + (System.currentTimeMillis() - started) + " milliseconds");
+
+        return (objects.size());
+    }
+
+    // private methods
+
+    /**
+     * Reads a page of stored objects back and indexes them, waiting until they're in the index so that only one page
+     * of documents is held at a time.
+     *
+     * @param indexedClass class of the objects
+     * @param ids          ids of the objects
+     * @throws DataStoreException on problems reading the database or writing the index
+     */
+    private static void indexPage(final Class<?> indexedClass, final List<Long> ids) throws DataStoreException {
+
+        DataBaseManager.getInstance().read(new UnitOfWork<Object>() {
+
+            public Object run(EntityManager entityManager) throws DataStoreException {
+
+                List<?> page = entityManager.createQuery("from " + indexedClass.getName() + " where id in (:ids)")
+                        .setParameter("ids", ids).getResultList();
+
+                for (Object object : page) {
+                    IndexManager.getInstance().queueIndexable((Indexable) object);
+                }
+
+                return (null);
+            }
+        });
+
+        IndexManager.getInstance().getIndexQueue().flush();
+    }
 }
@@ -0,0 +1,34 @@
+package com.nervestaple.gtdinbox.datastore.database;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Provides an integrator that adds the CollectionCacheListener to every session factory. Hibernate finds it through
+ * META-INF/services/org.hibernate.integrator.spi.Integrator.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class CacheIntegrator implements Integrator {
+
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+
+        CollectionCacheListener collectionCacheListener = new CollectionCacheListener();
+
+        EventListenerRegistry eventListenerRegistry = serviceRegistry.getService(EventListenerRegistry.class);
+        eventListenerRegistry.appendListeners(EventType.POST_INSERT, collectionCacheListener);
+        eventListenerRegistry.appendListeners(EventType.POST_UPDATE, collectionCacheListener);
+        eventListenerRegistry.appendListeners(EventType.POST_DELETE, collectionCacheListener);
+    }
+
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+
+        // nothing to release
+    }
+}
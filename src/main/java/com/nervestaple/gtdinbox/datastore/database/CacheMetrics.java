@@ -0,0 +1,164 @@
+package com.nervestaple.gtdinbox.datastore.database;
+
+import org.apache.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Provides the hit and miss counts of the second-level cache, overall and for each region, from the statistics
+ * Hibernate collects. The numbers can be read through this object or through JMX under the name in OBJECT_NAME.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class CacheMetrics implements CacheMetricsMXBean {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Name the metrics are published under.
+     */
+    public final static String OBJECT_NAME = "com.nervestaple.gtdinbox:type=CacheMetrics";
+
+    /**
+     * Session factory whose cache is measured.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Creates a new CacheMetrics.
+     *
+     * @param sessionFactory session factory whose cache is measured
+     */
+    public CacheMetrics(final SessionFactory sessionFactory) {
+
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Publishes the metrics through the platform MBean server. A problem is logged, the metrics can still be read
+     * through this object.
+     */
+    public void register() {
+
+        try {
+
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Couldn't publish the cache metrics", e);
+        }
+    }
+
+    public long getHitCount() {
+
+        return (getStatistics().getSecondLevelCacheHitCount());
+    }
+
+    public long getMissCount() {
+
+        return (getStatistics().getSecondLevelCacheMissCount());
+    }
+
+    public long getPutCount() {
+
+        return (getStatistics().getSecondLevelCachePutCount());
+    }
+
+    public double getHitRatio() {
+
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+
+        if (lookups == 0) {
+            return (0);
+        }
+
+        return ((double) hits / lookups);
+    }
+
+    public String[] getRegionNames() {
+
+        return (getStatistics().getSecondLevelCacheRegionNames());
+    }
+
+    public long getRegionHitCount(String regionName) {
+
+        CacheRegionStatistics statistics = getRegionStatistics(regionName);
+
+        if (statistics == null) {
+            return (-1);
+        }
+
+        return (statistics.getHitCount());
+    }
+
+    public long getRegionMissCount(String regionName) {
+
+        CacheRegionStatistics statistics = getRegionStatistics(regionName);
+
+        if (statistics == null) {
+            return (-1);
+        }
+
+        return (statistics.getMissCount());
+    }
+
+    public long getRegionElementCount(String regionName) {
+
+        CacheRegionStatistics statistics = getRegionStatistics(regionName);
+
+        if (statistics == null) {
+            return (-1);
+        }
+
+        return (statistics.getElementCountInMemory());
+    }
+
+    public void evictAll() {
+
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    public void reset() {
+
+        getStatistics().clear();
+    }
+
+    // private methods
+
+    private Statistics getStatistics() {
+
+        return (sessionFactory.getStatistics());
+    }
+
+    /**
+     * Returns the statistics of a region.
+     *
+     * @param regionName name of the region
+     * @return CacheRegionStatistics or null if there is no such region
+     */
+    private CacheRegionStatistics getRegionStatistics(String regionName) {
+
+        try {
+            return (getStatistics().getDomainDataRegionStatistics(regionName));
+        } catch (IllegalArgumentException e) {
+
+            logger.debug("No cache region named " + regionName);
+            return (null);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nervestaple.gtdinbox.datastore.database;
+
+/**
+ * Defines the management interface of the second-level cache metrics, published through JMX so they can be watched
+ * with jconsole or any other JMX client while the application runs.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public interface CacheMetricsMXBean {
+
+    /**
+     * Returns the number of entities and collections that were found in the cache.
+     *
+     * @return number of hits
+     */
+    public long getHitCount();
+
+    /**
+     * Returns the number of entities and collections that were looked for in the cache but had to be read from the
+     * database.
+     *
+     * @return number of misses
+     */
+    public long getMissCount();
+
+    /**
+     * Returns the number of entities and collections that were put into the cache.
+     *
+     * @return number of puts
+     */
+    public long getPutCount();
+
+    /**
+     * Returns the share of lookups that were found in the cache.
+     *
+     * @return hit ratio between 0 and 1, 0 if nothing has been looked up yet
+     */
+    public double getHitRatio();
+
+    /**
+     * Returns the names of the cache regions, one for each cacheable entity and collection.
+     *
+     * @return region names
+     */
+    public String[] getRegionNames();
+
+    public long getRegionHitCount(String regionName);
+
+    public long getRegionMissCount(String regionName);
+
+    /**
+     * Returns the number of entries held in memory by a region.
+     *
+     * @param regionName name of the region
+     * @return number of entries, or -1 if there is no such region
+     */
+    public long getRegionElementCount(String regionName);
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public void evictAll();
+
+    /**
+     * Clears the recorded statistics.
+     */
+    public void reset();
+}
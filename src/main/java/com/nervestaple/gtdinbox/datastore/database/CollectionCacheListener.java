@@ -0,0 +1,262 @@
+package com.nervestaple.gtdinbox.datastore.database;
+
+import com.nervestaple.gtdinbox.model.Indexable;
+import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
+import com.nervestaple.gtdinbox.model.project.Project;
+import com.nervestaple.gtdinbox.model.reference.category.Category;
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Provides a listener that keeps the cached inverse collections in step with the items they hold. Hibernate updates
+ * the cache entry of a collection when the collection itself is changed, but the action item lists of projects and
+ * contexts and the reference item lists of categories are mapped by the item's side: moving, adding or removing an
+ * item through a merge or a persist only changes the item. When an item is written, this listener evicts the cached
+ * collections of the item's old and new owners, once as the change is flushed and again after the transaction
+ * completes so that a read racing the commit can't leave the old list in the cache.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class CollectionCacheListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Collections mapped by a property of the items they hold.
+     */
+    private final static List<InverseCollection> INVERSE_COLLECTIONS;
+
+    static {
+
+        INVERSE_COLLECTIONS = new ArrayList<>();
+        INVERSE_COLLECTIONS.add(new InverseCollection(ActionItem.class, "project",
+                Project.class.getName() + ".actionItems"));
+        INVERSE_COLLECTIONS.add(new InverseCollection(ActionItem.class, "inboxContext",
+                InboxContext.class.getName() + ".actionItems"));
+        INVERSE_COLLECTIONS.add(new InverseCollection(ReferenceItem.class, "category",
+                Category.class.getName() + ".referenceItems"));
+    }
+
+    public void onPostInsert(PostInsertEvent event) {
+
+        evictOwners(event.getSession(), event.getPersister(), null, event.getState());
+    }
+
+    public void onPostUpdate(PostUpdateEvent event) {
+
+        evictOwners(event.getSession(), event.getPersister(), event.getOldState(), event.getState());
+    }
+
+    public void onPostDelete(PostDeleteEvent event) {
+
+        evictOwners(event.getSession(), event.getPersister(), event.getDeletedState(), null);
+    }
+
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+
+        return (false);
+    }
+
+    // private methods
+
+    /**
+     * Evicts the cached collections of the owners an item had before and after a change. An update that leaves an
+     * owner alone doesn't evict anything for it.
+     *
+     * @param session   session writing the change
+     * @param persister persister of the changed item
+     * @param oldState  state before the change, null for an insert
+     * @param state     state after the change, null for a delete
+     */
+    private void evictOwners(EventSource session, EntityPersister persister, Object[] oldState, Object[] state) {
+
+        final Set<CollectionEntry> collectionEntries = new LinkedHashSet<>();
+
+        for (InverseCollection inverseCollection : INVERSE_COLLECTIONS) {
+
+            if (!inverseCollection.getEntityClass().isAssignableFrom(persister.getMappedClass())) {
+                continue;
+            }
+
+            Integer index = persister.getEntityMetamodel().getPropertyIndexOrNull(inverseCollection.getProperty());
+            if (index == null) {
+                continue;
+            }
+
+            Serializable ownerIdOld = oldState != null ? getOwnerId(oldState[index]) : null;
+            Serializable ownerIdNew = state != null ? getOwnerId(state[index]) : null;
+
+            if (oldState != null && state != null && ownerIdOld != null && ownerIdOld.equals(ownerIdNew)) {
+                continue;
+            }
+
+            if (ownerIdOld != null) {
+                collectionEntries.add(new CollectionEntry(inverseCollection.getRole(), ownerIdOld));
+            }
+
+            if (ownerIdNew != null) {
+                collectionEntries.add(new CollectionEntry(inverseCollection.getRole(), ownerIdNew));
+            }
+        }
+
+        if (collectionEntries.isEmpty()) {
+            return;
+        }
+
+        evict(session, collectionEntries);
+
+        session.getActionQueue().registerProcess(new AfterTransactionCompletionProcess() {
+
+            public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+
+                evict(session, collectionEntries);
+            }
+        });
+    }
+
+    private void evict(SharedSessionContractImplementor session, Set<CollectionEntry> collectionEntries) {
+
+        for (CollectionEntry collectionEntry : collectionEntries) {
+
+            try {
+                session.getFactory().getCache().evictCollectionData(collectionEntry.getRole(),
+                        collectionEntry.getOwnerId());
+            } catch (HibernateException e) {
+                logger.warn("Couldn't evict " + collectionEntry.getRole() + " from the cache", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the id of an owner without loading it if it's a proxy.
+     *
+     * @param owner the owner or null
+     * @return id of the owner or null
+     */
+    private Serializable getOwnerId(Object owner) {
+
+        if (owner == null) {
+            return (null);
+        }
+
+        if (owner instanceof HibernateProxy) {
+            return (((HibernateProxy) owner).getHibernateLazyInitializer().getIdentifier());
+        }
+
+        return ((Serializable) ((Indexable) owner).getId());
+    }
+
+    /**
+     * Provides a collection that is mapped by a property of the items it holds.
+     */
+    private static class InverseCollection {
+
+        /**
+         * Class of the items.
+         */
+        private final Class entityClass;
+
+        /**
+         * Property of the item that refers to the owner of the collection.
+         */
+        private final String property;
+
+        /**
+         * Role (and cache region) of the collection.
+         */
+        private final String role;
+
+        public InverseCollection(final Class entityClass, final String property, final String role) {
+
+            this.entityClass = entityClass;
+            this.property = property;
+            this.role = role;
+        }
+
+        // accessor methods
+
+        public Class getEntityClass() {
+            return entityClass;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public String getRole() {
+            return role;
+        }
+    }
+
+    /**
+     * Provides the cache entry of one owner's collection.
+     */
+    private static class CollectionEntry {
+
+        /**
+         * Role of the collection.
+         */
+        private final String role;
+
+        /**
+         * Id of the collection's owner.
+         */
+        private final Serializable ownerId;
+
+        public CollectionEntry(final String role, final Serializable ownerId) {
+
+            this.role = role;
+            this.ownerId = ownerId;
+        }
+
+        public boolean equals(Object object) {
+
+            if (!(object instanceof CollectionEntry)) {
+                return (false);
+            }
+
+            CollectionEntry collectionEntry = (CollectionEntry) object;
+
+            return (role.equals(collectionEntry.role) && ownerId.equals(collectionEntry.ownerId));
+        }
+
+        public int hashCode() {
+
+            return (31 * role.hashCode() + ownerId.hashCode());
+        }
+
+        // accessor methods
+
+        public String getRole() {
+            return role;
+        }
+
+        public Serializable getOwnerId() {
+            return ownerId;
+        }
+    }
+}
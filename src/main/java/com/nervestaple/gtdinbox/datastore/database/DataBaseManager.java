@@ -1,8 +1,11 @@
 package com.nervestaple.gtdinbox.datastore.database;
 
 import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
 import org.apache.log4j.Logger;
+import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
@@ -14,7 +17,10 @@ import org.hibernate.tool.schema.TargetType;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
 import javax.persistence.metamodel.EntityType;
+import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -24,6 +30,11 @@ import java.util.Set;
 
 /**
  * Provides an object for managing the data store. This is a singleton instance.
+ * <p/>
+ * The application's long running entity manager belongs to the event dispatch thread, the objects the user interface
+ * shows are attached to it. Work on any other thread should be done in a unit of work with read() or write(): each
+ * unit of work has an entity manager and a pooled connection of its own for as long as it runs, so units of work on
+ * different threads don't share a persistence context and reads run in parallel.
  */
 public class DataBaseManager {
 
@@ -47,6 +58,16 @@ public class DataBaseManager {
      */
     private EntityManagerFactory entityManagerFactory;
 
+    /**
+     * Entity manager of the unit of work running on the current thread, if any.
+     */
+    private final ThreadLocal<EntityManager> entityManagerUnitOfWork = new ThreadLocal<>();
+
+    /**
+     * Hit and miss counts of the second-level cache.
+     */
+    private CacheMetrics cacheMetrics;
+
     static {
 
         DATA_BASE_MANAGER = new DataBaseManager();
@@ -60,6 +81,9 @@ public class DataBaseManager {
         // get a configuration from the application's configuration factory
         entityManagerFactory = ConfigurationFactory.getInstance().getHibernateConfiguration().getEntityManagerFactory();
 
+        cacheMetrics = new CacheMetrics(entityManagerFactory.unwrap(SessionFactory.class));
+        cacheMetrics.register();
+
         // create the database schema, if it's missing
         if (!ConfigurationFactory.getInstance().isTestingConfiguration()) {
             try {
@@ -81,13 +105,18 @@ public class DataBaseManager {
     }
 
     /**
-     * Returns a hibernate entity manager.
+     * Returns a hibernate entity manager. In a unit of work this is the unit of work's entity manager, otherwise it's
+     * the application's long running one.
      *
      * @return entityManager
      * @throws DataBaseManagerException on failure to open a new session
      */
     public EntityManager getEntityManager() throws DataBaseManagerException {
 
+        if (entityManagerUnitOfWork.get() != null) {
+            return (entityManagerUnitOfWork.get());
+        }
+
         if (entityManager == null || !entityManager.isOpen()) {
 
             try {
@@ -102,6 +131,119 @@ public class DataBaseManager {
         return (entityManager);
     }
 
+    /**
+     * Returns a new entity manager, separate from the application's long running one. Use this for work on a
+     * background thread and close it when you are done.
+     *
+     * @return entityManager
+     * @throws DataBaseManagerException on failure to open a new session
+     */
+    public EntityManager createEntityManager() throws DataBaseManagerException {
+
+        try {
+            return (entityManagerFactory.createEntityManager());
+        } catch (HibernateException e) {
+            logger.warn(e, e);
+            throw new DataBaseManagerException(e);
+        }
+    }
+
+    /**
+     * Runs a task that only reads from the database in a unit of work of its own. The task's entity manager is read
+     * only: loaded objects aren't checked for changes and nothing is flushed, which also makes loading a lot of
+     * objects cheaper. The objects the task returns are detached once it's done, anything the caller needs from their
+     * lazy associations has to be loaded by the task.
+     * <p/>
+     * Called from inside another unit of work, the task is run in that one.
+     *
+     * @param unitOfWork the task
+     * @param <T>        type of the task's result
+     * @return the result of the task
+     * @throws DataStoreException on problems running the task
+     */
+    public <T> T read(UnitOfWork<T> unitOfWork) throws DataStoreException {
+
+        if (entityManagerUnitOfWork.get() != null) {
+            return (unitOfWork.run(entityManagerUnitOfWork.get()));
+        }
+
+        return (runUnitOfWork(unitOfWork, true));
+    }
+
+    /**
+     * Runs a task that writes to the database in a unit of work of its own. The task's changes are committed once it
+     * returns and rolled back if it throws an exception or calls rollbackTransaction(). The transaction belongs to the
+     * unit of work, beginTransaction() and commitTransaction() don't do anything inside one.
+     * <p/>
+     * Called from inside another unit of work that writes, the task is run in that one and committed with it.
+     *
+     * @param unitOfWork the task
+     * @param <T>        type of the task's result
+     * @return the result of the task
+     * @throws DataStoreException on problems running the task or committing its changes, or if it's called from inside
+     *                            a unit of work that only reads
+     */
+    public <T> T write(UnitOfWork<T> unitOfWork) throws DataStoreException {
+
+        EntityManager entityManager = entityManagerUnitOfWork.get();
+
+        if (entityManager != null) {
+
+            if (entityManager.unwrap(Session.class).isDefaultReadOnly()) {
+                throw new DataBaseManagerException("Can't write to the database in a unit of work that reads");
+            }
+
+            return (unitOfWork.run(entityManager));
+        }
+
+        return (runUnitOfWork(unitOfWork, false));
+    }
+
+    /**
+     * Reloads an object of the application's entity manager with its state in the database, dropping any changes that
+     * haven't been flushed. Unlike EntityManager.refresh(), the object and its collections are read from the
+     * second-level cache when they are there and only read from the database when they are not. The writes keep the
+     * cache current, so this is how an object shown in the user interface picks up changes written by units of work.
+     * The object stays the same instance, its collections are loaded again the next time they are used.
+     *
+     * @param entity the object
+     * @param id     id of the object
+     * @throws DataBaseManagerException on problems loading the object
+     */
+    public void reload(Object entity, Serializable id) throws DataBaseManagerException {
+
+        Session session = getEntityManager().unwrap(Session.class);
+
+        try {
+
+            session.evict(entity);
+            session.load(entity, id);
+        } catch (HibernateException e) {
+            logger.warn(e, e);
+            throw new DataBaseManagerException(e);
+        }
+    }
+
+    /**
+     * Returns the hit and miss counts of the second-level cache.
+     *
+     * @return CacheMetrics
+     */
+    public CacheMetrics getCacheMetrics() {
+
+        return (cacheMetrics);
+    }
+
+    /**
+     * Returns true if a unit of work is running on the current thread.
+     *
+     * @return boolean
+     */
+    public boolean isInUnitOfWork() {
+
+        return (entityManagerUnitOfWork.get() != null);
+    }
+
     /**
      * Closes the current entity manager.
      * <p/>
@@ -131,6 +273,10 @@ public class DataBaseManager {
      */
     public void beginTransaction() throws DataBaseManagerException {
 
+        if (isInUnitOfWork()) {
+            return;
+        }
+
         if (getEntityManager().getTransaction() == null ||
                 !getEntityManager().getTransaction().isActive()) {
 
@@ -150,6 +296,10 @@ public class DataBaseManager {
      */
     public void commitTransaction() throws DataBaseManagerException {
 
+        if (isInUnitOfWork()) {
+            return;
+        }
+
         if (getEntityManager().getTransaction() != null && getEntityManager().getTransaction().isActive()) {
 
             try {
@@ -168,12 +318,19 @@ public class DataBaseManager {
     }
 
     /**
-     * Rolls back the current transaction.
+     * Rolls back the current transaction. In a unit of work, the unit of work's transaction is rolled back when the
+     * task is done.
      *
      * @throws DataBaseManagerException on failure to roll back the transaction
      */
     public void rollbackTransaction() throws DataBaseManagerException {
 
+        if (isInUnitOfWork()) {
+
+            entityManagerUnitOfWork.get().getTransaction().setRollbackOnly();
+            return;
+        }
+
         if (getEntityManager().getTransaction() != null && getEntityManager().getTransaction().isActive()) {
 
             try {
@@ -256,6 +413,9 @@ public class DataBaseManager {
         schemaExport.drop(EnumSet.of(TargetType.DATABASE, TargetType.STDOUT), getHibernateMetadata());
         commitTransaction();
 
+        // the ids will be handed out again
+        entityManagerFactory.getCache().evictAll();
+
         logger.info("Removed database schema");
     }
 
@@ -309,4 +469,63 @@ public class DataBaseManager {
 
         return (booleanExists);
     }
+
+    // private methods
+
+    /**
+     * Runs a task with a new entity manager in a transaction, then commits or rolls back the transaction and closes
+     * the entity manager.
+     *
+     * @param unitOfWork the task
+     * @param readOnly   true if the task only reads
+     * @param <T>        type of the task's result
+     * @return the result of the task
+     * @throws DataStoreException on problems running the task or committing its changes
+     */
+    private <T> T runUnitOfWork(UnitOfWork<T> unitOfWork, boolean readOnly) throws DataStoreException {
+
+        EntityManager entityManager = createEntityManager();
+
+        if (readOnly) {
+
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+        }
+
+        entityManagerUnitOfWork.set(entityManager);
+
+        try {
+
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+
+            T result = unitOfWork.run(entityManager);
+
+            // a read has nothing to commit
+            if (readOnly || transaction.getRollbackOnly()) {
+                transaction.rollback();
+            } else {
+                transaction.commit();
+            }
+
+            return (result);
+        } catch (PersistenceException e) {
+            throw new DataBaseManagerException(e);
+        } finally {
+
+            entityManagerUnitOfWork.remove();
+
+            try {
+
+                if (entityManager.getTransaction().isActive()) {
+                    entityManager.getTransaction().rollback();
+                }
+            } catch (PersistenceException e) {
+                logger.warn(e);
+            }
+
+            entityManager.close();
+        }
+    }
 }
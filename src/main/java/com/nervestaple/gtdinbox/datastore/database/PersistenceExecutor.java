@@ -0,0 +1,260 @@
+package com.nervestaple.gtdinbox.datastore.database;
+
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
+import com.nervestaple.gtdinbox.utility.batch.BatchHandler;
+import com.nervestaple.gtdinbox.utility.batch.Batcher;
+import org.apache.log4j.Logger;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provides a single writer for changes made from the user interface. Writes are queued and a Batcher's background
+ * thread runs them in groups, each group in one unit of work with one commit, so a burst of small changes costs one
+ * database commit rather than one each. A group is written once no write has been queued for the idle delay, once the
+ * oldest queued write has waited for the maximum delay or once the batch size has been reached, whichever comes
+ * first. Writes made at the pace of someone clicking through a list keep the group open, so a run of clicks is
+ * committed together; the price is that a write reaches the database up to the maximum delay after it was made. This
+ * is a singleton instance.
+ * <p/>
+ * Each write is handed the unit of work's entity manager. Objects that belong to the application's long running entity
+ * manager should be merged or looked up by id, not persisted. If a group fails, its writes are run again one at a
+ * time so that only the write that failed reports the problem, a write may therefore be run twice and must not depend
+ * on having run only once.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class PersistenceExecutor {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Default number of queued writes that will trigger a commit.
+     */
+    public final static int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Default time (in milliseconds) without a new write after which the queued writes are committed.
+     */
+    public final static long DEFAULT_IDLE_DELAY = 1000;
+
+    /**
+     * Default time (in milliseconds) a write may wait before it is committed.
+     */
+    public final static long DEFAULT_MAX_DELAY = 2000;
+
+    /**
+     * Persistence executor instance.
+     */
+    private final static PersistenceExecutor PERSISTENCE_EXECUTOR;
+
+    /**
+     * Batcher holding the queued writes and writing them in groups.
+     */
+    private final Batcher<PendingWrite<?>> batcher;
+
+    static {
+
+        PERSISTENCE_EXECUTOR = new PersistenceExecutor(DEFAULT_BATCH_SIZE, DEFAULT_IDLE_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates a new PersistenceExecutor.
+     *
+     * @param batchSize number of queued writes that will trigger a commit
+     * @param idleDelay time (in milliseconds) without a new write after which the queued writes are committed
+     * @param maxDelay  time (in milliseconds) a write may wait before it is committed
+     */
+    PersistenceExecutor(final int batchSize, final long idleDelay, final long maxDelay) {
+
+        batcher = new Batcher<>("GTDInbox-PersistenceExecutor", batchSize, idleDelay, maxDelay,
+                new BatchHandler<PendingWrite<?>>() {
+
+                    public void handleBatch(List<PendingWrite<?>> batch) {
+
+                        writeBatch(batch);
+                    }
+                });
+    }
+
+    /**
+     * Returns the singleton instance of the persistence executor.
+     *
+     * @return PersistenceExecutor
+     */
+    public static PersistenceExecutor getInstance() {
+
+        return (PERSISTENCE_EXECUTOR);
+    }
+
+    /**
+     * Queues a write. The returned future is completed with the write's result once its group has been committed, or
+     * completed exceptionally with the problem if the write failed.
+     *
+     * @param unitOfWork the write
+     * @param <T>        type of the write's result
+     * @return CompletableFuture
+     */
+    public <T> CompletableFuture<T> submit(final UnitOfWork<T> unitOfWork) {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        if (!batcher.add(new PendingWrite<>(unitOfWork, future))) {
+            future.completeExceptionally(new DataBaseManagerException("The persistence executor has been shut down"));
+        }
+
+        return (future);
+    }
+
+    /**
+     * Returns the number of writes waiting to be committed.
+     *
+     * @return number of queued writes
+     */
+    public int getPendingCount() {
+
+        return (batcher.getPendingCount());
+    }
+
+    /**
+     * Commits all queued writes and waits until they have been written.
+     */
+    public void flush() {
+
+        batcher.flush();
+    }
+
+    /**
+     * Commits all queued writes and stops the background thread. No further writes will be accepted.
+     */
+    public void shutdown() {
+
+        batcher.shutdown();
+    }
+
+    // private methods
+
+    /**
+     * Writes a group in one unit of work and completes the futures of its writes. If the group fails, every write is
+     * run again in a unit of work of its own.
+     *
+     * @param batch the writes of the group
+     */
+    private void writeBatch(final List<PendingWrite<?>> batch) {
+
+        final List<Object> results = new ArrayList<>();
+
+        try {
+
+            logger.debug("Writing " + batch.size() + " changes");
+
+            DataBaseManager.getInstance().write(new UnitOfWork<Object>() {
+
+                public Object run(EntityManager entityManager) throws DataStoreException {
+
+                    for (PendingWrite<?> pendingWrite : batch) {
+                        results.add(pendingWrite.getUnitOfWork().run(entityManager));
+                    }
+
+                    return (null);
+                }
+            });
+        } catch (DataStoreException e) {
+
+            retryBatch(batch, e);
+            return;
+        } catch (RuntimeException e) {
+
+            retryBatch(batch, e);
+            return;
+        }
+
+        for (int index = 0; index < batch.size(); index++) {
+            batch.get(index).complete(results.get(index));
+        }
+    }
+
+    /**
+     * Writes the writes of a failed group one at a time.
+     *
+     * @param batch     the writes of the group
+     * @param exception the problem the group failed with
+     */
+    private void retryBatch(final List<PendingWrite<?>> batch, final Exception exception) {
+
+        if (batch.size() == 1) {
+
+            logger.warn("Could not write a change!", exception);
+            batch.get(0).completeExceptionally(exception);
+            return;
+        }
+
+        logger.warn("Could not write " + batch.size() + " changes together, writing them one at a time", exception);
+
+        for (PendingWrite<?> pendingWrite : batch) {
+
+            try {
+                pendingWrite.complete(DataBaseManager.getInstance().write(pendingWrite.getUnitOfWork()));
+            } catch (DataStoreException e) {
+
+                logger.warn("Could not write a change!", e);
+                pendingWrite.completeExceptionally(e);
+            } catch (RuntimeException e) {
+
+                logger.warn("Could not write a change!", e);
+                pendingWrite.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Provides a queued write and the future its result is handed to.
+     */
+    private static class PendingWrite<T> {
+
+        /**
+         * The write.
+         */
+        private final UnitOfWork<T> unitOfWork;
+
+        /**
+         * Future for the write's result.
+         */
+        private final CompletableFuture<T> future;
+
+        /**
+         * Creates a new PendingWrite.
+         *
+         * @param unitOfWork the write
+         * @param future     future for the write's result
+         */
+        public PendingWrite(final UnitOfWork<T> unitOfWork, final CompletableFuture<T> future) {
+
+            this.unitOfWork = unitOfWork;
+            this.future = future;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void complete(Object result) {
+
+            future.complete((T) result);
+        }
+
+        public void completeExceptionally(Throwable throwable) {
+
+            future.completeExceptionally(throwable);
+        }
+
+        // accessor methods
+
+        public UnitOfWork<T> getUnitOfWork() {
+            return unitOfWork;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.nervestaple.gtdinbox.datastore.database;
+
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Defines an interface for a task that reads from or writes to the database, run with DataBaseManager.read() or
+ * DataBaseManager.write(). The task is handed an entity manager of its own, in a transaction, and shouldn't keep it or
+ * the objects it loads with it past the end of the task.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public interface UnitOfWork<T> {
+
+    /**
+     * Method called to do the work.
+     *
+     * @param entityManager entity manager to do the work with
+     * @return the result of the work
+     * @throws DataStoreException on problems doing the work, the transaction is rolled back
+     */
+    public T run(EntityManager entityManager) throws DataStoreException;
+}
@@ -0,0 +1,450 @@
+package com.nervestaple.gtdinbox.datastore.generator;
+
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
+import com.nervestaple.gtdinbox.datastore.DataStoreManager;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
+import com.nervestaple.gtdinbox.model.project.Project;
+import com.nervestaple.gtdinbox.model.reference.category.Category;
+import com.nervestaple.gtdinbox.model.tag.Tag;
+import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
+import org.apache.log4j.Logger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a realistic data store for testing and measuring the application with a lot of data. The shape of the
+ * data comes from a DatasetSpecification and everything is made from its seed, so the same specification always
+ * makes the same dataset (apart from the dates, which are relative to now).
+ * <p/>
+ * The objects are created in memory by generate() and can be stored with persist(), either through the normal
+ * persistence path, where every object is indexed as it's stored, or through a bulk path that batches the inserts
+ * and indexes the objects once at the end.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class DatasetGenerator {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Words the names and descriptions are made of.
+     */
+    public final static String[] WORDS = {"call", "email", "report", "quarterly", "budget", "review", "meeting",
+            "draft", "invoice", "garden", "groceries", "dentist", "plan", "trip", "follow", "schedule", "contract",
+            "proposal", "printer", "renew", "insurance", "slides", "agenda", "backup", "laptop", "receipts"};
+
+    /**
+     * Names of the first contexts, later ones are numbered.
+     */
+    private final static String[] CONTEXTS = {"Home", "Office", "Phone", "Computer", "Errands", "Agenda",
+            "Waiting For", "Someday"};
+
+    /**
+     * Names of the first tags, later ones are numbered.
+     */
+    private final static String[] TAGS = {"urgent", "finance", "family", "health", "travel", "work", "house",
+            "car", "school", "shopping", "reading", "writing"};
+
+    /**
+     * Number of objects stored in each transaction.
+     */
+    private final static int BATCH_SIZE = 500;
+
+    /**
+     * Milliseconds in a day.
+     */
+    private final static long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Shape of the dataset.
+     */
+    private final DatasetSpecification datasetSpecification;
+
+    /**
+     * Generated contexts.
+     */
+    private List<InboxContext> contexts;
+
+    /**
+     * Generated categories.
+     */
+    private List<Category> categories;
+
+    /**
+     * Generated tags.
+     */
+    private List<Tag> tags;
+
+    /**
+     * Generated projects.
+     */
+    private List<Project> projects;
+
+    /**
+     * Generated action items.
+     */
+    private List<ActionItem> actionItems;
+
+    /**
+     * Generated reference items.
+     */
+    private List<ReferenceItem> referenceItems;
+
+    /**
+     * Creates a new DatasetGenerator.
+     *
+     * @param datasetSpecification shape of the dataset
+     */
+    public DatasetGenerator(final DatasetSpecification datasetSpecification) {
+
+        this.datasetSpecification = datasetSpecification;
+    }
+
+    /**
+     * Creates the objects of the dataset in memory, without storing them.
+     */
+    public void generate() {
+
+        Random random = new Random(datasetSpecification.getSeed());
+        Date now = new Date();
+
+        contexts = new ArrayList<>();
+        for (int index = 0; index < datasetSpecification.getContexts(); index++) {
+
+            InboxContext inboxContext = new InboxContext();
+            inboxContext.setName(getName(CONTEXTS, index, "Context"));
+            inboxContext.setDescription("Things to do at or with " + inboxContext.getName().toLowerCase());
+            inboxContext.setDeleted(isDeleted(random));
+            contexts.add(inboxContext);
+        }
+
+        categories = new ArrayList<>();
+        for (int index = 0; index < datasetSpecification.getCategories(); index++) {
+
+            Category category = new Category();
+            category.setName("Category " + (index + 1) + " " + getWord(random));
+            category.setDescription(createDescription(random));
+            category.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            category.setDeleted(isDeleted(random));
+            categories.add(category);
+        }
+
+        tags = new ArrayList<>();
+        for (int index = 0; index < datasetSpecification.getTags(); index++) {
+
+            Tag tag = new Tag();
+            tag.setName(getName(TAGS, index, "tag"));
+            tag.setDeleted(isDeleted(random));
+            tags.add(tag);
+        }
+
+        projects = new ArrayList<>();
+        for (int index = 0; index < datasetSpecification.getProjects(); index++) {
+
+            Project project = new Project();
+            project.setName("Project " + (index + 1) + " " + getWord(random));
+            project.setDescription(createDescription(random));
+            project.setTextStyleType(getTextStyleType(random));
+            project.setCreatedDate(getCreatedDate(random, now));
+            project.setDeleted(isDeleted(random));
+            projects.add(project);
+        }
+
+        actionItems = new ArrayList<>();
+        for (int index = 0; index < datasetSpecification.getActionItems(); index++) {
+            actionItems.add(createActionItem(random, now));
+        }
+
+        referenceItems = new ArrayList<>();
+        for (int index = 0; index < datasetSpecification.getReferenceItems(); index++) {
+            referenceItems.add(createReferenceItem(random, now));
+        }
+    }
+
+    /**
+     * Stores the generated objects. Call generate() first.
+     * <p/>
+     * The normal path stores the objects through the application's entity manager the way the application does and
+     * every object is indexed as it's stored. The bulk path stores them with DataStoreManager.bulkSave(), which
+     * batches the inserts and indexes the objects once they are all stored.
+     *
+     * @param bulk true to take the bulk path
+     * @throws DataStoreException on problems writing to the database or the index
+     */
+    public void persist(boolean bulk) throws DataStoreException {
+
+        if (actionItems == null) {
+            throw new DataStoreException("The dataset hasn't been generated");
+        }
+
+        // the objects the items point to are stored before the items
+        List<Object> objects = new ArrayList<>();
+        objects.addAll(contexts);
+        objects.addAll(categories);
+        objects.addAll(tags);
+        objects.addAll(projects);
+
+        if (bulk) {
+
+            objects.addAll(actionItems);
+            objects.addAll(referenceItems);
+
+            DataStoreManager.bulkSave(objects);
+            return;
+        }
+
+        try {
+
+            EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
+
+            // the objects the items point to are kept, the items are cleared as they're stored
+            persistObjects(entityManager, objects, false);
+            persistObjects(entityManager, actionItems, true);
+            persistObjects(entityManager, referenceItems, true);
+        } catch (DataBaseManagerException e) {
+            throw new DataStoreException(e);
+        } catch (PersistenceException e) {
+            throw new DataStoreException(e);
+        }
+
+        IndexManager.getInstance().getIndexQueue().flush();
+    }
+
+    // accessor methods
+
+    public DatasetSpecification getDatasetSpecification() {
+        return datasetSpecification;
+    }
+
+    public List<InboxContext> getContexts() {
+        return contexts;
+    }
+
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public List<Tag> getTags() {
+        return tags;
+    }
+
+    public List<Project> getProjects() {
+        return projects;
+    }
+
+    public List<ActionItem> getActionItems() {
+        return actionItems;
+    }
+
+    public List<ReferenceItem> getReferenceItems() {
+        return referenceItems;
+    }
+
+    // private methods
+
+    /**
+     * Stores objects, committing every BATCH_SIZE objects.
+     *
+     * @param entityManager entity manager to store the objects with
+     * @param objects       the objects
+     * @param clear         true to clear the persistence context after every commit, to keep it small
+     * @throws DataBaseManagerException on problems writing to the database
+     */
+    private void persistObjects(EntityManager entityManager, List<?> objects, boolean clear)
+            throws DataBaseManagerException {
+
+        DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+
+        dataBaseManager.beginTransaction();
+        for (int index = 0; index < objects.size(); index++) {
+
+            entityManager.persist(objects.get(index));
+
+            if ((index + 1) % BATCH_SIZE == 0) {
+
+                dataBaseManager.commitTransaction();
+
+                if (clear) {
+                    entityManager.clear();
+                }
+
+                logger.debug("Stored " + (index + 1) + " of " + objects.size() + " objects");
+
+                dataBaseManager.beginTransaction();
+            }
+        }
+        dataBaseManager.commitTransaction();
+
+        if (clear) {
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * Creates an action item. The fields are set before the item is added to its project, context and tag, their
+     * sets hash the items by value.
+     *
+     * @param random source of the data
+     * @param now    time the dates are relative to
+     * @return ActionItem
+     */
+    private ActionItem createActionItem(Random random, Date now) {
+
+        ActionItem actionItem = new ActionItem();
+        actionItem.setDescription(createDescription(random));
+        actionItem.setDescriptionTextStyleType(getTextStyleType(random));
+
+        Date createdDate = getCreatedDate(random, now);
+        actionItem.setCreatedDate(createdDate);
+        actionItem.setLastModifiedDate(createdDate);
+
+        if (random.nextDouble() < datasetSpecification.getCompletedRatio()) {
+
+            Date completedDate = new Date(now.getTime()
+                    - random.nextInt(Math.max(1, datasetSpecification.getCompletedDays())) * DAY);
+            actionItem.setCompletedDate(completedDate.before(createdDate) ? createdDate : completedDate);
+            actionItem.setLastModifiedDate(actionItem.getCompletedDate());
+        }
+
+        actionItem.setDeleted(isDeleted(random));
+
+        if (!contexts.isEmpty() && random.nextDouble() < datasetSpecification.getContextRatio()) {
+            actionItem.setInboxContext(contexts.get(random.nextInt(contexts.size())));
+        }
+
+        if (!projects.isEmpty()) {
+            projects.get(random.nextInt(projects.size())).addActionItem(actionItem);
+        }
+
+        if (!tags.isEmpty() && random.nextDouble() < datasetSpecification.getTaggedRatio()) {
+
+            // only the item's side, a tag's own set of items would have to be loaded on every change
+            actionItem.getTags().add(tags.get(random.nextInt(tags.size())));
+        }
+
+        return (actionItem);
+    }
+
+    /**
+     * Creates a reference item.
+     *
+     * @param random source of the data
+     * @param now    time the dates are relative to
+     * @return ReferenceItem
+     */
+    private ReferenceItem createReferenceItem(Random random, Date now) {
+
+        ReferenceItem referenceItem = new ReferenceItem();
+        referenceItem.setName(getWord(random) + " " + getWord(random));
+        referenceItem.setDescription(createDescription(random));
+        referenceItem.setDescriptionTextStyleType(getTextStyleType(random));
+
+        Date createdDate = getCreatedDate(random, now);
+        referenceItem.setCreatedDate(createdDate);
+        referenceItem.setLastModifiedDate(createdDate);
+        referenceItem.setDeleted(isDeleted(random));
+
+        if (!categories.isEmpty()) {
+            categories.get(random.nextInt(categories.size())).addReferenceItem(referenceItem);
+        }
+
+        if (!tags.isEmpty() && random.nextDouble() < datasetSpecification.getTaggedRatio()) {
+            referenceItem.getTags().add(tags.get(random.nextInt(tags.size())));
+        }
+
+        return (referenceItem);
+    }
+
+    /**
+     * Creates a markdown description of one to four sentences, some words with emphasis or a link, and now and then
+     * a short list. Plain text items get the same text, it just isn't rendered.
+     *
+     * @param random source of the data
+     * @return the description
+     */
+    private String createDescription(Random random) {
+
+        StringBuilder description = new StringBuilder();
+
+        int sentences = 1 + random.nextInt(4);
+        for (int sentence = 0; sentence < sentences; sentence++) {
+
+            String word = getWord(random);
+            description.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+
+            int words = 3 + random.nextInt(8);
+            for (int index = 0; index < words; index++) {
+
+                word = getWord(random);
+
+                switch (random.nextInt(12)) {
+                    case 0:
+                        description.append(" **").append(word).append("**");
+                        break;
+                    case 1:
+                        description.append(" _").append(word).append("_");
+                        break;
+                    case 2:
+                        description.append(" [").append(word).append("](http://example.com/").append(word)
+                                .append(")");
+                        break;
+                    default:
+                        description.append(" ").append(word);
+                }
+            }
+
+            description.append(". ");
+        }
+
+        if (random.nextInt(5) == 0) {
+
+            description.append("\n\n");
+            for (int index = 0; index < 3; index++) {
+                description.append("* ").append(getWord(random)).append("\n");
+            }
+        }
+
+        return (description.toString().trim());
+    }
+
+    private String getWord(Random random) {
+
+        return (WORDS[random.nextInt(WORDS.length)]);
+    }
+
+    private String getName(String[] names, int index, String prefix) {
+
+        return (index < names.length ? names[index] : prefix + " " + (index + 1));
+    }
+
+    private TextStyleType getTextStyleType(Random random) {
+
+        return (random.nextDouble() < datasetSpecification.getMarkdownRatio()
+                ? TextStyleType.MARKDOWN_TEXT : TextStyleType.PLAIN_TEXT);
+    }
+
+    private Date getCreatedDate(Random random, Date now) {
+
+        return (new Date(now.getTime() - random.nextInt(Math.max(1, datasetSpecification.getCreatedDays())) * DAY));
+    }
+
+    private boolean isDeleted(Random random) {
+
+        return (random.nextDouble() < datasetSpecification.getDeletedRatio());
+    }
+}
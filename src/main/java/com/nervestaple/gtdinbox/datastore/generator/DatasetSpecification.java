@@ -0,0 +1,231 @@
+package com.nervestaple.gtdinbox.datastore.generator;
+
+/**
+ * Provides the shape of a generated dataset: how many of each kind of object to create and how the action items are
+ * spread over completed, deleted and markdown items. Ratios are between 0 and 1.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class DatasetSpecification {
+
+    /**
+     * Default seed of the generated data.
+     */
+    public final static long DEFAULT_SEED = 20061018;
+
+    /**
+     * Average number of action items in a project, used by forActionItems().
+     */
+    private final static int ITEMS_PER_PROJECT = 25;
+
+    /**
+     * Number of projects.
+     */
+    private int projects = 40;
+
+    /**
+     * Number of contexts.
+     */
+    private int contexts = 8;
+
+    /**
+     * Number of reference categories.
+     */
+    private int categories = 10;
+
+    /**
+     * Number of tags.
+     */
+    private int tags = 12;
+
+    /**
+     * Number of action items.
+     */
+    private int actionItems = 1000;
+
+    /**
+     * Number of reference items.
+     */
+    private int referenceItems = 250;
+
+    /**
+     * Share of the action items that are completed.
+     */
+    private double completedRatio = 0.33;
+
+    /**
+     * Share of the objects that are in the trash.
+     */
+    private double deletedRatio = 0.05;
+
+    /**
+     * Share of the descriptions written in markdown, the rest are plain text.
+     */
+    private double markdownRatio = 0.75;
+
+    /**
+     * Share of the action items that have a context.
+     */
+    private double contextRatio = 0.8;
+
+    /**
+     * Share of the items that are tagged.
+     */
+    private double taggedRatio = 0.66;
+
+    /**
+     * Number of days back the creation dates are spread over.
+     */
+    private int createdDays = 730;
+
+    /**
+     * Number of days back the completion dates are spread over.
+     */
+    private int completedDays = 60;
+
+    /**
+     * Seed of the generated data, the same seed and specification make the same dataset.
+     */
+    private long seed = DEFAULT_SEED;
+
+    /**
+     * Returns a specification for the provided number of action items, with the other counts scaled to match: a
+     * project for every 25 items, a reference item for every four and a few more categories and tags in a large
+     * store.
+     *
+     * @param actionItems number of action items
+     * @return DatasetSpecification
+     */
+    public static DatasetSpecification forActionItems(int actionItems) {
+
+        DatasetSpecification datasetSpecification = new DatasetSpecification();
+        datasetSpecification.setActionItems(actionItems);
+        datasetSpecification.setProjects(Math.max(1, actionItems / ITEMS_PER_PROJECT));
+        datasetSpecification.setReferenceItems(actionItems / 4);
+        datasetSpecification.setCategories(Math.max(1, Math.min(100, actionItems / 100)));
+        datasetSpecification.setTags(12 + Math.min(88, actionItems / 1000));
+
+        return (datasetSpecification);
+    }
+
+    public String toString() {
+
+        return (actionItems + " action items in " + projects + " projects, " + referenceItems
+                + " reference items in " + categories + " categories, " + contexts + " contexts, " + tags + " tags");
+    }
+
+    // accessor and mutator methods
+
+    public int getProjects() {
+        return projects;
+    }
+
+    public void setProjects(int projects) {
+        this.projects = projects;
+    }
+
+    public int getContexts() {
+        return contexts;
+    }
+
+    public void setContexts(int contexts) {
+        this.contexts = contexts;
+    }
+
+    public int getCategories() {
+        return categories;
+    }
+
+    public void setCategories(int categories) {
+        this.categories = categories;
+    }
+
+    public int getTags() {
+        return tags;
+    }
+
+    public void setTags(int tags) {
+        this.tags = tags;
+    }
+
+    public int getActionItems() {
+        return actionItems;
+    }
+
+    public void setActionItems(int actionItems) {
+        this.actionItems = actionItems;
+    }
+
+    public int getReferenceItems() {
+        return referenceItems;
+    }
+
+    public void setReferenceItems(int referenceItems) {
+        this.referenceItems = referenceItems;
+    }
+
+    public double getCompletedRatio() {
+        return completedRatio;
+    }
+
+    public void setCompletedRatio(double completedRatio) {
+        this.completedRatio = completedRatio;
+    }
+
+    public double getDeletedRatio() {
+        return deletedRatio;
+    }
+
+    public void setDeletedRatio(double deletedRatio) {
+        this.deletedRatio = deletedRatio;
+    }
+
+    public double getMarkdownRatio() {
+        return markdownRatio;
+    }
+
+    public void setMarkdownRatio(double markdownRatio) {
+        this.markdownRatio = markdownRatio;
+    }
+
+    public double getContextRatio() {
+        return contextRatio;
+    }
+
+    public void setContextRatio(double contextRatio) {
+        this.contextRatio = contextRatio;
+    }
+
+    public double getTaggedRatio() {
+        return taggedRatio;
+    }
+
+    public void setTaggedRatio(double taggedRatio) {
+        this.taggedRatio = taggedRatio;
+    }
+
+    public int getCreatedDays() {
+        return createdDays;
+    }
+
+    public void setCreatedDays(int createdDays) {
+        this.createdDays = createdDays;
+    }
+
+    public int getCompletedDays() {
+        return completedDays;
+    }
+
+    public void setCompletedDays(int completedDays) {
+        this.completedDays = completedDays;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
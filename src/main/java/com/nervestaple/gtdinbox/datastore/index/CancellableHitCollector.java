@@ -0,0 +1,135 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.utility.stoppable.CancellationToken;
+import org.apache.lucene.search.HitCollector;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.PriorityQueue;
+
+/**
+ * Provides a collector that keeps the best scoring hits of a search and counts the rest. It checks its cancellation
+ * token for every hit and abandons the search with a CancelledException once the token has been cancelled. When it's
+ * given a FacetCounter every hit is also counted by its facet values, in the same pass.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+class CancellableHitCollector extends HitCollector {
+
+    /**
+     * Token checked for cancellation.
+     */
+    private final CancellationToken cancellationToken;
+
+    /**
+     * Queue of the best hits, the worst of them on top.
+     */
+    private final ScoreDocQueue scoreDocQueue;
+
+    /**
+     * Counter for the facet values of the hits, null if they aren't counted.
+     */
+    private final FacetCounter facetCounter;
+
+    /**
+     * Number of matching documents.
+     */
+    private int totalHits;
+
+    /**
+     * Creates a new CancellableHitCollector.
+     *
+     * @param maxHits           number of hits to keep
+     * @param cancellationToken token checked for cancellation
+     */
+    public CancellableHitCollector(final int maxHits, final CancellationToken cancellationToken) {
+
+        this(maxHits, cancellationToken, null);
+    }
+
+    /**
+     * Creates a new CancellableHitCollector that also counts the hits by their facet values.
+     *
+     * @param maxHits           number of hits to keep
+     * @param cancellationToken token checked for cancellation
+     * @param facetCounter      counter for the facet values of the hits, may be null
+     */
+    public CancellableHitCollector(final int maxHits, final CancellationToken cancellationToken,
+                                   final FacetCounter facetCounter) {
+
+        this.cancellationToken = cancellationToken;
+        this.facetCounter = facetCounter;
+
+        scoreDocQueue = new ScoreDocQueue(Math.max(maxHits, 1));
+    }
+
+    public void collect(int doc, float score) {
+
+        if (cancellationToken.isCancelled()) {
+            throw new CancelledException();
+        }
+
+        if (score > 0.0f) {
+
+            totalHits++;
+            scoreDocQueue.insert(new ScoreDoc(doc, score));
+
+            if (facetCounter != null) {
+                facetCounter.count(doc);
+            }
+        }
+    }
+
+    /**
+     * Returns the hits that were kept, best first. This empties the collector's queue.
+     *
+     * @return array of ScoreDoc instances
+     */
+    public ScoreDoc[] getScoreDocs() {
+
+        ScoreDoc[] scoreDocs = new ScoreDoc[scoreDocQueue.size()];
+
+        for (int index = scoreDocs.length - 1; index >= 0; index--) {
+            scoreDocs[index] = (ScoreDoc) scoreDocQueue.pop();
+        }
+
+        return (scoreDocs);
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * Thrown out of the search when the collector's token has been cancelled.
+     */
+    static class CancelledException extends RuntimeException {
+
+        public CancelledException() {
+
+            super("The search was cancelled");
+        }
+    }
+
+    /**
+     * Orders hits by score and then by document number, the same order the index searcher uses.
+     */
+    private static class ScoreDocQueue extends PriorityQueue {
+
+        public ScoreDocQueue(int size) {
+
+            initialize(size);
+        }
+
+        protected boolean lessThan(Object object1, Object object2) {
+
+            ScoreDoc scoreDoc1 = (ScoreDoc) object1;
+            ScoreDoc scoreDoc2 = (ScoreDoc) object2;
+
+            if (scoreDoc1.score == scoreDoc2.score) {
+                return (scoreDoc1.doc > scoreDoc2.doc);
+            }
+
+            return (scoreDoc1.score < scoreDoc2.score);
+        }
+    }
+}
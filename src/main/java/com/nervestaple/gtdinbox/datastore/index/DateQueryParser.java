@@ -0,0 +1,321 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.document.DateTools;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RangeFilter;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Provides a parser for the date filters in a search, like "completed:[last week]" or "created:>2026-01-01". The
+ * filters are taken out of the search text and turned into range filters on the date fields, the rest of the text is
+ * left for the QueryParser.
+ * <p/>
+ * Dates are indexed as single terms at minute resolution (yyyyMMddHHmm), which sort in date order, so a range of
+ * dates is a range of terms. The filters are applied with RangeFilter, it matches any number of terms without
+ * expanding the query.
+ * <p/>
+ * Supported values, all dates are yyyy-MM-dd:
+ * <ul>
+ * <li>a date: that day</li>
+ * <li>&gt;date, &gt;=date, &lt;date, &lt;=date: open ranges</li>
+ * <li>[date TO date]: both days included</li>
+ * <li>[today], [yesterday], [this week], [last week], [this month], [last month], [this year], [last year]</li>
+ * </ul>
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class DateQueryParser {
+
+    /**
+     * Matches a filter: a field name, a colon and a bracketed or unbracketed value.
+     */
+    private final static Pattern PATTERN_FILTER = Pattern.compile("(\\w+):(\\[[^\\]]*\\]|\\S+)");
+
+    /**
+     * Matches a comparison with a date.
+     */
+    private final static Pattern PATTERN_COMPARISON = Pattern.compile("(<=|>=|<|>)?(\\d{4}-\\d{2}-\\d{2})");
+
+    /**
+     * Matches a range between two dates.
+     */
+    private final static Pattern PATTERN_RANGE =
+            Pattern.compile("\\[\\s*(\\d{4}-\\d{2}-\\d{2})\\s+to\\s+(\\d{4}-\\d{2}-\\d{2})\\s*\\]",
+                    Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Date fields, keyed by the names that may be used in a search.
+     */
+    private final static Map<String, String> FIELDS;
+
+    static {
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("created", "createdDate");
+        fields.put("createddate", "createdDate");
+        fields.put("completed", "completedDate");
+        fields.put("completeddate", "completedDate");
+        fields.put("modified", "lastModifiedDate");
+        fields.put("lastmodifieddate", "lastModifiedDate");
+
+        FIELDS = Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Time the relative ranges are computed from.
+     */
+    private final Date now;
+
+    /**
+     * Creates a new DateQueryParser for relative ranges around the current time.
+     */
+    public DateQueryParser() {
+
+        this(new Date());
+    }
+
+    /**
+     * Creates a new DateQueryParser.
+     *
+     * @param now time the relative ranges are computed from
+     */
+    public DateQueryParser(final Date now) {
+
+        this.now = now;
+    }
+
+    /**
+     * Takes the date filters out of a search.
+     *
+     * @param searchText text of the search
+     * @return the filters and the remaining text
+     * @throws IndexManagerException if a date filter can't be understood
+     */
+    public DateSearch parse(String searchText) throws IndexManagerException {
+
+        List<RangeFilter> filters = new ArrayList<>();
+        StringBuffer text = new StringBuffer();
+
+        Matcher matcher = PATTERN_FILTER.matcher(searchText);
+        while (matcher.find()) {
+
+            String field = FIELDS.get(matcher.group(1).toLowerCase());
+
+            if (field == null) {
+
+                // not a date field, leave it for the query parser
+                matcher.appendReplacement(text, Matcher.quoteReplacement(matcher.group()));
+                continue;
+            }
+
+            filters.add(createFilter(field, matcher.group(2)));
+            matcher.appendReplacement(text, "");
+        }
+        matcher.appendTail(text);
+
+        return (new DateSearch(text.toString().trim().replaceAll("\\s+", " "), filters));
+    }
+
+    // private methods
+
+    /**
+     * Creates the filter for one date value.
+     *
+     * @param field name of the date field
+     * @param value the value
+     * @return RangeFilter
+     * @throws IndexManagerException if the value can't be understood
+     */
+    private RangeFilter createFilter(String field, String value) throws IndexManagerException {
+
+        Matcher matcherRange = PATTERN_RANGE.matcher(value);
+        if (matcherRange.matches()) {
+
+            Date lower = parseDate(matcherRange.group(1));
+            Date upper = addDays(parseDate(matcherRange.group(2)), 1);
+
+            return (createFilter(field, lower, upper));
+        }
+
+        Matcher matcherComparison = PATTERN_COMPARISON.matcher(value);
+        if (matcherComparison.matches()) {
+
+            String operator = matcherComparison.group(1);
+            Date day = parseDate(matcherComparison.group(2));
+
+            if (operator == null) {
+                return (createFilter(field, day, addDays(day, 1)));
+            } else if (operator.equals(">")) {
+                return (createFilter(field, addDays(day, 1), null));
+            } else if (operator.equals(">=")) {
+                return (createFilter(field, day, null));
+            } else if (operator.equals("<")) {
+                return (createFilter(field, null, day));
+            }
+
+            return (createFilter(field, null, addDays(day, 1)));
+        }
+
+        String relative = value.toLowerCase();
+        if (relative.startsWith("[") && relative.endsWith("]")) {
+            relative = relative.substring(1, relative.length() - 1).trim().replaceAll("\\s+", " ");
+        }
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        Date today = calendar.getTime();
+
+        if (relative.equals("today")) {
+            return (createFilter(field, today, addDays(today, 1)));
+        } else if (relative.equals("yesterday")) {
+            return (createFilter(field, addDays(today, -1), today));
+        } else if (relative.equals("this week") || relative.equals("last week")) {
+
+            calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+            if (calendar.getTime().after(today)) {
+                calendar.add(Calendar.WEEK_OF_YEAR, -1);
+            }
+            Date weekStart = calendar.getTime();
+
+            if (relative.equals("this week")) {
+                return (createFilter(field, weekStart, addDays(weekStart, 7)));
+            }
+
+            return (createFilter(field, addDays(weekStart, -7), weekStart));
+        } else if (relative.equals("this month") || relative.equals("last month")) {
+
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+            Date monthStart = calendar.getTime();
+
+            calendar.add(Calendar.MONTH, relative.equals("this month") ? 1 : -1);
+            Date monthOther = calendar.getTime();
+
+            if (relative.equals("this month")) {
+                return (createFilter(field, monthStart, monthOther));
+            }
+
+            return (createFilter(field, monthOther, monthStart));
+        } else if (relative.equals("this year") || relative.equals("last year")) {
+
+            calendar.set(Calendar.DAY_OF_YEAR, 1);
+            Date yearStart = calendar.getTime();
+
+            calendar.add(Calendar.YEAR, relative.equals("this year") ? 1 : -1);
+            Date yearOther = calendar.getTime();
+
+            if (relative.equals("this year")) {
+                return (createFilter(field, yearStart, yearOther));
+            }
+
+            return (createFilter(field, yearOther, yearStart));
+        }
+
+        throw new IndexManagerException("I don't understand the date \"" + value + "\"");
+    }
+
+    /**
+     * Creates a filter for the dates from the lower bound (included) up to the upper bound (excluded).
+     *
+     * @param field name of the date field
+     * @param lower lower bound, null for no lower bound
+     * @param upper upper bound, null for no upper bound
+     * @return RangeFilter
+     */
+    private RangeFilter createFilter(String field, Date lower, Date upper) {
+
+        return (new RangeFilter(field,
+                lower != null ? DateTools.dateToString(lower, DateTools.Resolution.MINUTE) : null,
+                upper != null ? DateTools.dateToString(upper, DateTools.Resolution.MINUTE) : null,
+                lower != null, false));
+    }
+
+    private Date parseDate(String value) throws IndexManagerException {
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setLenient(false);
+
+        try {
+            return (format.parse(value));
+        } catch (ParseException e) {
+            throw new IndexManagerException("I don't understand the date \"" + value + "\"");
+        }
+    }
+
+    private Date addDays(Date date, int days) {
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.add(Calendar.DAY_OF_MONTH, days);
+
+        return (calendar.getTime());
+    }
+
+    /**
+     * Provides the result of parsing a search: the date filters and the text that's left.
+     */
+    public static class DateSearch {
+
+        /**
+         * Text that's left once the filters are taken out.
+         */
+        private final String text;
+
+        /**
+         * Date filters.
+         */
+        private final List<RangeFilter> filters;
+
+        public DateSearch(final String text, final List<RangeFilter> filters) {
+
+            this.text = text;
+            this.filters = Collections.unmodifiableList(filters);
+        }
+
+        /**
+         * Applies the date filters to a query. With no query every document within the dates matches.
+         *
+         * @param query query for the remaining text, may be null
+         * @return Query
+         */
+        public Query filter(Query query) {
+
+            Query queryFiltered = query != null ? query : new MatchAllDocsQuery();
+
+            for (RangeFilter filter : filters) {
+                queryFiltered = new FilteredQuery(queryFiltered, filter);
+            }
+
+            return (queryFiltered);
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public List<RangeFilter> getFilters() {
+            return filters;
+        }
+
+        public boolean hasFilters() {
+            return (!filters.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.model.Indexable;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides an object that builds Lucene documents for one class of indexed object. Every document gets an "id", a
+ * "class" and a "key" field, the remaining fields are described by the IndexFields added to the builder.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class DocumentBuilder<T extends Indexable> {
+
+    /**
+     * Name of the id field.
+     */
+    public final static String FIELD_ID = "id";
+
+    /**
+     * Name of the class field.
+     */
+    public final static String FIELD_CLASS = "class";
+
+    /**
+     * Name of the key field, it holds the class name and id as one term and identifies the object's document.
+     */
+    public final static String FIELD_KEY = "key";
+
+    /**
+     * Class of the indexed objects.
+     */
+    private final Class<T> indexedClass;
+
+    /**
+     * Lower-cased class name stored in the "class" field.
+     */
+    private final String className;
+
+    /**
+     * Partition of the index the documents are written to.
+     */
+    private final IndexPartition partition;
+
+    /**
+     * Fields added to every document.
+     */
+    private final List<IndexField<T>> fields;
+
+    /**
+     * Lazy associations the fields read, they are fetched with the objects when the index is rebuilt.
+     */
+    private final List<String> fetches;
+
+    /**
+     * Creates a new DocumentBuilder.
+     *
+     * @param indexedClass class of the indexed objects
+     * @param partition    partition of the index the documents are written to
+     */
+    public DocumentBuilder(final Class<T> indexedClass, final IndexPartition partition) {
+
+        this.indexedClass = indexedClass;
+        this.partition = partition;
+
+        className = indexedClass.getName().toLowerCase();
+        fields = new ArrayList<>();
+        fetches = new ArrayList<>();
+    }
+
+    /**
+     * Adds a field to the documents built by this builder.
+     *
+     * @param field field to add
+     * @return this builder
+     */
+    public DocumentBuilder<T> addField(IndexField<T> field) {
+
+        fields.add(field);
+
+        return (this);
+    }
+
+    /**
+     * Adds a lazy association that is read by this builder's fields.
+     *
+     * @param attribute name of the association
+     * @return this builder
+     */
+    public DocumentBuilder<T> addFetch(String attribute) {
+
+        fetches.add(attribute);
+
+        return (this);
+    }
+
+    /**
+     * Returns true if the documents built by this builder have a field with the provided name.
+     *
+     * @param name name of the field
+     * @return boolean
+     */
+    public boolean hasField(String name) {
+
+        for (int index = 0; index < fields.size(); index++) {
+
+            if (fields.get(index).getName().equals(name)) {
+                return (true);
+            }
+        }
+
+        return (false);
+    }
+
+    /**
+     * Returns the key for the object with the provided class name and id.
+     *
+     * @param className lower-cased class name of the object
+     * @param id        id of the object
+     * @return String with the class name and id
+     */
+    public static String getKey(String className, String id) {
+
+        return (className + "#" + id);
+    }
+
+    /**
+     * Builds a document for the provided object.
+     *
+     * @param object object to index
+     * @return Document
+     */
+    public Document build(T object) {
+
+        Document document = new Document();
+
+        String id = object.getId().toString();
+
+        document.add(new Field(FIELD_ID, id, Field.Store.YES, Field.Index.UN_TOKENIZED));
+        document.add(new Field(FIELD_CLASS, className, Field.Store.YES, Field.Index.UN_TOKENIZED));
+        document.add(new Field(FIELD_KEY, getKey(className, id), Field.Store.YES, Field.Index.UN_TOKENIZED));
+
+        for (int index = 0; index < fields.size(); index++) {
+
+            List<Field> fieldsObject = fields.get(index).createFields(object);
+
+            for (int indexField = 0; indexField < fieldsObject.size(); indexField++) {
+                document.add(fieldsObject.get(indexField));
+            }
+        }
+
+        return (document);
+    }
+
+    // accessor methods
+
+    public Class<T> getIndexedClass() {
+        return indexedClass;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public IndexPartition getPartition() {
+        return partition;
+    }
+
+    public List<IndexField<T>> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    public List<String> getFetches() {
+        return Collections.unmodifiableList(fetches);
+    }
+}
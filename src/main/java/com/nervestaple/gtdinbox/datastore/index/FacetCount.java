@@ -0,0 +1,59 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+/**
+ * Provides an object that holds the number of search hits with one value of a facet field, like the hits in one
+ * project or with one tag.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class FacetCount {
+
+    /**
+     * Name of the facet field.
+     */
+    private final String field;
+
+    /**
+     * Value of the field.
+     */
+    private final String value;
+
+    /**
+     * Number of hits with the value.
+     */
+    private final int count;
+
+    /**
+     * Creates a new FacetCount.
+     *
+     * @param field name of the facet field
+     * @param value value of the field
+     * @param count number of hits with the value
+     */
+    public FacetCount(final String field, final String value, final int count) {
+
+        this.field = field;
+        this.value = value;
+        this.count = count;
+    }
+
+    // accessor methods
+
+    public String getField() {
+        return field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public String toString() {
+
+        return (field + ":" + value + " (" + count + ")");
+    }
+}
@@ -0,0 +1,146 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.index.IndexReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Provides an object that counts the hits of a search by the values of facet fields. It's fed every hit while the
+ * hits are collected, counting a hit only adds one to an array entry for each of its values, see FacetOrdinals.
+ * <p/>
+ * This object is not thread safe.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+class FacetCounter {
+
+    /**
+     * Names of the counted fields.
+     */
+    private final String[] fields;
+
+    /**
+     * Ordinals of each field's values.
+     */
+    private final FacetOrdinals[] facetOrdinals;
+
+    /**
+     * Counts of each field's values, indexed by ordinal.
+     */
+    private final int[][] counts;
+
+    /**
+     * Creates a new FacetCounter.
+     *
+     * @param indexReader reader the hits are from
+     * @param fields      names of the fields to count
+     * @throws IOException on problems reading the field values
+     */
+    public FacetCounter(final IndexReader indexReader, final String[] fields) throws IOException {
+
+        this.fields = fields;
+
+        facetOrdinals = new FacetOrdinals[fields.length];
+        counts = new int[fields.length][];
+
+        for (int index = 0; index < fields.length; index++) {
+
+            facetOrdinals[index] = FacetOrdinals.getOrdinals(indexReader, fields[index]);
+            counts[index] = new int[facetOrdinals[index].getValueCount()];
+        }
+    }
+
+    /**
+     * Counts a hit.
+     *
+     * @param doc the hit's document
+     */
+    public void count(int doc) {
+
+        for (int index = 0; index < facetOrdinals.length; index++) {
+            facetOrdinals[index].count(doc, counts[index]);
+        }
+    }
+
+    /**
+     * Returns the most common values of every field, in the order the fields were provided. Values are sorted by
+     * their count, most common first, and then alphabetically.
+     *
+     * @param maxValues maximum number of values for each field
+     * @return Map of field names to Lists of FacetCount instances
+     */
+    public Map<String, List<FacetCount>> getFacets(int maxValues) {
+
+        return (getFacets(Collections.singletonList(this), maxValues));
+    }
+
+    /**
+     * Returns the most common values of every field over several counters, the counts of the same value are added
+     * together. This is used to combine the counts of the partitions of the index, the counters must all count the
+     * same fields.
+     *
+     * @param facetCounters the counters
+     * @param maxValues     maximum number of values for each field
+     * @return Map of field names to Lists of FacetCount instances
+     */
+    public static Map<String, List<FacetCount>> getFacets(List<FacetCounter> facetCounters, int maxValues) {
+
+        Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+
+        if (facetCounters.isEmpty()) {
+            return (facets);
+        }
+
+        String[] fields = facetCounters.get(0).fields;
+
+        for (int indexField = 0; indexField < fields.length; indexField++) {
+
+            // sorted by value, a stable sort keeps them alphabetical within a count
+            Map<String, Integer> countsField = new TreeMap<>();
+
+            for (FacetCounter facetCounter : facetCounters) {
+
+                int[] countsCounter = facetCounter.counts[indexField];
+
+                for (int ordinal = 0; ordinal < countsCounter.length; ordinal++) {
+
+                    if (countsCounter[ordinal] > 0) {
+
+                        String value = facetCounter.facetOrdinals[indexField].getValue(ordinal);
+                        Integer count = countsField.get(value);
+                        countsField.put(value, count == null ? countsCounter[ordinal] : count + countsCounter[ordinal]);
+                    }
+                }
+            }
+
+            List<FacetCount> facetCounts = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : countsField.entrySet()) {
+                facetCounts.add(new FacetCount(fields[indexField], entry.getKey(), entry.getValue()));
+            }
+
+            Collections.sort(facetCounts, new Comparator<FacetCount>() {
+
+                public int compare(FacetCount facetCount1, FacetCount facetCount2) {
+
+                    return (facetCount2.getCount() - facetCount1.getCount());
+                }
+            });
+
+            if (facetCounts.size() > maxValues) {
+                facetCounts = new ArrayList<>(facetCounts.subList(0, maxValues));
+            }
+
+            facets.put(fields[indexField], Collections.unmodifiableList(facetCounts));
+        }
+
+        return (facets);
+    }
+}
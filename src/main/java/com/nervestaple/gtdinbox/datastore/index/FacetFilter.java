@@ -0,0 +1,124 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.search.Filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Provides a filter that narrows a search to the documents with every one of a set of facet values, like the hits in
+ * one project that also have a tag. Each value is read as a bit set of its documents and the bit sets are intersected.
+ * <p/>
+ * The result is kept for each reader, so paging through or refreshing a narrowed search doesn't read the terms again
+ * until the index changes. Filters with the same values are equal, searches narrowed the same way share their cached
+ * results.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class FacetFilter extends Filter {
+
+    /**
+     * The facet values, as field and value terms.
+     */
+    private final List<Term> terms;
+
+    /**
+     * Bits computed for each reader.
+     */
+    private transient Map<IndexReader, BitSet> cache;
+
+    /**
+     * Creates a new FacetFilter.
+     *
+     * @param terms the facet values, as field and value terms
+     */
+    public FacetFilter(final List<Term> terms) {
+
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("A facet filter needs at least one value");
+        }
+
+        this.terms = Collections.unmodifiableList(new ArrayList<>(terms));
+    }
+
+    public BitSet bits(IndexReader indexReader) throws IOException {
+
+        synchronized (this) {
+
+            if (cache == null) {
+                cache = new WeakHashMap<>();
+            }
+
+            BitSet bits = cache.get(indexReader);
+
+            if (bits == null) {
+
+                bits = readBits(indexReader, terms.get(0));
+                for (int index = 1; index < terms.size() && !bits.isEmpty(); index++) {
+                    bits.and(readBits(indexReader, terms.get(index)));
+                }
+
+                cache.put(indexReader, bits);
+            }
+
+            return (bits);
+        }
+    }
+
+    public boolean equals(Object object) {
+
+        if (this == object) {
+            return (true);
+        }
+
+        if (!(object instanceof FacetFilter)) {
+            return (false);
+        }
+
+        return (terms.equals(((FacetFilter) object).terms));
+    }
+
+    public int hashCode() {
+
+        return (terms.hashCode());
+    }
+
+    public String toString() {
+
+        return ("FacetFilter" + terms);
+    }
+
+    // accessor methods
+
+    public List<Term> getTerms() {
+        return terms;
+    }
+
+    // private methods
+
+    private BitSet readBits(IndexReader indexReader, Term term) throws IOException {
+
+        BitSet bits = new BitSet(indexReader.maxDoc());
+
+        TermDocs termDocs = indexReader.termDocs(term);
+        try {
+
+            while (termDocs.next()) {
+                bits.set(termDocs.doc());
+            }
+        } finally {
+            termDocs.close();
+        }
+
+        return (bits);
+    }
+}
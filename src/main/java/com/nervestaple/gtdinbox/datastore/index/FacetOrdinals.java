@@ -0,0 +1,186 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Provides the values of one untokenized field for every document of an index reader, as ordinals into the field's
+ * sorted list of terms. A document may have any number of values: the ordinals of document n are
+ * ordinals[starts[n]] up to ordinals[starts[n + 1]].
+ * <p/>
+ * Reading the ordinals walks every term of the field once, so they are cached for each reader and field, the same way
+ * Lucene's FieldCache caches field values. The cache entry goes away with its reader.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+class FacetOrdinals {
+
+    /**
+     * Ordinals keyed by reader and then by field name.
+     */
+    private final static Map<IndexReader, Map<String, FacetOrdinals>> CACHE = new WeakHashMap<>();
+
+    /**
+     * Values of the field, in term order.
+     */
+    private final String[] values;
+
+    /**
+     * Offset of each document's first ordinal, with one more entry for the end of the last document.
+     */
+    private final int[] starts;
+
+    /**
+     * Ordinals of every document's values.
+     */
+    private final int[] ordinals;
+
+    private FacetOrdinals(final String[] values, final int[] starts, final int[] ordinals) {
+
+        this.values = values;
+        this.starts = starts;
+        this.ordinals = ordinals;
+    }
+
+    /**
+     * Returns the ordinals of a field for the provided reader, reading them from the index the first time they are
+     * asked for.
+     *
+     * @param indexReader the reader
+     * @param field       name of the field
+     * @return FacetOrdinals
+     * @throws IOException on problems reading the index
+     */
+    public static FacetOrdinals getOrdinals(IndexReader indexReader, String field) throws IOException {
+
+        synchronized (CACHE) {
+
+            Map<String, FacetOrdinals> ordinalsReader = CACHE.get(indexReader);
+
+            if (ordinalsReader == null) {
+
+                ordinalsReader = new HashMap<>();
+                CACHE.put(indexReader, ordinalsReader);
+            }
+
+            FacetOrdinals facetOrdinals = ordinalsReader.get(field);
+
+            if (facetOrdinals == null) {
+
+                facetOrdinals = read(indexReader, field.intern());
+                ordinalsReader.put(field, facetOrdinals);
+            }
+
+            return (facetOrdinals);
+        }
+    }
+
+    /**
+     * Returns the number of distinct values.
+     *
+     * @return int
+     */
+    public int getValueCount() {
+
+        return (values.length);
+    }
+
+    /**
+     * Returns the value with the provided ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return String
+     */
+    public String getValue(int ordinal) {
+
+        return (values[ordinal]);
+    }
+
+    /**
+     * Adds one to the count of every value of a document.
+     *
+     * @param doc    the document
+     * @param counts counts indexed by ordinal
+     */
+    public void count(int doc, int[] counts) {
+
+        for (int index = starts[doc]; index < starts[doc + 1]; index++) {
+            counts[ordinals[index]]++;
+        }
+    }
+
+    // private methods
+
+    /**
+     * Reads the ordinals of a field from the index. The terms are walked twice, first to count the values of each
+     * document and then to fill them in.
+     *
+     * @param indexReader the reader
+     * @param field       interned name of the field
+     * @return FacetOrdinals
+     * @throws IOException on problems reading the index
+     */
+    private static FacetOrdinals read(IndexReader indexReader, String field) throws IOException {
+
+        int maxDoc = indexReader.maxDoc();
+
+        List<String> values = new ArrayList<>();
+        int[] starts = new int[maxDoc + 1];
+
+        TermDocs termDocs = indexReader.termDocs();
+        try {
+
+            TermEnum termEnum = indexReader.terms(new Term(field, ""));
+            try {
+
+                do {
+
+                    Term term = termEnum.term();
+
+                    if (term == null || term.field() != field) {
+                        break;
+                    }
+
+                    values.add(term.text());
+
+                    termDocs.seek(termEnum);
+                    while (termDocs.next()) {
+                        starts[termDocs.doc() + 1]++;
+                    }
+                } while (termEnum.next());
+            } finally {
+                termEnum.close();
+            }
+
+            for (int index = 0; index < maxDoc; index++) {
+                starts[index + 1] += starts[index];
+            }
+
+            int[] ordinals = new int[starts[maxDoc]];
+            int[] positions = new int[maxDoc];
+            System.arraycopy(starts, 0, positions, 0, maxDoc);
+
+            for (int ordinal = 0; ordinal < values.size(); ordinal++) {
+
+                termDocs.seek(new Term(field, values.get(ordinal)));
+                while (termDocs.next()) {
+                    ordinals[positions[termDocs.doc()]++] = ordinal;
+                }
+            }
+
+            return (new FacetOrdinals(values.toArray(new String[values.size()]), starts, ordinals));
+        } finally {
+            termDocs.close();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.Token;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Provides an object that shows where a query matched the stored text of a search hit. The text is run through the
+ * index's analyzer and every token the query looks for is marked in bold, only a short fragment around the first
+ * match is returned.
+ * <p/>
+ * The terms are taken from the query without reading the index: prefix and wildcard terms are matched against the
+ * tokens directly instead of being expanded, so a highlighter is cheap to create. Terms in prohibited clauses aren't
+ * highlighted.
+ * <p/>
+ * This object is thread safe once it has been created.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class HitHighlighter {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Maximum length of a fragment, not counting the markup.
+     */
+    private final static int FRAGMENT_LENGTH = 120;
+
+    /**
+     * Number of characters kept in front of the first match.
+     */
+    private final static int FRAGMENT_CONTEXT = 30;
+
+    /**
+     * Terms to highlight, keyed by field.
+     */
+    private final Map<String, Set<String>> terms;
+
+    /**
+     * Prefixes to highlight, keyed by field.
+     */
+    private final Map<String, List<String>> prefixes;
+
+    /**
+     * Wildcard patterns to highlight, keyed by field.
+     */
+    private final Map<String, List<Pattern>> patterns;
+
+    /**
+     * Analyzer the text is split into tokens with, the same the index is written with.
+     */
+    private final Analyzer analyzer;
+
+    /**
+     * Creates a new HitHighlighter.
+     *
+     * @param query the query the hits were found with
+     */
+    public HitHighlighter(final Query query) {
+
+        terms = new HashMap<>();
+        prefixes = new HashMap<>();
+        patterns = new HashMap<>();
+
+        analyzer = new StandardAnalyzer();
+
+        addQuery(query);
+    }
+
+    /**
+     * Returns a fragment of a hit's description where the query matched it, or of its name if the description didn't
+     * match.
+     *
+     * @param searchHit the hit
+     * @return HTML fragment with the matches in bold, or null if neither field matches
+     */
+    public String getSnippet(SearchHit searchHit) {
+
+        String snippet = highlight("description", searchHit.getDescription());
+
+        if (snippet == null) {
+            snippet = highlight("name", searchHit.getName());
+        }
+
+        return (snippet);
+    }
+
+    /**
+     * Returns a fragment of a field's text with every match of the query in bold. The fragment starts a little before
+     * the first match, text that's cut off is marked with an ellipsis.
+     *
+     * @param field name of the field
+     * @param text  stored text of the field
+     * @return HTML fragment, or null if the query doesn't match the text
+     */
+    public String highlight(String field, String text) {
+
+        if (text == null || (!terms.containsKey(field) && !prefixes.containsKey(field)
+                && !patterns.containsKey(field))) {
+            return (null);
+        }
+
+        List<int[]> matches = new ArrayList<>();
+
+        try {
+
+            TokenStream tokenStream = analyzer.tokenStream(field, new StringReader(text));
+            try {
+
+                Token token = tokenStream.next();
+                while (token != null) {
+
+                    if (isMatch(field, token.termText())) {
+                        matches.add(new int[]{token.startOffset(), token.endOffset()});
+                    }
+
+                    token = tokenStream.next();
+                }
+            } finally {
+                tokenStream.close();
+            }
+        } catch (IOException e) {
+
+            logger.warn(e);
+            return (null);
+        }
+
+        if (matches.isEmpty()) {
+            return (null);
+        }
+
+        int start = Math.max(0, matches.get(0)[0] - FRAGMENT_CONTEXT);
+        if (start > 0) {
+
+            // start on a word
+            int space = text.indexOf(' ', start);
+            if (space >= 0 && space < matches.get(0)[0]) {
+                start = space + 1;
+            }
+        }
+
+        int end = Math.min(text.length(), start + FRAGMENT_LENGTH);
+
+        StringBuilder fragment = new StringBuilder();
+        if (start > 0) {
+            fragment.append("&hellip;");
+        }
+
+        int position = start;
+        for (int[] match : matches) {
+
+            if (match[0] >= end) {
+                break;
+            }
+
+            fragment.append(escape(text.substring(position, match[0])));
+            fragment.append("<b>").append(escape(text.substring(match[0], Math.min(match[1], end)))).append("</b>");
+            position = Math.min(match[1], end);
+        }
+        fragment.append(escape(text.substring(position, end)));
+
+        if (end < text.length()) {
+            fragment.append("&hellip;");
+        }
+
+        return (fragment.toString());
+    }
+
+    // private methods
+
+    /**
+     * Adds the terms of a query and its clauses.
+     *
+     * @param query the query
+     */
+    private void addQuery(Query query) {
+
+        if (query instanceof TermQuery) {
+
+            addTerm(((TermQuery) query).getTerm());
+        } else if (query instanceof PhraseQuery) {
+
+            Term[] termsPhrase = ((PhraseQuery) query).getTerms();
+            for (int index = 0; index < termsPhrase.length; index++) {
+                addTerm(termsPhrase[index]);
+            }
+        } else if (query instanceof PrefixQuery) {
+
+            Term prefix = ((PrefixQuery) query).getPrefix();
+            getList(prefixes, prefix.field()).add(prefix.text());
+        } else if (query instanceof WildcardQuery) {
+
+            Term term = ((WildcardQuery) query).getTerm();
+            getList(patterns, term.field()).add(createPattern(term.text()));
+        } else if (query instanceof FuzzyQuery) {
+
+            addTerm(((FuzzyQuery) query).getTerm());
+        } else if (query instanceof FilteredQuery) {
+
+            addQuery(((FilteredQuery) query).getQuery());
+        } else if (query instanceof BooleanQuery) {
+
+            BooleanClause[] clauses = ((BooleanQuery) query).getClauses();
+            for (int index = 0; index < clauses.length; index++) {
+
+                if (!clauses[index].isProhibited()) {
+                    addQuery(clauses[index].getQuery());
+                }
+            }
+        }
+    }
+
+    private void addTerm(Term term) {
+
+        Set<String> termsField = terms.get(term.field());
+
+        if (termsField == null) {
+
+            termsField = new HashSet<>();
+            terms.put(term.field(), termsField);
+        }
+
+        termsField.add(term.text());
+    }
+
+    private <T> List<T> getList(Map<String, List<T>> map, String field) {
+
+        List<T> list = map.get(field);
+
+        if (list == null) {
+
+            list = new ArrayList<>();
+            map.put(field, list);
+        }
+
+        return (list);
+    }
+
+    /**
+     * Returns true if a token of a field is one of the query's terms.
+     *
+     * @param field    name of the field
+     * @param termText text of the token
+     * @return boolean
+     */
+    private boolean isMatch(String field, String termText) {
+
+        Set<String> termsField = terms.get(field);
+        if (termsField != null && termsField.contains(termText)) {
+            return (true);
+        }
+
+        List<String> prefixesField = prefixes.get(field);
+        if (prefixesField != null) {
+
+            for (String prefix : prefixesField) {
+
+                if (termText.startsWith(prefix)) {
+                    return (true);
+                }
+            }
+        }
+
+        List<Pattern> patternsField = patterns.get(field);
+        if (patternsField != null) {
+
+            for (Pattern pattern : patternsField) {
+
+                if (pattern.matcher(termText).matches()) {
+                    return (true);
+                }
+            }
+        }
+
+        return (false);
+    }
+
+    /**
+     * Turns a wildcard term into a regular expression, "*" matches any number of characters and "?" matches one.
+     *
+     * @param wildcard text of the wildcard term
+     * @return Pattern
+     */
+    private Pattern createPattern(String wildcard) {
+
+        StringBuilder regex = new StringBuilder();
+
+        for (int index = 0; index < wildcard.length(); index++) {
+
+            char character = wildcard.charAt(index);
+
+            if (character == '*') {
+                regex.append(".*");
+            } else if (character == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(character)));
+            }
+        }
+
+        return (Pattern.compile(regex.toString()));
+    }
+
+    private String escape(String text) {
+
+        return (text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replaceAll("\\s+", " "));
+    }
+}
@@ -0,0 +1,61 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+/**
+ * Enumerates the ways the IndexManager can hold the index.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public enum IndexDirectoryMode {
+
+    /**
+     * The index is read and written through the file system, this is the default.
+     */
+    FILE_SYSTEM("fs"),
+
+    /**
+     * The index files are memory-mapped, best suited to large indexes on 64-bit JVMs.
+     */
+    MEMORY_MAPPED("mmap"),
+
+    /**
+     * The index is kept on the heap. It is loaded from the storage location if there is an index there and is only
+     * written back if snapshots are enabled, suited to tests and small stores.
+     */
+    HEAP("heap");
+
+    /**
+     * Value of the mode in the configuration.
+     */
+    private final String value;
+
+    IndexDirectoryMode(final String value) {
+
+        this.value = value;
+    }
+
+    public String getValue() {
+
+        return (value);
+    }
+
+    /**
+     * Returns the mode with the provided configuration value.
+     *
+     * @param value configuration value
+     * @return IndexDirectoryMode, FILE_SYSTEM if the value doesn't match a mode
+     */
+    public static IndexDirectoryMode fromValue(String value) {
+
+        IndexDirectoryMode[] modes = values();
+
+        for (int index = 0; index < modes.length; index++) {
+
+            if (modes[index].value.equalsIgnoreCase(value)) {
+                return (modes[index]);
+            }
+        }
+
+        return (FILE_SYSTEM);
+    }
+}
@@ -0,0 +1,151 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.document.DateTools;
+import org.apache.lucene.document.Field;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Provides an object that describes one field of an indexed document and how its value is read from the indexed
+ * object. Subclasses implement getValue() with a direct call to the object's accessor. A keyword field whose value is a
+ * Collection is indexed once for every element, for fields like the names of an object's tags.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public abstract class IndexField<T> {
+
+    /**
+     * Types of index fields.
+     */
+    public enum Type {
+
+        /**
+         * Indexed as a single term, for ids, class names and flags.
+         */
+        KEYWORD,
+
+        /**
+         * Run through the analyzer, for names and descriptions.
+         */
+        TEXT,
+
+        /**
+         * A date indexed as a single term at minute resolution.
+         */
+        DATE
+    }
+
+    /**
+     * Name of the field.
+     */
+    private final String name;
+
+    /**
+     * Type of the field.
+     */
+    private final Type type;
+
+    /**
+     * Flag indicating if the value is stored in the index.
+     */
+    private final Field.Store store;
+
+    /**
+     * Creates a new IndexField.
+     *
+     * @param name  name of the field
+     * @param type  type of the field
+     * @param store whether the value is stored in the index
+     */
+    public IndexField(final String name, final Type type, final Field.Store store) {
+
+        this.name = name;
+        this.type = type;
+        this.store = store;
+    }
+
+    /**
+     * Returns the value of this field for the provided object.
+     *
+     * @param object indexed object
+     * @return the value or null if the field should be left out of the document
+     */
+    public abstract Object getValue(T object);
+
+    /**
+     * Creates the Lucene fields for the provided object: one field for every element of a keyword field's Collection
+     * value, otherwise the single field created by createField(). The object's accessor is only called once.
+     *
+     * @param object indexed object
+     * @return List of Field instances, empty if the object has no value for this field
+     */
+    public List<Field> createFields(T object) {
+
+        List<Field> fields = new ArrayList<>();
+
+        Object value = getValue(object);
+
+        if (type == Type.KEYWORD && value instanceof Collection) {
+
+            for (Object element : (Collection) value) {
+
+                if (element != null) {
+                    fields.add(new Field(name, element.toString(), store, Field.Index.UN_TOKENIZED));
+                }
+            }
+        } else {
+
+            Field field = createField(value);
+
+            if (field != null) {
+                fields.add(field);
+            }
+        }
+
+        return (fields);
+    }
+
+    // accessor methods
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Field.Store getStore() {
+        return store;
+    }
+
+    // private methods
+
+    /**
+     * Creates the Lucene field for a value already read from the indexed object.
+     *
+     * @param value value of the field
+     * @return Field or null if the value is null
+     */
+    private Field createField(Object value) {
+
+        if (value == null) {
+            return (null);
+        }
+
+        if (type == Type.DATE) {
+
+            return (new Field(name, DateTools.dateToString((Date) value, DateTools.Resolution.MINUTE),
+                    store, Field.Index.UN_TOKENIZED));
+        } else if (type == Type.KEYWORD) {
+
+            return (new Field(name, value.toString(), store, Field.Index.UN_TOKENIZED));
+        }
+
+        return (new Field(name, value.toString(), store, Field.Index.TOKENIZED));
+    }
+}
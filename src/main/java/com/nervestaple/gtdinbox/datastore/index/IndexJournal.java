@@ -0,0 +1,286 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Provides an append-only journal of the index operations that haven't been committed to the index yet. Every queued
+ * operation is written to the journal before it is queued, as one line holding its type, class and id, and the journal
+ * is cut back to the operations that are still outstanding once a batch has been committed. Whatever is in the
+ * journal at startup was lost on its way to the index and is replayed.
+ * <p/>
+ * Records are handed to the operating system as they are appended, so they survive the application being killed.
+ * They are forced to the disk in batches, before each batch of operations is committed, see sync(). A record that was
+ * only partly written (the last line has no line end) is ignored.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+class IndexJournal {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Separates the fields of a record.
+     */
+    private final static char SEPARATOR = '\t';
+
+    /**
+     * Ends a record.
+     */
+    private final static char END = '\n';
+
+    /**
+     * Suffix of the file a shortened journal is written to before it replaces the journal.
+     */
+    private final static String SUFFIX_NEW = ".new";
+
+    /**
+     * The journal file.
+     */
+    private final File file;
+
+    /**
+     * Stream appending to the journal, null until the journal is opened.
+     */
+    private FileOutputStream outputStream;
+
+    /**
+     * Flag to indicate records have been appended since the journal was last forced to the disk.
+     */
+    private boolean dirty;
+
+    /**
+     * Creates a new IndexJournal.
+     *
+     * @param file the journal file
+     */
+    public IndexJournal(final File file) {
+
+        this.file = file;
+    }
+
+    /**
+     * Reads the operations in the journal. The operations have no documents, only their type, class and id.
+     *
+     * @return List of IndexOperation instances, oldest first
+     * @throws IOException on problems reading the journal
+     */
+    public synchronized List<IndexOperation> read() throws IOException {
+
+        List<IndexOperation> operations = new ArrayList<>();
+
+        if (!file.exists()) {
+            return (operations);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputStream inputStream = new FileInputStream(file);
+        try {
+
+            byte[] buffer = new byte[4096];
+            int length = inputStream.read(buffer);
+            while (length >= 0) {
+
+                bytes.write(buffer, 0, length);
+                length = inputStream.read(buffer);
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+
+        int start = 0;
+        int end = text.indexOf(END);
+        while (end >= 0) {
+
+            IndexOperation operation = parse(text.substring(start, end));
+
+            if (operation != null) {
+                operations.add(operation);
+            }
+
+            start = end + 1;
+            end = text.indexOf(END, start);
+        }
+
+        if (start < text.length()) {
+            logger.warn("Ignoring a partly written record at the end of " + file);
+        }
+
+        return (operations);
+    }
+
+    /**
+     * Opens the journal for appending. Any partly written record at its end is cut off first.
+     *
+     * @throws IOException on problems opening the journal
+     */
+    public synchronized void open() throws IOException {
+
+        if (outputStream != null) {
+            return;
+        }
+
+        // rewrite rather than append, a partly written last record would swallow the next one
+        reset(read());
+    }
+
+    /**
+     * Appends an operation to the journal and hands it to the operating system. The record isn't forced to the disk
+     * until the next call to sync().
+     *
+     * @param operation the operation
+     * @throws IndexManagerException on problems writing the journal
+     */
+    public synchronized void append(IndexOperation operation) throws IndexManagerException {
+
+        if (outputStream == null) {
+            throw new IndexManagerException("The index journal isn't open");
+        }
+
+        try {
+            outputStream.write(format(operation));
+        } catch (IOException e) {
+            throw new IndexManagerException(e);
+        }
+
+        dirty = true;
+    }
+
+    /**
+     * Forces the records appended since the last call to the disk.
+     */
+    public synchronized void sync() {
+
+        if (outputStream == null || !dirty) {
+            return;
+        }
+
+        try {
+
+            outputStream.getChannel().force(false);
+            dirty = false;
+        } catch (IOException e) {
+            logger.warn("Couldn't write the index journal to disk", e);
+        }
+    }
+
+    /**
+     * Replaces the contents of the journal with the provided operations, called once the other operations have been
+     * committed to the index. An empty journal is truncated in place, otherwise the new journal is written next to the
+     * old one and moved over it so there is always a complete journal on disk.
+     *
+     * @param operations operations that are still outstanding
+     * @throws IOException on problems writing the journal
+     */
+    public synchronized void reset(Collection<IndexOperation> operations) throws IOException {
+
+        if (operations.isEmpty() && outputStream != null) {
+
+            outputStream.getChannel().truncate(0);
+            outputStream.getChannel().force(false);
+            dirty = false;
+
+            return;
+        }
+
+        File fileNew = new File(file.getParentFile(), file.getName() + SUFFIX_NEW);
+
+        FileOutputStream outputStreamNew = new FileOutputStream(fileNew);
+        try {
+
+            for (IndexOperation operation : operations) {
+                outputStreamNew.write(format(operation));
+            }
+
+            outputStreamNew.getChannel().force(false);
+        } finally {
+            outputStreamNew.close();
+        }
+
+        close();
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Couldn't replace the index journal " + file);
+        }
+
+        if (!fileNew.renameTo(file)) {
+            throw new IOException("Couldn't move the index journal to " + file);
+        }
+
+        outputStream = new FileOutputStream(file, true);
+        dirty = false;
+    }
+
+    /**
+     * Closes the journal, it can be opened again.
+     */
+    public synchronized void close() {
+
+        if (outputStream == null) {
+            return;
+        }
+
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            logger.warn(e);
+        }
+
+        outputStream = null;
+    }
+
+    // private methods
+
+    /**
+     * Formats one record of the journal.
+     *
+     * @param operation the operation
+     * @return the record, with its line end
+     */
+    private byte[] format(IndexOperation operation) {
+
+        return ((operation.getType().name() + SEPARATOR + operation.getClassName() + SEPARATOR + operation.getId()
+                + END).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses one record of the journal.
+     *
+     * @param record the record, without its line end
+     * @return IndexOperation or null if the record can't be understood
+     */
+    private IndexOperation parse(String record) {
+
+        String[] fields = record.split(String.valueOf(SEPARATOR), -1);
+
+        if (fields.length != 3) {
+
+            logger.warn("Ignoring the index journal record \"" + record + "\"");
+            return (null);
+        }
+
+        try {
+            return (new IndexOperation(IndexOperation.Type.valueOf(fields[0]), fields[1], fields[2], null));
+        } catch (IllegalArgumentException e) {
+
+            logger.warn("Ignoring the index journal record \"" + record + "\"");
+            return (null);
+        }
+    }
+}
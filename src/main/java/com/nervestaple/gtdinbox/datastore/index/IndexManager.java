@@ -1,14 +1,14 @@
 package com.nervestaple.gtdinbox.datastore.index;
 
 import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
+import com.nervestaple.gtdinbox.configuration.application.ApplicationConfiguration;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
 import com.nervestaple.gtdinbox.model.Indexable;
-import com.nervestaple.gtdinbox.utility.stoppable.StoppableRunnable;
-import com.nervestaple.gtdinbox.utility.stoppable.StoppableThread;
-import org.apache.commons.beanutils.BeanMap;
+import com.nervestaple.gtdinbox.utility.stoppable.CancellationToken;
 import org.apache.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
-import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.index.IndexReader;
@@ -17,13 +17,32 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.RAMDirectory;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 
 
 /**
@@ -48,24 +67,25 @@ public class IndexManager {
     private File indexStorageLocation;
 
     /**
-     * Index directory
+     * Index directories, indexed by partition ordinal.
      */
-    private Directory directory;
+    private Directory[] directories;
 
     /**
-     * Index writer
+     * Index writers, indexed by partition ordinal.
      */
-    private IndexWriter indexWriter;
+    private IndexWriter[] indexWriters;
 
     /**
-     * Index reader
+     * Index readers used for deleting documents, indexed by partition ordinal. A partition's reader is closed before
+     * its writer is opened.
      */
-    private IndexReader indexReader;
+    private IndexReader[] indexReaders;
 
     /**
-     * Index Searcher
+     * Manager for the shared index searcher.
      */
-    private IndexSearcher indexSearcher;
+    private SearcherManager searcherManager;
 
     /**
      * Index manager listeners.
@@ -73,9 +93,146 @@ public class IndexManager {
     private List listeners;
 
     /**
-     * Thread for running searches
+     * Executor that runs searches one at a time.
      */
-    private StoppableThread threadSearch;
+    private ExecutorService searchExecutor;
+
+    /**
+     * Executor that searches the partitions of the index in parallel.
+     */
+    private ExecutorService partitionExecutor;
+
+    /**
+     * Cancellation token of the most recently submitted search.
+     */
+    private CancellationToken cancellationTokenSearch;
+
+    /**
+     * Lock for submitting searches.
+     */
+    private final Object lockSearch = new Object();
+
+    /**
+     * Queue of index operations waiting to be committed.
+     */
+    private IndexQueue indexQueue;
+
+    /**
+     * Completions for searches, kept up to date with the index.
+     */
+    private SuggestionIndex suggestionIndex;
+
+    /**
+     * Results of recent searches, for the current searcher.
+     */
+    private QueryResultCache queryResultCache;
+
+    /**
+     * Timings of the index operations.
+     */
+    private IndexMetrics indexMetrics;
+
+    /**
+     * Operations committed while the index is being rebuilt, they are applied again to the rebuilt index. Null when
+     * no rebuild is running.
+     */
+    private List<IndexOperation> operationsDuringRebuild;
+
+    /**
+     * Suffix of the directory a new index is written into.
+     */
+    private final static String SUFFIX_REBUILD = ".rebuild";
+
+    /**
+     * Suffix of a completely written new index waiting to replace the current one.
+     */
+    private final static String SUFFIX_NEW = ".new";
+
+    /**
+     * Suffix of the replaced index while it's being removed.
+     */
+    private final static String SUFFIX_OLD = ".old";
+
+    /**
+     * Suffix of the file holding the reconciliation high-water mark.
+     */
+    private final static String SUFFIX_RECONCILED = ".reconciled";
+
+    /**
+     * Suffix of the journal of index operations that haven't been committed.
+     */
+    private final static String SUFFIX_JOURNAL = ".journal";
+
+    /**
+     * Suffix of the directory a heap-resident index is written into before it replaces the copy on disk.
+     */
+    private final static String SUFFIX_SNAPSHOT = ".snapshot";
+
+    /**
+     * System property Lucene reads to pick the FSDirectory implementation.
+     */
+    private final static String FS_DIRECTORY_CLASS_PROPERTY = "org.apache.lucene.FSDirectory.class";
+
+    /**
+     * Suffix of the file holding the version of the schema the index was written with.
+     */
+    private final static String SUFFIX_SCHEMA = ".schema";
+
+    /**
+     * Key of the schema version in its file.
+     */
+    private final static String SCHEMA_VERSION_KEY = "version";
+
+    /**
+     * Number of values returned for each facet field with a page of search results.
+     */
+    private final static int FACET_VALUES = 10;
+
+    /**
+     * Name of the segments file of an index, if it's in the storage location itself the index isn't partitioned.
+     */
+    private final static String LEGACY_SEGMENTS_FILE = "segments";
+
+    /**
+     * Size of the buffer used to copy index files.
+     */
+    private final static int COPY_BUFFER_SIZE = 16384;
+
+    /**
+     * How the index is held.
+     */
+    private IndexDirectoryMode directoryMode = IndexDirectoryMode.FILE_SYSTEM;
+
+    /**
+     * Flag to indicate a heap-resident index is written to disk when it's flushed.
+     */
+    private boolean snapshotOnFlush;
+
+    /**
+     * Flag to indicate a heap-resident index has changes that haven't been written to disk.
+     */
+    private boolean snapshotStale;
+
+    /**
+     * Flag to indicate the index was written with an older schema and should be rebuilt.
+     */
+    private boolean rebuildNeeded;
+
+    /**
+     * Operations left in the journal by the last run, they are replayed once the database is available.
+     */
+    private List<IndexOperation> operationsJournaled;
+
+    /**
+     * Flag to indicate changes to the database aren't indexed as they are made, see setIndexingSuspended().
+     */
+    private volatile boolean indexingSuspended;
+
+    /**
+     * Flag to indicate changes made on the current thread aren't indexed as they are made, see
+     * setIndexingSuspendedOnThread().
+     */
+    private final ThreadLocal<Boolean> indexingSuspendedOnThread = new ThreadLocal<>();
 
     static {
 
@@ -88,6 +245,41 @@ public class IndexManager {
     private IndexManager() {
 
         listeners = new ArrayList();
+
+        indexWriters = new IndexWriter[IndexPartition.values().length];
+        indexReaders = new IndexReader[IndexPartition.values().length];
+
+        indexQueue = new IndexQueue(this);
+
+        indexMetrics = new IndexMetrics(this);
+        indexMetrics.register();
+
+        queryResultCache = new QueryResultCache(QueryResultCache.DEFAULT_MAX_ENTRIES);
+
+        suggestionIndex = new SuggestionIndex(this);
+        listeners.add(suggestionIndex);
+
+        searchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "GTDInbox-Search");
+                thread.setDaemon(true);
+
+                return (thread);
+            }
+        });
+
+        partitionExecutor = Executors.newFixedThreadPool(IndexPartition.values().length, new ThreadFactory() {
+
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "GTDInbox-Search-Partition");
+                thread.setDaemon(true);
+
+                return (thread);
+            }
+        });
     }
 
     /**
@@ -99,9 +291,24 @@ public class IndexManager {
 
         if (indexStorageLocation == null) {
 
+            ApplicationConfiguration applicationConfiguration =
+                    ConfigurationFactory.getInstance().getApplicationConfiguration();
+
+            directoryMode = applicationConfiguration.getIndexDirectoryMode();
+            snapshotOnFlush = applicationConfiguration.isIndexSnapshot();
+
+            if (directoryMode == IndexDirectoryMode.MEMORY_MAPPED) {
+
+                // only read when FSDirectory is first used
+                System.setProperty(FS_DIRECTORY_CLASS_PROPERTY, MMapDirectory.class.getName());
+            }
+
+            logger.info("Index directory mode: " + directoryMode);
+
             // get the location for the index
-            setupIndex(
-                    ConfigurationFactory.getInstance().getApplicationConfiguration().getIndexStorageLocation());
+            setupIndex(applicationConfiguration.getIndexStorageLocation());
+
+            setupJournal();
         }
     }
 
@@ -118,53 +325,84 @@ public class IndexManager {
     }
 
     /**
-     * Optimizes and then closes the index.
+     * Optimizes and then closes the index. A heap-resident index with snapshots enabled is then written to disk if it
+     * has changed.
      *
      * @throws IndexManagerException on problems optimizing or closing the index.
      */
-    public void flushIndex() throws IndexManagerException {
+    public synchronized void flushIndex() throws IndexManagerException {
 
-        if (indexWriter == null) {
-            return;
-        }
+        long started = System.nanoTime();
 
-        indexWriter = getIndexWriter();
+        // only the partitions that were written to are optimized
+        for (int index = 0; index < indexWriters.length; index++) {
 
-        try {
-            indexWriter.optimize();
-        } catch (IOException e) {
-            throw new IndexManagerException(e);
+            if (indexWriters[index] != null) {
+
+                try {
+                    indexWriters[index].optimize();
+                } catch (IOException e) {
+                    throw new IndexManagerException(e);
+                }
+            }
         }
 
-        try {
-            indexWriter.close();
-        } catch (IOException e) {
-            throw new IndexManagerException(e);
+        closeIndex();
+
+        if (directoryMode == IndexDirectoryMode.HEAP && snapshotOnFlush && snapshotStale) {
+            snapshotIndex();
         }
 
-        indexWriter = null;
+        indexMetrics.record(IndexMetrics.Operation.FLUSH, started);
+    }
+
+    /**
+     * Returns true if changes to the database made on the current thread aren't being indexed as they are made.
+     *
+     * @return boolean
+     */
+    public boolean isIndexingSuspended() {
 
-        if (indexSearcher != null) {
+        return (indexingSuspended || indexingSuspendedOnThread.get() != null);
+    }
 
-            try {
-                indexSearcher.close();
-            } catch (IOException e) {
-                throw new IndexManagerException(e);
-            }
-            indexSearcher = null;
-        }
+    /**
+     * Stops or restarts indexing changes to the database as they are made. This is for loading a lot of data at once:
+     * suspend indexing, store the data and then rebuild the index, which is much quicker than indexing every object
+     * as it's stored. Changes made while indexing is suspended aren't in the index until it has been rebuilt.
+     *
+     * @param indexingSuspended true to stop indexing changes
+     */
+    public void setIndexingSuspended(boolean indexingSuspended) {
 
-        if (indexReader != null) {
+        this.indexingSuspended = indexingSuspended;
+    }
 
-            try {
-                indexReader.close();
-            } catch (IOException e) {
-                logger.warn(e);
-            }
-            indexReader = null;
+    /**
+     * Stops or restarts indexing changes to the database made on the current thread only, changes made on other
+     * threads are indexed as usual. The caller is responsible for indexing the objects it changed once it's done.
+     *
+     * @param indexingSuspended true to stop indexing changes made on this thread
+     */
+    public void setIndexingSuspendedOnThread(boolean indexingSuspended) {
+
+        if (indexingSuspended) {
+            indexingSuspendedOnThread.set(Boolean.TRUE);
+        } else {
+            indexingSuspendedOnThread.remove();
         }
     }
 
+    /**
+     * Returns how the index is held.
+     *
+     * @return IndexDirectoryMode
+     */
+    public IndexDirectoryMode getDirectoryMode() {
+
+        return (directoryMode);
+    }
+
     /**
      * Returns the singleton instance of the IndexManager.
      *
@@ -176,87 +414,207 @@ public class IndexManager {
     }
 
     /**
-     * Returns a IndexWriter.
+     * Returns the queue of index operations waiting to be committed.
      *
-     * @return a new IndexWriter
-     * @throws IndexManagerException
+     * @return IndexQueue
+     */
+    public IndexQueue getIndexQueue() {
+
+        return (indexQueue);
+    }
+
+    /**
+     * Returns the timings of the index operations.
+     *
+     * @return IndexMetrics
+     */
+    public IndexMetrics getIndexMetrics() {
+
+        return (indexMetrics);
+    }
+
+    /**
+     * Returns the number of documents in the index.
+     *
+     * @return number of documents
+     * @throws IndexManagerException on problems reading the index
+     */
+    public int getDocumentCount() throws IndexManagerException {
+
+        if (searcherManager == null) {
+            throw new IndexManagerException("The index hasn't been configured");
+        }
+
+        IndexSearcher indexSearcher = acquireIndexSearcher();
+
+        try {
+            return (indexSearcher.getIndexReader().numDocs());
+        } finally {
+            releaseIndexSearcher(indexSearcher);
+        }
+    }
+
+    /**
+     * Returns the number of segments in all of the partitions of the index. Segments are counted by the names of their
+     * files, every file of a segment starts with the segment's name.
+     *
+     * @return number of segments
+     * @throws IndexManagerException on problems reading the index
      */
-    public IndexWriter getIndexWriter() throws IndexManagerException {
+    public synchronized int getSegmentCount() throws IndexManagerException {
+
+        if (directories == null) {
+            throw new IndexManagerException("The index hasn't been configured");
+        }
+
+        int segments = 0;
+
+        for (Directory directory : directories) {
+
+            Set<String> names = new HashSet<>();
 
-        if (indexReader != null) {
             try {
-                indexReader.close();
+
+                for (String file : directory.list()) {
+
+                    // segment files are named "_<segment>.<extension>"
+                    if (file.startsWith("_") && file.indexOf('.') > 0) {
+                        names.add(file.substring(0, file.indexOf('.')));
+                    }
+                }
             } catch (IOException e) {
-                logger.warn(e);
+                throw new IndexManagerException(e);
             }
+
+            segments += names.size();
+        }
+
+        return (segments);
+    }
+
+    /**
+     * Returns the size of the files of all of the partitions of the index. For an index on the heap this is the memory
+     * the index files take up.
+     *
+     * @return size in bytes
+     * @throws IndexManagerException on problems reading the index
+     */
+    public synchronized long getIndexSize() throws IndexManagerException {
+
+        if (directories == null) {
+            throw new IndexManagerException("The index hasn't been configured");
         }
 
-        if (indexSearcher != null) {
+        long size = 0;
+
+        for (Directory directory : directories) {
+
             try {
-                indexSearcher.close();
+
+                for (String file : directory.list()) {
+                    size += directory.fileLength(file);
+                }
             } catch (IOException e) {
-                logger.warn(e);
+                throw new IndexManagerException(e);
             }
         }
 
-        if (indexWriter != null) {
-            return (indexWriter);
-        }
+        return (size);
+    }
 
-        // create a new index writer
-        try {
-            indexWriter = new IndexWriter(directory, getAnalyzer(), false);
-        } catch (IOException e) {
-            throw new IndexManagerException(e);
-        }
+    /**
+     * Returns the completions for searches. The suggestions are empty until SuggestionIndex.load() has been called.
+     *
+     * @return SuggestionIndex
+     */
+    public SuggestionIndex getSuggestionIndex() {
+
+        return (suggestionIndex);
+    }
 
-        return indexWriter;
+    /**
+     * Returns the cache of search results, its hit and miss counts show how often searches are repeated.
+     *
+     * @return QueryResultCache
+     */
+    public QueryResultCache getQueryResultCache() {
+
+        return (queryResultCache);
     }
 
     /**
-     * Returns the IndexReader.
+     * Returns the IndexWriter for a partition of the index.
      *
-     * @return a new IndexReader
+     * @param partition the partition
+     * @return the partition's IndexWriter
      * @throws IndexManagerException
      */
-    public IndexReader getIndexReader() throws IndexManagerException {
+    public synchronized IndexWriter getIndexWriter(IndexPartition partition) throws IndexManagerException {
 
-        if (indexWriter != null) {
-            flushIndex();
-        }
+        // deletions must be written out before the writer can lock the partition
+        closeIndexReader(partition);
 
-        if (indexReader != null) {
-            return (indexReader);
+        if (indexWriters[partition.ordinal()] != null) {
+            return (indexWriters[partition.ordinal()]);
         }
 
+        // create a new index writer
         try {
-            indexReader = IndexReader.open(directory);
+            indexWriters[partition.ordinal()] = new IndexWriter(directories[partition.ordinal()], getAnalyzer(), false);
         } catch (IOException e) {
             throw new IndexManagerException(e);
         }
 
-        return indexReader;
+        return (indexWriters[partition.ordinal()]);
     }
 
     /**
-     * Returns a IndexSearcher.
+     * Returns the IndexReader behind the shared searcher, it reads every partition of the index. The reader is closed
+     * once the index has changed and no search is using it any longer, do not use it to delete documents.
      *
-     * @return a new IndexSearcher
+     * @return the shared IndexReader
      * @throws IndexManagerException
      */
-    public IndexSearcher getIndexSearcher() throws IndexManagerException {
+    public synchronized IndexReader getIndexReader() throws IndexManagerException {
 
-        if (indexWriter != null) {
-            flushIndex();
-        }
+        return (getIndexSearcher().getIndexReader());
+    }
 
-        if (indexSearcher != null) {
-            return (indexSearcher);
-        }
+    /**
+     * Returns the shared IndexSearcher. The searcher is closed once the index has changed and no search is using it
+     * any longer, use acquireIndexSearcher() if you will be holding on to it.
+     *
+     * @return the shared IndexSearcher
+     * @throws IndexManagerException
+     */
+    public synchronized IndexSearcher getIndexSearcher() throws IndexManagerException {
+
+        // make changes from a writer that was handed out visible
+        closeIndex();
+
+        return (searcherManager.getIndexSearcher());
+    }
 
-        indexSearcher = new IndexSearcher(getIndexReader());
+    /**
+     * Returns the shared IndexSearcher and holds it open until it is handed back with releaseIndexSearcher(). If the
+     * index has been changed since the searcher was opened, a new searcher is opened first.
+     *
+     * @return the shared IndexSearcher
+     * @throws IndexManagerException
+     */
+    public IndexSearcher acquireIndexSearcher() throws IndexManagerException {
+
+        return (searcherManager.acquire());
+    }
+
+    /**
+     * Hands back a searcher returned by acquireIndexSearcher().
+     *
+     * @param indexSearcher searcher to release
+     */
+    public void releaseIndexSearcher(IndexSearcher indexSearcher) {
 
-        return indexSearcher;
+        searcherManager.release(indexSearcher);
     }
 
     /**
@@ -268,16 +626,20 @@ public class IndexManager {
      * @param indexable
      * @throws IndexManagerException
      */
-    public void addIndexable(Indexable indexable) throws IndexManagerException {
+    public synchronized void addIndexable(Indexable indexable) throws IndexManagerException {
 
         if (indexable.getId() == null) {
 
             throw new IndexManagerException("Cannot index an object without an id!");
         }
 
-        BeanMap beanMap = new BeanMap(indexable);
+        long started = System.nanoTime();
+
+        DocumentBuilder<Indexable> documentBuilder = IndexSchema.getDocumentBuilder(indexable.getClass());
+
+        updateDocument(documentBuilder.getClassName(), indexable.getId().toString(), documentBuilder.build(indexable));
 
-        updateBeanMap(beanMap);
+        indexMetrics.record(IndexMetrics.Operation.ADD, started);
     }
 
     /**
@@ -289,16 +651,20 @@ public class IndexManager {
      * @param indexable
      * @throws IndexManagerException
      */
-    public void updateIndexable(Indexable indexable) throws IndexManagerException {
+    public synchronized void updateIndexable(Indexable indexable) throws IndexManagerException {
 
         if (indexable.getId() == null) {
 
             throw new IndexManagerException("Cannot index an object without an id!");
         }
 
-        BeanMap beanMap = new BeanMap(indexable);
+        long started = System.nanoTime();
 
-        updateBeanMap(beanMap);
+        DocumentBuilder<Indexable> documentBuilder = IndexSchema.getDocumentBuilder(indexable.getClass());
+
+        updateDocument(documentBuilder.getClassName(), indexable.getId().toString(), documentBuilder.build(indexable));
+
+        indexMetrics.record(IndexMetrics.Operation.UPDATE, started);
     }
 
     /**
@@ -310,227 +676,1241 @@ public class IndexManager {
      * @param indexable
      * @throws IndexManagerException
      */
-    public void removeIndexable(Indexable indexable) throws IndexManagerException {
+    public synchronized void removeIndexable(Indexable indexable) throws IndexManagerException {
 
         if (indexable.getId() == null) {
 
             throw new IndexManagerException("Cannot index an object without an id!");
         }
 
-        BeanMap beanMap = new BeanMap(indexable);
+        long started = System.nanoTime();
+
+        DocumentBuilder<Indexable> documentBuilder = IndexSchema.getDocumentBuilder(indexable.getClass());
+
+        removeDocument(documentBuilder.getClassName(), indexable.getId().toString());
 
-        removeBeanMap(beanMap);
+        indexMetrics.record(IndexMetrics.Operation.REMOVE, started);
     }
 
     /**
-     * Starts another search on the index. If there was another search running,
-     * that search will be told to stop and the new search will start once it
-     * has exited.
+     * Queues an indexable object to be added to or updated in the index. The document is built on the calling thread
+     * and written by the IndexQueue the next time it commits.
      * <p/>
-     * This is probably the way you want to search, you can always get a searcher
-     * and run a search by hand, but this method will work better if the search
-     * and results are tied to a GUI (searches won't pile up in the background and
-     * the user can interrupt a running searcher with a new search, similar to the
-     * way the iTunes search box works).
+     * This method is called by the IndexListener when Hibernate manipulates the database, you most likely do not
+     * want to call this method directly.
      *
-     * @param query   Query to run
-     * @param handler Handler for returned results
-     * @throws IndexManagerException On problems running the search
+     * @param indexable
+     * @throws IndexManagerException
      */
-    public void runSearch(final Query query, final SearchResultHandler handler) throws IndexManagerException {
+    public void queueIndexable(Indexable indexable) throws IndexManagerException {
 
-        if (threadSearch != null) {
+        if (indexable.getId() == null) {
 
-            // stop the current running search
-            threadSearch.stopThread();
+            throw new IndexManagerException("Cannot index an object without an id!");
+        }
 
-            // loop until the thread exits
-            while (threadSearch.isAlive()) {
+        long started = System.nanoTime();
 
-                try {
+        DocumentBuilder<Indexable> documentBuilder = IndexSchema.getDocumentBuilder(indexable.getClass());
 
-                    Thread.sleep(50);
-                } catch (InterruptedException ex) {
+        indexQueue.enqueue(new IndexOperation(IndexOperation.Type.UPDATE, documentBuilder.getClassName(),
+                indexable.getId().toString(), documentBuilder.build(indexable)));
 
-                    logger.warn(ex);
-                }
+        indexMetrics.record(IndexMetrics.Operation.QUEUE, started);
+    }
+
+    /**
+     * Queues the entries for the indexable object to be removed from the index.
+     * <p/>
+     * This method is called by the IndexListener when Hibernate manipulates the database, you most likely do not
+     * want to call this method directly.
+     *
+     * @param indexable
+     * @throws IndexManagerException
+     */
+    public void queueRemoveIndexable(Indexable indexable) throws IndexManagerException {
+
+        if (indexable.getId() == null) {
+
+            throw new IndexManagerException("Cannot index an object without an id!");
+        }
+
+        long started = System.nanoTime();
+
+        DocumentBuilder<Indexable> documentBuilder = IndexSchema.getDocumentBuilder(indexable.getClass());
+
+        indexQueue.enqueue(new IndexOperation(IndexOperation.Type.REMOVE, documentBuilder.getClassName(),
+                indexable.getId().toString(), null));
+
+        indexMetrics.record(IndexMetrics.Operation.QUEUE, started);
+    }
+
+    /**
+     * Returns the first page of hits for a query.
+     *
+     * @param query    Query to run
+     * @param pageSize number of hits on a page
+     * @return SearchPage
+     * @throws IndexManagerException on problems searching the index
+     */
+    public SearchPage search(Query query, int pageSize) throws IndexManagerException {
+
+        return (search(new SearchCursor(query, 0, pageSize)));
+    }
+
+    /**
+     * Returns the page of hits marked by the provided cursor. The search runs on the calling thread.
+     *
+     * @param cursor cursor for the page
+     * @return SearchPage
+     * @throws IndexManagerException on problems searching the index
+     */
+    public SearchPage search(SearchCursor cursor) throws IndexManagerException {
+
+        return (searchPage(cursor, new CancellationToken()));
+    }
+
+    /**
+     * Starts a search for the page of hits marked by the provided cursor and returns right away. The search runs on
+     * the index manager's search thread and supersedes any search started earlier with one of the runSearch()
+     * methods: that search is cancelled and its handler won't be called.
+     *
+     * @param cursor  cursor for the page
+     * @param handler handler for the page of results
+     * @return Future with the page of results, its value is null if the search was superseded
+     * @throws IndexManagerException if the search could not be started
+     */
+    public Future<SearchPage> runSearch(final SearchCursor cursor, final SearchPageHandler handler)
+            throws IndexManagerException {
+
+        final CancellationToken cancellationToken = supersedeSearch();
+
+        return (submitSearch(new Callable<SearchPage>() {
+
+            public SearchPage call() {
+
+                SearchPage searchPage = null;
+
+                try {
+                    searchPage = searchPage(cursor, cancellationToken);
+                } catch (IndexManagerException e) {
+
+                    if (!cancellationToken.isCancelled()) {
+                        handler.handleSearchException(e);
+                    }
+                }
+
+                if (searchPage != null && !cancellationToken.isCancelled()) {
+                    handler.handleSearchPage(searchPage);
+                }
+
+                return (searchPage);
+            }
+        }));
+    }
+
+    /**
+     * Starts another search on the index and returns right away. If there was another search running, that search is
+     * cancelled, it stops at the next hit it looks at and its handler isn't called again.
+     * <p/>
+     * This is probably the way you want to search, you can always get a searcher
+     * and run a search by hand, but this method will work better if the search
+     * and results are tied to a GUI (searches won't pile up in the background and
+     * the user can interrupt a running searcher with a new search, similar to the
+     * way the iTunes search box works).
+     *
+     * @param query   Query to run
+     * @param handler Handler for returned results
+     * @return Future with the number of matching documents, its value is null if the search was superseded
+     * @throws IndexManagerException if the search could not be started
+     */
+    public Future<Integer> runSearch(final Query query, final SearchResultHandler handler)
+            throws IndexManagerException {
+
+        final CancellationToken cancellationToken = supersedeSearch();
+
+        return (submitSearch(new Callable<Integer>() {
+
+            public Integer call() {
+
+                IndexSearcher indexSearcher = null;
+
+                try {
+
+                    long started = System.nanoTime();
+
+                    indexSearcher = acquireIndexSearcher();
+
+                    // run the search
+                    logger.debug("Query: " + query);
+                    CancellableHitCollector hitCollector =
+                            new CancellableHitCollector(indexSearcher.maxDoc(), cancellationToken);
+                    indexSearcher.search(query, hitCollector);
+
+                    indexMetrics.record(IndexMetrics.Operation.SEARCH, started);
+
+                    handler.setNumberOfResults(hitCollector.getTotalHits());
+
+                    // loop through the hits
+                    ScoreDoc[] scoreDocs = hitCollector.getScoreDocs();
+                    for (int index = 0; index < scoreDocs.length; index++) {
+
+                        if (cancellationToken.isCancelled()) {
+                            return (null);
+                        }
+
+                        handler.handleSearchResult(indexSearcher.doc(scoreDocs[index].doc));
+                    }
+
+                    return (hitCollector.getTotalHits());
+                } catch (CancellableHitCollector.CancelledException e) {
+
+                    return (null);
+                } catch (IndexManagerException e) {
+
+                    logger.warn("Couldn't query the index", e);
+                    return (null);
+                } catch (IOException e) {
+
+                    logger.warn("Couldn't query the index", e);
+                    return (null);
+                } finally {
+
+                    if (indexSearcher != null) {
+                        releaseIndexSearcher(indexSearcher);
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * Rebuilds the index from the database. Every indexed object is written into a new index next to the current one,
+     * the current index stays in use until the new one is complete and then the new index replaces it. Changes made
+     * to the index during the rebuild are applied to the new index before it replaces the old one. Progress is
+     * reported to the IndexManagerListeners.
+     * <p/>
+     * This takes a while on a large database, you will want to call it from a background thread.
+     *
+     * @return the number of documents in the new index
+     * @throws IndexManagerException on problems reading the database or writing the index, or if a rebuild is already
+     *                               running
+     */
+    public int rebuild() throws IndexManagerException {
+
+        synchronized (this) {
+
+            if (operationsDuringRebuild != null) {
+                throw new IndexManagerException("The index is already being rebuilt");
+            }
+
+            operationsDuringRebuild = new ArrayList<>();
+        }
+
+        try {
+
+            Date started = new Date();
+
+            File fileRebuild = getSiblingLocation(SUFFIX_REBUILD);
+            File fileNew = getSiblingLocation(SUFFIX_NEW);
+
+            deleteDirectory(fileRebuild);
+            deleteDirectory(fileNew);
+
+            int documents;
+
+            Directory[] directoriesRebuild = new Directory[IndexPartition.values().length];
+            try {
+
+                for (IndexPartition partition : IndexPartition.values()) {
+
+                    directoriesRebuild[partition.ordinal()] =
+                            FSDirectory.getDirectory(new File(fileRebuild, partition.getDirectoryName()), true);
+                }
+
+                documents = new IndexRebuilder(this, IndexRebuilder.DEFAULT_PAGE_SIZE)
+                        .rebuild(directoriesRebuild, getAnalyzer());
+            } catch (IOException e) {
+                throw new IndexManagerException(e);
+            } finally {
+
+                for (int index = 0; index < directoriesRebuild.length; index++) {
+
+                    if (directoriesRebuild[index] != null) {
+                        closeDirectory(directoriesRebuild[index]);
+                    }
+                }
+            }
+
+            // once renamed the new index is complete, even if we don't get to swap it in
+            if (!fileRebuild.renameTo(fileNew)) {
+                throw new IndexManagerException("Couldn't move the new index to " + fileNew);
+            }
+
+            swapIndex(fileNew);
+
+            // the new index holds everything committed to the database before the rebuild started
+            IndexReconciler.writeHighWaterMark(getSiblingLocation(SUFFIX_RECONCILED), started);
+            writeSchemaVersion();
+
+            fireIndexRebuilt();
+
+            return (documents);
+        } finally {
+
+            synchronized (this) {
+                operationsDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Compares the index with the database and fixes the differences, documents that are missing or out of date are
+     * re-indexed and documents for objects that are gone are removed. Only the objects changed since the last
+     * reconciliation are compared in detail, see IndexReconciler.
+     *
+     * @return the number of differences that were fixed
+     * @throws IndexManagerException on problems reading the database or the index
+     */
+    public int reconcile() throws IndexManagerException {
+
+        return (new IndexReconciler(this, getSiblingLocation(SUFFIX_RECONCILED)).reconcile());
+    }
+
+    /**
+     * Queues the operations left in the journal by the last run again, they were lost when the application stopped
+     * before they were committed to the index. The database is the authority: an object that still exists is
+     * re-indexed and one that doesn't is removed from the index, whatever the lost operation was.
+     * <p/>
+     * The journal is read when the IndexManager is configured but the database isn't available until later, this
+     * method is called when the index is reconciled in the background.
+     *
+     * @return the number of operations that were queued
+     * @throws IndexManagerException on problems reading the database
+     */
+    public int replayJournal() throws IndexManagerException {
+
+        List<IndexOperation> operations;
+        synchronized (this) {
+
+            operations = operationsJournaled;
+            operationsJournaled = null;
+        }
+
+        if (operations == null || operations.isEmpty()) {
+            return (0);
+        }
+
+        logger.info("Replaying " + operations.size() + " index operations from the journal");
+
+        EntityManager entityManager;
+        try {
+            entityManager = DataBaseManager.getInstance().createEntityManager();
+        } catch (DataBaseManagerException e) {
+            throw new IndexManagerException(e);
+        }
+
+        int replayed = 0;
+        try {
+
+            for (IndexOperation operation : operations) {
+
+                DocumentBuilder documentBuilder = getDocumentBuilder(operation.getClassName());
+
+                if (documentBuilder == null) {
+
+                    logger.warn("Ignoring journaled operation for unknown class " + operation.getClassName());
+                    continue;
+                }
+
+                Indexable indexable;
+                try {
+                    indexable = (Indexable) entityManager.find(documentBuilder.getIndexedClass(),
+                            Long.valueOf(operation.getId()));
+                } catch (NumberFormatException e) {
+
+                    logger.warn("Ignoring journaled operation for " + operation.getKey(), e);
+                    continue;
+                }
+
+                if (indexable != null) {
+                    queueIndexable(indexable);
+                } else {
+                    indexQueue.enqueue(new IndexOperation(IndexOperation.Type.REMOVE, operation.getClassName(),
+                            operation.getId(), null));
+                }
+
+                replayed++;
+            }
+        } catch (PersistenceException e) {
+            throw new IndexManagerException(e);
+        } finally {
+            entityManager.close();
+        }
+
+        return (replayed);
+    }
+
+    /**
+     * Returns true if the index was written with an older version of the schema, it's missing fields until it has
+     * been rebuilt.
+     *
+     * @return boolean
+     */
+    public boolean isRebuildNeeded() {
+
+        return (rebuildNeeded);
+    }
+
+    /**
+     * Starts reconciling the index with the database on a background thread, after the operations left in the journal
+     * have been replayed. An index written with an older version of the schema is rebuilt instead.
+     */
+    public void reconcileInBackground() {
+
+        Thread thread = new Thread(new Runnable() {
+
+            public void run() {
+
+                try {
+
+                    replayJournal();
+
+                    if (rebuildNeeded) {
+
+                        logger.info("The index was written with an older schema, rebuilding it");
+                        rebuild();
+                    } else {
+                        reconcile();
+                    }
+                } catch (IndexManagerException e) {
+                    logger.warn("Couldn't reconcile the index with the database", e);
+                }
+            }
+        }, "GTDInbox-Reconciler");
+
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Commits a group of index operations. Every operation deletes the existing document for its object by key, updates
+     * then add their new document. The deletions share one reader and the additions share one writer for each
+     * partition, only the partitions the operations touch are written and they're closed once at the end without being
+     * optimized.
+     *
+     * @param operations operations to commit
+     * @throws IndexManagerException on problems writing to the index
+     */
+    synchronized void commitOperations(List<IndexOperation> operations) throws IndexManagerException {
+
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        long started = System.nanoTime();
+
+        if (operationsDuringRebuild != null) {
+            operationsDuringRebuild.addAll(operations);
+        }
+
+        List<Document> documentsRemoved = new ArrayList<>();
+        List<Document> documentsAdded = new ArrayList<>();
+
+        for (IndexOperation operation : operations) {
+
+            if (deleteDocuments(getPartition(operation.getClassName()), operation.getKey()) > 0) {
+                documentsRemoved.add(createKeyDocument(operation.getClassName(), operation.getId()));
+            }
+        }
+
+        for (IndexOperation operation : operations) {
+
+            if (operation.getType() == IndexOperation.Type.UPDATE) {
+
+                try {
+                    getIndexWriter(getPartition(operation.getClassName()))
+                            .addDocument(operation.getDocument(), getAnalyzer());
+                } catch (IOException e) {
+                    throw new IndexManagerException(e);
+                }
+
+                documentsAdded.add(operation.getDocument());
+            }
+        }
+
+        closeIndex();
+
+        // open the new searcher here rather than on the thread of the next search
+        searcherManager.refresh();
+
+        indexMetrics.record(IndexMetrics.Operation.COMMIT, started, operations.size());
+
+        for (Document document : documentsRemoved) {
+            fireDocumentRemoved(document);
+        }
+
+        for (Document document : documentsAdded) {
+            fireDocumentAdded(document);
+        }
+    }
+
+    // private methods
+
+    /**
+     * Cancels the most recently submitted search and returns the token for a new one.
+     *
+     * @return CancellationToken for the new search
+     */
+    private CancellationToken supersedeSearch() {
+
+        CancellationToken cancellationToken = new CancellationToken();
+
+        synchronized (lockSearch) {
+
+            if (cancellationTokenSearch != null) {
+                cancellationTokenSearch.cancel();
+            }
+
+            cancellationTokenSearch = cancellationToken;
+        }
+
+        return (cancellationToken);
+    }
+
+    /**
+     * Hands a search to the search executor.
+     *
+     * @param search the search
+     * @return Future for the search's result
+     * @throws IndexManagerException if the executor won't take the search
+     */
+    private <T> Future<T> submitSearch(Callable<T> search) throws IndexManagerException {
+
+        try {
+            return (searchExecutor.submit(search));
+        } catch (RejectedExecutionException e) {
+            throw new IndexManagerException(e);
+        }
+    }
+
+    /**
+     * Searches for the page of hits marked by the provided cursor. Only the top offset + page size hits are collected
+     * and only the documents on the requested page are loaded from the index, but every hit is counted by its facet
+     * values (see IndexSchema.FACET_FIELDS). The hits are cached until the index changes, asking for the same query
+     * again or for an earlier page doesn't search the index.
+     *
+     * @param cursor            cursor for the page
+     * @param cancellationToken token checked for cancellation while the hits are collected
+     * @return SearchPage or null if the search was cancelled
+     * @throws IndexManagerException on problems searching the index
+     */
+    private SearchPage searchPage(SearchCursor cursor, CancellationToken cancellationToken)
+            throws IndexManagerException {
+
+        long started = System.nanoTime();
+
+        IndexSearcher indexSearcher = acquireIndexSearcher();
+
+        try {
+
+            int maxHits = cursor.getOffset() + cursor.getPageSize();
+            long generation = searcherManager.getGeneration(indexSearcher);
+
+            QueryResultCache.Result result = null;
+            if (generation >= 0) {
+                result = queryResultCache.get(cursor.getQuery(), generation, maxHits);
+            }
+
+            if (result == null) {
+
+                logger.debug("Query: " + cursor);
+                result = searchPartitions(indexSearcher, cursor.getQuery(), maxHits, cancellationToken);
+
+                if (generation >= 0) {
+                    queryResultCache.put(cursor.getQuery(), generation, result);
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>();
+            for (int index = cursor.getOffset(); index < Math.min(maxHits, result.getSize()); index++) {
+
+                hits.add(SearchHit.fromDocument(indexSearcher.doc(result.getDocument(index)),
+                        result.getScore(index)));
+            }
+
+            SearchCursor cursorNext = null;
+            if (maxHits < result.getTotalHits()) {
+                cursorNext = cursor.next();
+            }
+
+            indexMetrics.record(IndexMetrics.Operation.SEARCH, started);
+
+            return (new SearchPage(hits, result.getTotalHits(), cursorNext, result.getFacets()));
+        } catch (CancellableHitCollector.CancelledException e) {
+            return (null);
+        } catch (IOException e) {
+            throw new IndexManagerException(e);
+        } finally {
+            releaseIndexSearcher(indexSearcher);
+        }
+    }
+
+    /**
+     * Collects the top hits for a query by searching the partitions of the index in parallel, each on a thread of the
+     * partition executor with its own hit collector and facet counter. Partitions that can't hold a match, because
+     * the query asks for classes that aren't in them, aren't searched at all. The query is weighted once against
+     * every partition so the scores of the partitions' hits can be compared, and the hits are merged into document
+     * numbers of the searcher's MultiReader.
+     *
+     * @param indexSearcher     searcher returned by acquireIndexSearcher()
+     * @param query             query to run
+     * @param maxHits           number of top hits to collect
+     * @param cancellationToken token checked for cancellation while the hits are collected
+     * @return the hits
+     * @throws IndexManagerException on problems searching the index
+     * @throws IOException           on problems reading the index
+     */
+    private QueryResultCache.Result searchPartitions(IndexSearcher indexSearcher, Query query, final int maxHits,
+                                                     final CancellationToken cancellationToken)
+            throws IndexManagerException, IOException {
+
+        IndexSearcher[] partitionSearchers = searcherManager.getPartitionSearchers(indexSearcher);
+
+        if (partitionSearchers == null) {
+            throw new IndexManagerException("The index searcher has been closed");
+        }
+
+        // document frequencies are summed over every partition, as if they were one index
+        final Weight weight = query.weight(new MultiSearcher(partitionSearchers));
+
+        Set<IndexPartition> partitions = IndexPartition.getPartitions(query);
+
+        List<Future<CancellableHitCollector>> futures = new ArrayList<>();
+        List<FacetCounter> facetCounters = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+
+        int start = 0;
+        for (IndexPartition partition : IndexPartition.values()) {
+
+            final IndexSearcher partitionSearcher = partitionSearchers[partition.ordinal()];
+            int maxDoc = partitionSearcher.maxDoc();
+
+            if (partitions.contains(partition) && maxDoc > 0) {
+
+                final FacetCounter facetCounter =
+                        new FacetCounter(partitionSearcher.getIndexReader(), IndexSchema.FACET_FIELDS);
+
+                try {
+
+                    futures.add(partitionExecutor.submit(new Callable<CancellableHitCollector>() {
+
+                        public CancellableHitCollector call() throws IOException {
+
+                            CancellableHitCollector hitCollector =
+                                    new CancellableHitCollector(maxHits, cancellationToken, facetCounter);
+                            partitionSearcher.search(weight, null, hitCollector);
+
+                            return (hitCollector);
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    throw new IndexManagerException(e);
+                }
+
+                facetCounters.add(facetCounter);
+                starts.add(start);
+            }
+
+            start += maxDoc;
+        }
+
+        // wait for every partition, even after one has failed, so none is still reading once the searcher is released
+        List<CancellableHitCollector> hitCollectors = new ArrayList<>();
+        Exception exception = null;
+
+        for (Future<CancellableHitCollector> future : futures) {
+
+            try {
+                hitCollectors.add(waitForPartition(future));
+            } catch (Exception e) {
+
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+
+        if (exception instanceof CancellableHitCollector.CancelledException) {
+            throw (CancellableHitCollector.CancelledException) exception;
+        } else if (exception instanceof IOException) {
+            throw (IOException) exception;
+        } else if (exception != null) {
+            throw new IndexManagerException(exception);
+        }
+
+        // the partitions' top hits hold the top hits overall
+        CancellableHitCollector hitCollectorMerged = new CancellableHitCollector(maxHits, cancellationToken);
+        int totalHits = 0;
+
+        for (int index = 0; index < hitCollectors.size(); index++) {
+
+            ScoreDoc[] scoreDocs = hitCollectors.get(index).getScoreDocs();
+            for (int indexHit = 0; indexHit < scoreDocs.length; indexHit++) {
+                hitCollectorMerged.collect(starts.get(index) + scoreDocs[indexHit].doc, scoreDocs[indexHit].score);
+            }
+
+            totalHits += hitCollectors.get(index).getTotalHits();
+        }
+
+        return (new QueryResultCache.Result(hitCollectorMerged.getScoreDocs(), totalHits,
+                FacetCounter.getFacets(facetCounters, FACET_VALUES)));
+    }
+
+    /**
+     * Waits for the search of a partition to finish.
+     *
+     * @param future future of the partition's search
+     * @return the partition's hit collector
+     * @throws Exception the exception the search failed with
+     */
+    private CancellableHitCollector waitForPartition(Future<CancellableHitCollector> future) throws Exception {
+
+        boolean interrupted = false;
+
+        try {
+
+            while (true) {
+
+                try {
+                    return (future.get());
+                } catch (InterruptedException e) {
+
+                    // the partition's search is still reading the index, keep waiting
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw new IndexManagerException(e.getCause().toString());
+        } finally {
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void fireDocumentAdded(Document document) {
+
+        IndexManagerListener[] listenerArray =
+                (IndexManagerListener[]) listeners.toArray(new IndexManagerListener[listeners.size()]);
+
+        for (int index = 0; index < listenerArray.length; index++) {
+
+            listenerArray[index].documentAdded(document);
+        }
+    }
+
+    /**
+     * Reports the progress of an index rebuild to the listeners.
+     *
+     * @param indexed number of objects indexed so far
+     * @param total   number of objects to index
+     */
+    void fireIndexRebuildProgress(int indexed, int total) {
+
+        IndexManagerListener[] listenerArray =
+                (IndexManagerListener[]) listeners.toArray(new IndexManagerListener[listeners.size()]);
+
+        for (int index = 0; index < listenerArray.length; index++) {
+
+            listenerArray[index].indexRebuildProgress(indexed, total);
+        }
+    }
+
+    private void fireIndexRebuilt() {
+
+        IndexManagerListener[] listenerArray =
+                (IndexManagerListener[]) listeners.toArray(new IndexManagerListener[listeners.size()]);
+
+        for (int index = 0; index < listenerArray.length; index++) {
+
+            listenerArray[index].indexRebuilt();
+        }
+    }
+
+    private void fireDocumentRemoved(Document document) {
+
+        IndexManagerListener[] listenerArray =
+                (IndexManagerListener[]) listeners.toArray(new IndexManagerListener[listeners.size()]);
+
+        for (int index = 0; index < listenerArray.length; index++) {
+
+            listenerArray[index].documentRemoved(document);
+        }
+    }
+
+    /**
+     * Replaces the document for the object with the provided class and id with a new document.
+     *
+     * @param className lower-cased class name of the object
+     * @param id        id of the object
+     * @param document  new document for the object
+     * @throws IndexManagerException on problems updating the index
+     */
+    private void updateDocument(String className, String id, Document document) throws IndexManagerException {
+
+        if (operationsDuringRebuild != null) {
+            operationsDuringRebuild.add(new IndexOperation(IndexOperation.Type.UPDATE, className, id, document));
+        }
+
+        IndexPartition partition = getPartition(className);
+
+        int documentsRemoved = deleteDocuments(partition, DocumentBuilder.getKey(className, id));
+
+        IndexWriter indexWriter = getIndexWriter(partition);
+
+        // add the document to the index
+        try {
+            indexWriter.addDocument(document, getAnalyzer());
+        } catch (IOException e) {
+            throw new IndexManagerException(e);
+        }
+
+        flushIndex();
+
+        if (documentsRemoved > 0) {
+            fireDocumentRemoved(createKeyDocument(className, id));
+        }
+
+        fireDocumentAdded(document);
+    }
+
+    /**
+     * Removes the document for the object with the provided class and id and writes out the change.
+     *
+     * @param className lower-cased class name of the object
+     * @param id        id of the object
+     * @throws IndexManagerException on problems updating the index
+     */
+    private void removeDocument(String className, String id) throws IndexManagerException {
+
+        logger.debug("Removing " + className + " " + id);
+
+        if (operationsDuringRebuild != null) {
+            operationsDuringRebuild.add(new IndexOperation(IndexOperation.Type.REMOVE, className, id, null));
+        }
+
+        int documentsRemoved = deleteDocuments(getPartition(className), DocumentBuilder.getKey(className, id));
+
+        flushIndex();
+
+        if (documentsRemoved > 0) {
+            fireDocumentRemoved(createKeyDocument(className, id));
+        }
+    }
+
+    /**
+     * Returns the partition of the index the documents of a class are written to.
+     *
+     * @param className lower-cased class name of the object
+     * @return IndexPartition
+     * @throws IndexManagerException if the class isn't indexed
+     */
+    private IndexPartition getPartition(String className) throws IndexManagerException {
+
+        IndexPartition partition = IndexSchema.getPartition(className);
+
+        if (partition == null) {
+            throw new IndexManagerException("The class " + className + " isn't indexed");
+        }
+
+        return (partition);
+    }
+
+    /**
+     * Deletes the documents with the provided key from a partition of the index. The deletions are written out when
+     * the index is closed or the partition's writer is opened.
+     *
+     * @param partition partition of the object's class
+     * @param key       key of the object, see DocumentBuilder.getKey()
+     * @return the number of documents deleted
+     * @throws IndexManagerException on problems updating the index
+     */
+    private int deleteDocuments(IndexPartition partition, String key) throws IndexManagerException {
+
+        try {
+            return (getDeletionReader(partition).deleteDocuments(new Term(DocumentBuilder.FIELD_KEY, key)));
+        } catch (IOException e) {
+            logger.warn(e);
+            throw new IndexManagerException(e);
+        }
+    }
+
+    /**
+     * Creates the document passed to listeners when an object's document is removed, it holds only the object's id,
+     * class and key.
+     *
+     * @param className lower-cased class name of the object
+     * @param id        id of the object
+     * @return Document
+     */
+    private Document createKeyDocument(String className, String id) {
+
+        Document document = new Document();
+        document.add(new Field(DocumentBuilder.FIELD_ID, id, Field.Store.YES, Field.Index.UN_TOKENIZED));
+        document.add(new Field(DocumentBuilder.FIELD_CLASS, className, Field.Store.YES, Field.Index.UN_TOKENIZED));
+        document.add(new Field(DocumentBuilder.FIELD_KEY, DocumentBuilder.getKey(className, id),
+                Field.Store.YES, Field.Index.UN_TOKENIZED));
+
+        return (document);
+    }
+
+    /**
+     * Returns the reader used for deleting documents from a partition, closing the partition's writer if one is open.
+     *
+     * @param partition the partition
+     * @return IndexReader
+     * @throws IndexManagerException on problems opening the reader
+     */
+    private IndexReader getDeletionReader(IndexPartition partition) throws IndexManagerException {
+
+        closeIndexWriter(partition);
+
+        if (indexReaders[partition.ordinal()] == null) {
+
+            try {
+                indexReaders[partition.ordinal()] = IndexReader.open(directories[partition.ordinal()]);
+            } catch (IOException e) {
+                throw new IndexManagerException(e);
+            }
+        }
+
+        return (indexReaders[partition.ordinal()]);
+    }
+
+    /**
+     * Closes the reader used for deleting documents from a partition, writing out its deletions.
+     *
+     * @param partition the partition
+     */
+    private void closeIndexReader(IndexPartition partition) {
+
+        if (indexReaders[partition.ordinal()] != null) {
+
+            try {
+                indexReaders[partition.ordinal()].close();
+            } catch (IOException e) {
+                logger.warn(e);
             }
+            indexReaders[partition.ordinal()] = null;
+
+            searcherManager.markStale();
+            snapshotStale = true;
         }
+    }
 
-        indexSearcher = getIndexSearcher();
+    /**
+     * Closes the writer of a partition without optimizing it.
+     *
+     * @param partition the partition
+     * @throws IndexManagerException on problems closing the writer
+     */
+    private void closeIndexWriter(IndexPartition partition) throws IndexManagerException {
 
-        // setup a new thread to handle the new search
-        threadSearch = new StoppableThread(
-                new StoppableRunnable() {
+        if (indexWriters[partition.ordinal()] != null) {
 
-                    public void run() {
+            try {
+                indexWriters[partition.ordinal()].close();
+            } catch (IOException e) {
+                throw new IndexManagerException(e);
+            } finally {
+                indexWriters[partition.ordinal()] = null;
+            }
 
-                        try {
+            searcherManager.markStale();
+            snapshotStale = true;
+        }
+    }
 
-                            // run the search
-                            logger.debug("Query: " + query);
-                            Hits hits = indexSearcher.search(query);
+    /**
+     * Closes the index writers and the deleting readers of every partition without optimizing the index. The shared
+     * searcher is left open, it is replaced the next time a search asks for it.
+     *
+     * @throws IndexManagerException on problems closing the index.
+     */
+    private synchronized void closeIndex() throws IndexManagerException {
 
-                            handler.setNumberOfResults(hits.length());
+        for (IndexPartition partition : IndexPartition.values()) {
 
-                            // loop through the hits
-                            for (int index = 0; index < hits.length() && !stop; index++) {
+            closeIndexWriter(partition);
+            closeIndexReader(partition);
+        }
+    }
 
-                                // get the next document
-                                Document document = hits.doc(index);
-                                document.add(new Field("rank", (new Float(hits.score(index))).toString(),
-                                        Field.Store.YES, Field.Index.NO));
+    /**
+     * Replaces the current index with a newly written one and applies the changes made during the rebuild to it.
+     * Searches still running on the old index finish undisturbed.
+     *
+     * @param fileNew location of the new index
+     * @throws IndexManagerException on problems moving or opening the index
+     */
+    private synchronized void swapIndex(File fileNew) throws IndexManagerException {
 
-                                handler.handleSearchResult(document);
-                            }
-                        } catch (IOException ex) {
+        closeIndex();
+        closeDirectories();
 
-                            logger.warn("Couldn't query the index");
-                        }
-                    }
-                });
+        File fileOld = getSiblingLocation(SUFFIX_OLD);
+        deleteDirectory(fileOld);
 
-        // start the search
-        threadSearch.start();
-    }
+        // a heap-resident index may never have been written to disk
+        if (indexStorageLocation.exists() && !indexStorageLocation.renameTo(fileOld)) {
 
-    // private methods
+            setupIndex(indexStorageLocation);
+            throw new IndexManagerException("Couldn't move the current index to " + fileOld);
+        }
 
-    private void fireDocumentAdded(Document document) {
+        if (!fileNew.renameTo(indexStorageLocation)) {
 
-        IndexManagerListener[] listenerArray =
-                (IndexManagerListener[]) listeners.toArray(new IndexManagerListener[listeners.size()]);
+            fileOld.renameTo(indexStorageLocation);
+            setupIndex(indexStorageLocation);
+            throw new IndexManagerException("Couldn't move the new index to " + indexStorageLocation);
+        }
 
-        for (int index = 0; index < listenerArray.length; index++) {
+        setupIndex(indexStorageLocation);
 
-            listenerArray[index].documentAdded(document);
+        deleteDirectory(fileOld);
+
+        if (directoryMode == IndexDirectoryMode.HEAP && !snapshotOnFlush) {
+
+            // the index is on the heap now, a copy on disk would be loaded in place of a fresh index next time
+            deleteDirectory(indexStorageLocation);
+        }
+
+        List<IndexOperation> operations = operationsDuringRebuild;
+        operationsDuringRebuild = null;
+
+        if (!operations.isEmpty()) {
+
+            logger.info("Applying " + operations.size() + " changes made during the rebuild");
+            commitOperations(operations);
         }
     }
 
-    private void fireDocumentRemoved(Document document) {
+    /**
+     * Returns a location next to the index storage location with the provided suffix.
+     *
+     * @param suffix suffix for the index directory name
+     * @return File
+     */
+    private File getSiblingLocation(String suffix) {
 
-        IndexManagerListener[] listenerArray =
-                (IndexManagerListener[]) listeners.toArray(new IndexManagerListener[listeners.size()]);
+        return (new File(indexStorageLocation.getParentFile(), indexStorageLocation.getName() + suffix));
+    }
 
-        for (int index = 0; index < listenerArray.length; index++) {
+    /**
+     * Finishes or cleans up after a rebuild that was interrupted. A complete new index that didn't get swapped in
+     * is used if the current index is missing, partial new indexes and replaced indexes are removed.
+     */
+    private void recoverRebuild() {
 
-            listenerArray[index].documentRemoved(document);
+        File fileNew = getSiblingLocation(SUFFIX_NEW);
+
+        if (!indexStorageLocation.exists() && fileNew.exists()) {
+
+            logger.info("Using the rebuilt index at " + fileNew);
+            fileNew.renameTo(indexStorageLocation);
+        }
+
+        File fileSnapshot = getSiblingLocation(SUFFIX_SNAPSHOT);
+
+        if (!indexStorageLocation.exists() && fileSnapshot.exists()) {
+
+            logger.info("Using the index snapshot at " + fileSnapshot);
+            fileSnapshot.renameTo(indexStorageLocation);
         }
+
+        deleteDirectory(getSiblingLocation(SUFFIX_REBUILD));
+        deleteDirectory(getSiblingLocation(SUFFIX_OLD));
+        deleteDirectory(fileSnapshot);
     }
 
     /**
-     * Adds a bean map to the index.
+     * Writes a heap-resident index to the index storage location. The index is written next to the storage location
+     * and then moved into place, so the copy on disk is always complete.
      *
-     * @param beanMap
-     * @throws IndexManagerException on problems removing the bean or searching the index
+     * @throws IndexManagerException on problems writing the index
      */
-    private void addBeanMap(BeanMap beanMap) throws IndexManagerException {
+    private synchronized void snapshotIndex() throws IndexManagerException {
 
-        // create a document for the bean
-        Document document = new Document();
+        closeIndex();
 
-        // loop through the bean's keys
-        Iterator iteratorKeys = beanMap.keyIterator();
-        while (iteratorKeys.hasNext()) {
+        File fileSnapshot = getSiblingLocation(SUFFIX_SNAPSHOT);
+        File fileOld = getSiblingLocation(SUFFIX_OLD);
 
-            Object key = iteratorKeys.next();
-            Object value = beanMap.get(key);
+        deleteDirectory(fileSnapshot);
 
-            //logger.debug( "     key: " + key.toString() + ", value: " + value );
+        for (IndexPartition partition : IndexPartition.values()) {
+
+            Directory directorySnapshot;
+            try {
+                directorySnapshot =
+                        FSDirectory.getDirectory(new File(fileSnapshot, partition.getDirectoryName()), true);
+            } catch (IOException e) {
+                throw new IndexManagerException(e);
+            }
 
-            if (value != null && value instanceof Date) {
-                document.add(
-                        new Field(key.toString(),
-                                DateTools.dateToString((Date) value, DateTools.Resolution.MINUTE),
-                                Field.Store.YES, Field.Index.TOKENIZED));
-            } else if (value != null && value instanceof Class) {
-                document.add(
-                        new Field(key.toString(), ((Class) value).getName().toLowerCase(),
-                                Field.Store.YES, Field.Index.TOKENIZED));
-            } else if (value != null) {
-                document.add(
-                        new Field(key.toString(), value.toString(),
-                                Field.Store.YES, Field.Index.TOKENIZED));
+            try {
+                copyDirectory(directories[partition.ordinal()], directorySnapshot);
+            } catch (IOException e) {
+                throw new IndexManagerException(e);
+            } finally {
+                closeDirectory(directorySnapshot);
             }
         }
 
-        IndexWriter indexWriter = getIndexWriter();
+        deleteDirectory(fileOld);
 
-        // add the document to the index
-        try {
-            indexWriter.addDocument(document, getAnalyzer());
-        } catch (IOException e) {
-            throw new IndexManagerException(e);
+        if (indexStorageLocation.exists() && !indexStorageLocation.renameTo(fileOld)) {
+            throw new IndexManagerException("Couldn't move the index snapshot to " + indexStorageLocation);
         }
 
-        fireDocumentAdded(document);
+        if (!fileSnapshot.renameTo(indexStorageLocation)) {
+            throw new IndexManagerException("Couldn't move the index snapshot to " + indexStorageLocation);
+        }
 
-        flushIndex();
+        deleteDirectory(fileOld);
+
+        snapshotStale = false;
+
+        logger.debug("Wrote an index snapshot to " + indexStorageLocation);
     }
 
     /**
-     * Removes a bean map from the index.
+     * Copies every file of one directory into another.
      *
-     * @param beanMap
-     * @throws IndexManagerException on problems removing the bean or searching the index
+     * @param directoryFrom directory to copy
+     * @param directoryTo   directory to copy into
+     * @throws IOException on problems reading or writing the files
      */
-    private void removeBeanMap(BeanMap beanMap) throws IndexManagerException {
+    private void copyDirectory(Directory directoryFrom, Directory directoryTo) throws IOException {
 
-        logger.debug("Removing beanMap " + beanMap);
+        String[] names = directoryFrom.list();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
 
-        // query for the id
-        TermQuery queryId = new TermQuery(new Term("id", beanMap.get("id").toString()));
+        for (int index = 0; index < names.length; index++) {
 
-        // query for the class
-        TermQuery queryClass = new TermQuery(
-                new Term("class", ((Class) beanMap.get("class")).getName().toLowerCase()));
+            IndexInput indexInput = directoryFrom.openInput(names[index]);
+            IndexOutput indexOutput = directoryTo.createOutput(names[index]);
 
-        // create a new query
-        BooleanQuery query = new BooleanQuery();
-        query.add(new BooleanClause(queryId, BooleanClause.Occur.MUST));
-        query.add(new BooleanClause(queryClass, BooleanClause.Occur.MUST));
+            try {
 
-        IndexSearcher indexSearcher = getIndexSearcher();
+                long remaining = indexInput.length();
+                while (remaining > 0) {
 
-        try {
+                    int length = (int) Math.min(buffer.length, remaining);
+                    indexInput.readBytes(buffer, 0, length);
+                    indexOutput.writeBytes(buffer, length);
+                    remaining -= length;
+                }
+            } finally {
+
+                indexInput.close();
+                indexOutput.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the directory for an index location in the configured mode.
+     *
+     * @param location location of the index
+     * @param create   true if the index is being created
+     * @return Directory
+     * @throws IOException on problems opening the directory
+     */
+    private Directory openDirectory(File location, boolean create) throws IOException {
+
+        if (directoryMode == IndexDirectoryMode.HEAP) {
+
+            if (create) {
+                return (new RAMDirectory());
+            }
+
+            Directory directoryDisk = FSDirectory.getDirectory(location, false);
+            try {
+                return (new RAMDirectory(directoryDisk));
+            } finally {
+                closeDirectory(directoryDisk);
+            }
+        }
+
+        Directory directory = FSDirectory.getDirectory(location, create);
+
+        if (directoryMode == IndexDirectoryMode.MEMORY_MAPPED && !(directory instanceof MMapDirectory)) {
+            logger.warn("FSDirectory was used before the index was configured, the index isn't memory-mapped");
+        }
+
+        return (directory);
+    }
 
-            // run the query
-            Hits hits = indexSearcher.search(query);
-            logger.debug("Query: " + query);
-            logger.debug("Will remove " + hits.length() + " documents");
+    /**
+     * Closes the directories of every partition.
+     */
+    private void closeDirectories() {
 
-            // loop through the hits aand delte them
-            Iterator hitIterator = hits.iterator();
-            while (hitIterator.hasNext()) {
+        if (directories != null) {
 
-                Hit hit = (Hit) hitIterator.next();
-                logger.debug("Removing document: " + hit.getDocument());
-                fireDocumentRemoved(hit.getDocument());
-                getIndexReader().deleteDocument(hit.getId());
+            for (int index = 0; index < directories.length; index++) {
+                closeDirectory(directories[index]);
             }
+        }
+    }
+
+    private void closeDirectory(Directory directory) {
+
+        try {
+            directory.close();
         } catch (IOException e) {
             logger.warn(e);
-            throw new IndexManagerException(e);
         }
-
-        flushIndex();
     }
 
     /**
-     * Updates a bean map that's in the index.
+     * Removes an index directory and the files and partition directories in it.
      *
-     * @param beanMap
-     * @throws IndexManagerException on problems removing the bean or searching the index
+     * @param file the directory
      */
-    private void updateBeanMap(BeanMap beanMap) throws IndexManagerException {
+    private void deleteDirectory(File file) {
+
+        File[] files = file.listFiles();
+
+        if (files != null) {
+
+            for (int index = 0; index < files.length; index++) {
 
-        removeBeanMap(beanMap);
+                if (files[index].isDirectory()) {
+                    deleteDirectory(files[index]);
+                } else if (!files[index].delete()) {
+                    logger.warn("Couldn't delete " + files[index]);
+                }
+            }
+        }
 
-        addBeanMap(beanMap);
+        if (file.exists() && !file.delete()) {
+            logger.warn("Couldn't delete " + file);
+        }
     }
 
     /**
-     * Sets up the index using the storage location provided.
+     * Sets up the index using the storage location provided. Every partition of the index is a directory under the
+     * storage location, partitions that don't exist yet are created empty.
      *
      * @param indexStorageLocation
      * @throws IndexManagerException
@@ -540,52 +1920,294 @@ public class IndexManager {
         // save the file location
         this.indexStorageLocation = indexStorageLocation;
 
+        recoverRebuild();
+
+        // whatever is on disk is what we're about to load
+        snapshotStale = false;
+
         // flag to indicate the index is being created
-        boolean indexCreated = false;
+        boolean indexCreated = !indexStorageLocation.exists();
+
+        if (!indexCreated) {
+            migrateLegacyIndex();
+        }
 
-        if (indexStorageLocation.exists()) {
+        directories = new Directory[IndexPartition.values().length];
+
+        for (IndexPartition partition : IndexPartition.values()) {
+
+            File location = new File(indexStorageLocation, partition.getDirectoryName());
+            boolean partitionCreated = !location.exists();
 
             // setup the directory instance
             try {
-                directory = FSDirectory.getDirectory(indexStorageLocation, false);
+                directories[partition.ordinal()] = openDirectory(location, partitionCreated);
             } catch (IOException e) {
                 throw new IndexManagerException(e);
             }
-        } else {
 
-            // we are creating the index
-            indexCreated = true;
+            Directory directory = directories[partition.ordinal()];
 
-            // setup the directory instance
-            try {
-                directory = FSDirectory.getDirectory(indexStorageLocation, true);
-            } catch (IOException e) {
-                throw new IndexManagerException(e);
+            if (partitionCreated) {
+
+                // create a new index writer to instantiate the partition
+                try {
+                    IndexWriter indexWriter = new IndexWriter(directory, getAnalyzer(), true);
+                    indexWriter.close();
+                } catch (IOException e) {
+
+                    throw new IndexManagerException(e);
+                }
+            } else {
+
+                // make sure the partition is unlocked
+                try {
+                    if (IndexReader.isLocked(directory)) {
+
+                        IndexReader.unlock(directory);
+                    }
+                } catch (IOException e) {
+                    throw new IndexManagerException(e);
+                }
             }
         }
 
+        if (searcherManager == null) {
+            searcherManager = new SearcherManager(directories);
+        } else {
+            searcherManager.setDirectories(directories);
+        }
+
         if (indexCreated) {
 
-            // create a new index writer to instantiate the index
-            IndexWriter indexWriter = null;
+            // nothing in the new index has been reconciled
+            IndexReconciler.writeHighWaterMark(getSiblingLocation(SUFFIX_RECONCILED), null);
+            writeSchemaVersion();
+        } else {
+
+            rebuildNeeded = readSchemaVersion() != IndexSchema.VERSION;
+        }
+    }
+
+    /**
+     * Opens the journal of index operations next to the index and hands it to the queue. Operations left in it by the
+     * last run stay in the journal until they have been replayed and committed.
+     *
+     * @throws IndexManagerException on problems reading or opening the journal
+     */
+    private void setupJournal() throws IndexManagerException {
+
+        IndexJournal journal = new IndexJournal(getSiblingLocation(SUFFIX_JOURNAL));
+
+        List<IndexOperation> operations;
+        try {
+
+            operations = journal.read();
+            journal.open();
+        } catch (IOException e) {
+            throw new IndexManagerException(e);
+        }
+
+        if (!operations.isEmpty()) {
+            logger.info(operations.size() + " index operations weren't committed when the application last stopped");
+        }
+
+        synchronized (this) {
+            operationsJournaled = operations;
+        }
+
+        indexQueue.recover(operations);
+        indexQueue.setJournal(journal);
+    }
+
+    /**
+     * Returns the document builder for the provided class name.
+     *
+     * @param className lower-cased class name, as stored in the documents
+     * @return DocumentBuilder or null if the class is not part of the index schema
+     */
+    private DocumentBuilder getDocumentBuilder(String className) {
+
+        for (DocumentBuilder documentBuilder : IndexSchema.getDocumentBuilders()) {
+
+            if (documentBuilder.getClassName().equals(className)) {
+                return (documentBuilder);
+            }
+        }
+
+        return (null);
+    }
+
+    /**
+     * Returns the version of the schema the index was written with.
+     *
+     * @return the version, or 1 for an index written before versions were kept
+     */
+    private int readSchemaVersion() {
+
+        File fileSchema = getSiblingLocation(SUFFIX_SCHEMA);
+
+        if (!fileSchema.exists()) {
+            return (1);
+        }
+
+        Properties properties = new Properties();
+
+        try {
+
+            InputStream inputStream = new FileInputStream(fileSchema);
             try {
-                indexWriter = new IndexWriter(directory, getAnalyzer(), true);
-                indexWriter.optimize();
-                indexWriter.close();
-            } catch (IOException e) {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
 
-                throw new IndexManagerException(e);
+            return (Integer.parseInt(properties.getProperty(SCHEMA_VERSION_KEY, "1")));
+        } catch (IOException e) {
+            logger.warn(e);
+        } catch (NumberFormatException e) {
+            logger.warn(e);
+        }
+
+        return (1);
+    }
+
+    /**
+     * Records that the index is written with the current version of the schema.
+     */
+    private void writeSchemaVersion() {
+
+        rebuildNeeded = false;
+
+        Properties properties = new Properties();
+        properties.setProperty(SCHEMA_VERSION_KEY, String.valueOf(IndexSchema.VERSION));
+
+        try {
+
+            OutputStream outputStream = new FileOutputStream(getSiblingLocation(SUFFIX_SCHEMA));
+            try {
+                properties.store(outputStream, "Index schema version");
+            } finally {
+                outputStream.close();
             }
-        } else {
+        } catch (IOException e) {
+            logger.warn(e);
+        }
+    }
+
+    /**
+     * Moves the documents of an index written before the index was partitioned into the partitions. The old index is
+     * kept in the storage location itself, its documents are copied into the partition of their class and its files
+     * are removed. Documents written before documents had keys are given their key on the way, updates delete
+     * documents by their key and without it an update would leave the old document in the index.
+     * <p/>
+     * Only stored fields can be copied, the moved documents are missing the unstored fields until the index is
+     * rebuilt. The schema version of the old index is older than the current one, so it will be.
+     *
+     * @throws IndexManagerException on problems reading or writing the index
+     */
+    private void migrateLegacyIndex() throws IndexManagerException {
+
+        if (!new File(indexStorageLocation, LEGACY_SEGMENTS_FILE).exists()) {
+            return;
+        }
+
+        logger.info("Moving the index at " + indexStorageLocation + " into partitions");
+
+        Directory[] directoriesPartition = new Directory[IndexPartition.values().length];
+        IndexWriter[] indexWritersPartition = new IndexWriter[IndexPartition.values().length];
+
+        try {
+
+            Directory directoryLegacy = FSDirectory.getDirectory(indexStorageLocation, false);
 
-            // make sure the index is unlocked
             try {
-                if (IndexReader.isLocked(directory)) {
 
-                    IndexReader.unlock(directory);
+                if (IndexReader.isLocked(directoryLegacy)) {
+                    IndexReader.unlock(directoryLegacy);
                 }
-            } catch (IOException e) {
-                throw new IndexManagerException(e);
+
+                for (IndexPartition partition : IndexPartition.values()) {
+
+                    File location = new File(indexStorageLocation, partition.getDirectoryName());
+                    deleteDirectory(location);
+
+                    directoriesPartition[partition.ordinal()] = FSDirectory.getDirectory(location, true);
+                    indexWritersPartition[partition.ordinal()] =
+                            new IndexWriter(directoriesPartition[partition.ordinal()], getAnalyzer(), true);
+                }
+
+                int documents = 0;
+
+                IndexReader indexReader = IndexReader.open(directoryLegacy);
+                try {
+
+                    for (int index = 0; index < indexReader.maxDoc(); index++) {
+
+                        if (indexReader.isDeleted(index)) {
+                            continue;
+                        }
+
+                        Document document = indexReader.document(index);
+                        String id = document.get(DocumentBuilder.FIELD_ID);
+                        String className = document.get(DocumentBuilder.FIELD_CLASS);
+                        IndexPartition partition = className != null ? IndexSchema.getPartition(className) : null;
+
+                        if (id == null || partition == null) {
+                            continue;
+                        }
+
+                        if (document.get(DocumentBuilder.FIELD_KEY) == null) {
+
+                            document.add(new Field(DocumentBuilder.FIELD_KEY, DocumentBuilder.getKey(className, id),
+                                    Field.Store.YES, Field.Index.UN_TOKENIZED));
+                        }
+
+                        indexWritersPartition[partition.ordinal()].addDocument(document, getAnalyzer());
+                        documents++;
+                    }
+                } finally {
+                    indexReader.close();
+                }
+
+                for (int index = 0; index < indexWritersPartition.length; index++) {
+
+                    indexWritersPartition[index].optimize();
+                    indexWritersPartition[index].close();
+                    indexWritersPartition[index] = null;
+                }
+
+                logger.info("Moved " + documents + " documents into the index partitions");
+            } finally {
+                closeDirectory(directoryLegacy);
+            }
+        } catch (IOException e) {
+            throw new IndexManagerException(e);
+        } finally {
+
+            for (int index = 0; index < indexWritersPartition.length; index++) {
+
+                if (indexWritersPartition[index] != null) {
+
+                    try {
+                        indexWritersPartition[index].close();
+                    } catch (IOException e) {
+                        logger.warn(e);
+                    }
+                }
+
+                if (directoriesPartition[index] != null) {
+                    closeDirectory(directoriesPartition[index]);
+                }
+            }
+        }
+
+        // the partitions are complete, the old index's files can go
+        File[] files = indexStorageLocation.listFiles();
+        for (int index = 0; index < files.length; index++) {
+
+            if (files[index].isFile() && !files[index].delete()) {
+                logger.warn("Couldn't delete " + files[index]);
             }
         }
     }
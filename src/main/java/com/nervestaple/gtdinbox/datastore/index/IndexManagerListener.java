@@ -13,4 +13,17 @@ public interface IndexManagerListener {
     public void documentAdded(Document document);
 
     public void documentRemoved(Document document);
+
+    /**
+     * Called while the index is being rebuilt, after every page of objects has been indexed.
+     *
+     * @param indexed number of objects indexed so far
+     * @param total   number of objects to index
+     */
+    public void indexRebuildProgress(int indexed, int total);
+
+    /**
+     * Called once a rebuilt index has replaced the old one.
+     */
+    public void indexRebuilt();
 }
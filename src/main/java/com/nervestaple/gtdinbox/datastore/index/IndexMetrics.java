@@ -0,0 +1,227 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Provides the instrumentation of the IndexManager: a latency histogram for each kind of operation along with the size
+ * of the index. The IndexManager records into it as it works, the numbers can be read with getStatistics() or through
+ * JMX under the name in OBJECT_NAME.
+ * <p/>
+ * Queue times show what indexing adds to a save, commit times what it costs to write the changes to Lucene later on.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class IndexMetrics implements IndexMetricsMXBean {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Name the metrics are published under.
+     */
+    public final static String OBJECT_NAME = "com.nervestaple.gtdinbox:type=IndexMetrics";
+
+    /**
+     * Operations that are measured.
+     */
+    public enum Operation {
+
+        /**
+         * Building a document and adding it to the IndexQueue.
+         */
+        QUEUE,
+
+        /**
+         * Adding a document to the index directly.
+         */
+        ADD,
+
+        /**
+         * Updating a document in the index directly.
+         */
+        UPDATE,
+
+        /**
+         * Removing a document from the index directly.
+         */
+        REMOVE,
+
+        /**
+         * Committing a batch of queued operations.
+         */
+        COMMIT,
+
+        /**
+         * Optimizing and closing the index.
+         */
+        FLUSH,
+
+        /**
+         * Searching the index.
+         */
+        SEARCH
+    }
+
+    /**
+     * Index manager whose index is measured.
+     */
+    private final IndexManager indexManager;
+
+    /**
+     * Histograms, keyed by operation.
+     */
+    private final Map<Operation, LatencyHistogram> histograms;
+
+    /**
+     * Creates a new IndexMetrics.
+     *
+     * @param indexManager index manager whose index is measured
+     */
+    public IndexMetrics(final IndexManager indexManager) {
+
+        this.indexManager = indexManager;
+
+        histograms = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Publishes the metrics through the platform MBean server. A problem is logged, the metrics can still be read
+     * through this object.
+     */
+    public void register() {
+
+        try {
+
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Couldn't publish the index metrics", e);
+        }
+    }
+
+    /**
+     * Records an operation on one item that started at the provided time.
+     *
+     * @param operation   the operation
+     * @param startedNanos time the operation started, from System.nanoTime()
+     */
+    public void record(Operation operation, long startedNanos) {
+
+        histograms.get(operation).record(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Records an operation on several items that started at the provided time.
+     *
+     * @param operation    the operation
+     * @param startedNanos time the operation started, from System.nanoTime()
+     * @param items        number of items the operation handled
+     */
+    public void record(Operation operation, long startedNanos, int items) {
+
+        histograms.get(operation).record(System.nanoTime() - startedNanos, items);
+    }
+
+    /**
+     * Returns the statistics of an operation.
+     *
+     * @param operation the operation
+     * @return OperationStatistics
+     */
+    public OperationStatistics getStatistics(Operation operation) {
+
+        return (OperationStatistics.fromHistogram(histograms.get(operation)));
+    }
+
+    public OperationStatistics getQueueStatistics() {
+
+        return (getStatistics(Operation.QUEUE));
+    }
+
+    public OperationStatistics getAddStatistics() {
+
+        return (getStatistics(Operation.ADD));
+    }
+
+    public OperationStatistics getUpdateStatistics() {
+
+        return (getStatistics(Operation.UPDATE));
+    }
+
+    public OperationStatistics getRemoveStatistics() {
+
+        return (getStatistics(Operation.REMOVE));
+    }
+
+    public OperationStatistics getCommitStatistics() {
+
+        return (getStatistics(Operation.COMMIT));
+    }
+
+    public OperationStatistics getFlushStatistics() {
+
+        return (getStatistics(Operation.FLUSH));
+    }
+
+    public OperationStatistics getSearchStatistics() {
+
+        return (getStatistics(Operation.SEARCH));
+    }
+
+    public int getDocumentCount() {
+
+        try {
+            return (indexManager.getDocumentCount());
+        } catch (IndexManagerException e) {
+
+            logger.warn(e);
+            return (-1);
+        }
+    }
+
+    public int getSegmentCount() {
+
+        try {
+            return (indexManager.getSegmentCount());
+        } catch (IndexManagerException e) {
+
+            logger.warn(e);
+            return (-1);
+        }
+    }
+
+    public long getIndexSize() {
+
+        try {
+            return (indexManager.getIndexSize());
+        } catch (IndexManagerException e) {
+
+            logger.warn(e);
+            return (-1);
+        }
+    }
+
+    public void reset() {
+
+        for (LatencyHistogram latencyHistogram : histograms.values()) {
+            latencyHistogram.reset();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+/**
+ * Defines the management interface of the index metrics, published through JMX so they can be watched with jconsole
+ * or any other JMX client while the application runs.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public interface IndexMetricsMXBean {
+
+    /**
+     * Returns the statistics for building documents and queueing them, this is the part of indexing that runs on the
+     * thread saving to the database.
+     *
+     * @return OperationStatistics
+     */
+    public OperationStatistics getQueueStatistics();
+
+    public OperationStatistics getAddStatistics();
+
+    public OperationStatistics getUpdateStatistics();
+
+    public OperationStatistics getRemoveStatistics();
+
+    /**
+     * Returns the statistics for committing batches of queued operations to the index, the throughput is in
+     * operations per second.
+     *
+     * @return OperationStatistics
+     */
+    public OperationStatistics getCommitStatistics();
+
+    /**
+     * Returns the statistics for optimizing and closing the index.
+     *
+     * @return OperationStatistics
+     */
+    public OperationStatistics getFlushStatistics();
+
+    public OperationStatistics getSearchStatistics();
+
+    /**
+     * Returns the number of documents in the index.
+     *
+     * @return number of documents, or -1 if the index couldn't be read
+     */
+    public int getDocumentCount();
+
+    /**
+     * Returns the number of segments in all of the partitions of the index.
+     *
+     * @return number of segments, or -1 if the index couldn't be read
+     */
+    public int getSegmentCount();
+
+    /**
+     * Returns the size of the index files.
+     *
+     * @return size in bytes, or -1 if the index couldn't be read
+     */
+    public long getIndexSize();
+
+    /**
+     * Clears the recorded statistics.
+     */
+    public void reset();
+}
@@ -0,0 +1,101 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.document.Document;
+
+/**
+ * Provides an object that describes a pending change to the index. Operations are keyed by the class and id of the
+ * indexed object, two operations with the same key describe the same document in the index.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class IndexOperation {
+
+    /**
+     * Types of index operations.
+     */
+    public enum Type {
+
+        /**
+         * Replaces any document for the key with a new document.
+         */
+        UPDATE,
+
+        /**
+         * Removes any document for the key.
+         */
+        REMOVE
+    }
+
+    /**
+     * Type of operation.
+     */
+    private final Type type;
+
+    /**
+     * Lower-cased class name of the indexed object.
+     */
+    private final String className;
+
+    /**
+     * Id of the indexed object.
+     */
+    private final String id;
+
+    /**
+     * Document to add to the index, null for removals.
+     */
+    private final Document document;
+
+    /**
+     * Creates a new IndexOperation.
+     *
+     * @param type      type of operation
+     * @param className lower-cased class name of the indexed object
+     * @param id        id of the indexed object
+     * @param document  document to add, null for removals
+     */
+    public IndexOperation(final Type type, final String className, final String id, final Document document) {
+
+        this.type = type;
+        this.className = className;
+        this.id = id;
+        this.document = document;
+    }
+
+    /**
+     * Returns the key that identifies the indexed object.
+     *
+     * @return String with the class name and id
+     */
+    public String getKey() {
+
+        return (DocumentBuilder.getKey(className, id));
+    }
+
+    // accessor methods
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public String toString() {
+        return "IndexOperation{" +
+                "type=" + type +
+                ", className='" + className + '\'' +
+                ", id='" + id + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Provides an enumeration of the partitions of the index. Every class of indexed object is written to one partition,
+ * each partition is a separate Lucene index in a directory of its own under the index storage location. Writing to one
+ * partition doesn't merge or re-open the others, and a search for one class of object only reads its partition.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public enum IndexPartition {
+
+    /**
+     * Action items, by far the largest and most often changed partition.
+     */
+    ACTION_ITEMS("actionitems"),
+
+    /**
+     * Reference items.
+     */
+    REFERENCE_ITEMS("referenceitems"),
+
+    /**
+     * Projects, contexts, categories and tags.
+     */
+    LISTS("lists");
+
+    /**
+     * Name of the partition's directory.
+     */
+    private final String directoryName;
+
+    private IndexPartition(final String directoryName) {
+
+        this.directoryName = directoryName;
+    }
+
+    /**
+     * Returns the partitions that may hold documents matching a query. A query that requires a class, either with a
+     * required clause on the class field or by being filtered on a class facet, only needs that class's partition.
+     *
+     * @param query the query
+     * @return EnumSet of partitions, empty if the classes the query requires are in different partitions
+     */
+    public static EnumSet<IndexPartition> getPartitions(Query query) {
+
+        EnumSet<IndexPartition> partitions = EnumSet.allOf(IndexPartition.class);
+
+        if (query instanceof FilteredQuery) {
+
+            FilteredQuery filteredQuery = (FilteredQuery) query;
+            partitions.retainAll(getPartitions(filteredQuery.getQuery()));
+            partitions.retainAll(getPartitions(filteredQuery.getFilter()));
+        } else if (query instanceof TermQuery) {
+
+            partitions.retainAll(getPartitions(((TermQuery) query).getTerm()));
+        } else if (query instanceof BooleanQuery) {
+
+            BooleanClause[] clauses = ((BooleanQuery) query).getClauses();
+            for (int index = 0; index < clauses.length; index++) {
+
+                if (clauses[index].isRequired()) {
+                    partitions.retainAll(getPartitions(clauses[index].getQuery()));
+                }
+            }
+        }
+
+        return (partitions);
+    }
+
+    // accessor methods
+
+    public String getDirectoryName() {
+        return directoryName;
+    }
+
+    // private methods
+
+    private static EnumSet<IndexPartition> getPartitions(Filter filter) {
+
+        EnumSet<IndexPartition> partitions = EnumSet.allOf(IndexPartition.class);
+
+        if (filter instanceof FacetFilter) {
+
+            List<Term> terms = ((FacetFilter) filter).getTerms();
+            for (int index = 0; index < terms.size(); index++) {
+                partitions.retainAll(getPartitions(terms.get(index)));
+            }
+        }
+
+        return (partitions);
+    }
+
+    private static EnumSet<IndexPartition> getPartitions(Term term) {
+
+        if (term.field().equals(DocumentBuilder.FIELD_CLASS)) {
+
+            IndexPartition partition = IndexSchema.getPartition(term.text());
+
+            if (partition != null) {
+                return (EnumSet.of(partition));
+            }
+        }
+
+        return (EnumSet.allOf(IndexPartition.class));
+    }
+}
@@ -0,0 +1,273 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.utility.batch.BatchHandler;
+import com.nervestaple.gtdinbox.utility.batch.Batcher;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides a queue of pending index operations that are committed to the index in groups by a Batcher's background
+ * thread. Repeated operations on the same object are coalesced so that only the most recent one is written. A group is
+ * committed once the oldest pending operation has waited for the maximum delay or once the batch size has been
+ * reached, whichever comes first.
+ * <p/>
+ * When a journal is set every operation is recorded in it as it's queued and the journal is cut back to the
+ * operations that are still outstanding after each successful commit, so operations lost when the application dies
+ * can be replayed.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class IndexQueue {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Default number of pending operations that will trigger a commit.
+     */
+    public final static int DEFAULT_BATCH_SIZE = 250;
+
+    /**
+     * Default time (in milliseconds) an operation may wait before it is committed.
+     */
+    public final static long DEFAULT_MAX_DELAY = 500;
+
+    /**
+     * Index manager that commits the operations.
+     */
+    private final IndexManager indexManager;
+
+    /**
+     * Batcher holding the pending operations, keyed by class and id, and committing them.
+     */
+    private final Batcher<IndexOperation> batcher;
+
+    /**
+     * Operations in the journal that are neither pending nor committed, recovered from an earlier run or from a batch
+     * that failed, keyed by class and id.
+     */
+    private final Map<String, IndexOperation> uncommitted;
+
+    /**
+     * Journal the operations are recorded in, null if they aren't journaled.
+     */
+    private IndexJournal journal;
+
+    /**
+     * Lock guarding the journal, it's held while an operation is queued so the journal records them in order.
+     */
+    private final Object lock;
+
+    /**
+     * Creates a new IndexQueue with the default batch size and delay.
+     *
+     * @param indexManager index manager that commits the operations
+     */
+    public IndexQueue(final IndexManager indexManager) {
+
+        this(indexManager, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates a new IndexQueue.
+     *
+     * @param indexManager index manager that commits the operations
+     * @param batchSize    number of pending operations that will trigger a commit
+     * @param maxDelay     time (in milliseconds) an operation may wait before it is committed
+     */
+    public IndexQueue(final IndexManager indexManager, final int batchSize, final long maxDelay) {
+
+        this.indexManager = indexManager;
+
+        uncommitted = new LinkedHashMap<>();
+        lock = new Object();
+
+        batcher = new Batcher<>("GTDInbox-IndexQueue", batchSize, maxDelay, new BatchHandler<IndexOperation>() {
+
+            public void handleBatch(List<IndexOperation> batch) {
+
+                commitBatch(batch);
+            }
+        });
+    }
+
+    /**
+     * Adds an operation to the queue, replacing any pending operation for the same object.
+     *
+     * @param operation operation to queue
+     * @throws IndexManagerException if the queue has been shut down
+     */
+    public void enqueue(final IndexOperation operation) throws IndexManagerException {
+
+        synchronized (lock) {
+
+            if (!batcher.add(operation.getKey(), operation)) {
+                throw new IndexManagerException("The index queue has been shut down");
+            }
+
+            if (journal != null) {
+                journal.append(operation);
+            }
+        }
+    }
+
+    /**
+     * Sets the journal the queued operations are recorded in.
+     *
+     * @param journal the journal, null to stop journaling
+     */
+    void setJournal(final IndexJournal journal) {
+
+        synchronized (lock) {
+            this.journal = journal;
+        }
+    }
+
+    /**
+     * Keeps operations recovered from the journal in the journal until they have been committed again.
+     *
+     * @param operations operations read from the journal
+     */
+    void recover(final List<IndexOperation> operations) {
+
+        synchronized (lock) {
+
+            for (IndexOperation operation : operations) {
+
+                uncommitted.remove(operation.getKey());
+                uncommitted.put(operation.getKey(), operation);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of operations waiting to be committed.
+     *
+     * @return number of pending operations
+     */
+    public int getPendingCount() {
+
+        return (batcher.getPendingCount());
+    }
+
+    /**
+     * Commits all pending operations and waits until they have been written to the index.
+     */
+    public void flush() {
+
+        batcher.flush();
+    }
+
+    /**
+     * Commits all pending operations, stops the background thread and closes the journal. No further operations will be
+     * accepted.
+     */
+    public void shutdown() {
+
+        batcher.shutdown();
+
+        synchronized (lock) {
+
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    // private methods
+
+    /**
+     * Commits a batch of operations to the index, called on the batcher's thread.
+     *
+     * @param batch the operations of the batch
+     */
+    private void commitBatch(final List<IndexOperation> batch) {
+
+        boolean committed = false;
+        try {
+
+            syncJournal();
+
+            logger.debug("Committing " + batch.size() + " index operations");
+            indexManager.commitOperations(batch);
+            committed = true;
+        } catch (IndexManagerException e) {
+
+            logger.warn("Could not commit index operations!", e);
+        } catch (RuntimeException e) {
+
+            logger.warn("Could not commit index operations!", e);
+        } finally {
+
+            resetJournal(batch, committed);
+        }
+    }
+
+    /**
+     * Forces the journaled operations to the disk before they are committed.
+     */
+    private void syncJournal() {
+
+        IndexJournal journalCurrent;
+        synchronized (lock) {
+            journalCurrent = journal;
+        }
+
+        if (journalCurrent != null) {
+            journalCurrent.sync();
+        }
+    }
+
+    /**
+     * Cuts the journal back to the operations that are still outstanding after a batch. A batch that failed stays in
+     * the journal.
+     *
+     * @param batch     the operations of the batch
+     * @param committed true if the batch was committed
+     */
+    private void resetJournal(final List<IndexOperation> batch, final boolean committed) {
+
+        synchronized (lock) {
+
+            // hold the lock so no operation is queued between taking the pending operations and writing the journal
+            List<IndexOperation> pending = batcher.getPending();
+
+            Set<String> keysPending = new HashSet<>();
+            for (IndexOperation operation : pending) {
+                keysPending.add(operation.getKey());
+            }
+
+            for (IndexOperation operation : batch) {
+
+                uncommitted.remove(operation.getKey());
+
+                if (!committed && !keysPending.contains(operation.getKey())) {
+                    uncommitted.put(operation.getKey(), operation);
+                }
+            }
+
+            if (journal == null) {
+                return;
+            }
+
+            List<IndexOperation> outstanding = new ArrayList<>(uncommitted.values());
+            outstanding.addAll(pending);
+
+            try {
+                journal.reset(outstanding);
+            } catch (IOException e) {
+                logger.warn("Could not reset the index journal!", e);
+            }
+        }
+    }
+}
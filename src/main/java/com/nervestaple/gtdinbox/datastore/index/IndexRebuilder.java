@@ -0,0 +1,279 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.model.Indexable;
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Provides an object that writes a complete index of the database into an empty directory. Every indexed class is read
+ * from the database a page at a time in id order, the page's documents are built in parallel on a fork/join pool and
+ * then written by the index writer of the class's partition. Each partition is committed once, when its writer is
+ * closed.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+class IndexRebuilder {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Number of objects read from the database at a time.
+     */
+    public final static int DEFAULT_PAGE_SIZE = 500;
+
+    /**
+     * Number of documents the writer buffers in memory before writing a segment.
+     */
+    private final static int MAX_BUFFERED_DOCUMENTS = 1000;
+
+    /**
+     * Ranges of a page with no more objects than this are built without being split.
+     */
+    private final static int BUILD_THRESHOLD = 64;
+
+    /**
+     * The index manager, it reports our progress to its listeners.
+     */
+    private final IndexManager indexManager;
+
+    /**
+     * Number of objects read from the database at a time.
+     */
+    private final int pageSize;
+
+    /**
+     * Creates a new IndexRebuilder.
+     *
+     * @param indexManager the index manager
+     * @param pageSize     number of objects read from the database at a time
+     */
+    public IndexRebuilder(final IndexManager indexManager, final int pageSize) {
+
+        this.indexManager = indexManager;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Writes a new index of every indexed object in the database.
+     *
+     * @param directories directories for the new index, one for each partition in IndexPartition order; any index in
+     *                    them is replaced
+     * @param analyzer    analyzer for the new index
+     * @return the number of documents in the new index
+     * @throws IndexManagerException on problems reading the database or writing the index
+     */
+    public int rebuild(Directory[] directories, Analyzer analyzer) throws IndexManagerException {
+
+        EntityManager entityManager;
+        try {
+            entityManager = DataBaseManager.getInstance().createEntityManager();
+        } catch (DataBaseManagerException e) {
+            throw new IndexManagerException(e);
+        }
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool();
+        IndexWriter[] indexWriters = new IndexWriter[directories.length];
+
+        try {
+
+            int total = 0;
+            for (DocumentBuilder documentBuilder : IndexSchema.getDocumentBuilders()) {
+                total += countObjects(entityManager, documentBuilder);
+            }
+
+            logger.info("Rebuilding the index for " + total + " objects");
+            indexManager.fireIndexRebuildProgress(0, total);
+
+            for (int index = 0; index < directories.length; index++) {
+
+                indexWriters[index] = new IndexWriter(directories[index], analyzer, true);
+                indexWriters[index].setMaxBufferedDocs(MAX_BUFFERED_DOCUMENTS);
+            }
+
+            int indexed = 0;
+            for (DocumentBuilder documentBuilder : IndexSchema.getDocumentBuilders()) {
+
+                IndexWriter indexWriter = indexWriters[documentBuilder.getPartition().ordinal()];
+
+                Long idLast = null;
+                List<Indexable> page = loadPage(entityManager, documentBuilder, idLast);
+
+                while (!page.isEmpty()) {
+
+                    Document[] documents = new Document[page.size()];
+                    forkJoinPool.invoke(new BuildDocumentsAction(documentBuilder, page, documents, 0, page.size()));
+
+                    for (int index = 0; index < documents.length; index++) {
+                        indexWriter.addDocument(documents[index]);
+                    }
+
+                    indexed += documents.length;
+                    indexManager.fireIndexRebuildProgress(indexed, Math.max(indexed, total));
+
+                    // the page has been written, let the entity manager forget it
+                    idLast = (Long) page.get(page.size() - 1).getId();
+                    entityManager.clear();
+
+                    page = loadPage(entityManager, documentBuilder, idLast);
+                }
+            }
+
+            for (int index = 0; index < indexWriters.length; index++) {
+
+                indexWriters[index].optimize();
+                indexWriters[index].close();
+                indexWriters[index] = null;
+            }
+
+            logger.info("Rebuilt the index with " + indexed + " documents");
+
+            return (indexed);
+        } catch (IOException e) {
+            throw new IndexManagerException(e);
+        } catch (PersistenceException e) {
+            throw new IndexManagerException(e);
+        } finally {
+
+            for (int index = 0; index < indexWriters.length; index++) {
+
+                if (indexWriters[index] != null) {
+
+                    try {
+                        indexWriters[index].close();
+                    } catch (IOException e) {
+                        logger.warn(e);
+                    }
+                }
+            }
+
+            forkJoinPool.shutdown();
+            entityManager.close();
+        }
+    }
+
+    // private methods
+
+    /**
+     * Returns the number of objects of the builder's class in the database.
+     *
+     * @param entityManager   entity manager to read with
+     * @param documentBuilder builder for the class
+     * @return number of objects
+     */
+    private int countObjects(EntityManager entityManager, DocumentBuilder documentBuilder) {
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        query.select(criteriaBuilder.count(query.from(documentBuilder.getIndexedClass())));
+
+        return (entityManager.createQuery(query).getSingleResult().intValue());
+    }
+
+    /**
+     * Returns the next page of objects of the builder's class, in id order. The lazy associations the builder reads
+     * are fetched with the objects so the documents can be built on other threads.
+     *
+     * @param entityManager   entity manager to read with
+     * @param documentBuilder builder for the class
+     * @param idLast          id of the last object on the previous page, null for the first page
+     * @return List of objects, empty once every object has been read
+     */
+    @SuppressWarnings("unchecked")
+    private List<Indexable> loadPage(EntityManager entityManager, DocumentBuilder documentBuilder, Long idLast) {
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+
+        // find the ids on the page
+        CriteriaQuery<Long> queryIds = criteriaBuilder.createQuery(Long.class);
+        Root rootIds = queryIds.from(documentBuilder.getIndexedClass());
+        queryIds.select(rootIds.get("id"));
+        if (idLast != null) {
+            queryIds.where(criteriaBuilder.greaterThan(rootIds.<Long>get("id"), idLast));
+        }
+        queryIds.orderBy(criteriaBuilder.asc(rootIds.get("id")));
+
+        List<Long> ids = entityManager.createQuery(queryIds).setMaxResults(pageSize).getResultList();
+
+        if (ids.isEmpty()) {
+            return (Collections.emptyList());
+        }
+
+        // load the objects with their lazy associations
+        CriteriaQuery query = criteriaBuilder.createQuery(documentBuilder.getIndexedClass());
+        Root root = query.from(documentBuilder.getIndexedClass());
+
+        List<String> fetches = documentBuilder.getFetches();
+        for (String fetch : fetches) {
+            root.fetch(fetch, JoinType.LEFT);
+        }
+
+        query.select(root).distinct(true);
+        query.where(root.get("id").in(ids));
+        query.orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return (entityManager.createQuery(query).getResultList());
+    }
+
+    /**
+     * Builds the documents for a range of a page of objects, splitting large ranges in half.
+     */
+    private static class BuildDocumentsAction extends RecursiveAction {
+
+        private final DocumentBuilder<Indexable> documentBuilder;
+
+        private final List<Indexable> objects;
+
+        private final Document[] documents;
+
+        private final int start;
+
+        private final int end;
+
+        public BuildDocumentsAction(final DocumentBuilder<Indexable> documentBuilder, final List<Indexable> objects,
+                                    final Document[] documents, final int start, final int end) {
+
+            this.documentBuilder = documentBuilder;
+            this.objects = objects;
+            this.documents = documents;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+
+            if (end - start <= BUILD_THRESHOLD) {
+
+                for (int index = start; index < end; index++) {
+                    documents[index] = documentBuilder.build(objects.get(index));
+                }
+            } else {
+
+                int middle = (start + end) >>> 1;
+                invokeAll(new BuildDocumentsAction(documentBuilder, objects, documents, start, middle),
+                        new BuildDocumentsAction(documentBuilder, objects, documents, middle, end));
+            }
+        }
+    }
+}
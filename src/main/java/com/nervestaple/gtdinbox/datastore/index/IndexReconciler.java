@@ -0,0 +1,410 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.model.Indexable;
+import org.apache.log4j.Logger;
+import org.apache.lucene.document.DateTools;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.search.FieldCache;
+import org.apache.lucene.search.IndexSearcher;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Provides an object that finds the differences between the database and the index and queues the changes that make
+ * the index match the database again.
+ * <p/>
+ * For classes with a "lastModifiedDate" field, objects modified since the high-water mark (the time the last
+ * reconciliation started) are compared with their documents by that date. For every class the number of objects in the
+ * database is compared with the number of documents in the index, only if they differ are the ids compared to find
+ * missing and extra documents. Once the queued changes are committed the high-water mark is moved up, so normally only
+ * the objects changed since the last run are read.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+class IndexReconciler {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Name of the date field compared with the database.
+     */
+    private final static String FIELD_LAST_MODIFIED_DATE = "lastModifiedDate";
+
+    /**
+     * Key of the high-water mark in the mark file.
+     */
+    private final static String HIGH_WATER_MARK_KEY = "highWaterMark";
+
+    /**
+     * The index manager.
+     */
+    private final IndexManager indexManager;
+
+    /**
+     * File holding the high-water mark.
+     */
+    private final File fileMark;
+
+    /**
+     * Creates a new IndexReconciler.
+     *
+     * @param indexManager the index manager
+     * @param fileMark     file holding the high-water mark
+     */
+    public IndexReconciler(final IndexManager indexManager, final File fileMark) {
+
+        this.indexManager = indexManager;
+        this.fileMark = fileMark;
+    }
+
+    /**
+     * Compares the database with the index, queues the changes needed to bring the index up to date and waits for
+     * them to be committed.
+     *
+     * @return the number of objects that were re-indexed or removed from the index
+     * @throws IndexManagerException on problems reading the database or the index
+     */
+    public int reconcile() throws IndexManagerException {
+
+        long started = System.currentTimeMillis();
+        Date highWaterMark = readHighWaterMark(fileMark);
+
+        logger.info("Reconciling the index with the database, changes since " + highWaterMark);
+
+        // changes that are already on their way to the index aren't differences
+        indexManager.getIndexQueue().flush();
+
+        EntityManager entityManager;
+        try {
+            entityManager = DataBaseManager.getInstance().createEntityManager();
+        } catch (DataBaseManagerException e) {
+            throw new IndexManagerException(e);
+        }
+
+        IndexSearcher indexSearcher = indexManager.acquireIndexSearcher();
+
+        int differences = 0;
+        try {
+
+            IndexReader indexReader = indexSearcher.getIndexReader();
+
+            for (DocumentBuilder documentBuilder : IndexSchema.getDocumentBuilders()) {
+
+                if (documentBuilder.hasField(FIELD_LAST_MODIFIED_DATE)) {
+                    differences += reconcileModified(entityManager, indexReader, documentBuilder, highWaterMark);
+                }
+
+                differences += reconcileIds(entityManager, indexReader, documentBuilder);
+            }
+        } catch (IOException e) {
+            throw new IndexManagerException(e);
+        } catch (PersistenceException e) {
+            throw new IndexManagerException(e);
+        } finally {
+
+            indexManager.releaseIndexSearcher(indexSearcher);
+            entityManager.close();
+        }
+
+        // only move the mark once the fixes are in the index
+        indexManager.getIndexQueue().flush();
+        writeHighWaterMark(fileMark, new Date(started));
+
+        logger.info("Reconciled the index, " + differences + " differences fixed");
+
+        return (differences);
+    }
+
+    /**
+     * Returns the high-water mark stored in the provided file.
+     *
+     * @param fileMark file holding the high-water mark
+     * @return Date or null if there's no mark
+     */
+    static Date readHighWaterMark(File fileMark) {
+
+        if (!fileMark.exists()) {
+            return (null);
+        }
+
+        Properties properties = new Properties();
+
+        try {
+
+            InputStream inputStream = new FileInputStream(fileMark);
+            try {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+
+            String value = properties.getProperty(HIGH_WATER_MARK_KEY);
+
+            return (value != null ? new Date(Long.parseLong(value)) : null);
+        } catch (IOException e) {
+            Logger.getLogger(IndexReconciler.class).warn(e);
+        } catch (NumberFormatException e) {
+            Logger.getLogger(IndexReconciler.class).warn(e);
+        }
+
+        return (null);
+    }
+
+    /**
+     * Stores the high-water mark in the provided file, a null mark removes the file.
+     *
+     * @param fileMark      file holding the high-water mark
+     * @param highWaterMark the new mark
+     */
+    static void writeHighWaterMark(File fileMark, Date highWaterMark) {
+
+        if (highWaterMark == null) {
+
+            if (fileMark.exists() && !fileMark.delete()) {
+                Logger.getLogger(IndexReconciler.class).warn("Couldn't delete " + fileMark);
+            }
+
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(HIGH_WATER_MARK_KEY, String.valueOf(highWaterMark.getTime()));
+
+        try {
+
+            OutputStream outputStream = new FileOutputStream(fileMark);
+            try {
+                properties.store(outputStream, "Index reconciliation high-water mark");
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            Logger.getLogger(IndexReconciler.class).warn(e);
+        }
+    }
+
+    // private methods
+
+    /**
+     * Re-indexes the objects modified since the high-water mark whose documents are missing or have another
+     * modification date.
+     *
+     * @param entityManager   entity manager to read with
+     * @param indexReader     reader on the index
+     * @param documentBuilder builder for the class
+     * @param highWaterMark   high-water mark, null to check every object
+     * @return number of objects re-indexed
+     * @throws IOException on problems reading the index
+     */
+    @SuppressWarnings("unchecked")
+    private int reconcileModified(EntityManager entityManager, IndexReader indexReader,
+                                  DocumentBuilder documentBuilder, Date highWaterMark) throws IOException {
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<?> root = query.from(documentBuilder.getIndexedClass());
+        query.multiselect(root.get("id"), root.get(FIELD_LAST_MODIFIED_DATE));
+        if (highWaterMark != null) {
+            query.where(criteriaBuilder.greaterThanOrEqualTo(root.<Date>get(FIELD_LAST_MODIFIED_DATE), highWaterMark));
+        }
+
+        List<Object[]> rows = entityManager.createQuery(query).getResultList();
+
+        int reindexed = 0;
+        for (Object[] row : rows) {
+
+            String id = row[0].toString();
+            Date lastModifiedDate = (Date) row[1];
+
+            String indexed = getIndexedValue(indexReader, documentBuilder.getClassName(), id,
+                    FIELD_LAST_MODIFIED_DATE);
+            String expected = lastModifiedDate != null
+                    ? DateTools.dateToString(lastModifiedDate, DateTools.Resolution.MINUTE) : null;
+
+            if (!isIndexed(indexReader, documentBuilder.getClassName(), id)
+                    || (expected != null && !expected.equals(indexed))) {
+
+                reindexed += queueIndexable(entityManager, documentBuilder, (Long) row[0]);
+            }
+        }
+
+        return (reindexed);
+    }
+
+    /**
+     * Compares the number of objects of a class in the database with the number of documents in the index. If they
+     * differ, missing documents are indexed and documents for objects that are gone are removed.
+     *
+     * @param entityManager   entity manager to read with
+     * @param indexReader     reader on the index
+     * @param documentBuilder builder for the class
+     * @return number of objects indexed or removed
+     * @throws IOException on problems reading the index
+     */
+    @SuppressWarnings("unchecked")
+    private int reconcileIds(EntityManager entityManager, IndexReader indexReader,
+                             DocumentBuilder documentBuilder) throws IOException {
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> queryCount = criteriaBuilder.createQuery(Long.class);
+        queryCount.select(criteriaBuilder.count(queryCount.from(documentBuilder.getIndexedClass())));
+        long countDatabase = entityManager.createQuery(queryCount).getSingleResult();
+
+        // collect the ids in the index
+        String[] ids = FieldCache.DEFAULT.getStrings(indexReader, DocumentBuilder.FIELD_ID);
+        Set<String> idsIndex = new HashSet<>();
+
+        TermDocs termDocs = indexReader.termDocs(new Term(DocumentBuilder.FIELD_CLASS, documentBuilder.getClassName()));
+        try {
+            while (termDocs.next()) {
+                idsIndex.add(ids[termDocs.doc()]);
+            }
+        } finally {
+            termDocs.close();
+        }
+
+        if (countDatabase == idsIndex.size()) {
+            return (0);
+        }
+
+        logger.info(documentBuilder.getIndexedClass().getName() + ": " + countDatabase + " in the database, "
+                + idsIndex.size() + " in the index");
+
+        CriteriaQuery<Long> queryIds = criteriaBuilder.createQuery(Long.class);
+        Root<?> root = queryIds.from(documentBuilder.getIndexedClass());
+        queryIds.select(root.<Long>get("id"));
+
+        List<Long> idsDatabase = entityManager.createQuery(queryIds).getResultList();
+
+        int differences = 0;
+        for (Long id : idsDatabase) {
+
+            // whatever is left over afterwards isn't in the database
+            if (!idsIndex.remove(id.toString())) {
+                differences += queueIndexable(entityManager, documentBuilder, id);
+            }
+        }
+
+        for (String id : idsIndex) {
+
+            try {
+                indexManager.getIndexQueue().enqueue(
+                        new IndexOperation(IndexOperation.Type.REMOVE, documentBuilder.getClassName(), id, null));
+                differences++;
+            } catch (IndexManagerException e) {
+                logger.warn(e);
+            }
+        }
+
+        return (differences);
+    }
+
+    /**
+     * Loads an object and queues it to be indexed.
+     *
+     * @param entityManager   entity manager to read with
+     * @param documentBuilder builder for the class
+     * @param id              id of the object
+     * @return 1 if the object was queued, 0 if not
+     */
+    @SuppressWarnings("unchecked")
+    private int queueIndexable(EntityManager entityManager, DocumentBuilder documentBuilder, Long id) {
+
+        Indexable indexable = (Indexable) entityManager.find(documentBuilder.getIndexedClass(), id);
+
+        if (indexable == null) {
+            return (0);
+        }
+
+        try {
+            indexManager.queueIndexable(indexable);
+        } catch (IndexManagerException e) {
+            logger.warn(e);
+            return (0);
+        }
+
+        return (1);
+    }
+
+    /**
+     * Returns true if the index has a document for the object.
+     *
+     * @param indexReader reader on the index
+     * @param className   lower-cased class name of the object
+     * @param id          id of the object
+     * @return boolean
+     * @throws IOException on problems reading the index
+     */
+    private boolean isIndexed(IndexReader indexReader, String className, String id) throws IOException {
+
+        return (getDocumentNumber(indexReader, className, id) >= 0);
+    }
+
+    /**
+     * Returns the stored value of a field of the object's document.
+     *
+     * @param indexReader reader on the index
+     * @param className   lower-cased class name of the object
+     * @param id          id of the object
+     * @param field       name of the field
+     * @return the value or null if there is no document or value
+     * @throws IOException on problems reading the index
+     */
+    private String getIndexedValue(IndexReader indexReader, String className, String id, String field)
+            throws IOException {
+
+        int documentNumber = getDocumentNumber(indexReader, className, id);
+
+        if (documentNumber < 0) {
+            return (null);
+        }
+
+        return (indexReader.document(documentNumber).get(field));
+    }
+
+    /**
+     * Returns the number of the object's document.
+     *
+     * @param indexReader reader on the index
+     * @param className   lower-cased class name of the object
+     * @param id          id of the object
+     * @return the document number or -1 if there is no document
+     * @throws IOException on problems reading the index
+     */
+    private int getDocumentNumber(IndexReader indexReader, String className, String id) throws IOException {
+
+        TermDocs termDocs = indexReader.termDocs(
+                new Term(DocumentBuilder.FIELD_KEY, DocumentBuilder.getKey(className, id)));
+
+        try {
+            return (termDocs.next() ? termDocs.doc() : -1);
+        } finally {
+            termDocs.close();
+        }
+    }
+}
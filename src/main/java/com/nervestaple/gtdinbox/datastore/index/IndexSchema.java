@@ -0,0 +1,504 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.model.Indexable;
+import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
+import com.nervestaple.gtdinbox.model.item.referenceitem.SimpleReferenceItem;
+import com.nervestaple.gtdinbox.model.project.Project;
+import com.nervestaple.gtdinbox.model.reference.category.Category;
+import com.nervestaple.gtdinbox.model.tag.Tag;
+import org.apache.lucene.document.Field;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides the schema of the index: one DocumentBuilder for every class of indexed object. The builders are created
+ * once when this class is loaded and read values through the objects' accessors.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class IndexSchema {
+
+    /**
+     * Version of the schema, raise it when the fields or partitions change so that existing indexes are rebuilt.
+     */
+    public final static int VERSION = 3;
+
+    /**
+     * Name of the field holding an item's project name as a single term, for counting and filtering by project.
+     */
+    public final static String FIELD_FACET_PROJECT = "facetProject";
+
+    /**
+     * Name of the field holding an item's context name as a single term.
+     */
+    public final static String FIELD_FACET_INBOX_CONTEXT = "facetInboxContext";
+
+    /**
+     * Name of the field holding each of an item's tag names as a single term.
+     */
+    public final static String FIELD_FACET_TAG = "facetTag";
+
+    /**
+     * Fields search results are counted by: the class of the object, its project, its context and its tags.
+     */
+    public final static String[] FACET_FIELDS = {DocumentBuilder.FIELD_CLASS, FIELD_FACET_PROJECT,
+            FIELD_FACET_INBOX_CONTEXT, FIELD_FACET_TAG};
+
+    /**
+     * Builders keyed by the class they were registered for.
+     */
+    private final static Map<Class, DocumentBuilder> BUILDERS;
+
+    /**
+     * Builders resolved for subclasses and proxies of the registered classes.
+     */
+    private final static Map<Class, DocumentBuilder> BUILDERS_RESOLVED;
+
+    /**
+     * Partitions keyed by the lower-cased class names stored in the documents.
+     */
+    private final static Map<String, IndexPartition> PARTITIONS;
+
+    static {
+
+        BUILDERS = new HashMap<>();
+        BUILDERS_RESOLVED = new ConcurrentHashMap<>();
+        PARTITIONS = new HashMap<>();
+
+        register(createActionItemBuilder());
+        register(createProjectBuilder());
+        register(createInboxContextBuilder());
+        register(createCategoryBuilder());
+        register(createReferenceItemBuilder());
+        register(createTagBuilder());
+    }
+
+    private IndexSchema() {
+
+    }
+
+    /**
+     * Returns the document builder for the provided class. Subclasses and proxies of an indexed class use the builder
+     * of that class.
+     *
+     * @param clazz class of the object to index
+     * @return DocumentBuilder
+     * @throws IndexManagerException if the class is not part of the index schema
+     */
+    public static DocumentBuilder<Indexable> getDocumentBuilder(Class clazz) throws IndexManagerException {
+
+        DocumentBuilder documentBuilder = BUILDERS_RESOLVED.get(clazz);
+
+        if (documentBuilder == null) {
+
+            for (Class classCurrent = clazz; classCurrent != null && documentBuilder == null;
+                 classCurrent = classCurrent.getSuperclass()) {
+
+                documentBuilder = BUILDERS.get(classCurrent);
+            }
+
+            if (documentBuilder == null) {
+                throw new IndexManagerException("No index schema for " + clazz.getName());
+            }
+
+            BUILDERS_RESOLVED.put(clazz, documentBuilder);
+        }
+
+        return (documentBuilder);
+    }
+
+    /**
+     * Returns the builders for all of the indexed classes.
+     *
+     * @return Collection of DocumentBuilder instances
+     */
+    public static Collection<DocumentBuilder> getDocumentBuilders() {
+
+        return (BUILDERS.values());
+    }
+
+    /**
+     * Returns the partition of the index that holds the documents of a class.
+     *
+     * @param className lower-cased class name, as stored in the documents
+     * @return IndexPartition or null if the class is not part of the index schema
+     */
+    public static IndexPartition getPartition(String className) {
+
+        return (PARTITIONS.get(className));
+    }
+
+    // private methods
+
+    private static void register(DocumentBuilder documentBuilder) {
+
+        BUILDERS.put(documentBuilder.getIndexedClass(), documentBuilder);
+        PARTITIONS.put(documentBuilder.getClassName(), documentBuilder.getPartition());
+    }
+
+    /**
+     * Returns the names of the provided tags separated by spaces.
+     *
+     * @param tags Collection of Tag instances
+     * @return String with the tag names or null if there are none
+     */
+    private static String getTagNames(Collection<Tag> tags) {
+
+        if (tags == null || tags.isEmpty()) {
+            return (null);
+        }
+
+        StringBuilder names = new StringBuilder();
+
+        Iterator<Tag> iterator = tags.iterator();
+        while (iterator.hasNext()) {
+
+            Tag tag = iterator.next();
+
+            if (tag.getName() != null) {
+
+                if (names.length() > 0) {
+                    names.append(' ');
+                }
+
+                names.append(tag.getName());
+            }
+        }
+
+        return (names.length() > 0 ? names.toString() : null);
+    }
+
+    /**
+     * Returns the names of the provided tags.
+     *
+     * @param tags Collection of Tag instances
+     * @return List of tag names or null if there are none
+     */
+    private static List<String> getTagNameList(Collection<Tag> tags) {
+
+        if (tags == null || tags.isEmpty()) {
+            return (null);
+        }
+
+        List<String> names = new ArrayList<>();
+
+        Iterator<Tag> iterator = tags.iterator();
+        while (iterator.hasNext()) {
+
+            Tag tag = iterator.next();
+
+            if (tag.getName() != null) {
+                names.add(tag.getName());
+            }
+        }
+
+        return (names);
+    }
+
+    private static DocumentBuilder<ActionItem> createActionItemBuilder() {
+
+        DocumentBuilder<ActionItem> builder = new DocumentBuilder<>(ActionItem.class, IndexPartition.ACTION_ITEMS);
+
+        builder.addField(new IndexField<ActionItem>("name", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getName());
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("description", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getDescription());
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("parent", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getProject() != null ? actionItem.getProject().getName() : null);
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("project", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getProject() != null ? actionItem.getProject().getName() : null);
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("inboxContext", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getInboxContext() != null ? actionItem.getInboxContext().getName() : null);
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("tags", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (getTagNames(actionItem.getTags()));
+            }
+        });
+
+        builder.addFetch("tags");
+
+        builder.addField(new IndexField<ActionItem>(FIELD_FACET_PROJECT, IndexField.Type.KEYWORD, Field.Store.NO) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getProject() != null ? actionItem.getProject().getName() : null);
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>(FIELD_FACET_INBOX_CONTEXT, IndexField.Type.KEYWORD,
+                Field.Store.NO) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getInboxContext() != null ? actionItem.getInboxContext().getName() : null);
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>(FIELD_FACET_TAG, IndexField.Type.KEYWORD, Field.Store.NO) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (getTagNameList(actionItem.getTags()));
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("createdDate", IndexField.Type.DATE, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getCreatedDate());
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("lastModifiedDate", IndexField.Type.DATE, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getLastModifiedDate());
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("completedDate", IndexField.Type.DATE, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getCompletedDate());
+            }
+        });
+
+        builder.addField(new IndexField<ActionItem>("deleted", IndexField.Type.KEYWORD, Field.Store.YES) {
+
+            public Object getValue(ActionItem actionItem) {
+                return (actionItem.getDeleted());
+            }
+        });
+
+        return (builder);
+    }
+
+    private static DocumentBuilder<Project> createProjectBuilder() {
+
+        DocumentBuilder<Project> builder = new DocumentBuilder<>(Project.class, IndexPartition.LISTS);
+
+        builder.addField(new IndexField<Project>("name", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(Project project) {
+                return (project.getName());
+            }
+        });
+
+        builder.addField(new IndexField<Project>("description", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(Project project) {
+                return (project.getDescription());
+            }
+        });
+
+        builder.addField(new IndexField<Project>("createdDate", IndexField.Type.DATE, Field.Store.YES) {
+
+            public Object getValue(Project project) {
+                return (project.getCreatedDate());
+            }
+        });
+
+        builder.addField(new IndexField<Project>("deleted", IndexField.Type.KEYWORD, Field.Store.YES) {
+
+            public Object getValue(Project project) {
+                return (project.getDeleted());
+            }
+        });
+
+        return (builder);
+    }
+
+    private static DocumentBuilder<InboxContext> createInboxContextBuilder() {
+
+        DocumentBuilder<InboxContext> builder = new DocumentBuilder<>(InboxContext.class, IndexPartition.LISTS);
+
+        builder.addField(new IndexField<InboxContext>("name", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(InboxContext inboxContext) {
+                return (inboxContext.getName());
+            }
+        });
+
+        builder.addField(new IndexField<InboxContext>("description", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(InboxContext inboxContext) {
+                return (inboxContext.getDescription());
+            }
+        });
+
+        builder.addField(new IndexField<InboxContext>("deleted", IndexField.Type.KEYWORD, Field.Store.YES) {
+
+            public Object getValue(InboxContext inboxContext) {
+                return (inboxContext.getDeleted());
+            }
+        });
+
+        return (builder);
+    }
+
+    private static DocumentBuilder<Category> createCategoryBuilder() {
+
+        DocumentBuilder<Category> builder = new DocumentBuilder<>(Category.class, IndexPartition.LISTS);
+
+        builder.addField(new IndexField<Category>("name", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(Category category) {
+                return (category.getName());
+            }
+        });
+
+        builder.addField(new IndexField<Category>("description", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(Category category) {
+                return (category.getDescription());
+            }
+        });
+
+        builder.addField(new IndexField<Category>("deleted", IndexField.Type.KEYWORD, Field.Store.YES) {
+
+            public Object getValue(Category category) {
+                return (category.getDeleted());
+            }
+        });
+
+        return (builder);
+    }
+
+    private static DocumentBuilder<ReferenceItem> createReferenceItemBuilder() {
+
+        DocumentBuilder<ReferenceItem> builder =
+                new DocumentBuilder<>(ReferenceItem.class, IndexPartition.REFERENCE_ITEMS);
+
+        builder.addField(new IndexField<ReferenceItem>("name", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (referenceItem.getName());
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("description", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (referenceItem.getDescription());
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("content", IndexField.Type.TEXT, Field.Store.NO) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+
+                if (referenceItem instanceof SimpleReferenceItem) {
+                    return (((SimpleReferenceItem) referenceItem).getContent());
+                }
+
+                return (null);
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("parent", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (referenceItem.getCategory() != null ? referenceItem.getCategory().getName() : null);
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("category", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (referenceItem.getCategory() != null ? referenceItem.getCategory().getName() : null);
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("tags", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (getTagNames(referenceItem.getTags()));
+            }
+        });
+
+        builder.addFetch("tags");
+
+        builder.addField(new IndexField<ReferenceItem>(FIELD_FACET_TAG, IndexField.Type.KEYWORD, Field.Store.NO) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (getTagNameList(referenceItem.getTags()));
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("createdDate", IndexField.Type.DATE, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (referenceItem.getCreatedDate());
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("lastModifiedDate", IndexField.Type.DATE, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (referenceItem.getLastModifiedDate());
+            }
+        });
+
+        builder.addField(new IndexField<ReferenceItem>("deleted", IndexField.Type.KEYWORD, Field.Store.YES) {
+
+            public Object getValue(ReferenceItem referenceItem) {
+                return (referenceItem.getDeleted());
+            }
+        });
+
+        return (builder);
+    }
+
+    private static DocumentBuilder<Tag> createTagBuilder() {
+
+        DocumentBuilder<Tag> builder = new DocumentBuilder<>(Tag.class, IndexPartition.LISTS);
+
+        builder.addField(new IndexField<Tag>("name", IndexField.Type.TEXT, Field.Store.YES) {
+
+            public Object getValue(Tag tag) {
+                return (tag.getName());
+            }
+        });
+
+        builder.addField(new IndexField<Tag>("deleted", IndexField.Type.KEYWORD, Field.Store.YES) {
+
+            public Object getValue(Tag tag) {
+                return (tag.getDeleted());
+            }
+        });
+
+        return (builder);
+    }
+}
@@ -0,0 +1,221 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Provides a histogram of the time an operation takes. Times are counted in buckets that double in width, the first
+ * bucket holds times under two microseconds and the last one everything over half an hour, so a percentile is only
+ * known to within a factor of two. That is plenty to tell a slow operation from a fast one and recording a time is
+ * just a few atomic increments, it's safe to call from any thread.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of buckets.
+     */
+    private final static int BUCKETS = 32;
+
+    /**
+     * Number of times counted in each bucket, bucket n holds times from 2^n up to 2^(n+1) microseconds.
+     */
+    private final AtomicLongArray buckets;
+
+    /**
+     * Number of times recorded.
+     */
+    private final AtomicLong count;
+
+    /**
+     * Number of items handled by the recorded operations.
+     */
+    private final AtomicLong items;
+
+    /**
+     * Sum of the recorded times, in nanoseconds.
+     */
+    private final AtomicLong totalNanos;
+
+    /**
+     * Longest recorded time, in nanoseconds.
+     */
+    private final AtomicLong maxNanos;
+
+    /**
+     * Time the histogram was created or last reset, from System.nanoTime().
+     */
+    private volatile long startedNanos;
+
+    /**
+     * Creates a new LatencyHistogram.
+     */
+    public LatencyHistogram() {
+
+        buckets = new AtomicLongArray(BUCKETS);
+        count = new AtomicLong();
+        items = new AtomicLong();
+        totalNanos = new AtomicLong();
+        maxNanos = new AtomicLong();
+
+        startedNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the time an operation on one item took.
+     *
+     * @param nanos the time, in nanoseconds
+     */
+    public void record(long nanos) {
+
+        record(nanos, 1);
+    }
+
+    /**
+     * Records the time an operation took.
+     *
+     * @param nanos the time, in nanoseconds
+     * @param items number of items the operation handled
+     */
+    public void record(long nanos, int items) {
+
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        buckets.incrementAndGet(getBucket(nanos));
+        count.incrementAndGet();
+        this.items.addAndGet(items);
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Returns the number of times recorded.
+     *
+     * @return long
+     */
+    public long getCount() {
+
+        return (count.get());
+    }
+
+    /**
+     * Returns the number of items handled per second since the histogram was created or reset.
+     *
+     * @return items per second
+     */
+    public double getThroughput() {
+
+        long elapsed = System.nanoTime() - startedNanos;
+
+        if (elapsed <= 0) {
+            return (0);
+        }
+
+        return (items.get() * 1000000000d / elapsed);
+    }
+
+    /**
+     * Returns the mean recorded time.
+     *
+     * @return time in milliseconds
+     */
+    public double getMeanMillis() {
+
+        long countCurrent = count.get();
+
+        if (countCurrent == 0) {
+            return (0);
+        }
+
+        return (totalNanos.get() / 1000000d / countCurrent);
+    }
+
+    /**
+     * Returns the longest recorded time.
+     *
+     * @return time in milliseconds
+     */
+    public double getMaxMillis() {
+
+        return (maxNanos.get() / 1000000d);
+    }
+
+    /**
+     * Returns the time that the provided fraction of the recorded times are at or under. This is the upper end of the
+     * bucket the percentile falls into, but never more than the longest recorded time.
+     *
+     * @param fraction the percentile, between 0 and 1
+     * @return time in milliseconds
+     */
+    public double getPercentileMillis(double fraction) {
+
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+
+            counts[index] = buckets.get(index);
+            total += counts[index];
+        }
+
+        if (total == 0) {
+            return (0);
+        }
+
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+
+            seen += counts[index];
+
+            if (seen >= rank) {
+                return (Math.min((2L << index) * 1000 / 1000000d, getMaxMillis()));
+            }
+        }
+
+        return (getMaxMillis());
+    }
+
+    /**
+     * Clears the recorded times and restarts the throughput clock.
+     */
+    public void reset() {
+
+        for (int index = 0; index < BUCKETS; index++) {
+            buckets.set(index, 0);
+        }
+
+        count.set(0);
+        items.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+
+        startedNanos = System.nanoTime();
+    }
+
+    // private methods
+
+    /**
+     * Returns the bucket a time is counted in.
+     *
+     * @param nanos the time, in nanoseconds
+     * @return index of the bucket
+     */
+    private int getBucket(long nanos) {
+
+        long micros = nanos / 1000;
+
+        if (micros <= 1) {
+            return (0);
+        }
+
+        return (Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKETS - 1));
+    }
+}
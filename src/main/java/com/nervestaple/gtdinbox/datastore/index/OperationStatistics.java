@@ -0,0 +1,124 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Provides a snapshot of the statistics of one kind of index operation, taken from its LatencyHistogram.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class OperationStatistics {
+
+    /**
+     * Number of times the operation ran.
+     */
+    private final long count;
+
+    /**
+     * Items handled per second.
+     */
+    private final double throughput;
+
+    /**
+     * Mean time in milliseconds.
+     */
+    private final double meanMillis;
+
+    /**
+     * Median time in milliseconds.
+     */
+    private final double medianMillis;
+
+    /**
+     * 95th percentile time in milliseconds.
+     */
+    private final double percentile95Millis;
+
+    /**
+     * 99th percentile time in milliseconds.
+     */
+    private final double percentile99Millis;
+
+    /**
+     * Longest time in milliseconds.
+     */
+    private final double maxMillis;
+
+    /**
+     * Creates a new OperationStatistics.
+     *
+     * @param count              number of times the operation ran
+     * @param throughput         items handled per second
+     * @param meanMillis         mean time in milliseconds
+     * @param medianMillis       median time in milliseconds
+     * @param percentile95Millis 95th percentile time in milliseconds
+     * @param percentile99Millis 99th percentile time in milliseconds
+     * @param maxMillis          longest time in milliseconds
+     */
+    @ConstructorProperties({"count", "throughput", "meanMillis", "medianMillis", "percentile95Millis",
+            "percentile99Millis", "maxMillis"})
+    public OperationStatistics(final long count, final double throughput, final double meanMillis,
+                               final double medianMillis, final double percentile95Millis,
+                               final double percentile99Millis, final double maxMillis) {
+
+        this.count = count;
+        this.throughput = throughput;
+        this.meanMillis = meanMillis;
+        this.medianMillis = medianMillis;
+        this.percentile95Millis = percentile95Millis;
+        this.percentile99Millis = percentile99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Takes a snapshot of a histogram.
+     *
+     * @param latencyHistogram the histogram
+     * @return OperationStatistics
+     */
+    public static OperationStatistics fromHistogram(LatencyHistogram latencyHistogram) {
+
+        return (new OperationStatistics(latencyHistogram.getCount(), latencyHistogram.getThroughput(),
+                latencyHistogram.getMeanMillis(), latencyHistogram.getPercentileMillis(0.5),
+                latencyHistogram.getPercentileMillis(0.95), latencyHistogram.getPercentileMillis(0.99),
+                latencyHistogram.getMaxMillis()));
+    }
+
+    public String toString() {
+
+        return ("count=" + count + ", throughput=" + throughput + "/s, mean=" + meanMillis + "ms, median="
+                + medianMillis + "ms, p95=" + percentile95Millis + "ms, p99=" + percentile99Millis + "ms, max="
+                + maxMillis + "ms");
+    }
+
+    // accessor methods
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getMedianMillis() {
+        return medianMillis;
+    }
+
+    public double getPercentile95Millis() {
+        return percentile95Millis;
+    }
+
+    public double getPercentile99Millis() {
+        return percentile99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+}
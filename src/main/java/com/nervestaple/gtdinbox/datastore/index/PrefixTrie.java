@@ -0,0 +1,343 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Provides a character trie of terms, each with a weight. Every node also knows the highest weight of any term below
+ * it, completions for a prefix are found best first by following the heaviest branches and only as many nodes as
+ * needed for the requested completions are visited.
+ * <p/>
+ * This object is not thread safe.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+class PrefixTrie {
+
+    /**
+     * Root node, for the empty prefix.
+     */
+    private final Node root;
+
+    /**
+     * Number of distinct terms.
+     */
+    private int size;
+
+    /**
+     * Creates a new PrefixTrie.
+     */
+    public PrefixTrie() {
+
+        root = new Node();
+    }
+
+    /**
+     * Adds to the weight of a term, a term whose weight drops to zero is removed.
+     *
+     * @param term  the term
+     * @param delta amount to add to the weight, may be negative
+     */
+    public void add(String term, int delta) {
+
+        if (term.length() == 0 || delta == 0) {
+            return;
+        }
+
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+
+        Node node = root;
+        for (int index = 0; index < term.length(); index++) {
+
+            Node child = node.getChild(term.charAt(index));
+
+            if (child == null) {
+
+                // nothing to remove
+                if (delta < 0) {
+                    return;
+                }
+
+                child = node.addChild(term.charAt(index));
+            }
+
+            node = child;
+            path[index + 1] = node;
+        }
+
+        int weightOld = node.weight;
+        node.weight = Math.max(0, node.weight + delta);
+
+        if (weightOld == 0 && node.weight > 0) {
+            size++;
+        } else if (weightOld > 0 && node.weight == 0) {
+            size--;
+        }
+
+        // fix the maximum weights on the way back up, pruning empty branches
+        for (int index = term.length(); index >= 0; index--) {
+
+            Node nodePath = path[index];
+            nodePath.updateMaxWeight();
+
+            if (index > 0 && nodePath.weight == 0 && nodePath.childCount == 0) {
+                path[index - 1].removeChild(term.charAt(index - 1));
+            }
+        }
+    }
+
+    /**
+     * Returns the weight of a term.
+     *
+     * @param term the term
+     * @return the weight, zero if the term isn't in the trie
+     */
+    public int getWeight(String term) {
+
+        Node node = findNode(term);
+
+        return (node != null ? node.weight : 0);
+    }
+
+    /**
+     * Returns the number of distinct terms.
+     *
+     * @return int
+     */
+    public int size() {
+
+        return (size);
+    }
+
+    /**
+     * Returns the heaviest terms that start with the provided prefix, heaviest first and alphabetically among equal
+     * weights.
+     *
+     * @param prefix      the prefix
+     * @param completions maximum number of terms to return
+     * @return List of terms
+     */
+    public List<String> complete(String prefix, int completions) {
+
+        List<String> terms = new ArrayList<>();
+
+        Node node = findNode(prefix);
+
+        if (node == null || node.maxWeight == 0 || completions < 1) {
+            return (terms);
+        }
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(16, new Comparator<Candidate>() {
+
+            public int compare(Candidate candidate1, Candidate candidate2) {
+
+                if (candidate1.weight != candidate2.weight) {
+                    return (candidate1.weight > candidate2.weight ? -1 : 1);
+                }
+
+                int comparison = candidate1.text.compareTo(candidate2.text);
+
+                if (comparison != 0) {
+                    return (comparison);
+                }
+
+                // a term comes before the branch it starts
+                return (candidate1.node == null ? -1 : (candidate2.node == null ? 1 : 0));
+            }
+        });
+
+        candidates.add(new Candidate(prefix, node.maxWeight, node));
+
+        while (!candidates.isEmpty() && terms.size() < completions) {
+
+            Candidate candidate = candidates.poll();
+
+            if (candidate.node == null) {
+                terms.add(candidate.text);
+                continue;
+            }
+
+            Node nodeCandidate = candidate.node;
+
+            if (nodeCandidate.weight > 0) {
+                candidates.add(new Candidate(candidate.text, nodeCandidate.weight, null));
+            }
+
+            for (int index = 0; index < nodeCandidate.childCount; index++) {
+
+                Node child = nodeCandidate.children[index];
+                candidates.add(new Candidate(candidate.text + nodeCandidate.labels[index], child.maxWeight, child));
+            }
+        }
+
+        return (terms);
+    }
+
+    // private methods
+
+    /**
+     * Returns the node for a prefix.
+     *
+     * @param prefix the prefix
+     * @return Node or null if no term starts with the prefix
+     */
+    private Node findNode(String prefix) {
+
+        Node node = root;
+        for (int index = 0; index < prefix.length() && node != null; index++) {
+            node = node.getChild(prefix.charAt(index));
+        }
+
+        return (node);
+    }
+
+    /**
+     * Provides a node in the trie. Children are kept in arrays sorted by their label.
+     */
+    private static class Node {
+
+        /**
+         * Labels of the children.
+         */
+        private char[] labels;
+
+        /**
+         * Children, in the same order as their labels.
+         */
+        private Node[] children;
+
+        /**
+         * Number of children.
+         */
+        private int childCount;
+
+        /**
+         * Weight of the term ending at this node, zero if no term ends here.
+         */
+        private int weight;
+
+        /**
+         * Highest weight of this node and every node below it.
+         */
+        private int maxWeight;
+
+        public Node getChild(char label) {
+
+            int index = indexOf(label);
+
+            return (index >= 0 ? children[index] : null);
+        }
+
+        public Node addChild(char label) {
+
+            if (labels == null) {
+
+                labels = new char[2];
+                children = new Node[2];
+            } else if (childCount == labels.length) {
+
+                char[] labelsNew = new char[labels.length * 2];
+                Node[] childrenNew = new Node[children.length * 2];
+                System.arraycopy(labels, 0, labelsNew, 0, childCount);
+                System.arraycopy(children, 0, childrenNew, 0, childCount);
+                labels = labelsNew;
+                children = childrenNew;
+            }
+
+            int index = -(indexOf(label) + 1);
+
+            System.arraycopy(labels, index, labels, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+
+            Node child = new Node();
+            labels[index] = label;
+            children[index] = child;
+            childCount++;
+
+            return (child);
+        }
+
+        public void removeChild(char label) {
+
+            int index = indexOf(label);
+
+            if (index < 0) {
+                return;
+            }
+
+            System.arraycopy(labels, index + 1, labels, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        public void updateMaxWeight() {
+
+            int max = weight;
+            for (int index = 0; index < childCount; index++) {
+                max = Math.max(max, children[index].maxWeight);
+            }
+
+            maxWeight = max;
+        }
+
+        /**
+         * Binary search for a label.
+         *
+         * @param label the label
+         * @return index of the label, or (-(insertion point) - 1) if it isn't present
+         */
+        private int indexOf(char label) {
+
+            int low = 0;
+            int high = childCount - 1;
+
+            while (low <= high) {
+
+                int middle = (low + high) >>> 1;
+
+                if (labels[middle] < label) {
+                    low = middle + 1;
+                } else if (labels[middle] > label) {
+                    high = middle - 1;
+                } else {
+                    return (middle);
+                }
+            }
+
+            return (-(low + 1));
+        }
+    }
+
+    /**
+     * Provides an entry in the queue of candidates, either a complete term (with no node) or a branch to explore.
+     */
+    private static class Candidate {
+
+        /**
+         * Text of the term or the branch's prefix.
+         */
+        private final String text;
+
+        /**
+         * Weight of the term or the highest weight in the branch.
+         */
+        private final int weight;
+
+        /**
+         * Node of the branch, null for a complete term.
+         */
+        private final Node node;
+
+        public Candidate(final String text, final int weight, final Node node) {
+
+            this.text = text;
+            this.weight = weight;
+            this.node = node;
+        }
+    }
+}
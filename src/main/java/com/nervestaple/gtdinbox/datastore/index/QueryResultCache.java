@@ -0,0 +1,235 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a least-recently-used cache of search results. Results are keyed by query and hold only the document
+ * numbers and scores of the best hits, document numbers are only good for the searcher they were found with so every
+ * result belongs to a searcher generation (see SearcherManager.getGeneration()). Once a newer generation is used the
+ * whole cache is cleared.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class QueryResultCache {
+
+    /**
+     * Default number of queries whose results are kept.
+     */
+    public final static int DEFAULT_MAX_ENTRIES = 64;
+
+    /**
+     * Cached results, least recently used first.
+     */
+    private final Map<Query, Result> results;
+
+    /**
+     * Searcher generation the cached results belong to.
+     */
+    private long generation;
+
+    /**
+     * Number of searches answered from the cache.
+     */
+    private long hits;
+
+    /**
+     * Number of searches that had to run.
+     */
+    private long misses;
+
+    /**
+     * Creates a new QueryResultCache.
+     *
+     * @param maxEntries number of queries whose results are kept
+     */
+    public QueryResultCache(final int maxEntries) {
+
+        results = new LinkedHashMap<Query, Result>(16, 0.75f, true) {
+
+            protected boolean removeEldestEntry(Map.Entry<Query, Result> eldest) {
+
+                return (size() > maxEntries);
+            }
+        };
+
+        generation = -1;
+    }
+
+    /**
+     * Returns the cached result for a query if it holds at least the requested number of hits.
+     *
+     * @param query      the query
+     * @param generation generation of the searcher that will be used
+     * @param maxHits    number of best hits needed
+     * @return Result or null if the search has to run
+     */
+    synchronized Result get(Query query, long generation, int maxHits) {
+
+        moveToGeneration(generation);
+
+        Result result = results.get(query);
+
+        if (result == null || !result.covers(maxHits)) {
+
+            misses++;
+            return (null);
+        }
+
+        hits++;
+
+        return (result);
+    }
+
+    /**
+     * Caches the result of a query.
+     *
+     * @param query      the query
+     * @param generation generation of the searcher the result was found with
+     * @param result     the result
+     */
+    synchronized void put(Query query, long generation, Result result) {
+
+        if (generation < this.generation) {
+            return;
+        }
+
+        moveToGeneration(generation);
+
+        // the query object is part of the key, keep our own copy in case the caller changes theirs
+        results.put((Query) query.clone(), result);
+    }
+
+    /**
+     * Removes every cached result.
+     */
+    public synchronized void clear() {
+
+        results.clear();
+    }
+
+    /**
+     * Returns the number of searches answered from the cache.
+     *
+     * @return long
+     */
+    public synchronized long getHits() {
+
+        return (hits);
+    }
+
+    /**
+     * Returns the number of searches that weren't in the cache.
+     *
+     * @return long
+     */
+    public synchronized long getMisses() {
+
+        return (misses);
+    }
+
+    /**
+     * Returns the number of cached queries.
+     *
+     * @return int
+     */
+    public synchronized int size() {
+
+        return (results.size());
+    }
+
+    // private methods
+
+    private void moveToGeneration(long generation) {
+
+        if (generation != this.generation) {
+
+            results.clear();
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Provides the cached result of one query: the best hits as parallel arrays of document numbers and scores, best
+     * first, the total number of hits and the facet counts of all the hits.
+     */
+    static class Result {
+
+        /**
+         * Document numbers of the best hits.
+         */
+        private final int[] documents;
+
+        /**
+         * Scores of the best hits.
+         */
+        private final float[] scores;
+
+        /**
+         * Number of matching documents.
+         */
+        private final int totalHits;
+
+        /**
+         * Facet counts of all the hits, keyed by field name.
+         */
+        private final Map<String, List<FacetCount>> facets;
+
+        public Result(final ScoreDoc[] scoreDocs, final int totalHits) {
+
+            this(scoreDocs, totalHits, Collections.<String, List<FacetCount>>emptyMap());
+        }
+
+        public Result(final ScoreDoc[] scoreDocs, final int totalHits, final Map<String, List<FacetCount>> facets) {
+
+            this.totalHits = totalHits;
+            this.facets = facets;
+
+            documents = new int[scoreDocs.length];
+            scores = new float[scoreDocs.length];
+
+            for (int index = 0; index < scoreDocs.length; index++) {
+
+                documents[index] = scoreDocs[index].doc;
+                scores[index] = scoreDocs[index].score;
+            }
+        }
+
+        /**
+         * Returns true if this result holds the requested number of best hits, or every hit there is.
+         *
+         * @param maxHits number of hits needed
+         * @return boolean
+         */
+        public boolean covers(int maxHits) {
+
+            return (documents.length >= maxHits || documents.length >= totalHits);
+        }
+
+        public int getDocument(int index) {
+            return documents[index];
+        }
+
+        public float getScore(int index) {
+            return scores[index];
+        }
+
+        public int getSize() {
+            return documents.length;
+        }
+
+        public int getTotalHits() {
+            return totalHits;
+        }
+
+        public Map<String, List<FacetCount>> getFacets() {
+            return facets;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.lucene.search.Query;
+
+/**
+ * Provides an object that marks the position of a page of search results: the query, the offset of the page's first
+ * hit and the number of hits on the page. Pass it to IndexManager.search() to fetch that page.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class SearchCursor {
+
+    /**
+     * The query.
+     */
+    private final Query query;
+
+    /**
+     * Offset of the first hit on the page.
+     */
+    private final int offset;
+
+    /**
+     * Number of hits on the page.
+     */
+    private final int pageSize;
+
+    /**
+     * Creates a new SearchCursor.
+     *
+     * @param query    the query
+     * @param offset   offset of the first hit on the page
+     * @param pageSize number of hits on the page
+     */
+    public SearchCursor(final Query query, final int offset, final int pageSize) {
+
+        if (offset < 0 || pageSize < 1) {
+            throw new IllegalArgumentException("Invalid page: offset " + offset + ", size " + pageSize);
+        }
+
+        this.query = query;
+        this.offset = offset;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the cursor for the page following this one.
+     *
+     * @return SearchCursor
+     */
+    public SearchCursor next() {
+
+        return (new SearchCursor(query, offset + pageSize, pageSize));
+    }
+
+    // accessor methods
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String toString() {
+
+        return ("SearchCursor[" + query + ", offset: " + offset + ", size: " + pageSize + "]");
+    }
+}
@@ -0,0 +1,150 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.document.DateTools;
+import org.apache.lucene.document.Document;
+
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * Provides an object that holds one search result: the class, id and score of the matching object and the few fields
+ * the search results display.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class SearchHit {
+
+    /**
+     * Logger instance.
+     */
+    private final static Logger logger = Logger.getLogger(SearchHit.class);
+
+    /**
+     * Lower-cased class name of the object.
+     */
+    private final String className;
+
+    /**
+     * Id of the object.
+     */
+    private final String id;
+
+    /**
+     * Score of the hit.
+     */
+    private final float score;
+
+    /**
+     * Name of the object.
+     */
+    private final String name;
+
+    /**
+     * Description of the object.
+     */
+    private final String description;
+
+    /**
+     * Name of the object the item is filed under.
+     */
+    private final String parent;
+
+    /**
+     * Date the object was last modified.
+     */
+    private final Date lastModifiedDate;
+
+    /**
+     * Creates a new SearchHit.
+     *
+     * @param className        lower-cased class name of the object
+     * @param id               id of the object
+     * @param score            score of the hit
+     * @param name             name of the object
+     * @param description      description of the object
+     * @param parent           name of the object the item is filed under
+     * @param lastModifiedDate date the object was last modified
+     */
+    public SearchHit(final String className, final String id, final float score, final String name,
+                     final String description, final String parent, final Date lastModifiedDate) {
+
+        this.className = className;
+        this.id = id;
+        this.score = score;
+        this.name = name;
+        this.description = description;
+        this.parent = parent;
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    /**
+     * Creates a new SearchHit from the stored fields of a document.
+     *
+     * @param document document that matched the search
+     * @param score    score of the hit
+     * @return SearchHit
+     */
+    public static SearchHit fromDocument(Document document, float score) {
+
+        Date lastModifiedDate = null;
+
+        if (document.get("lastModifiedDate") != null) {
+
+            try {
+                lastModifiedDate = DateTools.stringToDate(document.get("lastModifiedDate"));
+            } catch (ParseException e) {
+                logger.warn(e);
+            }
+        }
+
+        return (new SearchHit(document.get(DocumentBuilder.FIELD_CLASS), document.get(DocumentBuilder.FIELD_ID),
+                score, document.get("name"), document.get("description"), document.get("parent"), lastModifiedDate));
+    }
+
+    /**
+     * Returns the key of the object, see DocumentBuilder.getKey().
+     *
+     * @return String with the class name and id
+     */
+    public String getKey() {
+
+        return (DocumentBuilder.getKey(className, id));
+    }
+
+    // accessor methods
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getParent() {
+        return parent;
+    }
+
+    public Date getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public String toString() {
+
+        return ("SearchHit[" + getKey() + ", score: " + score + "]");
+    }
+}
@@ -0,0 +1,92 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides an object that holds one page of search results, the total number of matching documents, the counts of
+ * every matching document's facet values and the cursor for the next page.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class SearchPage {
+
+    /**
+     * Hits on this page, best first.
+     */
+    private final List<SearchHit> hits;
+
+    /**
+     * Total number of documents matching the query.
+     */
+    private final int totalHits;
+
+    /**
+     * Cursor for the next page, null if this is the last page.
+     */
+    private final SearchCursor nextCursor;
+
+    /**
+     * Most common values of each facet field among all of the matching documents, keyed by field name.
+     */
+    private final Map<String, List<FacetCount>> facets;
+
+    /**
+     * Creates a new SearchPage.
+     *
+     * @param hits       hits on this page
+     * @param totalHits  total number of matching documents
+     * @param nextCursor cursor for the next page or null
+     */
+    public SearchPage(final List<SearchHit> hits, final int totalHits, final SearchCursor nextCursor) {
+
+        this(hits, totalHits, nextCursor, Collections.<String, List<FacetCount>>emptyMap());
+    }
+
+    /**
+     * Creates a new SearchPage.
+     *
+     * @param hits       hits on this page
+     * @param totalHits  total number of matching documents
+     * @param nextCursor cursor for the next page or null
+     * @param facets     most common facet values of the matching documents, keyed by field name
+     */
+    public SearchPage(final List<SearchHit> hits, final int totalHits, final SearchCursor nextCursor,
+                      final Map<String, List<FacetCount>> facets) {
+
+        this.hits = Collections.unmodifiableList(hits);
+        this.totalHits = totalHits;
+        this.nextCursor = nextCursor;
+        this.facets = Collections.unmodifiableMap(facets);
+    }
+
+    /**
+     * Returns true if there are more hits after this page.
+     *
+     * @return boolean
+     */
+    public boolean hasNextPage() {
+
+        return (nextCursor != null);
+    }
+
+    // accessor methods
+
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    public SearchCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public Map<String, List<FacetCount>> getFacets() {
+        return facets;
+    }
+}
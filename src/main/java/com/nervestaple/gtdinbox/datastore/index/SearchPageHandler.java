@@ -0,0 +1,25 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+/**
+ * Defines an interface that an object can implement if it wants to receive pages of search results. The methods are
+ * called on the index manager's search thread and are not called at all for a search that was superseded.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public interface SearchPageHandler {
+
+    /**
+     * Method called with the page of results once the search has completed.
+     *
+     * @param searchPage page of results
+     */
+    public void handleSearchPage(SearchPage searchPage);
+
+    /**
+     * Method called if the search could not be completed.
+     *
+     * @param exception the problem
+     */
+    public void handleSearchException(IndexManagerException exception);
+}
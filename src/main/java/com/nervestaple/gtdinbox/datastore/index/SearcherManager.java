@@ -0,0 +1,455 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides an object for sharing one IndexSearcher between all of the application's searches. Searchers are reference
+ * counted, when the index changes a new searcher is opened and the old one is closed once the last search holding it
+ * has released it.
+ * <p/>
+ * The index may be made of several partitions, each in its own directory. The shared searcher reads all of them
+ * through one MultiReader, and getPartitionSearchers() returns a searcher for each partition so that they can be
+ * searched separately. When the index changes only the readers of the partitions that changed are re-opened, the
+ * others are shared with the previous searcher.
+ * <p/>
+ * Call acquire() to get the current searcher and release() when you are done with it.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class SearcherManager {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Index directories, one for each partition.
+     */
+    private Directory[] directories;
+
+    /**
+     * Current searcher.
+     */
+    private IndexSearcher indexSearcher;
+
+    /**
+     * Readers of the current searcher, one for each partition.
+     */
+    private IndexReader[] indexReaders;
+
+    /**
+     * Index versions the current readers were opened on.
+     */
+    private long[] versions;
+
+    /**
+     * Generation of the current searcher, incremented every time a new searcher is opened.
+     */
+    private long generation;
+
+    /**
+     * Number of outstanding references, keyed by searcher.
+     */
+    private final Map<IndexSearcher, Integer> references;
+
+    /**
+     * Searchers for the partitions of each open searcher.
+     */
+    private final Map<IndexSearcher, IndexSearcher[]> partitionSearchers;
+
+    /**
+     * Number of open searchers using each partition reader.
+     */
+    private final Map<IndexReader, Integer> readerReferences;
+
+    /**
+     * Incremented every time the index is changed.
+     */
+    private long staleGeneration;
+
+    /**
+     * Value of staleGeneration the current searcher reflects.
+     */
+    private long refreshedGeneration;
+
+    /**
+     * Lock held while opening a new searcher, only one refresh runs at a time.
+     */
+    private final Object refreshLock;
+
+    /**
+     * Creates a new SearcherManager for an index with one partition.
+     *
+     * @param directory index directory
+     */
+    public SearcherManager(final Directory directory) {
+
+        this(new Directory[]{directory});
+    }
+
+    /**
+     * Creates a new SearcherManager.
+     *
+     * @param directories index directories, one for each partition
+     */
+    public SearcherManager(final Directory[] directories) {
+
+        this.directories = directories;
+
+        references = new IdentityHashMap<>();
+        partitionSearchers = new IdentityHashMap<>();
+        readerReferences = new IdentityHashMap<>();
+        refreshLock = new Object();
+    }
+
+    /**
+     * Returns the current searcher and increments its reference count. Every call must be matched by a call to
+     * release().
+     *
+     * @return IndexSearcher
+     * @throws IndexManagerException on problems opening the index
+     */
+    public IndexSearcher acquire() throws IndexManagerException {
+
+        synchronized (this) {
+
+            if (indexSearcher != null && staleGeneration == refreshedGeneration) {
+                return (addReference());
+            }
+        }
+
+        refresh();
+
+        synchronized (this) {
+            return (addReference());
+        }
+    }
+
+    /**
+     * Releases a searcher returned by acquire(). If the searcher has been replaced and this was the last reference, it
+     * is closed.
+     *
+     * @param indexSearcher searcher to release
+     */
+    public void release(final IndexSearcher indexSearcher) {
+
+        if (indexSearcher == null) {
+            return;
+        }
+
+        synchronized (this) {
+
+            Integer count = references.get(indexSearcher);
+
+            if (count == null) {
+                return;
+            }
+
+            if (count > 1) {
+                references.put(indexSearcher, count - 1);
+                return;
+            }
+
+            references.remove(indexSearcher);
+
+            if (indexSearcher == this.indexSearcher) {
+                return;
+            }
+        }
+
+        closeSearcher(indexSearcher);
+    }
+
+    /**
+     * Returns the current searcher without counting a reference. The searcher may be closed once the index changes,
+     * use acquire() if you will be holding it across changes.
+     *
+     * @return IndexSearcher
+     * @throws IndexManagerException on problems opening the index
+     */
+    public IndexSearcher getIndexSearcher() throws IndexManagerException {
+
+        synchronized (this) {
+
+            if (indexSearcher != null && staleGeneration == refreshedGeneration) {
+                return (indexSearcher);
+            }
+        }
+
+        refresh();
+
+        synchronized (this) {
+            return (indexSearcher);
+        }
+    }
+
+    /**
+     * Returns a searcher for each partition of a searcher returned by acquire(), in the order of the directories.
+     * Document numbers of a partition searcher are offset in the searcher's MultiReader by the number of documents
+     * (maxDoc()) in the partitions before it. The partition searchers are valid as long as the searcher is held.
+     *
+     * @param indexSearcher searcher returned by acquire()
+     * @return array of IndexSearcher instances, null if the searcher has been closed
+     */
+    public synchronized IndexSearcher[] getPartitionSearchers(final IndexSearcher indexSearcher) {
+
+        return (partitionSearchers.get(indexSearcher));
+    }
+
+    /**
+     * Switches to another index directory. The current searcher is retired, searches still holding it continue
+     * undisturbed and the next call to acquire() opens a searcher on the new directory.
+     *
+     * @param directory index directory
+     */
+    public void setDirectory(final Directory directory) {
+
+        setDirectories(new Directory[]{directory});
+    }
+
+    /**
+     * Switches to other index directories. The current searcher is retired, searches still holding it continue
+     * undisturbed and the next call to acquire() opens a searcher on the new directories.
+     *
+     * @param directories index directories, one for each partition
+     */
+    public void setDirectories(final Directory[] directories) {
+
+        synchronized (refreshLock) {
+
+            IndexSearcher indexSearcherOld;
+            synchronized (this) {
+
+                indexSearcherOld = indexSearcher;
+
+                this.directories = directories;
+                indexSearcher = null;
+                indexReaders = null;
+                versions = null;
+                staleGeneration++;
+
+                // searches still holding the old searcher will close it on release
+                if (indexSearcherOld != null && references.containsKey(indexSearcherOld)) {
+                    indexSearcherOld = null;
+                }
+            }
+
+            closeSearcher(indexSearcherOld);
+        }
+    }
+
+    /**
+     * Returns the generation of a searcher, every searcher this manager opens has a higher generation than the one
+     * before it. Results found with a searcher may be reused as long as its generation is current.
+     *
+     * @param indexSearcher searcher returned by acquire()
+     * @return the generation, or -1 if the searcher has been replaced
+     */
+    public synchronized long getGeneration(final IndexSearcher indexSearcher) {
+
+        return (indexSearcher != null && indexSearcher == this.indexSearcher ? generation : -1);
+    }
+
+    /**
+     * Flags the current searcher as out of date, the next call to acquire() will check the index for changes.
+     */
+    public synchronized void markStale() {
+
+        staleGeneration++;
+    }
+
+    /**
+     * Opens a new searcher if any partition of the index has changed since the current searcher was opened. Searches
+     * running on the old searcher continue undisturbed.
+     *
+     * @throws IndexManagerException on problems opening the index
+     */
+    public void refresh() throws IndexManagerException {
+
+        synchronized (refreshLock) {
+
+            long generationStale;
+            synchronized (this) {
+                generationStale = staleGeneration;
+            }
+
+            long[] versionsCurrent = new long[directories.length];
+            try {
+
+                for (int index = 0; index < directories.length; index++) {
+                    versionsCurrent[index] = IndexReader.getCurrentVersion(directories[index]);
+                }
+            } catch (IOException e) {
+                throw new IndexManagerException(e);
+            }
+
+            synchronized (this) {
+
+                if (indexSearcher != null && Arrays.equals(versionsCurrent, versions)) {
+
+                    refreshedGeneration = generationStale;
+                    return;
+                }
+            }
+
+            // keep the readers of the partitions that haven't changed
+            IndexReader[] indexReadersNew = new IndexReader[directories.length];
+            try {
+
+                for (int index = 0; index < directories.length; index++) {
+
+                    if (indexReaders != null && versionsCurrent[index] == versions[index]) {
+                        indexReadersNew[index] = indexReaders[index];
+                    } else {
+
+                        logger.debug("Opening a new reader on index version " + versionsCurrent[index]);
+                        indexReadersNew[index] = IndexReader.open(directories[index]);
+                    }
+                }
+            } catch (IOException e) {
+
+                closeNewReaders(indexReadersNew);
+                throw new IndexManagerException(e);
+            }
+
+            IndexSearcher indexSearcherNew;
+            try {
+                indexSearcherNew = new IndexSearcher(new MultiReader(indexReadersNew));
+            } catch (IOException e) {
+
+                closeNewReaders(indexReadersNew);
+                throw new IndexManagerException(e);
+            }
+
+            IndexSearcher[] partitionSearchersNew = new IndexSearcher[indexReadersNew.length];
+            for (int index = 0; index < indexReadersNew.length; index++) {
+                partitionSearchersNew[index] = new IndexSearcher(indexReadersNew[index]);
+            }
+
+            IndexSearcher indexSearcherOld;
+            synchronized (this) {
+
+                indexSearcherOld = indexSearcher;
+
+                for (int index = 0; index < indexReadersNew.length; index++) {
+
+                    Integer count = readerReferences.get(indexReadersNew[index]);
+                    readerReferences.put(indexReadersNew[index], count == null ? 1 : count + 1);
+                }
+
+                partitionSearchers.put(indexSearcherNew, partitionSearchersNew);
+
+                indexSearcher = indexSearcherNew;
+                indexReaders = indexReadersNew;
+                versions = versionsCurrent;
+                generation++;
+                refreshedGeneration = generationStale;
+
+                // searches still holding the old searcher will close it on release
+                if (indexSearcherOld != null && references.containsKey(indexSearcherOld)) {
+                    indexSearcherOld = null;
+                }
+            }
+
+            closeSearcher(indexSearcherOld);
+        }
+    }
+
+    // private methods
+
+    /**
+     * Increments the reference count of the current searcher, the caller must hold the lock on this object.
+     *
+     * @return the current searcher
+     */
+    private IndexSearcher addReference() {
+
+        Integer count = references.get(indexSearcher);
+        references.put(indexSearcher, count == null ? 1 : count + 1);
+
+        return (indexSearcher);
+    }
+
+    /**
+     * Closes a searcher and the partition readers no other open searcher is using. The searcher's MultiReader isn't
+     * closed, that would close readers that are still shared.
+     *
+     * @param indexSearcher searcher to close
+     */
+    private void closeSearcher(IndexSearcher indexSearcher) {
+
+        if (indexSearcher == null) {
+            return;
+        }
+
+        List<IndexReader> indexReadersClosed = new ArrayList<>();
+
+        synchronized (this) {
+
+            IndexSearcher[] partitionSearchersClosed = partitionSearchers.remove(indexSearcher);
+
+            if (partitionSearchersClosed != null) {
+
+                for (int index = 0; index < partitionSearchersClosed.length; index++) {
+
+                    IndexReader indexReader = partitionSearchersClosed[index].getIndexReader();
+                    int count = readerReferences.get(indexReader);
+
+                    if (count > 1) {
+                        readerReferences.put(indexReader, count - 1);
+                    } else {
+
+                        readerReferences.remove(indexReader);
+                        indexReadersClosed.add(indexReader);
+                    }
+                }
+            }
+        }
+
+        try {
+
+            indexSearcher.close();
+
+            for (IndexReader indexReader : indexReadersClosed) {
+                indexReader.close();
+            }
+        } catch (IOException e) {
+            logger.warn(e);
+        }
+    }
+
+    /**
+     * Closes the readers opened by a refresh that failed, readers shared with the current searcher are left open.
+     *
+     * @param indexReadersNew readers of the failed refresh, some may be null
+     */
+    private void closeNewReaders(IndexReader[] indexReadersNew) {
+
+        for (int index = 0; index < indexReadersNew.length; index++) {
+
+            if (indexReadersNew[index] == null
+                    || (indexReaders != null && indexReaders[index] == indexReadersNew[index])) {
+                continue;
+            }
+
+            try {
+                indexReadersNew[index].close();
+            } catch (IOException e) {
+                logger.warn(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.SimpleAnalyzer;
+import org.apache.lucene.analysis.Token;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides an in-memory index of the terms in the names, descriptions, projects, contexts, categories and tags of the
+ * indexed objects, used to suggest completions while a search is typed. Terms are weighted by the number of objects
+ * that contain them.
+ * <p/>
+ * The suggestions are loaded from the index once, after that they follow the IndexManager's events. Completing a
+ * prefix only walks the part of the trie it needs and doesn't touch the Lucene index.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class SuggestionIndex implements IndexManagerListener {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Fields the suggested terms are taken from.
+     */
+    private final static String[] FIELDS = {"name", "description", "parent", "inboxContext", "category", "tags"};
+
+    /**
+     * Shortest term that will be suggested.
+     */
+    private final static int MIN_TERM_LENGTH = 2;
+
+    /**
+     * Index manager whose documents are suggested.
+     */
+    private final IndexManager indexManager;
+
+    /**
+     * Analyzer that splits the fields into terms, the same one the BrowserPanel parses searches with.
+     */
+    private final Analyzer analyzer;
+
+    /**
+     * Trie of terms, weighted by the number of documents that contain them.
+     */
+    private PrefixTrie trie;
+
+    /**
+     * Terms each document added to the trie, keyed by document key.
+     */
+    private Map<String, String[]> documentTerms;
+
+    /**
+     * Changes that arrived while the suggestions were being loaded, null when no load is running.
+     */
+    private List<IndexOperation> operationsDuringLoad;
+
+    /**
+     * Creates a new SuggestionIndex.
+     *
+     * @param indexManager index manager whose documents are suggested
+     */
+    public SuggestionIndex(final IndexManager indexManager) {
+
+        this.indexManager = indexManager;
+
+        analyzer = new SimpleAnalyzer();
+        trie = new PrefixTrie();
+        documentTerms = new HashMap<>();
+    }
+
+    /**
+     * Returns the most common terms that start with the provided prefix.
+     *
+     * @param prefix      the prefix, lower case
+     * @param completions maximum number of terms to return
+     * @return List of terms, most common first
+     */
+    public synchronized List<String> suggest(String prefix, int completions) {
+
+        return (trie.complete(prefix, completions));
+    }
+
+    /**
+     * Returns the number of distinct terms that may be suggested.
+     *
+     * @return int
+     */
+    public synchronized int size() {
+
+        return (trie.size());
+    }
+
+    /**
+     * Replaces the suggestions with the terms of every document in the index. Changes reported while the index is
+     * being read are applied once it has been read, until then the previous suggestions are used.
+     *
+     * @throws IndexManagerException on problems reading the index
+     */
+    public void load() throws IndexManagerException {
+
+        synchronized (this) {
+
+            if (operationsDuringLoad != null) {
+                return;
+            }
+
+            operationsDuringLoad = new ArrayList<>();
+        }
+
+        PrefixTrie trieLoaded = new PrefixTrie();
+        Map<String, String[]> documentTermsLoaded = new HashMap<>();
+
+        try {
+
+            IndexSearcher indexSearcher = indexManager.acquireIndexSearcher();
+            try {
+
+                IndexReader indexReader = indexSearcher.getIndexReader();
+
+                for (int index = 0; index < indexReader.maxDoc(); index++) {
+
+                    if (!indexReader.isDeleted(index)) {
+                        addDocument(trieLoaded, documentTermsLoaded, indexReader.document(index));
+                    }
+                }
+            } catch (IOException e) {
+                throw new IndexManagerException(e);
+            } finally {
+                indexManager.releaseIndexSearcher(indexSearcher);
+            }
+
+            synchronized (this) {
+
+                // changes are keyed by document, replaying one that's already loaded does no harm
+                for (IndexOperation operation : operationsDuringLoad) {
+
+                    if (operation.getType() == IndexOperation.Type.UPDATE) {
+                        addDocument(trieLoaded, documentTermsLoaded, operation.getDocument());
+                    } else {
+                        removeDocument(trieLoaded, documentTermsLoaded, operation.getKey());
+                    }
+                }
+
+                trie = trieLoaded;
+                documentTerms = documentTermsLoaded;
+            }
+
+            logger.debug("Loaded " + trieLoaded.size() + " suggestions from " + documentTermsLoaded.size()
+                    + " documents");
+        } finally {
+
+            synchronized (this) {
+                operationsDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * Starts loading the suggestions on a background thread.
+     */
+    public void loadInBackground() {
+
+        Thread thread = new Thread(new Runnable() {
+
+            public void run() {
+
+                try {
+                    load();
+                } catch (IndexManagerException e) {
+                    logger.warn("Couldn't load the search suggestions", e);
+                }
+            }
+        }, "GTDInbox-Suggestions");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // index manager listener methods
+
+    public synchronized void documentAdded(Document document) {
+
+        if (operationsDuringLoad != null) {
+            operationsDuringLoad.add(new IndexOperation(IndexOperation.Type.UPDATE,
+                    document.get(DocumentBuilder.FIELD_CLASS), document.get(DocumentBuilder.FIELD_ID), document));
+        }
+
+        addDocument(trie, documentTerms, document);
+    }
+
+    public synchronized void documentRemoved(Document document) {
+
+        if (operationsDuringLoad != null) {
+            operationsDuringLoad.add(new IndexOperation(IndexOperation.Type.REMOVE,
+                    document.get(DocumentBuilder.FIELD_CLASS), document.get(DocumentBuilder.FIELD_ID), null));
+        }
+
+        removeDocument(trie, documentTerms, document.get(DocumentBuilder.FIELD_KEY));
+    }
+
+    public void indexRebuildProgress(int indexed, int total) {
+
+        // the rebuilt index is loaded once it's in place
+    }
+
+    public void indexRebuilt() {
+
+        loadInBackground();
+    }
+
+    // private methods
+
+    /**
+     * Adds the terms of a document to a trie, replacing the terms previously added for the same document.
+     *
+     * @param trie          trie to update
+     * @param documentTerms terms added for each document
+     * @param document      the document
+     */
+    private void addDocument(PrefixTrie trie, Map<String, String[]> documentTerms, Document document) {
+
+        String key = document.get(DocumentBuilder.FIELD_KEY);
+
+        if (key == null) {
+            return;
+        }
+
+        removeDocument(trie, documentTerms, key);
+
+        String[] terms = getTerms(document);
+
+        for (int index = 0; index < terms.length; index++) {
+            trie.add(terms[index], 1);
+        }
+
+        documentTerms.put(key, terms);
+    }
+
+    /**
+     * Removes the terms added for a document from a trie.
+     *
+     * @param trie          trie to update
+     * @param documentTerms terms added for each document
+     * @param key           key of the document
+     */
+    private void removeDocument(PrefixTrie trie, Map<String, String[]> documentTerms, String key) {
+
+        String[] terms = key != null ? documentTerms.remove(key) : null;
+
+        if (terms == null) {
+            return;
+        }
+
+        for (int index = 0; index < terms.length; index++) {
+            trie.add(terms[index], -1);
+        }
+    }
+
+    /**
+     * Returns the distinct terms in the suggested fields of a document.
+     *
+     * @param document the document
+     * @return array of terms
+     */
+    private String[] getTerms(Document document) {
+
+        Set<String> terms = new HashSet<>();
+
+        for (int indexField = 0; indexField < FIELDS.length; indexField++) {
+
+            String[] values = document.getValues(FIELDS[indexField]);
+
+            if (values == null) {
+                continue;
+            }
+
+            for (int indexValue = 0; indexValue < values.length; indexValue++) {
+                addTerms(terms, values[indexValue]);
+            }
+        }
+
+        if (terms.isEmpty()) {
+            return (new String[0]);
+        }
+
+        List<String> listTerms = new ArrayList<>(terms);
+        Collections.sort(listTerms);
+
+        return (listTerms.toArray(new String[listTerms.size()]));
+    }
+
+    /**
+     * Adds the terms in a field value to a set.
+     *
+     * @param terms the set
+     * @param value the field value
+     */
+    private void addTerms(Set<String> terms, String value) {
+
+        TokenStream tokenStream = analyzer.tokenStream(null, new StringReader(value));
+
+        try {
+
+            Token token;
+            while ((token = tokenStream.next()) != null) {
+
+                if (token.termText().length() >= MIN_TERM_LENGTH) {
+                    terms.add(token.termText());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn(e);
+        } finally {
+
+            try {
+                tokenStream.close();
+            } catch (IOException e) {
+                logger.warn(e);
+            }
+        }
+    }
+}
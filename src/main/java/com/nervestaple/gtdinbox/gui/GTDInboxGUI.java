@@ -7,6 +7,7 @@ import com.google.common.eventbus.EventBus;
 import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.datastore.database.PersistenceExecutor;
 import com.nervestaple.gtdinbox.datastore.index.IndexManager;
 import com.nervestaple.gtdinbox.datastore.index.IndexManagerException;
 import com.nervestaple.gtdinbox.gui.browser.BrowserFrame;
@@ -81,6 +82,10 @@ public class GTDInboxGUI {
 
             // configure the configuration
             configurationFactory.configure();
+
+            // catch up on index changes that were lost, for instance when the application was killed
+            IndexManager.getInstance().reconcileInBackground();
+            IndexManager.getInstance().getSuggestionIndex().loadInBackground();
         } catch (Throwable e) {
 
             handleException(e);
@@ -191,7 +196,9 @@ public class GTDInboxGUI {
 
         try {
 
-            // close the index
+            // write out any queued changes, then the index changes they made, and close the index
+            PersistenceExecutor.getInstance().shutdown();
+            IndexManager.getInstance().getIndexQueue().shutdown();
             IndexManager.getInstance().flushIndex();
 
             // close the database
@@ -5,7 +5,6 @@ import ca.odell.glazedlists.EventList;
 import com.nervestaple.gtdinbox.datastore.DataStoreException;
 import com.nervestaple.gtdinbox.datastore.DataStoreManager;
 import com.nervestaple.gtdinbox.gui.utility.glazedtreemodel.GlazedTreeNode;
-import com.nervestaple.gtdinbox.model.Trashable;
 import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
 import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
 import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
@@ -46,11 +45,6 @@ public class BrowserModel {
      */
     private EventList<Category> categories;
 
-    /**
-     * List of trash.
-     */
-    private EventList<Trashable> trash;
-
     /**
      * Selected tree node.
      */
@@ -95,13 +89,11 @@ public class BrowserModel {
         projects.clear();
         contexts.clear();
         categories.clear();
-        trash.clear();
 
         // load in data
         projects.addAll(DataStoreManager.getProjects());
         contexts.addAll(DataStoreManager.getContexts());
         categories.addAll(DataStoreManager.getCategories());
-        trash.addAll(DataStoreManager.getTrash());
     }
 
     // property change support methods
@@ -138,10 +130,6 @@ public class BrowserModel {
         return categories;
     }
 
-    public EventList getTrash() {
-        return trash;
-    }
-
     public GlazedTreeNode getSelectedTreeNode() {
         return selectedTreeNode;
     }
@@ -172,7 +160,6 @@ public class BrowserModel {
         projects = new BasicEventList();
         contexts = new BasicEventList();
         categories = new BasicEventList();
-        trash = new BasicEventList();
 
         if (generateTestData) {
             generateTestData();
@@ -305,18 +292,6 @@ public class BrowserModel {
         category.setName("Category 3");
         categories.add(category);
 
-        referenceItem = new SimpleReferenceItem();
-        referenceItem.setId(new Long(7));
-        referenceItem.setDescription("Reference Item Trash 1");
-        referenceItem.setDescriptionTextStyleType(TextStyleType.PLAIN_TEXT);
-        trash.add(referenceItem);
-
-        actionItem = new ActionItem();
-        actionItem.setId(new Long(7));
-        actionItem.setDescription("Action Item Trash 1");
-        actionItem.setDescriptionTextStyleType(TextStyleType.PLAIN_TEXT);
-        trash.add(actionItem);
-
         Thread thread = new Thread(new Runnable() {
 
             public void run() {
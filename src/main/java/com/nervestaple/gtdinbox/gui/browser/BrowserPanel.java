@@ -11,9 +11,16 @@ import com.nervestaple.gtdinbox.GTDInboxException;
 import com.nervestaple.gtdinbox.datastore.DataStoreException;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.datastore.index.DateQueryParser;
+import com.nervestaple.gtdinbox.datastore.index.FacetCount;
+import com.nervestaple.gtdinbox.datastore.index.FacetFilter;
 import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import com.nervestaple.gtdinbox.datastore.index.IndexManagerException;
 import com.nervestaple.gtdinbox.datastore.index.IndexManagerListener;
-import com.nervestaple.gtdinbox.datastore.index.SearchResultHandler;
+import com.nervestaple.gtdinbox.datastore.index.SearchCursor;
+import com.nervestaple.gtdinbox.datastore.index.SearchHit;
+import com.nervestaple.gtdinbox.datastore.index.SearchPage;
+import com.nervestaple.gtdinbox.datastore.index.SearchPageHandler;
 import com.nervestaple.gtdinbox.gui.ApplicationManager;
 import com.nervestaple.gtdinbox.gui.GTDInboxExceptionHandler;
 import com.nervestaple.gtdinbox.gui.browser.detail.DetailActionItemListListener;
@@ -54,6 +61,8 @@ import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.queryParser.QueryParser;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 
 import javax.persistence.EntityManager;
@@ -73,7 +82,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -166,6 +178,46 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
      */
     private final static int SEARCH_TIMER_DELAY = 300;
 
+    /**
+     * Time (in milliseconds) index changes are collected before the displayed search is run again.
+     */
+    private final static int INDEX_UPDATE_DELAY = 500;
+
+    /**
+     * Timer that re-runs the displayed search once a burst of index changes is over.
+     */
+    private Timer timerIndexUpdate;
+
+    /**
+     * Flag to indicate a re-run of the displayed search has been scheduled.
+     */
+    private volatile boolean indexUpdatePending;
+
+    /**
+     * Search text of the query currently being displayed.
+     */
+    private String searchTextDisplayed;
+
+    /**
+     * Number of search results loaded at a time.
+     */
+    private final static int SEARCH_PAGE_SIZE = 50;
+
+    /**
+     * Number of completions suggested for the search field.
+     */
+    private final static int SEARCH_SUGGESTIONS = 8;
+
+    /**
+     * Popup with completions for the search field.
+     */
+    private SearchSuggestionPopup searchSuggestionPopup;
+
+    /**
+     * Flag to indicate a completion is being put into the search field.
+     */
+    private boolean acceptingSuggestion;
+
     /**
      * The last detail panel displayed.
      */
@@ -176,10 +228,15 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
      */
     private QueryParser queryParser;
 
+    /**
+     * The query for the search text, before it's narrowed to the selected facet values.
+     */
+    private Query querySearchText;
+
     /**
      * The query currently being displayed.
      */
-    private BooleanQuery querySearch;
+    private Query querySearch;
 
     // gui form objects
     private JPanel panelMain;
@@ -583,6 +640,18 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
         });
 
         timerSearch.setRepeats(false);
+
+        timerIndexUpdate = new Timer(INDEX_UPDATE_DELAY, new ActionListener() {
+
+            public void actionPerformed(ActionEvent actionEvent) {
+
+                indexUpdatePending = false;
+
+                doRefreshSearch();
+            }
+        });
+
+        timerIndexUpdate.setRepeats(false);
     }
 
     /**
@@ -602,20 +671,36 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
             queryParser = new QueryParser("description", new SimpleAnalyzer());
         }
 
-        querySearch = new BooleanQuery();
+        // a new search starts out with every result
+        querySearchText = null;
+        detailSearchPanel.getModel().setSelectedFacets(Collections.<FacetCount>emptyList());
+        detailSearchPanel.getModel().setFacets(Collections.<String, List<FacetCount>>emptyMap());
 
-        // add a clause for the search text
-        try {
-            querySearch.add(queryParser.parse(searchText), BooleanClause.Occur.SHOULD);
-        } catch (ParseException e) {
-            throw new GTDInboxException("There was a problem parsing your search entry", e);
-        }
+        // take out the date filters, like "completed:[last week]"
+        DateQueryParser.DateSearch dateSearch = new DateQueryParser().parse(searchText);
+        String searchTextTerms = StringUtils.trimToNull(dateSearch.getText());
 
-        // add a clause for the parent
-        querySearch.add(new TermQuery(new Term("parent", searchText)), BooleanClause.Occur.SHOULD);
+        BooleanQuery queryTerms = null;
+        if (searchTextTerms != null) {
 
-        // add a clause for the context
-        querySearch.add(new TermQuery(new Term("inboxContext", searchText)), BooleanClause.Occur.SHOULD);
+            queryTerms = new BooleanQuery();
+
+            // add a clause for the search text
+            try {
+                queryTerms.add(queryParser.parse(searchTextTerms), BooleanClause.Occur.SHOULD);
+            } catch (ParseException e) {
+                throw new GTDInboxException("There was a problem parsing your search entry", e);
+            }
+
+            // add a clause for the parent
+            queryTerms.add(new TermQuery(new Term("parent", searchTextTerms)), BooleanClause.Occur.SHOULD);
+
+            // add a clause for the context
+            queryTerms.add(new TermQuery(new Term("inboxContext", searchTextTerms)), BooleanClause.Occur.SHOULD);
+        }
+
+        querySearchText = dateSearch.filter(queryTerms);
+        querySearch = querySearchText;
 
         logger.debug("Running a search with the query '" + querySearch + "'");
 
@@ -639,30 +724,199 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
 
         fireDetailPanelChanged();
 
-        final String queryDescriptionFinal = querySearch.toString();
-        IndexManager.getInstance().runSearch(querySearch, new SearchResultHandler() {
+        searchTextDisplayed = searchText;
 
-            // event lists are not thread safe
-            public synchronized void handleSearchResult(Document document) {
+        runSearchPage(querySearch, searchText, SEARCH_PAGE_SIZE, false);
+    }
 
-                detailSearchPanel.getModel().getListItems().getReadWriteLock().writeLock().lock();
-                try {
+    /**
+     * Runs the displayed search again after the index has changed. The results on screen stay until the new ones
+     * arrive and then replace them, as many results as are loaded now are loaded again.
+     */
+    private void doRefreshSearch() {
 
-                    detailSearchPanel.getModel().getListItems().add(document);
-                } finally {
+        if (querySearch == null || panelDetail != detailSearchPanel) {
+            return;
+        }
 
-                    detailSearchPanel.getModel().getListItems().getReadWriteLock().writeLock().unlock();
-                }
+        logger.debug("Refreshing the search results for '" + querySearch + "'");
 
-                detailSearchPanel.revalidate();
+        int pageSize = Math.max(SEARCH_PAGE_SIZE, detailSearchPanel.getModel().getListItems().size());
+
+        try {
+            runSearchPage(querySearch, searchTextDisplayed, pageSize, true);
+        } catch (GTDInboxException e) {
+            handleException(e);
+        }
+    }
+
+    /**
+     * Narrows the displayed search to the facet values selected in the search results, or widens it again when values
+     * are removed. The results on screen are replaced once the new ones arrive.
+     */
+    private void doNarrowSearch() {
+
+        if (querySearchText == null) {
+            return;
+        }
+
+        List<FacetCount> selectedFacets = detailSearchPanel.getModel().getSelectedFacets();
+
+        if (selectedFacets.isEmpty()) {
+            querySearch = querySearchText;
+        } else {
+
+            List<Term> terms = new ArrayList<>();
+            for (FacetCount facetCount : selectedFacets) {
+                terms.add(new Term(facetCount.getField(), facetCount.getValue()));
             }
 
-            public void setNumberOfResults(int results) {
+            querySearch = new FilteredQuery(querySearchText, new FacetFilter(terms));
+        }
+
+        logger.debug("Narrowing the search results to '" + querySearch + "'");
+
+        try {
+            runSearchPage(querySearch, searchTextDisplayed, SEARCH_PAGE_SIZE, true);
+        } catch (GTDInboxException e) {
+            handleException(e);
+        }
+    }
+
+    /**
+     * Hands the first page of a search to the IndexManager, the page is displayed once it's found.
+     *
+     * @param query      query to run
+     * @param searchText text the user searched for
+     * @param pageSize   number of results to load
+     * @param replace    true to replace the results on screen, false to add to them
+     * @throws GTDInboxException on errors starting the search
+     */
+    private void runSearchPage(final Query query, final String searchText, int pageSize, final boolean replace)
+            throws GTDInboxException {
+
+        IndexManager.getInstance().runSearch(new SearchCursor(query, 0, pageSize),
+                new SearchPageHandler() {
+
+                    public void handleSearchPage(final SearchPage searchPage) {
+
+                        SwingUtilities.invokeLater(new Runnable() {
+
+                            public void run() {
+                                showSearchPage(query, searchText, searchPage, replace);
+                            }
+                        });
+                    }
+
+                    public void handleSearchException(final IndexManagerException exception) {
+
+                        SwingUtilities.invokeLater(new Runnable() {
+
+                            public void run() {
+                                handleException(exception);
+                            }
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Suggests completions for the word being typed at the end of the search field. The completions come from the
+     * IndexManager's SuggestionIndex, the index itself isn't searched until the search timer fires.
+     */
+    private void showSuggestions() {
+
+        String text = textFieldSearch.getText();
+
+        if (text == null || textFieldSearch.getCaretPosition() != text.length()) {
+
+            searchSuggestionPopup.hide();
+            return;
+        }
+
+        String prefix = text.substring(text.lastIndexOf(' ') + 1).toLowerCase();
+
+        if (prefix.length() == 0) {
+
+            searchSuggestionPopup.hide();
+            return;
+        }
+
+        List<String> suggestions =
+                IndexManager.getInstance().getSuggestionIndex().suggest(prefix, SEARCH_SUGGESTIONS);
 
-                detailSearchPanel.getModel().setDescription("Looking for \"" + searchText + ",\" "
-                        + results + " items found");
+        // the word is already complete
+        suggestions.remove(prefix);
+
+        searchSuggestionPopup.showSuggestions(suggestions);
+    }
+
+    /**
+     * Replaces the word being typed at the end of the search field with a completion and searches right away.
+     *
+     * @param suggestion the completion
+     */
+    private void doAcceptSuggestion(String suggestion) {
+
+        String text = textFieldSearch.getText();
+
+        acceptingSuggestion = true;
+        try {
+            textFieldSearch.setText(text.substring(0, text.lastIndexOf(' ') + 1) + suggestion);
+        } finally {
+            acceptingSuggestion = false;
+        }
+
+        model.setSearchText(textFieldSearch.getText());
+
+        timerSearch.stop();
+
+        try {
+            doSearch();
+        } catch (GTDInboxException e) {
+            handleException(e);
+        }
+    }
+
+    /**
+     * Displays the first page of results for a search. Results for a search that has since been replaced are dropped.
+     *
+     * @param query      query the results were found with
+     * @param searchText text the user searched for
+     * @param searchPage first page of results
+     * @param replace    true to replace the results on screen, false to add to them
+     */
+    private void showSearchPage(Query query, String searchText, SearchPage searchPage, boolean replace) {
+
+        if (query != querySearch) {
+            return;
+        }
+
+        EventList<SearchHit> listItems = detailSearchPanel.getModel().getListItems();
+
+        // event lists are not thread safe
+        listItems.getReadWriteLock().writeLock().lock();
+        try {
+
+            if (replace) {
+                listItems.clear();
             }
-        });
+
+            listItems.addAll(searchPage.getHits());
+        } finally {
+            listItems.getReadWriteLock().writeLock().unlock();
+        }
+
+        detailSearchPanel.getModel().setDescription("Looking for \"" + searchText + ",\" "
+                + searchPage.getTotalHits() + " items found");
+
+        detailSearchPanel.getModel().setFacets(searchPage.getFacets());
+        detailSearchPanel.getModel().setQuery(query);
+
+        // the panel loads the remaining pages as they are scrolled into view
+        detailSearchPanel.getModel().setNextCursor(searchPage.getNextCursor());
+
+        detailSearchPanel.revalidate();
     }
 
     private void doClearSearch() {
@@ -670,7 +924,13 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
         logger.debug("Clearing the search results");
 
         querySearch = null;
+        querySearchText = null;
+        searchTextDisplayed = null;
 
+        detailSearchPanel.getModel().setNextCursor(null);
+        detailSearchPanel.getModel().setQuery(null);
+        detailSearchPanel.getModel().setSelectedFacets(Collections.<FacetCount>emptyList());
+        detailSearchPanel.getModel().setFacets(Collections.<String, List<FacetCount>>emptyMap());
         detailSearchPanel.getModel().getListItems().clear();
         detailSearchPanel.getModel().setDescription("");
 
@@ -873,19 +1133,6 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
             // commit the transaction and close the session
             DataBaseManager.getInstance().commitTransaction();
 
-            // lock for writing
-            model.getTrash().getReadWriteLock().writeLock().lock();
-
-            try {
-
-                // put the project in the trash
-                model.getTrash().add(actionItem);
-            } finally {
-
-                // release the lock
-                model.getTrash().getReadWriteLock().writeLock().unlock();
-            }
-
             if (panelDetail == detailProjectPanel) {
                 detailProjectPanel.removeActionItem(actionItem);
             } else if (panelDetail == detailContextPanel) {
@@ -949,19 +1196,6 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
                 // release the lock
                 model.getCategories().getReadWriteLock().writeLock().unlock();
             }
-
-            // lock for writing
-            model.getTrash().getReadWriteLock().writeLock().lock();
-
-            try {
-
-                // put the project in the trash
-                model.getTrash().add(category);
-            } finally {
-
-                // release the lock
-                model.getTrash().getReadWriteLock().writeLock().unlock();
-            }
         } catch (DataBaseManagerException e) {
 
             handleErrorOccurred(e);
@@ -1020,19 +1254,6 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
                 // release the lock
                 model.getContexts().getReadWriteLock().writeLock().unlock();
             }
-
-            // lock for writing
-            model.getTrash().getReadWriteLock().writeLock().lock();
-
-            try {
-
-                // put the project in the trash
-                model.getTrash().add(inboxContext);
-            } finally {
-
-                // release the lock
-                model.getTrash().getReadWriteLock().writeLock().unlock();
-            }
         } catch (DataBaseManagerException e) {
 
             handleErrorOccurred(e);
@@ -1091,19 +1312,6 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
                 // release the lock
                 model.getProjects().getReadWriteLock().writeLock().unlock();
             }
-
-            // lock for writing
-            model.getTrash().getReadWriteLock().writeLock().lock();
-
-            try {
-
-                // put the project in the trash
-                model.getTrash().add(project);
-            } finally {
-
-                // release the lock
-                model.getTrash().getReadWriteLock().writeLock().unlock();
-            }
         } catch (DataBaseManagerException e) {
 
             handleErrorOccurred(e);
@@ -1667,15 +1875,29 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
             }
         };
 
+        searchSuggestionPopup = new SearchSuggestionPopup(textFieldSearch, new ActionListener() {
+
+            public void actionPerformed(ActionEvent actionEvent) {
+
+                doAcceptSuggestion(actionEvent.getActionCommand());
+            }
+        });
+
         textFieldSearch.addCaretListener(new CaretListener() {
 
             public void caretUpdate(CaretEvent caretEvent) {
 
+                if (acceptingSuggestion) {
+                    return;
+                }
+
                 // update the model
                 model.setSearchText(textFieldSearch.getText());
 
                 // restart the timer
                 timerSearch.restart();
+
+                showSuggestions();
             }
         });
 
@@ -1687,6 +1909,7 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
                 model.setSearchText(null);
 
                 timerSearch.stop();
+                searchSuggestionPopup.hide();
 
                 doClearSearch();
             }
@@ -1704,16 +1927,38 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
                 handleIndexUpdate();
             }
 
+            public void indexRebuildProgress(int indexed, int total) {
+
+                // the current results stay up until the new index is in place
+            }
+
+            public void indexRebuilt() {
+
+                handleIndexUpdate();
+            }
+
+            /**
+             * Schedules one re-run of the displayed search for a burst of index changes, an update alone fires both
+             * a removal and an addition. Called on the thread that committed the changes.
+             */
             private void handleIndexUpdate() {
 
-                if (querySearch != null) {
+                if (indexUpdatePending) {
+                    return;
+                }
+
+                indexUpdatePending = true;
 
-                    try {
-                        doSearch();
-                    } catch (GTDInboxException e) {
-                        handleException(e);
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    public void run() {
+
+                        // the timer isn't restarted, results refresh at least once a window while changes keep coming
+                        if (!timerIndexUpdate.isRunning()) {
+                            timerIndexUpdate.start();
+                        }
                     }
-                }
+                });
             }
         });
     }
@@ -1846,6 +2091,14 @@ public class BrowserPanel extends JPanel implements GTDInboxExceptionHandler {
         trashDetailController = new TrashDetailController(this);
         detailSearchPanel = new SearchResultDetailPanel(this);
 
+        detailSearchPanel.getModel().addPropertyChangeListener("selectedFacets", new PropertyChangeListener() {
+
+            public void propertyChange(PropertyChangeEvent event) {
+
+                doNarrowSearch();
+            }
+        });
+
         // add listener to the trash panel
         trashDetailController.addTrashDetailControllerListener(new TrashDetailControllerListener() {
 
@@ -0,0 +1,198 @@
+package com.nervestaple.gtdinbox.gui.browser;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+/**
+ * Provides a popup list of completions under a text field. The popup never takes the focus, the arrow keys move the
+ * selection, return accepts the selected completion and escape closes the popup. When a completion is accepted the
+ * listener receives an ActionEvent whose command is the accepted completion.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class SearchSuggestionPopup {
+
+    /**
+     * Field the completions are for.
+     */
+    private final JTextField textField;
+
+    /**
+     * Listener notified when a completion is accepted.
+     */
+    private final ActionListener actionListener;
+
+    /**
+     * The popup.
+     */
+    private final JPopupMenu popupMenu;
+
+    /**
+     * Model for the list of completions.
+     */
+    private final DefaultListModel listModel;
+
+    /**
+     * List of completions.
+     */
+    private final JList listSuggestions;
+
+    /**
+     * Creates a new SearchSuggestionPopup.
+     *
+     * @param textField      field the completions are for
+     * @param actionListener listener notified when a completion is accepted
+     */
+    public SearchSuggestionPopup(final JTextField textField, final ActionListener actionListener) {
+
+        this.textField = textField;
+        this.actionListener = actionListener;
+
+        listModel = new DefaultListModel();
+
+        listSuggestions = new JList(listModel);
+        listSuggestions.setFocusable(false);
+        listSuggestions.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        popupMenu = new JPopupMenu();
+        popupMenu.setFocusable(false);
+        popupMenu.add(listSuggestions);
+
+        initializeListeners();
+    }
+
+    /**
+     * Shows the provided completions, an empty list hides the popup.
+     *
+     * @param suggestions completions to show
+     */
+    public void showSuggestions(List<String> suggestions) {
+
+        listModel.clear();
+
+        if (suggestions.isEmpty() || !textField.isShowing()) {
+
+            hide();
+            return;
+        }
+
+        for (String suggestion : suggestions) {
+            listModel.addElement(suggestion);
+        }
+
+        listSuggestions.setSelectedIndex(0);
+
+        popupMenu.pack();
+        popupMenu.show(textField, 0, textField.getHeight());
+    }
+
+    /**
+     * Hides the popup.
+     */
+    public void hide() {
+
+        popupMenu.setVisible(false);
+    }
+
+    /**
+     * Returns true if the popup is showing.
+     *
+     * @return boolean
+     */
+    public boolean isVisible() {
+
+        return (popupMenu.isVisible());
+    }
+
+    // private methods
+
+    private void initializeListeners() {
+
+        textField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0),
+                "suggestionNext");
+        textField.getActionMap().put("suggestionNext", new AbstractAction() {
+
+            public void actionPerformed(ActionEvent actionEvent) {
+
+                moveSelection(1);
+            }
+        });
+
+        textField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0),
+                "suggestionPrevious");
+        textField.getActionMap().put("suggestionPrevious", new AbstractAction() {
+
+            public void actionPerformed(ActionEvent actionEvent) {
+
+                moveSelection(-1);
+            }
+        });
+
+        textField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0),
+                "suggestionAccept");
+        textField.getActionMap().put("suggestionAccept", new AbstractAction() {
+
+            public void actionPerformed(ActionEvent actionEvent) {
+
+                if (isVisible()) {
+                    accept();
+                }
+            }
+        });
+
+        textField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                "suggestionHide");
+        textField.getActionMap().put("suggestionHide", new AbstractAction() {
+
+            public void actionPerformed(ActionEvent actionEvent) {
+
+                hide();
+            }
+        });
+
+        listSuggestions.addMouseListener(new MouseAdapter() {
+
+            public void mouseClicked(MouseEvent mouseEvent) {
+
+                int index = listSuggestions.locationToIndex(mouseEvent.getPoint());
+
+                if (index >= 0) {
+
+                    listSuggestions.setSelectedIndex(index);
+                    accept();
+                }
+            }
+        });
+    }
+
+    private void moveSelection(int offset) {
+
+        if (!isVisible() || listModel.isEmpty()) {
+            return;
+        }
+
+        int index = listSuggestions.getSelectedIndex() + offset;
+        index = Math.max(0, Math.min(listModel.getSize() - 1, index));
+
+        listSuggestions.setSelectedIndex(index);
+        listSuggestions.ensureIndexIsVisible(index);
+    }
+
+    private void accept() {
+
+        Object suggestion = listSuggestions.getSelectedValue();
+
+        hide();
+
+        if (suggestion != null) {
+            actionListener.actionPerformed(
+                    new ActionEvent(textField, ActionEvent.ACTION_PERFORMED, suggestion.toString()));
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.nervestaple.gtdinbox.gui.browser.detail;
 import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.core.GridLayoutManager;
 import com.nervestaple.gtdinbox.GTDInboxException;
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.datastore.database.PersistenceExecutor;
+import com.nervestaple.gtdinbox.datastore.database.UnitOfWork;
 import com.nervestaple.gtdinbox.gui.GTDInboxExceptionHandler;
 import com.nervestaple.gtdinbox.gui.utility.UtilitiesGui;
 import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
@@ -26,6 +29,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Hashtable;
+import java.util.function.BiConsumer;
 
 /**
  * Provides a fancier ActionItemCheckBox interface.
@@ -263,48 +267,64 @@ public class ActionItemCheckBox extends JPanel {
 
     private void updateActionItemCompleted(final ActionItem actionItem) {
 
-        actionItem.setCompletedDate(new Date());
+        saveCompletedDate(actionItem, new Date());
+    }
 
-        Thread thread = new Thread(new Runnable() {
-            public void run() {
+    private void updateActionItemIncompleted(final ActionItem actionItem) {
+
+        saveCompletedDate(actionItem, null);
+    }
+
+    /**
+     * Queues the action item's new completed date to be saved. Items toggled less than the persistence executor's idle
+     * delay apart are written in one transaction, which waits at most the executor's maximum delay. The date is set on
+     * the action item loaded by the write, the displayed action item is reloaded once the write is done so the
+     * application's entity manager is never left holding an unsaved change.
+     *
+     * @param actionItem    ActionItem to save
+     * @param completedDate the completed date, null if the action item isn't completed
+     */
+    private void saveCompletedDate(final ActionItem actionItem, final Date completedDate) {
+
+        final Long id = actionItem.getId();
 
-                try {
-                    EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
-                    DataBaseManager.getInstance().beginTransaction();
-                    entityManager.persist(actionItem);
-                    DataBaseManager.getInstance().commitTransaction();
+        PersistenceExecutor.getInstance().submit(new UnitOfWork<ActionItem>() {
 
-                    updateDisplayedData();
-                } catch (DataBaseManagerException e) {
+            public ActionItem run(EntityManager entityManager) throws DataStoreException {
 
-                    handleException(e);
+                ActionItem actionItemCurrent = entityManager.find(ActionItem.class, id);
+
+                if (actionItemCurrent != null) {
+                    actionItemCurrent.setCompletedDate(completedDate);
                 }
+
+                return (actionItemCurrent);
             }
-        });
-        thread.start();
-    }
+        }).whenComplete(new BiConsumer<ActionItem, Throwable>() {
 
-    private void updateActionItemIncompleted(final ActionItem actionItem) {
+            public void accept(ActionItem actionItemSaved, Throwable throwable) {
 
-        actionItem.setCompletedDate(null);
+                if (throwable instanceof GTDInboxException) {
+                    handleException((GTDInboxException) throwable);
+                } else if (throwable != null) {
+                    logger.warn(throwable, throwable);
+                }
 
-        Thread thread = new Thread(new Runnable() {
-            public void run() {
+                SwingUtilities.invokeLater(new Runnable() {
 
-                try {
-                    EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
-                    DataBaseManager.getInstance().beginTransaction();
-                    entityManager.persist(actionItem);
-                    DataBaseManager.getInstance().commitTransaction();
+                    public void run() {
 
-                    updateDisplayedData();
-                } catch (DataBaseManagerException e) {
+                        try {
+                            DataBaseManager.getInstance().reload(actionItem, id);
+                        } catch (DataBaseManagerException e) {
+                            handleException(e);
+                        }
 
-                    handleException(e);
-                }
+                        updateDisplayedData();
+                    }
+                });
             }
         });
-        thread.start();
     }
 
     private void clearPanel() {
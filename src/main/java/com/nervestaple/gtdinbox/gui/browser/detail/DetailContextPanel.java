@@ -139,8 +139,8 @@ public class DetailContextPanel extends JPanel implements GTDInboxExceptionHandl
         // save a reference to the context
         this.context = context;
 
-        // make sure we have the newest version from the database
-        DataBaseManager.getInstance().getEntityManager().refresh(this.context);
+        // make sure we have the newest version, from the cache when it's there
+        DataBaseManager.getInstance().reload(this.context, this.context.getId());
 
         clearPanel();
 
@@ -124,8 +124,8 @@ public class DetailProjectPanel extends JPanel implements GTDInboxExceptionHandl
 
         this.project = project;
 
-        // make sure we have the newest version from the database
-        DataBaseManager.getInstance().getEntityManager().refresh(this.project);
+        // make sure we have the newest version, from the cache when it's there
+        DataBaseManager.getInstance().reload(this.project, this.project.getId());
 
         clearPanel();
 
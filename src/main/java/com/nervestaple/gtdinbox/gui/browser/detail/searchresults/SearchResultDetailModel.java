@@ -2,12 +2,17 @@ package com.nervestaple.gtdinbox.gui.browser.detail.searchresults;
 
 import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.EventList;
-import org.apache.lucene.document.Document;
+import com.nervestaple.gtdinbox.datastore.index.FacetCount;
+import com.nervestaple.gtdinbox.datastore.index.SearchCursor;
+import com.nervestaple.gtdinbox.datastore.index.SearchHit;
+import org.apache.lucene.search.Query;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides a data model for the search result detail form.
@@ -32,12 +37,32 @@ public class SearchResultDetailModel {
     /**
      * List of items in the result view.
      */
-    private EventList<Document> listItems;
+    private EventList<SearchHit> listItems;
 
     /**
      * Selected items.
      */
-    private List<Document> selectedItems;
+    private List<SearchHit> selectedItems;
+
+    /**
+     * Query the results were found with, null if there are no results.
+     */
+    private Query query;
+
+    /**
+     * Cursor for the next page of results, null if every result has been loaded.
+     */
+    private SearchCursor nextCursor;
+
+    /**
+     * Facet counts of the results, keyed by facet field.
+     */
+    private Map<String, List<FacetCount>> facets;
+
+    /**
+     * Facet values the results are narrowed to.
+     */
+    private List<FacetCount> selectedFacets;
 
     /**
      * Property change support object.
@@ -100,7 +125,7 @@ public class SearchResultDetailModel {
         return listItems;
     }
 
-    public void setListItems(EventList<Document> listItems) {
+    public void setListItems(EventList<SearchHit> listItems) {
         EventList valueOld = this.listItems;
         this.listItems = listItems;
         propertychangesupport.firePropertyChange("listItems", valueOld, this.listItems);
@@ -110,12 +135,52 @@ public class SearchResultDetailModel {
         return selectedItems;
     }
 
-    public void setSelectedItems(List<Document> selectedItems) {
+    public void setSelectedItems(List<SearchHit> selectedItems) {
         List valueOld = this.selectedItems;
         this.selectedItems = selectedItems;
         propertychangesupport.firePropertyChange("selectedItems", valueOld, this.selectedItems);
     }
 
+    public Query getQuery() {
+        return query;
+    }
+
+    public void setQuery(Query query) {
+        Query valueOld = this.query;
+        this.query = query;
+        propertychangesupport.firePropertyChange("query", valueOld, this.query);
+    }
+
+    public SearchCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(SearchCursor nextCursor) {
+        SearchCursor valueOld = this.nextCursor;
+        this.nextCursor = nextCursor;
+        propertychangesupport.firePropertyChange("nextCursor", valueOld, this.nextCursor);
+    }
+
+    public Map<String, List<FacetCount>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, List<FacetCount>> facets) {
+        Map<String, List<FacetCount>> valueOld = this.facets;
+        this.facets = facets;
+        propertychangesupport.firePropertyChange("facets", valueOld, this.facets);
+    }
+
+    public List<FacetCount> getSelectedFacets() {
+        return selectedFacets;
+    }
+
+    public void setSelectedFacets(List<FacetCount> selectedFacets) {
+        List<FacetCount> valueOld = this.selectedFacets;
+        this.selectedFacets = selectedFacets;
+        propertychangesupport.firePropertyChange("selectedFacets", valueOld, this.selectedFacets);
+    }
+
     // private methods
 
     private void initializeValues() {
@@ -125,5 +190,9 @@ public class SearchResultDetailModel {
         listItems = new BasicEventList<>();
 
         selectedItems = new ArrayList<>();
+
+        facets = Collections.emptyMap();
+
+        selectedFacets = Collections.emptyList();
     }
 }
@@ -8,6 +8,15 @@ import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.core.GridLayoutManager;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.datastore.index.DocumentBuilder;
+import com.nervestaple.gtdinbox.datastore.index.FacetCount;
+import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import com.nervestaple.gtdinbox.datastore.index.IndexManagerException;
+import com.nervestaple.gtdinbox.datastore.index.IndexSchema;
+import com.nervestaple.gtdinbox.datastore.index.SearchCursor;
+import com.nervestaple.gtdinbox.datastore.index.SearchHit;
+import com.nervestaple.gtdinbox.datastore.index.SearchPage;
+import com.nervestaple.gtdinbox.datastore.index.SearchPageHandler;
 import com.nervestaple.gtdinbox.gui.ApplicationManager;
 import com.nervestaple.gtdinbox.gui.GTDInboxExceptionHandler;
 import com.nervestaple.gtdinbox.gui.event.action.MessageAction;
@@ -19,18 +28,22 @@ import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
 import com.nervestaple.gtdinbox.model.project.Project;
 import com.nervestaple.gtdinbox.model.reference.category.Category;
 import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
-import com.nervestaple.gtdinbox.utility.comparator.LuceneComparator;
+import com.nervestaple.gtdinbox.utility.comparator.SearchHitComparator;
 import com.nervestaple.gtdinbox.utility.texttransformer.OutputType;
 import com.nervestaple.gtdinbox.utility.texttransformer.UtilityTextTransformer;
 import org.apache.log4j.Logger;
-import org.apache.lucene.document.Document;
+import org.apache.lucene.search.Query;
 
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.plaf.FontUIResource;
 import javax.swing.text.StyleContext;
 import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
@@ -38,8 +51,10 @@ import java.beans.PropertyChangeListener;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Provides the form for the search result detail view.
@@ -69,6 +84,50 @@ public class SearchResultDetailPanel extends JPanel {
      */
     private final DateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy");
 
+    /**
+     * Renderer that shows where the search matched each visible result.
+     */
+    private final SnippetCellRenderer snippetCellRenderer;
+
+    /**
+     * The next page of results is loaded when fewer than this many rows are left below the visible part of the table.
+     */
+    private final static int PAGE_PREFETCH_ROWS = 10;
+
+    /**
+     * Titles of the facet fields.
+     */
+    private final static Map<String, String> FACET_TITLES;
+
+    static {
+
+        FACET_TITLES = new HashMap<>();
+        FACET_TITLES.put(DocumentBuilder.FIELD_CLASS, "Type");
+        FACET_TITLES.put(IndexSchema.FIELD_FACET_PROJECT, "Project");
+        FACET_TITLES.put(IndexSchema.FIELD_FACET_INBOX_CONTEXT, "Context");
+        FACET_TITLES.put(IndexSchema.FIELD_FACET_TAG, "Tag");
+    }
+
+    /**
+     * Color of the facet values that can be clicked.
+     */
+    private final static Color COLOR_FACET_LINK = new Color(0x33, 0x66, 0xcc);
+
+    /**
+     * Cursor of the page of results being loaded, a load that's superseded by a new search never completes.
+     */
+    private SearchCursor cursorLoading;
+
+    /**
+     * Viewport of the scroll pane this panel is displayed in.
+     */
+    private JViewport viewportParent;
+
+    /**
+     * Listener that checks for more results when a viewport scrolls.
+     */
+    private ChangeListener changeListenerViewport;
+
     // gui form objects
     private JPanel panelMain;
     private JLabel labelIcon;
@@ -77,6 +136,7 @@ public class SearchResultDetailPanel extends JPanel {
     private JScrollPane scrollPaneResults;
     private JTable tableResults;
     private JPanel panelHeader;
+    private JPanel panelFacets;
 
     /**
      * Creates a new SearchResultDetailPanel.
@@ -94,9 +154,12 @@ public class SearchResultDetailPanel extends JPanel {
         setLayout(new BorderLayout());
         add(panelMain);
 
+        snippetCellRenderer = new SnippetCellRenderer(tableResults);
+
         initializeForm();
         initializeModelListeners();
         initializeFormListeners();
+        initializeScrollListeners();
     }
 
     // accessor and mutator methods
@@ -115,6 +178,7 @@ public class SearchResultDetailPanel extends JPanel {
         // get the height of the whole panel
         double height = 0;
         height += panelHeader.getSize().getHeight();
+        height += panelFacets.getPreferredSize().getHeight();
         height += tableResults.getTableHeader().getSize().getHeight();
         height += tableResults.getRowHeight() * tableResults.getModel().getRowCount();
         double width = panelMain.getPreferredSize().getWidth();
@@ -158,9 +222,9 @@ public class SearchResultDetailPanel extends JPanel {
             return;
         }
 
-        Document document = (Document) ((EventTableModel) tableResults.getModel()).getElementAt(selectedRow);
+        SearchHit searchHit = (SearchHit) ((EventTableModel) tableResults.getModel()).getElementAt(selectedRow);
 
-        String className = document.get("class");
+        String className = searchHit.getClassName();
         logger.debug("Editing item of type " + className);
 
         if (className == null) {
@@ -168,35 +232,35 @@ public class SearchResultDetailPanel extends JPanel {
         } else if (className.equals("com.nervestaple.gtdinbox.model.item.actionitem.actionitem")) {
 
             logger.debug("Double clicked an ActionItem");
-            Object object = getObjectFromDatabase(ActionItem.class, document.get("id"));
+            Object object = getObjectFromDatabase(ActionItem.class, searchHit.getId());
             if (object != null) {
                 fireActionItemDoubleClicked((ActionItem) object);
             }
         } else if (className.equals("com.nervestaple.gtdinbox.model.inboxcontext.inboxcontext")) {
 
             logger.debug("Double clicked an InboxContext");
-            Object object = getObjectFromDatabase(InboxContext.class, document.get("id"));
+            Object object = getObjectFromDatabase(InboxContext.class, searchHit.getId());
             if (object != null) {
                 fireInboxContextDoubleClicked((InboxContext) object);
             }
         } else if (className.equals("com.nervestaple.gtdinbox.model.project.project")) {
 
             logger.debug("Double clicked a Project");
-            Object object = getObjectFromDatabase(Project.class, document.get("id"));
+            Object object = getObjectFromDatabase(Project.class, searchHit.getId());
             if (object != null) {
                 fireProjectDoubleClicked((Project) object);
             }
-        } else if (className.equals("com.nervestaple.gtdinbox.model.item.reference.category.category")) {
+        } else if (className.equals("com.nervestaple.gtdinbox.model.reference.category.category")) {
 
             logger.debug("Double clicked a Category");
-            Object object = getObjectFromDatabase(Category.class, document.get("id"));
+            Object object = getObjectFromDatabase(Category.class, searchHit.getId());
             if (object != null) {
                 fireCategoryDoubleClicked((Category) object);
             }
         } else if (className.equals("com.nervestaple.gtdinbox.model.item.referenceitem.referenceitem")) {
 
             logger.debug("Double clicked an ReferenceItem");
-            Object object = getObjectFromDatabase(ReferenceItem.class, document.get("id"));
+            Object object = getObjectFromDatabase(ReferenceItem.class, searchHit.getId());
             if (object != null) {
                 fireReferenceItemDoubleClicked((ReferenceItem) object);
             }
@@ -226,17 +290,244 @@ public class SearchResultDetailPanel extends JPanel {
         return (object);
     }
 
-    private void updateTable(final EventList<Document> listItems) {
+    /**
+     * Loads the next page of results in the background if there is one and the end of the table is close to being
+     * scrolled into view. This method must be called on the event dispatch thread.
+     */
+    private void loadNextPageIfNeeded() {
+
+        final SearchCursor cursor = model.getNextCursor();
+
+        if (cursor == null || cursor == cursorLoading) {
+            return;
+        }
+
+        Rectangle rectangleVisible = tableResults.getVisibleRect();
+
+        if (rectangleVisible.height == 0) {
+            return;
+        }
+
+        int rowsBelow = (tableResults.getHeight() - (rectangleVisible.y + rectangleVisible.height))
+                / tableResults.getRowHeight();
+
+        if (rowsBelow > PAGE_PREFETCH_ROWS) {
+            return;
+        }
+
+        cursorLoading = cursor;
+
+        try {
+
+            IndexManager.getInstance().runSearch(cursor, new SearchPageHandler() {
+
+                public void handleSearchPage(final SearchPage searchPage) {
+
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        public void run() {
+                            addPage(cursor, searchPage);
+                        }
+                    });
+                }
+
+                public void handleSearchException(final IndexManagerException exception) {
+
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        public void run() {
+
+                            cursorLoading = null;
+                            gtdInboxExceptionHandler.handleException(exception);
+                        }
+                    });
+                }
+            });
+        } catch (IndexManagerException e) {
+
+            cursorLoading = null;
+            gtdInboxExceptionHandler.handleException(e);
+        }
+    }
+
+    /**
+     * Adds a page of results to the table. Pages for a search that has since been replaced are dropped.
+     *
+     * @param cursor     cursor the page was loaded with
+     * @param searchPage the loaded page
+     */
+    private void addPage(SearchCursor cursor, SearchPage searchPage) {
+
+        if (cursorLoading == cursor) {
+            cursorLoading = null;
+        }
+
+        if (model.getNextCursor() != cursor) {
+            return;
+        }
+
+        EventList<SearchHit> listItems = model.getListItems();
+
+        listItems.getReadWriteLock().writeLock().lock();
+        try {
+            listItems.addAll(searchPage.getHits());
+        } finally {
+            listItems.getReadWriteLock().writeLock().unlock();
+        }
+
+        model.setNextCursor(searchPage.getNextCursor());
+
+        revalidate();
+    }
+
+    /**
+     * Shows the facet values the results are narrowed to and the values of every facet field that would narrow them
+     * further, with the number of results that have each value. Clicking a value narrows the results to it, clicking
+     * a narrowed value removes it again.
+     */
+    private void updateFacets() {
+
+        panelFacets.removeAll();
+
+        Box boxFacets = Box.createVerticalBox();
+
+        List<FacetCount> selectedFacets = model.getSelectedFacets();
+        if (!selectedFacets.isEmpty()) {
+
+            JPanel panelRow = createFacetRow("Showing only");
+            for (FacetCount facetCount : selectedFacets) {
+
+                panelRow.add(createFacetLink(FACET_TITLES.get(facetCount.getField()) + ": "
+                        + getFacetLabel(facetCount) + " \u00d7", facetCount, false));
+            }
+
+            boxFacets.add(panelRow);
+        }
+
+        for (Map.Entry<String, List<FacetCount>> entry : model.getFacets().entrySet()) {
+
+            JPanel panelRow = null;
+            for (FacetCount facetCount : entry.getValue()) {
+
+                if (indexOfSelectedFacet(facetCount) >= 0) {
+                    continue;
+                }
+
+                if (panelRow == null) {
+                    panelRow = createFacetRow(FACET_TITLES.get(entry.getKey()));
+                }
+
+                panelRow.add(createFacetLink(getFacetLabel(facetCount) + " (" + facetCount.getCount() + ")",
+                        facetCount, true));
+            }
+
+            if (panelRow != null) {
+                boxFacets.add(panelRow);
+            }
+        }
+
+        panelFacets.add(boxFacets, BorderLayout.CENTER);
+        panelFacets.revalidate();
+        panelFacets.repaint();
+
+        revalidate();
+    }
+
+    private JPanel createFacetRow(String title) {
+
+        JPanel panelRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 1));
+        panelRow.setOpaque(false);
+
+        JLabel labelTitle = new JLabel(title);
+        labelTitle.setFont(labelTitle.getFont().deriveFont(11.0f));
+        labelTitle.setForeground(Color.GRAY);
+        panelRow.add(labelTitle);
+
+        return (panelRow);
+    }
+
+    private JLabel createFacetLink(String text, final FacetCount facetCount, final boolean select) {
+
+        JLabel labelLink = new JLabel(text);
+        labelLink.setFont(labelLink.getFont().deriveFont(11.0f));
+        labelLink.setForeground(COLOR_FACET_LINK);
+        labelLink.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        labelLink.setToolTipText(select ? "Show only these results" : "Show all results again");
+
+        labelLink.addMouseListener(new MouseAdapter() {
+
+            public void mouseClicked(MouseEvent event) {
+
+                List<FacetCount> selectedFacets = new ArrayList<>(model.getSelectedFacets());
+
+                if (select) {
+                    selectedFacets.add(facetCount);
+                } else {
+                    selectedFacets.remove(indexOfSelectedFacet(facetCount));
+                }
+
+                model.setSelectedFacets(selectedFacets);
+            }
+        });
+
+        return (labelLink);
+    }
+
+    /**
+     * Returns the position of a facet value in the model's narrowed values.
+     *
+     * @param facetCount the facet value
+     * @return the position or -1 if the results aren't narrowed to the value
+     */
+    private int indexOfSelectedFacet(FacetCount facetCount) {
+
+        List<FacetCount> selectedFacets = model.getSelectedFacets();
+
+        for (int index = 0; index < selectedFacets.size(); index++) {
+
+            FacetCount facetCountSelected = selectedFacets.get(index);
+
+            if (facetCountSelected.getField().equals(facetCount.getField())
+                    && facetCountSelected.getValue().equals(facetCount.getValue())) {
+                return (index);
+            }
+        }
+
+        return (-1);
+    }
+
+    /**
+     * Returns the text shown for a facet value, the type facet holds lower-cased class names.
+     *
+     * @param facetCount the facet value
+     * @return String
+     */
+    private String getFacetLabel(FacetCount facetCount) {
+
+        if (facetCount.getField().equals(DocumentBuilder.FIELD_CLASS)) {
+
+            for (DocumentBuilder documentBuilder : IndexSchema.getDocumentBuilders()) {
+
+                if (documentBuilder.getClassName().equals(facetCount.getValue())) {
+                    return (documentBuilder.getIndexedClass().getSimpleName().replaceAll("([a-z])([A-Z])", "$1 $2"));
+                }
+            }
+        }
+
+        return (facetCount.getValue());
+    }
+
+    private void updateTable(final EventList<SearchHit> listItems) {
 
         SwingUtilities.invokeLater(new Runnable() {
 
             public void run() {
 
-                SortedList<Document> sortedList = new SortedList<>(listItems, new LuceneComparator());
-                tableResults.setModel(new EventTableModel<Document>(sortedList, new TableFormatSearchResult()));
+                SortedList<SearchHit> sortedList = new SortedList<>(listItems, new SearchHitComparator());
+                tableResults.setModel(new EventTableModel<SearchHit>(sortedList, new TableFormatSearchResult()));
 
                 // hang on to the comparator chooser in case we need it later
-                TableComparatorChooser<Document> tableComparatorChooser =
+                TableComparatorChooser<SearchHit> tableComparatorChooser =
                         new TableComparatorChooser<>(tableResults, sortedList, true);
 
                 tableResults.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
@@ -254,6 +545,7 @@ public class SearchResultDetailPanel extends JPanel {
                 tableResults.getColumnModel().getColumn(2).setMaxWidth(80);
 
                 tableResults.getColumnModel().getColumn(2).setCellRenderer(new SimpleDateCellRenderer(dateFormat));
+                tableResults.getColumnModel().getColumn(3).setCellRenderer(snippetCellRenderer);
             }
         });
     }
@@ -279,13 +571,81 @@ public class SearchResultDetailPanel extends JPanel {
         });
     }
 
+    private void initializeScrollListeners() {
+
+        changeListenerViewport = new ChangeListener() {
+
+            public void stateChanged(ChangeEvent changeEvent) {
+                loadNextPageIfNeeded();
+            }
+        };
+
+        scrollPaneResults.getViewport().addChangeListener(changeListenerViewport);
+
+        // the panel is usually shown inside another scroll pane, listen to that one as well
+        addHierarchyListener(new HierarchyListener() {
+
+            public void hierarchyChanged(HierarchyEvent event) {
+
+                if ((event.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) == 0) {
+                    return;
+                }
+
+                JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class,
+                        SearchResultDetailPanel.this);
+
+                if (viewport != viewportParent) {
+
+                    if (viewportParent != null) {
+                        viewportParent.removeChangeListener(changeListenerViewport);
+                    }
+
+                    viewportParent = viewport;
+
+                    if (viewportParent != null) {
+                        viewportParent.addChangeListener(changeListenerViewport);
+                    }
+                }
+            }
+        });
+    }
+
     private void initializeModelListeners() {
 
         model.addPropertyChangeListener("listItems", new PropertyChangeListener() {
 
             public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
 
-                updateTable((EventList<Document>) propertyChangeEvent.getNewValue());
+                updateTable((EventList<SearchHit>) propertyChangeEvent.getNewValue());
+            }
+        });
+
+        model.addPropertyChangeListener("nextCursor", new PropertyChangeListener() {
+
+            public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+
+                // the new rows have to be laid out before we can tell if more are needed
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    public void run() {
+                        loadNextPageIfNeeded();
+                    }
+                });
+            }
+        });
+
+        model.addPropertyChangeListener("query", new PropertyChangeListener() {
+
+            public void propertyChange(final PropertyChangeEvent event) {
+
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    public void run() {
+
+                        snippetCellRenderer.setQuery((Query) event.getNewValue());
+                        tableResults.repaint();
+                    }
+                });
             }
         });
 
@@ -300,6 +660,17 @@ public class SearchResultDetailPanel extends JPanel {
             }
         });
 
+        PropertyChangeListener propertyChangeListenerFacets = new PropertyChangeListener() {
+
+            public void propertyChange(PropertyChangeEvent event) {
+
+                updateFacets();
+            }
+        };
+
+        model.addPropertyChangeListener("facets", propertyChangeListenerFacets);
+        model.addPropertyChangeListener("selectedFacets", propertyChangeListenerFacets);
+
         tableResults.addMouseListener(new MouseAdapter() {
 
             public void mouseClicked(MouseEvent event) {
@@ -349,7 +720,7 @@ public class SearchResultDetailPanel extends JPanel {
      */
     private void $$$setupUI$$$() {
         panelMain = new JPanel();
-        panelMain.setLayout(new com.intellij.uiDesigner.core.GridLayoutManager(2, 1, new Insets(0, 0, 0, 0), -1, -1));
+        panelMain.setLayout(new com.intellij.uiDesigner.core.GridLayoutManager(3, 1, new Insets(0, 0, 0, 0), -1, -1));
         panelMain.setBackground(new Color(-1));
         panelHeader = new JPanel();
         panelHeader.setLayout(new com.intellij.uiDesigner.core.GridLayoutManager(1, 2, new Insets(5, 5, 5, 5), -1, -1));
@@ -379,12 +750,16 @@ public class SearchResultDetailPanel extends JPanel {
         labelTitle = new JLabel();
         labelTitle.setText("Search Results");
         panel2.add(labelTitle, new com.intellij.uiDesigner.core.GridConstraints(0, 0, 1, 1, com.intellij.uiDesigner.core.GridConstraints.ANCHOR_WEST, com.intellij.uiDesigner.core.GridConstraints.FILL_NONE, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_FIXED, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        panelFacets = new JPanel();
+        panelFacets.setLayout(new BorderLayout(0, 0));
+        panelFacets.setOpaque(false);
+        panelMain.add(panelFacets, new com.intellij.uiDesigner.core.GridConstraints(1, 0, 1, 1, com.intellij.uiDesigner.core.GridConstraints.ANCHOR_CENTER, com.intellij.uiDesigner.core.GridConstraints.FILL_BOTH, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_SHRINK | com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_GROW, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_SHRINK | com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_GROW, null, null, null, 0, false));
         scrollPaneResults = new JScrollPane();
         Font scrollPaneResultsFont = this.$$$getFont$$$(null, -1, -1, scrollPaneResults.getFont());
         if (scrollPaneResultsFont != null) scrollPaneResults.setFont(scrollPaneResultsFont);
         scrollPaneResults.setHorizontalScrollBarPolicy(31);
         scrollPaneResults.setVerticalScrollBarPolicy(21);
-        panelMain.add(scrollPaneResults, new com.intellij.uiDesigner.core.GridConstraints(1, 0, 1, 1, com.intellij.uiDesigner.core.GridConstraints.ANCHOR_CENTER, com.intellij.uiDesigner.core.GridConstraints.FILL_BOTH, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_SHRINK | com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_WANT_GROW, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_SHRINK | com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
+        panelMain.add(scrollPaneResults, new com.intellij.uiDesigner.core.GridConstraints(2, 0, 1, 1, com.intellij.uiDesigner.core.GridConstraints.ANCHOR_CENTER, com.intellij.uiDesigner.core.GridConstraints.FILL_BOTH, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_SHRINK | com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_WANT_GROW, com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_CAN_SHRINK | com.intellij.uiDesigner.core.GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
         tableResults = new JTable();
         Font tableResultsFont = this.$$$getFont$$$(null, -1, 11, tableResults.getFont());
         if (tableResultsFont != null) tableResults.setFont(tableResultsFont);
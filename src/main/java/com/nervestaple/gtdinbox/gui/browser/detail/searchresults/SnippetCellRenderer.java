@@ -0,0 +1,312 @@
+package com.nervestaple.gtdinbox.gui.browser.detail.searchresults;
+
+import ca.odell.glazedlists.swing.EventTableModel;
+import com.nervestaple.gtdinbox.datastore.index.HitHighlighter;
+import com.nervestaple.gtdinbox.datastore.index.SearchHit;
+import org.apache.log4j.Logger;
+import org.apache.lucene.search.Query;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides a cell renderer that shows where the search matched a result's description, with the matching words in
+ * bold. Snippets are only made for the rows the table paints, that is the visible rows, and they're made on a
+ * background thread: until a row's snippet is ready its plain description is shown and the table is repainted once it
+ * is. Snippets are kept in a small cache keyed by the query, the result and the text that was highlighted, so a result
+ * whose text has changed is highlighted again when a refreshed search shows it.
+ * <p/>
+ * The most recently requested rows are highlighted first and only a few requests are kept waiting, rows that were
+ * scrolled past quickly are dropped and requested again if they're painted again.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class SnippetCellRenderer extends DefaultTableCellRenderer {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Number of snippets kept.
+     */
+    private final static int MAX_SNIPPETS = 256;
+
+    /**
+     * Number of rows kept waiting to be highlighted.
+     */
+    private final static int MAX_PENDING = 64;
+
+    /**
+     * Cached snippets, least recently used first. A result that didn't match has an empty snippet.
+     */
+    private final Map<SnippetKey, String> snippets;
+
+    /**
+     * Rows waiting to be highlighted, most recently requested first.
+     */
+    private final LinkedList<SnippetRequest> pending;
+
+    /**
+     * Executor that makes the snippets.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Table being rendered, repainted when snippets are ready.
+     */
+    private final JTable table;
+
+    /**
+     * Query of the results, null if there are none.
+     */
+    private Query query;
+
+    /**
+     * Highlighter for the query.
+     */
+    private HitHighlighter hitHighlighter;
+
+    /**
+     * Flag to indicate the executor is working through the pending rows.
+     */
+    private boolean draining;
+
+    /**
+     * Creates a new SnippetCellRenderer.
+     *
+     * @param table table being rendered
+     */
+    public SnippetCellRenderer(final JTable table) {
+
+        super();
+
+        this.table = table;
+
+        snippets = new LinkedHashMap<SnippetKey, String>(16, 0.75f, true) {
+
+            protected boolean removeEldestEntry(Map.Entry<SnippetKey, String> eldest) {
+
+                return (size() > MAX_SNIPPETS);
+            }
+        };
+
+        pending = new LinkedList<>();
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "GTDInbox-Highlighter");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+
+                return (thread);
+            }
+        });
+    }
+
+    /**
+     * Sets the query of the results being shown. Rows waiting for the previous query are dropped, this method must be
+     * called on the event dispatch thread.
+     *
+     * @param query the query, null if no results are shown
+     */
+    public void setQuery(Query query) {
+
+        if (this.query == query) {
+            return;
+        }
+
+        this.query = query;
+        hitHighlighter = query != null ? new HitHighlighter(query) : null;
+
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
+                                                   int rowIndex, int vColIndex) {
+
+        super.getTableCellRendererComponent(table, value, isSelected, hasFocus, rowIndex, vColIndex);
+
+        if (hitHighlighter == null || !(table.getModel() instanceof EventTableModel)) {
+            return (this);
+        }
+
+        SearchHit searchHit = (SearchHit) ((EventTableModel) table.getModel()).getElementAt(rowIndex);
+        SnippetKey snippetKey = new SnippetKey(query, searchHit);
+
+        String snippet;
+        synchronized (snippets) {
+            snippet = snippets.get(snippetKey);
+        }
+
+        if (snippet == null) {
+            request(new SnippetRequest(snippetKey, hitHighlighter, searchHit));
+        } else if (snippet.length() > 0) {
+            setText("<html>" + snippet + "</html>");
+        }
+
+        return (this);
+    }
+
+    // private methods
+
+    /**
+     * Queues a row to be highlighted, unless it already is.
+     *
+     * @param snippetRequest the row
+     */
+    private void request(SnippetRequest snippetRequest) {
+
+        synchronized (pending) {
+
+            if (pending.contains(snippetRequest)) {
+                return;
+            }
+
+            pending.addFirst(snippetRequest);
+
+            if (pending.size() > MAX_PENDING) {
+                pending.removeLast();
+            }
+
+            if (draining) {
+                return;
+            }
+
+            draining = true;
+        }
+
+        executor.execute(new Runnable() {
+
+            public void run() {
+                drain();
+            }
+        });
+    }
+
+    /**
+     * Makes the snippets of the pending rows, newest first, and repaints the table after each one.
+     */
+    private void drain() {
+
+        while (true) {
+
+            SnippetRequest snippetRequest;
+            synchronized (pending) {
+
+                if (pending.isEmpty()) {
+
+                    draining = false;
+                    return;
+                }
+
+                snippetRequest = pending.removeFirst();
+            }
+
+            String snippet = null;
+            try {
+                snippet = snippetRequest.hitHighlighter.getSnippet(snippetRequest.searchHit);
+            } catch (RuntimeException e) {
+                logger.warn("Couldn't highlight " + snippetRequest.searchHit, e);
+            }
+
+            synchronized (snippets) {
+                snippets.put(snippetRequest.snippetKey, snippet != null ? snippet : "");
+            }
+
+            if (snippet != null) {
+
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    public void run() {
+                        table.repaint();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Provides the key of a snippet: the query, the key of the result and the text the snippet is made from.
+     */
+    private static class SnippetKey {
+
+        private final Query query;
+
+        private final String key;
+
+        private final String description;
+
+        private final String name;
+
+        public SnippetKey(final Query query, final SearchHit searchHit) {
+
+            this.query = query;
+
+            key = searchHit.getKey();
+            description = searchHit.getDescription();
+            name = searchHit.getName();
+        }
+
+        public boolean equals(Object object) {
+
+            if (!(object instanceof SnippetKey)) {
+                return (false);
+            }
+
+            SnippetKey snippetKey = (SnippetKey) object;
+
+            return (query.equals(snippetKey.query) && key.equals(snippetKey.key)
+                    && Objects.equals(description, snippetKey.description) && Objects.equals(name, snippetKey.name));
+        }
+
+        public int hashCode() {
+
+            return (Objects.hash(query, key, description, name));
+        }
+    }
+
+    /**
+     * Provides a row waiting to be highlighted.
+     */
+    private static class SnippetRequest {
+
+        private final SnippetKey snippetKey;
+
+        private final HitHighlighter hitHighlighter;
+
+        private final SearchHit searchHit;
+
+        public SnippetRequest(final SnippetKey snippetKey, final HitHighlighter hitHighlighter,
+                              final SearchHit searchHit) {
+
+            this.snippetKey = snippetKey;
+            this.hitHighlighter = hitHighlighter;
+            this.searchHit = searchHit;
+        }
+
+        public boolean equals(Object object) {
+
+            return (object instanceof SnippetRequest && snippetKey.equals(((SnippetRequest) object).snippetKey));
+        }
+
+        public int hashCode() {
+
+            return (snippetKey.hashCode());
+        }
+    }
+}
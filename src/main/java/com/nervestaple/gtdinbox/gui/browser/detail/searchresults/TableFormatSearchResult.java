@@ -1,12 +1,10 @@
 package com.nervestaple.gtdinbox.gui.browser.detail.searchresults;
 
 import ca.odell.glazedlists.gui.AdvancedTableFormat;
+import com.nervestaple.gtdinbox.datastore.index.SearchHit;
 import com.nervestaple.gtdinbox.utility.comparator.SimpleComparator;
 import org.apache.log4j.Logger;
-import org.apache.lucene.document.DateTools;
-import org.apache.lucene.document.Document;
 
-import java.text.ParseException;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.Hashtable;
@@ -105,11 +103,11 @@ public class TableFormatSearchResult implements AdvancedTableFormat {
 
     public Object getColumnValue(Object object, int i) {
 
-        Document document = (Document) object;
+        SearchHit searchHit = (SearchHit) object;
 
         if (i == 0) {
 
-            String className = document.get("class");
+            String className = searchHit.getClassName();
 
             if (className == null) {
                 return ("Unkown");
@@ -128,7 +126,7 @@ public class TableFormatSearchResult implements AdvancedTableFormat {
             return ("Unknown");
         } else if (i == 1) {
 
-            String filedUnder = document.get("parent");
+            String filedUnder = searchHit.getParent();
 
             if (filedUnder != null) {
                 return (filedUnder);
@@ -137,29 +135,22 @@ public class TableFormatSearchResult implements AdvancedTableFormat {
             }
         } else if (i == 2) {
 
-            Date date = new Date(0);
-
-            if (document.get("lastModifiedDate") != null) {
-
-                try {
-                    date = DateTools.stringToDate(document.get("lastModifiedDate"));
-                } catch (ParseException e) {
-                    logger.warn(e);
-                }
+            if (searchHit.getLastModifiedDate() != null) {
+                return (searchHit.getLastModifiedDate());
             }
 
-            return (date);
+            return (new Date(0));
         } else if (i == 3) {
 
-            if (document.get("description") != null) {
-                return (document.get("description"));
+            if (searchHit.getDescription() != null) {
+                return (searchHit.getDescription());
             } else {
                 return (" ");
             }
         }
 
-        logger.debug("No data for " + i + " with " + document);
+        logger.debug("No data for " + i + " with " + searchHit);
 
         throw new IllegalStateException();
     }
-}
\ No newline at end of file
+}
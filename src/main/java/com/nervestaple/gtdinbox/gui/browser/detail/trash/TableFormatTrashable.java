@@ -1,17 +1,18 @@
 package com.nervestaple.gtdinbox.gui.browser.detail.trash;
 
 import ca.odell.glazedlists.gui.TableFormat;
-import com.nervestaple.gtdinbox.model.Trashable;
 import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
 import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
 import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
 import com.nervestaple.gtdinbox.model.project.Project;
 import com.nervestaple.gtdinbox.model.reference.category.Category;
+import com.nervestaple.gtdinbox.model.tag.Tag;
+import com.nervestaple.gtdinbox.model.trash.TrashEntry;
 
 import java.util.Hashtable;
 
 /**
- * Provides a TableFormat for Item objects.
+ * Provides a TableFormat for the entries of the trash.
  *
  * @author Christopher Miles
  * @version 1.0
@@ -54,38 +55,35 @@ public class TableFormatTrashable implements TableFormat {
 
     public Object getColumnValue(Object object, int i) {
 
-        Trashable trashable = (Trashable) object;
+        TrashEntry trashEntry = (TrashEntry) object;
 
         if (i == 0) {
 
-            if (trashable instanceof Project) {
+            Class type = trashEntry.getType();
+
+            if (Project.class.isAssignableFrom(type)) {
                 return ("Project");
-            } else if (trashable instanceof Category) {
+            } else if (Category.class.isAssignableFrom(type)) {
                 return ("Category");
-            } else if (trashable instanceof InboxContext) {
+            } else if (InboxContext.class.isAssignableFrom(type)) {
                 return ("Context");
-            } else if (trashable instanceof ActionItem) {
+            } else if (ActionItem.class.isAssignableFrom(type)) {
                 return ("Action");
-            } else if (trashable instanceof ReferenceItem) {
+            } else if (ReferenceItem.class.isAssignableFrom(type)) {
                 return ("Reference");
+            } else if (Tag.class.isAssignableFrom(type)) {
+                return ("Tag");
             }
         } else if (i == 1) {
 
-            Object parent = trashable.getParent();
-
-            if (parent == null) {
-
+            if (trashEntry.getParentName() == null) {
                 return ("Unfiled");
-            } else if (parent instanceof Project) {
-
-                return (((Project) parent).getName());
-            } else if (parent instanceof Category) {
-
-                return (((Category) parent).getName());
             }
+
+            return (trashEntry.getParentName());
         } else if (i == 2) {
 
-            return (trashable.getName());
+            return (trashEntry.getName());
         }
 
         throw new IllegalStateException();
@@ -2,25 +2,30 @@ package com.nervestaple.gtdinbox.gui.browser.detail.trash;
 
 import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.EventList;
+import com.nervestaple.gtdinbox.GTDInboxException;
 import com.nervestaple.gtdinbox.datastore.DataStoreException;
 import com.nervestaple.gtdinbox.datastore.DataStoreManager;
 import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
-import com.nervestaple.gtdinbox.datastore.database.DataBaseManagerException;
+import com.nervestaple.gtdinbox.datastore.database.PersistenceExecutor;
+import com.nervestaple.gtdinbox.datastore.database.UnitOfWork;
 import com.nervestaple.gtdinbox.gui.GTDInboxExceptionHandler;
 import com.nervestaple.gtdinbox.model.Trashable;
 import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
 import com.nervestaple.gtdinbox.model.project.Project;
 import com.nervestaple.gtdinbox.model.reference.category.Category;
+import com.nervestaple.gtdinbox.model.trash.TrashEntry;
 import org.apache.log4j.Logger;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import org.hibernate.Hibernate;
 
 import javax.persistence.EntityManager;
+import javax.swing.SwingUtilities;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 /**
  * Provides a controller class for the TrashDetail form.
@@ -72,15 +77,22 @@ public class TrashDetailController {
     }
 
     /**
-     * Loads the trash from the data store.
+     * Loads the first page of the trash from the data store. The trash is only counted if there's more than a page.
      */
     public void loadData() {
 
         try {
 
-            Collection collection = DataStoreManager.getTrash();
+            List<TrashEntry> trash = DataStoreManager.getTrash(0, DataStoreManager.TRASH_PAGE_SIZE);
+
+            if (trash.size() < DataStoreManager.TRASH_PAGE_SIZE) {
+                model.setItemCount(trash.size());
+            } else {
+                model.setItemCount(DataStoreManager.getTrashCount());
+            }
+
             EventList list = new BasicEventList();
-            list.addAll(collection);
+            list.addAll(trash);
             model.setListItems(list);
         } catch (DataStoreException e) {
             exceptionHandler.handleException(e);
@@ -111,231 +123,279 @@ public class TrashDetailController {
     }
 
     /**
-     * Deletes all items currently in the trash.
+     * Deletes all items currently in the trash, not only the page that is listed. Projects, contexts and categories
+     * are deleted after the items, and only if they are empty by then. The deletions are queued with the persistence
+     * executor, which commits them together.
      */
     public void emptyTrash() {
 
-        Thread thread = new Thread(new Runnable() {
+        List<TrashEntry> trash;
 
-            public void run() {
+        try {
+            trash = DataStoreManager.getTrash();
+        } catch (DataStoreException e) {
 
-                List listProjects = new ArrayList();
-                List listContexts = new ArrayList();
-                List listCategories = new ArrayList();
+            exceptionHandler.handleException(e);
+            return;
+        }
 
-                Iterator iterator = model.getListItems().listIterator();
-                while (iterator.hasNext()) {
+        List<TrashEntry> listItems = new ArrayList<>();
+        List<TrashEntry> listContainers = new ArrayList<>();
 
-                    Trashable trashable = (Trashable) iterator.next();
-                    logger.debug(trashable.getClass());
-
-                    // if it's a container item, hold it out for last
-                    boolean holdForLater = false;
-                    if (trashable instanceof Project) {
-                        listProjects.add(trashable);
-                        holdForLater = true;
-                    } else if (trashable instanceof InboxContext) {
-                        listContexts.add(trashable);
-                        holdForLater = true;
-                    } else if (trashable instanceof Category) {
-                        listCategories.add(trashable);
-                        holdForLater = true;
-                    }
+        for (TrashEntry trashEntry : trash) {
 
-                    if (!holdForLater) {
+            // if it's a container item, hold it out for last
+            if (isContainer(trashEntry.getType())) {
+                listContainers.add(trashEntry);
+            } else {
+                listItems.add(trashEntry);
+            }
+        }
 
-                        try {
-                            EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
 
-                            // make sure we have an up-to-date version
-                            entityManager.refresh(trashable);
-                            trashable.prepareForDeletion();
+        for (TrashEntry trashEntry : listItems) {
+            futures.add(submitDeletion(trashEntry));
+        }
 
-                            // start a new transaction and delete the item
-                            DataBaseManager.getInstance().beginTransaction();
-                            logger.debug("DELETING: " + trashable);
-                            entityManager.remove(trashable);
+        for (TrashEntry trashEntry : listContainers) {
+            futures.add(submitDeletion(trashEntry));
+        }
 
-                            // commit the transaction and close our session
-                            DataBaseManager.getInstance().commitTransaction();
-                        } catch (DataBaseManagerException e) {
-                            exceptionHandler.handleException(e);
-                        }
-                    }
-                }
+        reloadWhenComplete(futures);
+    }
 
-                if (listProjects.size() > 0) {
+    // accessor and mutator methods
 
-                    iterator = listProjects.iterator();
-                    while (iterator.hasNext()) {
+    public TrashDetailForm getForm() {
+        return form;
+    }
 
-                        Project project = (Project) iterator.next();
+    public TrashDetailModel getModel() {
+        return model;
+    }
 
-                        try {
+    // private methods
 
-                            EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
+    private void firePutAwayTrashable(Trashable trashable) {
 
-                            // make sure we have an up-to-date version
-                            entityManager.refresh(project);
-                            project.prepareForDeletion();
+        TrashDetailControllerListener[] listenerArray = (TrashDetailControllerListener[]) listeners.toArray(
+                new TrashDetailControllerListener[listeners.size()]);
 
-                            if (project.getActionItems().size() < 1) {
+        for (int index = 0; index < listenerArray.length; index++) {
 
-                                // start a new transaction and delete the item
-                                DataBaseManager.getInstance().beginTransaction();
-                                entityManager.remove(project);
+            listenerArray[index].putAwayTrashable(trashable);
+        }
+    }
 
-                                // commit the transaction and close our session
-                                DataBaseManager.getInstance().commitTransaction();
-                            }
-                        } catch (DataBaseManagerException e) {
-                            exceptionHandler.handleException(e);
-                        }
-                    }
-                }
+    private void fireConfirmEmptyTrash(String message) {
 
-                if (listContexts.size() > 0) {
+        TrashDetailControllerListener[] listenerArray = (TrashDetailControllerListener[]) listeners.toArray(
+                new TrashDetailControllerListener[listeners.size()]);
 
-                    iterator = listContexts.iterator();
-                    while (iterator.hasNext()) {
+        for (int index = 0; index < listenerArray.length; index++) {
 
-                        InboxContext context = (InboxContext) iterator.next();
+            listenerArray[index].confirmEmptyTrash(message);
+        }
+    }
 
-                        try {
+    private void addPutAwayListener() {
 
-                            EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
+        model.setActionListenerPutAway(new ActionListener() {
 
-                            // make sure we have an up-to-date version
-                            entityManager.refresh(context);
-                            context.prepareForDeletion();
+            public void actionPerformed(ActionEvent actionEvent) {
 
-                            if (context.getActionItems().size() < 1) {
+                List<CompletableFuture<?>> futures = new ArrayList<>();
 
-                                // start a new transaction and delete the item
-                                DataBaseManager.getInstance().beginTransaction();
-                                entityManager.remove(context);
+                Iterator iterator = model.getSelectedItems().iterator();
+                while (iterator.hasNext()) {
 
-                                // commit the transaction and close our session
-                                DataBaseManager.getInstance().commitTransaction();
-                            }
-                        } catch (DataBaseManagerException e) {
-                            exceptionHandler.handleException(e);
-                        }
-                    }
-                }
+                    final TrashEntry trashEntry = (TrashEntry) iterator.next();
+
+                    futures.add(PersistenceExecutor.getInstance().submit(new UnitOfWork<Trashable>() {
 
-                if (listCategories.size() > 0) {
+                        public Trashable run(EntityManager entityManager) throws DataStoreException {
 
-                    iterator = listCategories.iterator();
-                    while (iterator.hasNext()) {
+                            Trashable trashableCurrent = entityManager.find(trashEntry.getType(),
+                                    trashEntry.getId());
 
-                        Category category = (Category) iterator.next();
+                            if (trashableCurrent != null) {
+                                trashableCurrent.setDeleted(new Boolean(false));
+                            }
 
-                        try {
+                            return (trashableCurrent);
+                        }
+                    }).whenComplete(new BiConsumer<Trashable, Throwable>() {
 
-                            EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
+                        public void accept(Trashable trashableSaved, Throwable throwable) {
 
-                            // make sure we have an up-to-date version
-                            entityManager.refresh(category);
-                            category.prepareForDeletion();
+                            if (throwable != null) {
+                                handleWriteException(throwable);
+                            } else if (trashableSaved != null) {
 
-                            if (category.getReferenceItems().size() < 1) {
+                                SwingUtilities.invokeLater(new Runnable() {
 
-                                // start a new transaction and delete the item
-                                DataBaseManager.getInstance().beginTransaction();
-                                entityManager.remove(category);
+                                    public void run() {
 
-                                // commit the transaction and close our session
-                                DataBaseManager.getInstance().commitTransaction();
+                                        putAway(trashEntry);
+                                    }
+                                });
                             }
-                        } catch (DataBaseManagerException e) {
-                            exceptionHandler.handleException(e);
                         }
-                    }
+                    }));
                 }
 
-                loadData();
+                reloadWhenComplete(futures);
             }
         });
-        thread.start();
     }
 
-    // accessor and mutator methods
+    /**
+     * Brings the application's entity manager up to date with an item that has been put away and notifies the
+     * listeners. Projects, contexts and categories are loaded so they can be listed again, other items are only
+     * reloaded if the entity manager already holds them.
+     *
+     * @param trashEntry entry of the item
+     */
+    private void putAway(TrashEntry trashEntry) {
 
-    public TrashDetailForm getForm() {
-        return form;
-    }
+        try {
 
-    public TrashDetailModel getModel() {
-        return model;
-    }
+            EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
 
-    // private methods
+            Trashable trashable;
+            if (isContainer(trashEntry.getType())) {
 
-    private void firePutAwayTrashable(Trashable trashable) {
+                trashable = entityManager.find(trashEntry.getType(), trashEntry.getId());
+                if (trashable == null) {
+                    return;
+                }
+            } else {
 
-        TrashDetailControllerListener[] listenerArray = (TrashDetailControllerListener[]) listeners.toArray(
-                new TrashDetailControllerListener[listeners.size()]);
+                trashable = entityManager.getReference(trashEntry.getType(), trashEntry.getId());
+                if (!Hibernate.isInitialized(trashable)) {
+                    return;
+                }
+            }
 
-        for (int index = 0; index < listenerArray.length; index++) {
+            trashable = (Trashable) Hibernate.unproxy(trashable);
 
-            listenerArray[index].putAwayTrashable(trashable);
+            // an instance loaded before the item was put away still thinks it's in the trash
+            if (trashable.getDeleted() != null && trashable.getDeleted().booleanValue()) {
+                DataBaseManager.getInstance().reload(trashable, trashEntry.getId());
+            }
+
+            // notify listeners
+            firePutAwayTrashable(trashable);
+        } catch (DataStoreException e) {
+
+            exceptionHandler.handleException(e);
         }
     }
 
-    private void fireConfirmEmptyTrash(String message) {
+    /**
+     * Returns true if the provided type is a project, context or category.
+     *
+     * @param type the type
+     * @return boolean
+     */
+    private boolean isContainer(Class type) {
 
-        TrashDetailControllerListener[] listenerArray = (TrashDetailControllerListener[]) listeners.toArray(
-                new TrashDetailControllerListener[listeners.size()]);
+        return (Project.class.isAssignableFrom(type) || InboxContext.class.isAssignableFrom(type)
+                || Category.class.isAssignableFrom(type));
+    }
 
-        for (int index = 0; index < listenerArray.length; index++) {
+    /**
+     * Queues the deletion of an item in the trash. The item is loaded in the deleting unit of work, so that a project,
+     * context or category is only deleted if it's empty once the items before it have been deleted.
+     *
+     * @param trashEntry entry of the item
+     * @return CompletableFuture for the deleted item, null if it wasn't deleted
+     */
+    private CompletableFuture<Trashable> submitDeletion(final TrashEntry trashEntry) {
 
-            listenerArray[index].confirmEmptyTrash(message);
-        }
-    }
+        return (PersistenceExecutor.getInstance().submit(new UnitOfWork<Trashable>() {
 
-    private void addPutAwayListener() {
+            public Trashable run(EntityManager entityManager) throws DataStoreException {
 
-        model.setActionListenerPutAway(new ActionListener() {
+                Trashable trashableCurrent = entityManager.find(trashEntry.getType(), trashEntry.getId());
 
-            public void actionPerformed(ActionEvent actionEvent) {
+                if (trashableCurrent == null) {
+                    return (null);
+                }
 
-                final List listItems = model.getSelectedItems();
+                trashableCurrent.prepareForDeletion();
 
-                Thread thread = new Thread(new Runnable() {
+                if (!isEmpty(trashableCurrent)) {
+                    return (null);
+                }
 
-                    public void run() {
+                logger.debug("DELETING: " + trashableCurrent);
+                entityManager.remove(trashableCurrent);
 
-                        Iterator iterator = listItems.iterator();
-                        while (iterator.hasNext()) {
+                return (trashableCurrent);
+            }
+        }).whenComplete(new BiConsumer<Trashable, Throwable>() {
 
-                            Trashable trashable = (Trashable) iterator.next();
+            public void accept(Trashable trashableDeleted, Throwable throwable) {
 
-                            trashable.setDeleted(new Boolean(false));
+                if (throwable != null) {
+                    handleWriteException(throwable);
+                }
+            }
+        }));
+    }
 
-                            try {
-                                EntityManager entityManager = DataBaseManager.getInstance().getEntityManager();
+    /**
+     * Returns true if the provided item isn't a project, context or category that still holds items.
+     *
+     * @param trashable the item
+     * @return boolean
+     */
+    private boolean isEmpty(Trashable trashable) {
+
+        if (trashable instanceof Project) {
+            return (((Project) trashable).getActionItems().size() < 1);
+        } else if (trashable instanceof InboxContext) {
+            return (((InboxContext) trashable).getActionItems().size() < 1);
+        } else if (trashable instanceof Category) {
+            return (((Category) trashable).getReferenceItems().size() < 1);
+        }
 
-                                // start a new transaction and save the item
-                                DataBaseManager.getInstance().beginTransaction();
-                                entityManager.persist(trashable);
+        return (true);
+    }
 
-                                // commit the transaction and close our session
-                                DataBaseManager.getInstance().commitTransaction();
+    /**
+     * Loads the trash again on the event dispatch thread once the provided writes are done, whether or not they
+     * succeeded.
+     *
+     * @param futures futures of the writes
+     */
+    private void reloadWhenComplete(List<CompletableFuture<?>> futures) {
 
-                                // notify listeners
-                                firePutAwayTrashable(trashable);
-                            } catch (DataBaseManagerException e) {
-                                exceptionHandler.handleException(e);
-                            }
-                        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).whenComplete(
+                new BiConsumer<Void, Throwable>() {
+
+                    public void accept(Void result, Throwable throwable) {
 
-                        loadData();
+                        SwingUtilities.invokeLater(new Runnable() {
+
+                            public void run() {
+
+                                loadData();
+                            }
+                        });
                     }
                 });
-                thread.start();
-            }
-        });
+    }
+
+    private void handleWriteException(Throwable throwable) {
+
+        if (throwable instanceof GTDInboxException) {
+            exceptionHandler.handleException((GTDInboxException) throwable);
+        } else {
+            logger.warn(throwable, throwable);
+        }
     }
 
     private void addEmptyTrashListener() {
@@ -344,7 +404,7 @@ public class TrashDetailController {
 
             public void actionPerformed(ActionEvent actionEvent) {
 
-                String message = "The trash contains " + model.getListItems().size() + " items.";
+                String message = "The trash contains " + model.getItemCount() + " items.";
 
                 fireConfirmEmptyTrash(message);
             }
@@ -365,9 +425,14 @@ public class TrashDetailController {
 
             public void propertyChange(PropertyChangeEvent event) {
 
-                if (model.getListItems().size() > 0) {
+                if (model.getListItems().size() < model.getItemCount()) {
+
+                    model.setDescription("The trash contains " + model.getItemCount() + " items, the first "
+                            + model.getListItems().size() + " are listed.");
+                    addEmptyTrashListener();
+                } else if (model.getListItems().size() > 0) {
 
-                    model.setDescription("The trash contains " + model.getListItems().size() + " items.");
+                    model.setDescription("The trash contains " + model.getItemCount() + " items.");
                     addEmptyTrashListener();
                 } else {
                     model.setDescription("The trash is empty.");
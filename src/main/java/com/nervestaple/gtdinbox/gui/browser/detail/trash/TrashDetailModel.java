@@ -33,10 +33,15 @@ public class TrashDetailModel {
     private String description;
 
     /**
-     * List of items in the trash.
+     * List of items in the trash, the first page of them if there are more.
      */
     private EventList listItems;
 
+    /**
+     * Number of items in the trash.
+     */
+    private int itemCount;
+
     /**
      * Action listener for the empty trash button.
      */
@@ -113,6 +118,16 @@ public class TrashDetailModel {
         propertychangesupport.firePropertyChange("listItems", valueOld, this.listItems);
     }
 
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(final int itemCount) {
+        int valueOld = this.itemCount;
+        this.itemCount = itemCount;
+        propertychangesupport.firePropertyChange("itemCount", valueOld, this.itemCount);
+    }
+
     public ActionListener getActionListenerEmptyTrash() {
         return actionListenerEmptyTrash;
     }
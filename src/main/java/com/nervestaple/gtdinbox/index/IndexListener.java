@@ -10,7 +10,9 @@ import javax.persistence.PostRemove;
 import javax.persistence.PostUpdate;
 
 /**
- * Provides a listener that indexes new entities as they are created and updated.
+ * Provides a listener that indexes new entities as they are created and updated. Changes are handed to the
+ * IndexManager's queue and committed to the index in the background. Nothing is indexed while the IndexManager's
+ * indexing is suspended.
  */
 public class IndexListener {
 
@@ -23,28 +25,42 @@ public class IndexListener {
     @PostPersist
     public void postPersist(Indexable entity) {
 
+        if (IndexManager.getInstance().isIndexingSuspended()) {
+            return;
+        }
+
         try {
-            IndexManager.getInstance().addIndexable(entity);
+            IndexManager.getInstance().queueIndexable(entity);
         } catch (IndexManagerException exception) {
-            logger.warn("Could not index entity!", exception);
+            logger.warn("Could not index entity, the reconciler will pick it up on the next start", exception);
         }
     }
 
     @PostUpdate
     public void postUpdate(Indexable entity) {
+
+        if (IndexManager.getInstance().isIndexingSuspended()) {
+            return;
+        }
+
         try {
-            IndexManager.getInstance().updateIndexable(entity);
+            IndexManager.getInstance().queueIndexable(entity);
         } catch (IndexManagerException exception) {
-            logger.warn("Could not index entity!", exception);
+            logger.warn("Could not index entity, the reconciler will pick it up on the next start", exception);
         }
     }
 
     @PostRemove
     public void postRemove(Indexable entity) {
+
+        if (IndexManager.getInstance().isIndexingSuspended()) {
+            return;
+        }
+
         try {
-            IndexManager.getInstance().removeIndexable(entity);
+            IndexManager.getInstance().queueRemoveIndexable(entity);
         } catch (IndexManagerException exception) {
-            logger.warn("Could not index entity!", exception);
+            logger.warn("Could not index entity, the reconciler will pick it up on the next start", exception);
         }
     }
 }
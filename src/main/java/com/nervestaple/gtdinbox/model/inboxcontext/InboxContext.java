@@ -7,6 +7,8 @@ import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
 import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -18,6 +20,8 @@ import java.util.Set;
  * out in a particular location or work area.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners({IndexListener.class})
 public class InboxContext implements Serializable, Indexable, Trashable {
 
@@ -53,6 +57,7 @@ public class InboxContext implements Serializable, Indexable, Trashable {
      * Action items associated with this context.
      */
     @OneToMany(mappedBy = "inboxContext")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<ActionItem> actionItems;
 
     /**
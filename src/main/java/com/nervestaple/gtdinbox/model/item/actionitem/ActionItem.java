@@ -8,6 +8,8 @@ import com.nervestaple.gtdinbox.model.item.Item;
 import com.nervestaple.gtdinbox.model.project.Project;
 import com.nervestaple.gtdinbox.model.tag.Tag;
 import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -21,6 +23,8 @@ import java.util.Set;
  * future
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners({IndexListener.class})
 public class ActionItem implements Serializable, Indexable, Trashable, Item {
 
@@ -80,6 +84,7 @@ public class ActionItem implements Serializable, Indexable, Trashable, Item {
      */
     @OneToMany
     @JoinTable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Tag> tags;
 
     /**
@@ -7,6 +7,8 @@ import com.nervestaple.gtdinbox.model.item.Item;
 import com.nervestaple.gtdinbox.model.reference.category.Category;
 import com.nervestaple.gtdinbox.model.tag.Tag;
 import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -19,6 +21,8 @@ import java.util.Set;
  * filed away. This class is abstract, it will be extended to implement specific types of reference items.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners({IndexListener.class})
 public abstract class ReferenceItem implements Serializable, Indexable, Trashable, Item {
 
@@ -71,6 +75,7 @@ public abstract class ReferenceItem implements Serializable, Indexable, Trashabl
      */
     @OneToMany
     @JoinTable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Tag> tags;
 
     /**
@@ -7,6 +7,8 @@ import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
 import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.swing.*;
@@ -20,6 +22,8 @@ import java.util.Set;
  * same goal.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners({IndexListener.class})
 public class Project implements Serializable, Indexable, Trashable {
 
@@ -60,6 +64,7 @@ public class Project implements Serializable, Indexable, Trashable {
      * Action items associates with this project.
      */
     @OneToMany(mappedBy = "project")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<ActionItem> actionItems;
 
     /**
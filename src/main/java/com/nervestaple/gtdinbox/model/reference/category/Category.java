@@ -6,6 +6,8 @@ import com.nervestaple.gtdinbox.model.Trashable;
 import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
 import com.nervestaple.gtdinbox.model.textstyletypes.TextStyleType;
 import org.apache.commons.lang.Validate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.awt.*;
@@ -17,6 +19,8 @@ import java.util.Set;
  * Provides an object to model a category. In this application, a category is used to group references items.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners({IndexListener.class})
 public class Category implements Serializable, Indexable, Trashable {
 
@@ -67,6 +71,7 @@ public class Category implements Serializable, Indexable, Trashable {
      * Reference items associated with this category.
      */
     @OneToMany(mappedBy = "category")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<ReferenceItem> referenceItems;
 
     /**
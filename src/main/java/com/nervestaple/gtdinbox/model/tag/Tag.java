@@ -6,6 +6,8 @@ import com.nervestaple.gtdinbox.model.Trashable;
 import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
 import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
 import org.apache.commons.lang.Validate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.tool.schema.Action;
 import org.hibernate.tool.schema.TargetType;
 
@@ -19,6 +21,8 @@ import java.util.Set;
  * quick, on-the-fly grouping. This is very similar to the tags used by tagging services like Del.icio.us.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners({IndexListener.class})
 public class Tag implements Serializable, Indexable, Trashable {
 
@@ -45,6 +49,7 @@ public class Tag implements Serializable, Indexable, Trashable {
      */
     @OneToMany
     @JoinTable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<ReferenceItem> referenceItems;
 
     /**
@@ -52,6 +57,7 @@ public class Tag implements Serializable, Indexable, Trashable {
      */
     @OneToMany
     @JoinTable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<ActionItem> actionItems;
 
     /**
@@ -0,0 +1,98 @@
+package com.nervestaple.gtdinbox.model.trash;
+
+import com.nervestaple.gtdinbox.model.Trashable;
+
+import java.io.Serializable;
+
+/**
+ * Provides a lightweight view of an object in the trash: what it is, its name and the name of the project or category
+ * it was filed under. The trash is listed with these rather than with the objects themselves, the object is only
+ * loaded when it's put away or deleted.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TrashEntry implements Serializable {
+
+    /**
+     * Class of the object.
+     */
+    private final Class<? extends Trashable> type;
+
+    /**
+     * Unique id of the object.
+     */
+    private final Long id;
+
+    /**
+     * Name of the object.
+     */
+    private final String name;
+
+    /**
+     * Name of the object's parent, null if it has none.
+     */
+    private final String parentName;
+
+    /**
+     * Creates a new TrashEntry.
+     *
+     * @param type       class of the object
+     * @param id         unique id of the object
+     * @param name       name of the object
+     * @param parentName name of the object's parent, null if it has none
+     */
+    public TrashEntry(final Class<? extends Trashable> type, final Long id, final String name,
+                      final String parentName) {
+
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.parentName = parentName;
+    }
+
+    // other required methods
+
+    public boolean equals(final Object o) {
+
+        if (this == o) {
+            return (true);
+        }
+
+        if (!(o instanceof TrashEntry)) {
+            return (false);
+        }
+
+        final TrashEntry trashEntry = (TrashEntry) o;
+
+        return (type.equals(trashEntry.type) && id.equals(trashEntry.id));
+    }
+
+    public int hashCode() {
+
+        return (29 * type.hashCode() + id.hashCode());
+    }
+
+    public String toString() {
+
+        return (type.getSimpleName() + "[" + id + "]: " + name);
+    }
+
+    // accessor methods
+
+    public Class<? extends Trashable> getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getParentName() {
+        return parentName;
+    }
+}
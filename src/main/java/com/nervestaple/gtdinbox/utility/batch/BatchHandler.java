@@ -0,0 +1,20 @@
+package com.nervestaple.gtdinbox.utility.batch;
+
+import java.util.List;
+
+/**
+ * Defines an interface for the object that handles the batches of a Batcher.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public interface BatchHandler<E> {
+
+    /**
+     * Method called on the batcher's thread with each batch. Problems should be handled here, a runtime exception is
+     * logged and the batch is dropped.
+     *
+     * @param batch the elements of the batch, in the order they were added
+     */
+    public void handleBatch(List<E> batch);
+}
@@ -0,0 +1,364 @@
+package com.nervestaple.gtdinbox.utility.batch;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a queue whose elements are handed to a BatchHandler in groups by a background thread. A group is handed
+ * over once no element has been added for the idle delay, once the oldest pending element has waited for the
+ * maximum delay or once the batch size has been reached, whichever comes first. Without an idle delay of its own the
+ * group waits out the maximum delay. Elements are added with a key, an element replaces any pending element with the
+ * same key so repeated work on the same thing is only done once.
+ * <p/>
+ * The thread is started when the first element is added and runs until the batcher is shut down.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class Batcher<E> {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Name of the thread handling the batches.
+     */
+    private final String threadName;
+
+    /**
+     * Number of pending elements that will trigger a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Time (in milliseconds) without a new element after which the pending elements are handled.
+     */
+    private final long idleDelay;
+
+    /**
+     * Time (in milliseconds) an element may wait before it is handled.
+     */
+    private final long maxDelay;
+
+    /**
+     * Handler the batches are passed to.
+     */
+    private final BatchHandler<E> batchHandler;
+
+    /**
+     * Pending elements, keyed by their key.
+     */
+    private final Map<Object, E> pending;
+
+    /**
+     * Lock guarding the batcher state.
+     */
+    private final Object lock;
+
+    /**
+     * Time the oldest pending element was added.
+     */
+    private long oldestQueuedTime;
+
+    /**
+     * Time the newest pending element was added.
+     */
+    private long newestQueuedTime;
+
+    /**
+     * Flag indicating a batch is being handled.
+     */
+    private boolean handling;
+
+    /**
+     * Flag indicating a caller is waiting for the queue to empty.
+     */
+    private boolean flushRequested;
+
+    /**
+     * Flag indicating the batcher is accepting elements.
+     */
+    private boolean running;
+
+    /**
+     * Thread handling the batches.
+     */
+    private Thread threadBatch;
+
+    /**
+     * Creates a new Batcher.
+     *
+     * @param threadName   name of the thread handling the batches
+     * @param batchSize    number of pending elements that will trigger a batch
+     * @param maxDelay     time (in milliseconds) an element may wait before it is handled
+     * @param batchHandler handler the batches are passed to
+     */
+    public Batcher(final String threadName, final int batchSize, final long maxDelay,
+                   final BatchHandler<E> batchHandler) {
+
+        this(threadName, batchSize, maxDelay, maxDelay, batchHandler);
+    }
+
+    /**
+     * Creates a new Batcher that hands a group over as soon as the elements stop coming.
+     *
+     * @param threadName   name of the thread handling the batches
+     * @param batchSize    number of pending elements that will trigger a batch
+     * @param idleDelay    time (in milliseconds) without a new element after which the pending elements are handled
+     * @param maxDelay     time (in milliseconds) an element may wait before it is handled
+     * @param batchHandler handler the batches are passed to
+     */
+    public Batcher(final String threadName, final int batchSize, final long idleDelay, final long maxDelay,
+                   final BatchHandler<E> batchHandler) {
+
+        this.threadName = threadName;
+        this.batchSize = batchSize;
+        this.idleDelay = idleDelay;
+        this.maxDelay = maxDelay;
+        this.batchHandler = batchHandler;
+
+        pending = new LinkedHashMap<>();
+        lock = new Object();
+        running = true;
+    }
+
+    /**
+     * Adds an element that is its own key.
+     *
+     * @param element the element
+     * @return false if the batcher has been shut down and the element wasn't added
+     */
+    public boolean add(final E element) {
+
+        return (add(element, element));
+    }
+
+    /**
+     * Adds an element, replacing any pending element with the same key.
+     *
+     * @param key     key of the element
+     * @param element the element
+     * @return false if the batcher has been shut down and the element wasn't added
+     */
+    public boolean add(final Object key, final E element) {
+
+        synchronized (lock) {
+
+            if (!running) {
+                return (false);
+            }
+
+            newestQueuedTime = System.currentTimeMillis();
+
+            if (pending.isEmpty()) {
+                oldestQueuedTime = newestQueuedTime;
+            }
+
+            // remove first so that the replacement moves to the end of the queue
+            pending.remove(key);
+            pending.put(key, element);
+
+            startThread();
+
+            lock.notifyAll();
+        }
+
+        return (true);
+    }
+
+    /**
+     * Returns the number of elements waiting to be handled.
+     *
+     * @return number of pending elements
+     */
+    public int getPendingCount() {
+
+        synchronized (lock) {
+            return (pending.size());
+        }
+    }
+
+    /**
+     * Returns the elements waiting to be handled.
+     *
+     * @return copy of the pending elements, in the order they were added
+     */
+    public List<E> getPending() {
+
+        synchronized (lock) {
+            return (new ArrayList<>(pending.values()));
+        }
+    }
+
+    /**
+     * Hands all pending elements over and waits until they have been handled. Called from the batcher's thread, this
+     * returns at once.
+     */
+    public void flush() {
+
+        synchronized (lock) {
+
+            if (Thread.currentThread() == threadBatch) {
+                return;
+            }
+
+            // nothing to wait for, don't let the flag cut short the delay of the next batch
+            if (pending.isEmpty() && !handling) {
+                return;
+            }
+
+            flushRequested = true;
+            lock.notifyAll();
+
+            try {
+
+                while (!pending.isEmpty() || handling) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+
+                logger.warn(e);
+                Thread.currentThread().interrupt();
+            } finally {
+
+                // a flush that only waited on a batch being handled leaves the flag for the next batch
+                if (pending.isEmpty()) {
+                    flushRequested = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands all pending elements over and stops the background thread. No further elements will be accepted.
+     */
+    public void shutdown() {
+
+        flush();
+
+        Thread thread;
+        synchronized (lock) {
+
+            running = false;
+            thread = threadBatch;
+            lock.notifyAll();
+        }
+
+        if (thread != null && thread != Thread.currentThread()) {
+
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+
+                logger.warn(e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // private methods
+
+    /**
+     * Starts the batch thread if it isn't already running, the caller must hold the lock.
+     */
+    private void startThread() {
+
+        if (threadBatch != null) {
+            return;
+        }
+
+        threadBatch = new Thread(new Runnable() {
+
+            public void run() {
+
+                batchLoop();
+            }
+        }, threadName);
+        threadBatch.setDaemon(true);
+        threadBatch.start();
+    }
+
+    /**
+     * Waits for batches to become ready and hands them over until the batcher is shut down.
+     */
+    private void batchLoop() {
+
+        while (true) {
+
+            List<E> batch = nextBatch();
+
+            if (batch == null) {
+                break;
+            }
+
+            try {
+                batchHandler.handleBatch(batch);
+            } catch (RuntimeException e) {
+
+                logger.warn("Could not handle a batch of " + batch.size() + " elements!", e);
+            } finally {
+
+                synchronized (lock) {
+
+                    handling = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks until the next batch is ready.
+     *
+     * @return the elements of the batch or null if the batcher has been shut down
+     */
+    private List<E> nextBatch() {
+
+        synchronized (lock) {
+
+            try {
+
+                while (running && pending.isEmpty()) {
+                    lock.wait();
+                }
+
+                // wait out the time budget unless the size budget is reached or someone needs the results now
+                while (running && !flushRequested && pending.size() < batchSize) {
+
+                    long remaining = Math.min(oldestQueuedTime + maxDelay, newestQueuedTime + idleDelay)
+                            - System.currentTimeMillis();
+
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    lock.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+
+                logger.warn(e);
+            }
+
+            if (pending.isEmpty()) {
+
+                // release the thread while holding the lock so the next element starts a new one
+                threadBatch = null;
+                lock.notifyAll();
+                return (null);
+            }
+
+            List<E> batch = new ArrayList<>(pending.values());
+            pending.clear();
+            handling = true;
+            flushRequested = false;
+
+            return (batch);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.nervestaple.gtdinbox.utility.comparator;
+
+import com.nervestaple.gtdinbox.datastore.index.SearchHit;
+
+import java.util.Comparator;
+
+/**
+ * Provides a comparator that sorts search hits by their score, best first.
+ */
+public class SearchHitComparator implements Comparator<SearchHit> {
+
+    public SearchHitComparator() {
+
+    }
+
+    /**
+     * Compares two SearchHit instances by their score.
+     *
+     * @param searchHit1 SearchHit
+     * @param searchHit2 SearchHit
+     * @return comparison result
+     */
+    public int compare(SearchHit searchHit1, SearchHit searchHit2) {
+
+        return (Float.compare(searchHit2.getScore(), searchHit1.getScore()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.nervestaple.gtdinbox.utility.stoppable;
+
+/**
+ * Provides a token that a task checks while it works to find out if it has been cancelled. The token may be cancelled
+ * from any thread.
+ */
+public class CancellationToken {
+
+    /**
+     * Flag to indicate the task has been cancelled.
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Tells the task holding this token to stop.
+     */
+    public void cancel() {
+
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+
+        return (cancelled);
+    }
+}
@@ -8,7 +8,7 @@ public abstract class StoppableRunnable implements Runnable {
     /**
      * Flag to indicate the thread must stop.
      */
-    protected boolean stop = false;
+    protected volatile boolean stop = false;
 
     public abstract void run();
 
@@ -8,7 +8,7 @@ public class StoppableThread extends Thread {
     /**
      * Flag to indicate the thread should halt.
      */
-    private boolean stop = false;
+    private volatile boolean stop = false;
 
     /**
      * Running runnable.
@@ -0,0 +1,152 @@
+package com.nervestaple.gtdinbox.datastore;
+
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactoryException;
+import com.nervestaple.gtdinbox.configuration.application.NoStorageLocationException;
+import com.nervestaple.gtdinbox.datastore.database.DataBaseManager;
+import com.nervestaple.gtdinbox.datastore.database.UnitOfWork;
+import com.nervestaple.gtdinbox.datastore.index.IndexManager;
+import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.project.Project;
+import com.nervestaple.gtdinbox.model.trash.TrashEntry;
+import junit.framework.TestCase;
+import org.apache.log4j.Logger;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+
+import javax.persistence.EntityManager;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides a test suite for the DataStoreManager object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestDataStoreManager extends TestCase {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    public void setUp() throws Exception {
+
+        ConfigurationFactory configurationFactory = ConfigurationFactory.getInstance();
+
+        try {
+            configurationFactory.setTestingConfiguration(true);
+        } catch (ConfigurationFactoryException e) {
+            logger.warn(e);
+        }
+
+        try {
+            configurationFactory.configure();
+        } catch (NoStorageLocationException e) {
+
+            File storage = configurationFactory.getApplicationConfiguration().createDefaultDataStorageLocation();
+            configurationFactory.getApplicationConfiguration().setDataStorageLocation(storage);
+
+            configurationFactory.configure();
+        }
+
+        DataBaseManager.getInstance().createSchemaIfMissing();
+    }
+
+    public void tearDown() {
+
+        DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+
+        try {
+            if (dataBaseManager.schemaExists()) {
+                dataBaseManager.dropSchema();
+            }
+        } catch (Exception e) {
+            logger.info(e);
+        }
+    }
+
+    public void testBulkSave() throws Exception {
+
+        List<Object> objects = new ArrayList<>();
+
+        InboxContext inboxContext = new InboxContext();
+        inboxContext.setName("Bulk");
+        objects.add(inboxContext);
+
+        // more than one batch
+        for (int index = 0; index < 1200; index++) {
+
+            Project project = new Project();
+            project.setName("Imported " + index);
+            objects.add(project);
+        }
+
+        assertEquals(1201, DataStoreManager.bulkSave(objects));
+
+        assertFalse(IndexManager.getInstance().isIndexingSuspended());
+
+        DataBaseManager.getInstance().getEntityManager().clear();
+        assertEquals(1200, DataStoreManager.getProjects().size());
+
+        assertTrue(IndexManager.getInstance().search(new TermQuery(new Term("name", "imported")), 10)
+                .getTotalHits() >= 1200);
+    }
+
+    public void testGetTrash() throws Exception {
+
+        DataBaseManager.getInstance().write(new UnitOfWork<Object>() {
+
+            public Object run(EntityManager entityManager) throws DataStoreException {
+
+                Project project = new Project();
+                project.setName("Filed");
+                entityManager.persist(project);
+
+                Project projectDeleted = new Project();
+                projectDeleted.setName("Deleted");
+                projectDeleted.setDeleted(true);
+                entityManager.persist(projectDeleted);
+
+                InboxContext inboxContext = new InboxContext();
+                inboxContext.setName("Deleted");
+                inboxContext.setDeleted(true);
+                entityManager.persist(inboxContext);
+
+                for (String description : new String[]{"beta", "Alpha", "gamma"}) {
+
+                    ActionItem actionItem = new ActionItem();
+                    actionItem.setDescription(description);
+                    actionItem.setDeleted(true);
+                    actionItem.setProject(project);
+                    entityManager.persist(actionItem);
+                }
+
+                ActionItem actionItem = new ActionItem();
+                actionItem.setDescription("Not deleted");
+                entityManager.persist(actionItem);
+
+                return (null);
+            }
+        });
+
+        assertEquals(5, DataStoreManager.getTrashCount());
+
+        // sorted by type and then name
+        List<TrashEntry> trash = DataStoreManager.getTrash();
+        assertEquals(5, trash.size());
+        assertEquals(ActionItem.class, trash.get(0).getType());
+        assertEquals("Alpha", trash.get(0).getName());
+        assertEquals("Filed", trash.get(0).getParentName());
+        assertEquals("beta", trash.get(1).getName());
+        assertEquals(InboxContext.class, trash.get(3).getType());
+        assertEquals(Project.class, trash.get(4).getType());
+        assertNull(trash.get(4).getParentName());
+
+        List<TrashEntry> page = DataStoreManager.getTrash(2, 2);
+        assertEquals(trash.subList(2, 4), page);
+    }
+}
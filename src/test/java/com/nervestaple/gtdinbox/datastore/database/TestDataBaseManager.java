@@ -6,6 +6,10 @@ import org.apache.log4j.Logger;
 import com.nervestaple.gtdinbox.configuration.ConfigurationFactoryException;
 import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
 import com.nervestaple.gtdinbox.configuration.application.NoStorageLocationException;
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
+import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.project.Project;
 
 import javax.persistence.EntityManager;
 import java.io.File;
@@ -220,4 +224,200 @@ public class TestDataBaseManager extends TestCase {
 
         assertTrue(exists);
     }
+
+    public void testWriteAndRead() throws Exception {
+
+        final DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+        dataBaseManager.createSchemaIfMissing();
+
+        final Long id = dataBaseManager.write(new UnitOfWork<Long>() {
+
+            public Long run(EntityManager entityManager) throws DataStoreException {
+
+                assertTrue(dataBaseManager.isInUnitOfWork());
+                assertSame(entityManager, dataBaseManager.getEntityManager());
+
+                InboxContext inboxContext = new InboxContext();
+                inboxContext.setName("Unit of Work");
+                entityManager.persist(inboxContext);
+
+                return (inboxContext.getId());
+            }
+        });
+
+        assertFalse(dataBaseManager.isInUnitOfWork());
+
+        InboxContext inboxContext = dataBaseManager.read(new UnitOfWork<InboxContext>() {
+
+            public InboxContext run(EntityManager entityManager) throws DataStoreException {
+
+                return (entityManager.find(InboxContext.class, id));
+            }
+        });
+
+        assertNotNull(inboxContext);
+        assertEquals("Unit of Work", inboxContext.getName());
+    }
+
+    public void testRollbackInWrite() throws Exception {
+
+        final DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+        dataBaseManager.createSchemaIfMissing();
+
+        final Long id = dataBaseManager.write(new UnitOfWork<Long>() {
+
+            public Long run(EntityManager entityManager) throws DataStoreException {
+
+                InboxContext inboxContext = new InboxContext();
+                inboxContext.setName("Rolled Back");
+                entityManager.persist(inboxContext);
+                entityManager.flush();
+
+                dataBaseManager.rollbackTransaction();
+
+                return (inboxContext.getId());
+            }
+        });
+
+        InboxContext inboxContext = dataBaseManager.read(new UnitOfWork<InboxContext>() {
+
+            public InboxContext run(EntityManager entityManager) throws DataStoreException {
+
+                return (entityManager.find(InboxContext.class, id));
+            }
+        });
+
+        assertNull(inboxContext);
+    }
+
+    public void testWriteInRead() throws Exception {
+
+        final DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+
+        try {
+
+            dataBaseManager.read(new UnitOfWork<Object>() {
+
+                public Object run(EntityManager entityManager) throws DataStoreException {
+
+                    return (dataBaseManager.write(new UnitOfWork<Object>() {
+
+                        public Object run(EntityManager entityManager) throws DataStoreException {
+                            return (null);
+                        }
+                    }));
+                }
+            });
+
+            fail("Wrote to the database in a unit of work that reads");
+        } catch (DataBaseManagerException e) {
+            // expected
+        }
+
+        assertFalse(dataBaseManager.isInUnitOfWork());
+    }
+
+    public void testCollectionCache() throws Exception {
+
+        final DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+        dataBaseManager.createSchemaIfMissing();
+
+        final Long[] ids = dataBaseManager.write(new UnitOfWork<Long[]>() {
+
+            public Long[] run(EntityManager entityManager) throws DataStoreException {
+
+                Project projectFirst = new Project();
+                projectFirst.setName("First");
+                entityManager.persist(projectFirst);
+
+                Project projectSecond = new Project();
+                projectSecond.setName("Second");
+                entityManager.persist(projectSecond);
+
+                ActionItem actionItem = new ActionItem();
+                actionItem.setDescription("Cached");
+                actionItem.setProject(projectFirst);
+                entityManager.persist(actionItem);
+
+                return (new Long[]{projectFirst.getId(), projectSecond.getId(), actionItem.getId()});
+            }
+        });
+
+        assertEquals(1, countActionItems(ids[0]));
+
+        // the second read is answered by the cache
+        CacheMetrics cacheMetrics = dataBaseManager.getCacheMetrics();
+        String region = Project.class.getName() + ".actionItems";
+        long hits = cacheMetrics.getRegionHitCount(region);
+
+        assertEquals(1, countActionItems(ids[0]));
+        assertTrue(cacheMetrics.getRegionHitCount(region) > hits);
+
+        // move the item without touching the projects' collections, as a merge would
+        dataBaseManager.write(new UnitOfWork<Object>() {
+
+            public Object run(EntityManager entityManager) throws DataStoreException {
+
+                ActionItem actionItem = entityManager.find(ActionItem.class, ids[2]);
+                actionItem.setProject(entityManager.find(Project.class, ids[1]));
+
+                return (null);
+            }
+        });
+
+        assertEquals(0, countActionItems(ids[0]));
+        assertEquals(1, countActionItems(ids[1]));
+    }
+
+    public void testReload() throws Exception {
+
+        final DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+        dataBaseManager.createSchemaIfMissing();
+
+        final Long id = dataBaseManager.write(new UnitOfWork<Long>() {
+
+            public Long run(EntityManager entityManager) throws DataStoreException {
+
+                Project project = new Project();
+                project.setName("Reloaded");
+                entityManager.persist(project);
+
+                return (project.getId());
+            }
+        });
+
+        Project project = dataBaseManager.getEntityManager().find(Project.class, id);
+        assertEquals(0, project.getActionItems().size());
+
+        dataBaseManager.write(new UnitOfWork<Object>() {
+
+            public Object run(EntityManager entityManager) throws DataStoreException {
+
+                ActionItem actionItem = new ActionItem();
+                actionItem.setDescription("Added elsewhere");
+                actionItem.setProject(entityManager.find(Project.class, id));
+                entityManager.persist(actionItem);
+
+                return (null);
+            }
+        });
+
+        dataBaseManager.reload(project, id);
+
+        assertTrue(dataBaseManager.getEntityManager().contains(project));
+        assertEquals(1, project.getActionItems().size());
+    }
+
+    // private methods
+
+    private int countActionItems(final Long id) throws DataStoreException {
+
+        return (DataBaseManager.getInstance().read(new UnitOfWork<Integer>() {
+
+            public Integer run(EntityManager entityManager) throws DataStoreException {
+
+                return (entityManager.find(Project.class, id).getActionItems().size());
+            }
+        }));
+    }
 }
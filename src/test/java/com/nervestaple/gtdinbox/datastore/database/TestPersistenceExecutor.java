@@ -0,0 +1,144 @@
+package com.nervestaple.gtdinbox.datastore.database;
+
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactoryException;
+import com.nervestaple.gtdinbox.configuration.application.NoStorageLocationException;
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
+import com.nervestaple.gtdinbox.model.inboxcontext.InboxContext;
+import junit.framework.TestCase;
+import org.apache.log4j.Logger;
+
+import javax.persistence.EntityManager;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Provides a test suite for the PersistenceExecutor object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestPersistenceExecutor extends TestCase {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Executor under test, it never writes on its own during a test.
+     */
+    private PersistenceExecutor persistenceExecutor;
+
+    public void setUp() throws Exception {
+
+        ConfigurationFactory configurationFactory = ConfigurationFactory.getInstance();
+
+        try {
+            configurationFactory.setTestingConfiguration(true);
+        } catch (ConfigurationFactoryException e) {
+            logger.warn(e);
+        }
+
+        try {
+            configurationFactory.configure();
+        } catch (NoStorageLocationException e) {
+
+            File storage = configurationFactory.getApplicationConfiguration().createDefaultDataStorageLocation();
+            configurationFactory.getApplicationConfiguration().setDataStorageLocation(storage);
+
+            configurationFactory.configure();
+        }
+
+        DataBaseManager.getInstance().createSchemaIfMissing();
+
+        persistenceExecutor = new PersistenceExecutor(1000, 60000, 60000);
+    }
+
+    public void tearDown() {
+
+        persistenceExecutor.shutdown();
+
+        DataBaseManager dataBaseManager = DataBaseManager.getInstance();
+
+        try {
+            if (dataBaseManager.schemaExists()) {
+                dataBaseManager.dropSchema();
+            }
+        } catch (Exception e) {
+            logger.info(e);
+        }
+    }
+
+    public void testWritesAreQueued() throws Exception {
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int index = 0; index < 50; index++) {
+            futures.add(persistenceExecutor.submit(createContext("Context " + index, false)));
+        }
+
+        assertEquals(50, persistenceExecutor.getPendingCount());
+        assertFalse(futures.get(0).isDone());
+
+        persistenceExecutor.flush();
+
+        assertEquals(0, persistenceExecutor.getPendingCount());
+        for (CompletableFuture<Long> future : futures) {
+            assertNotNull(future.get());
+        }
+    }
+
+    public void testFailedWrite() throws Exception {
+
+        CompletableFuture<Long> futureBefore = persistenceExecutor.submit(createContext("Before", false));
+        CompletableFuture<Long> futureFailed = persistenceExecutor.submit(createContext("Failed", true));
+        CompletableFuture<Long> futureAfter = persistenceExecutor.submit(createContext("After", false));
+
+        persistenceExecutor.flush();
+
+        // the other writes of the group are written without the one that failed
+        assertNotNull(futureBefore.get());
+        assertNotNull(futureAfter.get());
+
+        try {
+
+            futureFailed.get();
+            fail("The failed write completed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DataStoreException);
+        }
+    }
+
+    public void testShutdown() throws Exception {
+
+        persistenceExecutor.shutdown();
+
+        CompletableFuture<Long> future = persistenceExecutor.submit(createContext("Too Late", false));
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    // private methods
+
+    private UnitOfWork<Long> createContext(final String name, final boolean fail) {
+
+        return (new UnitOfWork<Long>() {
+
+            public Long run(EntityManager entityManager) throws DataStoreException {
+
+                if (fail) {
+                    throw new DataStoreException("Failed on purpose");
+                }
+
+                InboxContext inboxContext = new InboxContext();
+                inboxContext.setName(name);
+                entityManager.persist(inboxContext);
+
+                return (inboxContext.getId());
+            }
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.nervestaple.gtdinbox.datastore.generator;
+
+import com.nervestaple.gtdinbox.datastore.DataStoreException;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
+import junit.framework.TestCase;
+
+/**
+ * Provides a test suite for the DatasetGenerator object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestDatasetGenerator extends TestCase {
+
+    public void testCounts() {
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(DatasetSpecification.forActionItems(2000));
+        datasetGenerator.generate();
+
+        assertEquals(2000, datasetGenerator.getActionItems().size());
+        assertEquals(80, datasetGenerator.getProjects().size());
+        assertEquals(500, datasetGenerator.getReferenceItems().size());
+        assertEquals(20, datasetGenerator.getCategories().size());
+        assertEquals(8, datasetGenerator.getContexts().size());
+        assertEquals(14, datasetGenerator.getTags().size());
+    }
+
+    public void testRatios() {
+
+        DatasetSpecification datasetSpecification = new DatasetSpecification();
+        datasetSpecification.setActionItems(5000);
+        datasetSpecification.setCompletedRatio(0.5);
+        datasetSpecification.setDeletedRatio(0.1);
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(datasetSpecification);
+        datasetGenerator.generate();
+
+        int completed = 0;
+        int deleted = 0;
+        for (ActionItem actionItem : datasetGenerator.getActionItems()) {
+
+            if (actionItem.getCompletedDate() != null) {
+
+                completed++;
+                assertFalse(actionItem.getCompletedDate().before(actionItem.getCreatedDate()));
+            }
+
+            if (actionItem.getDeleted()) {
+                deleted++;
+            }
+
+            assertNotNull(actionItem.getProject());
+        }
+
+        assertEquals(2500d, completed, 150d);
+        assertEquals(500d, deleted, 75d);
+    }
+
+    public void testReferenceItems() {
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(new DatasetSpecification());
+        datasetGenerator.generate();
+
+        for (ReferenceItem referenceItem : datasetGenerator.getReferenceItems()) {
+
+            assertNotNull(referenceItem.getCategory());
+            assertNotNull(referenceItem.getName());
+        }
+    }
+
+    public void testSameSeed() {
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(new DatasetSpecification());
+        datasetGenerator.generate();
+
+        DatasetGenerator datasetGeneratorOther = new DatasetGenerator(new DatasetSpecification());
+        datasetGeneratorOther.generate();
+
+        for (int index = 0; index < datasetGenerator.getActionItems().size(); index++) {
+            assertEquals(datasetGenerator.getActionItems().get(index).getDescription(),
+                    datasetGeneratorOther.getActionItems().get(index).getDescription());
+        }
+    }
+
+    public void testPersistBeforeGenerate() {
+
+        try {
+
+            new DatasetGenerator(new DatasetSpecification()).persist(false);
+            fail("Stored a dataset that wasn't generated");
+        } catch (DataStoreException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.utility.stoppable.CancellationToken;
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+
+/**
+ * Provides a test suite for the CancellableHitCollector object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestCancellableHitCollector extends TestCase {
+
+    /**
+     * Index searcher.
+     */
+    private IndexSearcher indexSearcher;
+
+    public void setUp() throws Exception {
+
+        Directory directory = new RAMDirectory();
+
+        IndexWriter indexWriter = new IndexWriter(directory, new StandardAnalyzer(), true);
+        for (int index = 0; index < 20; index++) {
+
+            Document document = new Document();
+
+            StringBuilder description = new StringBuilder();
+            for (int count = 0; count <= index; count++) {
+                description.append("oogedy ");
+            }
+            description.append("filler text for document ").append(index);
+
+            document.add(new Field("description", description.toString(), Field.Store.YES, Field.Index.TOKENIZED));
+            indexWriter.addDocument(document);
+        }
+        indexWriter.close();
+
+        indexSearcher = new IndexSearcher(directory);
+    }
+
+    public void tearDown() throws Exception {
+
+        indexSearcher.close();
+    }
+
+    public void testTopHitsMatchSearcher() throws Exception {
+
+        TermQuery query = new TermQuery(new Term("description", "oogedy"));
+
+        CancellableHitCollector hitCollector = new CancellableHitCollector(5, new CancellationToken());
+        indexSearcher.search(query, hitCollector);
+        ScoreDoc[] scoreDocs = hitCollector.getScoreDocs();
+
+        TopDocs topDocs = indexSearcher.search(query, null, 5);
+
+        assertTrue(hitCollector.getTotalHits() == topDocs.totalHits);
+        assertTrue(scoreDocs.length == 5);
+        for (int index = 0; index < scoreDocs.length; index++) {
+            assertTrue(scoreDocs[index].doc == topDocs.scoreDocs[index].doc);
+        }
+    }
+
+    public void testCancelled() throws Exception {
+
+        CancellationToken cancellationToken = new CancellationToken();
+        cancellationToken.cancel();
+
+        CancellableHitCollector hitCollector = new CancellableHitCollector(5, cancellationToken);
+
+        try {
+            indexSearcher.search(new TermQuery(new Term("description", "oogedy")), hitCollector);
+            fail("Expected the search to be cancelled");
+        } catch (CancellableHitCollector.CancelledException e) {
+
+            // expected
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import junit.framework.TestCase;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Provides a test suite for the DateQueryParser object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestDateQueryParser extends TestCase {
+
+    public void testTextWithoutFilters() throws Exception {
+
+        DateQueryParser.DateSearch dateSearch = createParser().parse("quarterly report");
+
+        assertEquals("quarterly report", dateSearch.getText());
+        assertFalse(dateSearch.hasFilters());
+    }
+
+    public void testFiltersAreRemoved() throws Exception {
+
+        DateQueryParser.DateSearch dateSearch =
+                createParser().parse("report completed:[last week] created:>2026-01-01");
+
+        assertEquals("report", dateSearch.getText());
+        assertEquals(2, dateSearch.getFilters().size());
+    }
+
+    public void testOtherFieldsAreKept() throws Exception {
+
+        DateQueryParser.DateSearch dateSearch = createParser().parse("name:report created:2026-01-01");
+
+        assertEquals("name:report", dateSearch.getText());
+        assertEquals(1, dateSearch.getFilters().size());
+    }
+
+    public void testRange() throws Exception {
+
+        DateQueryParser.DateSearch dateSearch = createParser().parse("modified:[2026-01-01 to 2026-01-31]");
+
+        assertEquals("", dateSearch.getText());
+        assertEquals(1, dateSearch.getFilters().size());
+    }
+
+    public void testFilterOnly() throws Exception {
+
+        DateQueryParser.DateSearch dateSearch = createParser().parse("completed:[today]");
+
+        FilteredQuery query = (FilteredQuery) dateSearch.filter(null);
+
+        assertTrue(query.getQuery() instanceof MatchAllDocsQuery);
+    }
+
+    public void testBadDate() {
+
+        try {
+            createParser().parse("created:[next tuesday]");
+            fail("Expected an IndexManagerException");
+        } catch (IndexManagerException e) {
+            // expected
+        }
+    }
+
+    private DateQueryParser createParser() {
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2026, Calendar.OCTOBER, 18, 12, 0, 0);
+        Date now = calendar.getTime();
+
+        return (new DateQueryParser(now));
+    }
+}
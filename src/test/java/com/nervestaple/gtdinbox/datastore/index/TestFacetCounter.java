@@ -0,0 +1,140 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.utility.stoppable.CancellationToken;
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a test suite for the FacetCounter and FacetFilter objects.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestFacetCounter extends TestCase {
+
+    /**
+     * Fields counted by the tests.
+     */
+    private final static String[] FIELDS = {"project", "tag"};
+
+    /**
+     * Index directory.
+     */
+    private Directory directory;
+
+    /**
+     * Index searcher.
+     */
+    private IndexSearcher indexSearcher;
+
+    public void setUp() throws Exception {
+
+        directory = new RAMDirectory();
+
+        IndexWriter indexWriter = new IndexWriter(directory, new StandardAnalyzer(), true);
+        for (int index = 0; index < 12; index++) {
+
+            Document document = new Document();
+
+            document.add(new Field("key", String.valueOf(index), Field.Store.YES, Field.Index.UN_TOKENIZED));
+            document.add(new Field("description", index % 2 == 0 ? "oogedy even" : "oogedy odd",
+                    Field.Store.YES, Field.Index.TOKENIZED));
+            document.add(new Field("project", index < 8 ? "Garden" : "Taxes",
+                    Field.Store.NO, Field.Index.UN_TOKENIZED));
+
+            // every third document has two tags, the others have none
+            if (index % 3 == 0) {
+
+                document.add(new Field("tag", "home", Field.Store.NO, Field.Index.UN_TOKENIZED));
+                document.add(new Field("tag", "urgent", Field.Store.NO, Field.Index.UN_TOKENIZED));
+            }
+
+            indexWriter.addDocument(document);
+        }
+        indexWriter.close();
+
+        // remove one document, it mustn't be counted or matched
+        IndexReader indexReader = IndexReader.open(directory);
+        indexReader.deleteDocuments(new Term("key", "0"));
+        indexReader.close();
+
+        indexSearcher = new IndexSearcher(directory);
+    }
+
+    public void tearDown() throws Exception {
+
+        indexSearcher.close();
+    }
+
+    public void testCountsAllHits() throws Exception {
+
+        FacetCounter facetCounter = new FacetCounter(indexSearcher.getIndexReader(), FIELDS);
+        CancellableHitCollector hitCollector = new CancellableHitCollector(2, new CancellationToken(), facetCounter);
+        indexSearcher.search(new TermQuery(new Term("description", "oogedy")), hitCollector);
+
+        assertTrue(hitCollector.getTotalHits() == 11);
+
+        Map<String, List<FacetCount>> facets = facetCounter.getFacets(10);
+
+        List<FacetCount> projects = facets.get("project");
+        assertTrue(projects.size() == 2);
+        assertEquals("Garden", projects.get(0).getValue());
+        assertTrue(projects.get(0).getCount() == 7);
+        assertEquals("Taxes", projects.get(1).getValue());
+        assertTrue(projects.get(1).getCount() == 4);
+
+        // documents 3, 6 and 9 are tagged, document 0 was deleted
+        List<FacetCount> tags = facets.get("tag");
+        assertTrue(tags.size() == 2);
+        assertEquals("home", tags.get(0).getValue());
+        assertTrue(tags.get(0).getCount() == 3);
+        assertTrue(tags.get(1).getCount() == 3);
+    }
+
+    public void testMaxValues() throws Exception {
+
+        FacetCounter facetCounter = new FacetCounter(indexSearcher.getIndexReader(), FIELDS);
+        indexSearcher.search(new TermQuery(new Term("description", "oogedy")),
+                new CancellableHitCollector(2, new CancellationToken(), facetCounter));
+
+        List<FacetCount> projects = facetCounter.getFacets(1).get("project");
+        assertTrue(projects.size() == 1);
+        assertEquals("Garden", projects.get(0).getValue());
+    }
+
+    public void testFilterIntersects() throws Exception {
+
+        List<Term> terms = new ArrayList<>();
+        terms.add(new Term("project", "Garden"));
+        terms.add(new Term("tag", "urgent"));
+        FacetFilter facetFilter = new FacetFilter(terms);
+
+        FacetCounter facetCounter = new FacetCounter(indexSearcher.getIndexReader(), FIELDS);
+        CancellableHitCollector hitCollector = new CancellableHitCollector(10, new CancellationToken(), facetCounter);
+        indexSearcher.search(new FilteredQuery(new TermQuery(new Term("description", "even")), facetFilter),
+                hitCollector);
+
+        // only document 6 is even, in the garden and urgent
+        assertTrue(hitCollector.getTotalHits() == 1);
+        assertTrue(facetCounter.getFacets(10).get("project").get(0).getCount() == 1);
+
+        // the same values make an equal filter
+        assertEquals(facetFilter, new FacetFilter(terms));
+        assertTrue(facetFilter.bits(indexSearcher.getIndexReader())
+                == facetFilter.bits(indexSearcher.getIndexReader()));
+    }
+}
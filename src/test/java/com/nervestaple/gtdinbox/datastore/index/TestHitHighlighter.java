@@ -0,0 +1,68 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import junit.framework.TestCase;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.TermQuery;
+
+/**
+ * Provides a test suite for the HitHighlighter object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestHitHighlighter extends TestCase {
+
+    public void testHighlightsTerms() {
+
+        HitHighlighter hitHighlighter = new HitHighlighter(new TermQuery(new Term("description", "dentist")));
+
+        assertEquals("Call the <b>dentist</b> &amp; book",
+                hitHighlighter.highlight("description", "Call the dentist & book"));
+        assertNull(hitHighlighter.highlight("description", "Call the plumber"));
+        assertNull(hitHighlighter.highlight("name", "Call the dentist"));
+    }
+
+    public void testHighlightsPrefixes() {
+
+        HitHighlighter hitHighlighter = new HitHighlighter(new PrefixQuery(new Term("description", "dent")));
+
+        assertEquals("<b>Dentist</b> and <b>dentures</b>", hitHighlighter.highlight("description",
+                "Dentist and dentures"));
+    }
+
+    public void testSkipsProhibitedClauses() {
+
+        BooleanQuery query = new BooleanQuery();
+        query.add(new TermQuery(new Term("description", "call")), BooleanClause.Occur.SHOULD);
+        query.add(new TermQuery(new Term("description", "dentist")), BooleanClause.Occur.MUST_NOT);
+
+        assertEquals("<b>Call</b> the dentist", new HitHighlighter(query).highlight("description",
+                "Call the dentist"));
+    }
+
+    public void testFragmentAroundFirstMatch() {
+
+        StringBuilder text = new StringBuilder();
+        for (int index = 0; index < 40; index++) {
+            text.append("filler ");
+        }
+        text.append("dentist");
+
+        String snippet = new HitHighlighter(new TermQuery(new Term("description", "dentist")))
+                .highlight("description", text.toString());
+
+        assertTrue(snippet.startsWith("&hellip;filler"));
+        assertTrue(snippet.endsWith("<b>dentist</b>"));
+    }
+
+    public void testSnippetFallsBackToName() {
+
+        HitHighlighter hitHighlighter = new HitHighlighter(new TermQuery(new Term("name", "garden")));
+        SearchHit searchHit = new SearchHit("project", "1", 1.0f, "Garden", "Plant the tomatoes", null, null);
+
+        assertEquals("<b>Garden</b>", hitHighlighter.getSnippet(searchHit));
+    }
+}
@@ -0,0 +1,101 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides a test suite for the IndexJournal object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestIndexJournal extends TestCase {
+
+    /**
+     * Journal file.
+     */
+    private File file;
+
+    public void setUp() throws Exception {
+
+        file = File.createTempFile("gtdinbox", ".journal");
+        file.delete();
+    }
+
+    public void tearDown() throws Exception {
+
+        file.delete();
+    }
+
+    public void testAppendAndRead() throws Exception {
+
+        IndexJournal journal = new IndexJournal(file);
+        journal.open();
+        journal.append(new IndexOperation(IndexOperation.Type.UPDATE, "actionitem", "1", null));
+        journal.append(new IndexOperation(IndexOperation.Type.REMOVE, "project", "2", null));
+        journal.sync();
+        journal.close();
+
+        List<IndexOperation> operations = new IndexJournal(file).read();
+
+        assertEquals(2, operations.size());
+        assertEquals(IndexOperation.Type.UPDATE, operations.get(0).getType());
+        assertEquals("actionitem", operations.get(0).getClassName());
+        assertEquals("1", operations.get(0).getId());
+        assertEquals(IndexOperation.Type.REMOVE, operations.get(1).getType());
+        assertEquals("project", operations.get(1).getClassName());
+    }
+
+    public void testResetKeepsOutstanding() throws Exception {
+
+        IndexOperation operationOutstanding = new IndexOperation(IndexOperation.Type.UPDATE, "project", "2", null);
+
+        IndexJournal journal = new IndexJournal(file);
+        journal.open();
+        journal.append(new IndexOperation(IndexOperation.Type.UPDATE, "actionitem", "1", null));
+        journal.append(operationOutstanding);
+        journal.reset(Collections.singletonList(operationOutstanding));
+
+        List<IndexOperation> operations = journal.read();
+
+        assertEquals(1, operations.size());
+        assertEquals("project", operations.get(0).getClassName());
+
+        journal.reset(Collections.<IndexOperation>emptyList());
+        assertTrue(journal.read().isEmpty());
+
+        // still appending after being truncated
+        journal.append(new IndexOperation(IndexOperation.Type.REMOVE, "tag", "3", null));
+        journal.close();
+
+        assertEquals(1, new IndexJournal(file).read().size());
+    }
+
+    public void testIgnoresPartlyWrittenRecord() throws Exception {
+
+        OutputStream outputStream = new FileOutputStream(file);
+        outputStream.write("UPDATE\tactionitem\t1\nREMOVE\tproj".getBytes(StandardCharsets.UTF_8));
+        outputStream.close();
+
+        IndexJournal journal = new IndexJournal(file);
+
+        assertEquals(1, journal.read().size());
+
+        // the partly written record is cut off so it doesn't swallow the next one
+        journal.open();
+        journal.append(new IndexOperation(IndexOperation.Type.REMOVE, "project", "2", null));
+        journal.close();
+
+        List<IndexOperation> operations = journal.read();
+
+        assertEquals(2, operations.size());
+        assertEquals("project", operations.get(1).getClassName());
+        assertEquals("2", operations.get(1).getId());
+    }
+}
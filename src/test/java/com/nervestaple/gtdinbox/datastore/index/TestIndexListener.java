@@ -79,6 +79,9 @@ public class TestIndexListener extends TestCase {
         databaseManager.getEntityManager().persist(project);
         databaseManager.commitTransaction();
 
+        // wait for the index queue to commit
+        IndexManager.getInstance().getIndexQueue().flush();
+
         // create a new query to find our project
         TermQuery queryId = new TermQuery(new Term("id", project.getId().toString()));
         TermQuery queryClass = new TermQuery(new Term("class", project.getClass().getName().toLowerCase()));
@@ -116,6 +119,9 @@ public class TestIndexListener extends TestCase {
         databaseManager.getEntityManager().persist(project);
         databaseManager.commitTransaction();
 
+        // wait for the index queue to commit
+        IndexManager.getInstance().getIndexQueue().flush();
+
         // create a new query to find our project
         TermQuery queryId = new TermQuery(new Term("id", project.getId().toString()));
         TermQuery queryClass = new TermQuery(new Term("class", project.getClass().getName().toLowerCase()));
@@ -129,6 +135,9 @@ public class TestIndexListener extends TestCase {
         databaseManager.getEntityManager().remove(project);
         databaseManager.commitTransaction();
 
+        // wait for the index queue to commit
+        IndexManager.getInstance().getIndexQueue().flush();
+
         // verify the project has been removed
         IndexManager indexManager = IndexManager.getInstance();
         IndexSearcher indexSearcher = indexManager.getIndexSearcher();
@@ -139,4 +148,88 @@ public class TestIndexListener extends TestCase {
 
         assertTrue(results == 0);
     }
+
+    public void testRebuild() throws Exception {
+
+        // create a new project
+        Project project = new Project();
+        project.setName("Test Project");
+
+        // perisist the project
+        DataBaseManager databaseManager = DataBaseManager.getInstance();
+        databaseManager.beginTransaction();
+        databaseManager.getEntityManager().persist(project);
+        databaseManager.commitTransaction();
+
+        // wait for the index queue to commit, then lose the project's document
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.getIndexQueue().flush();
+        indexManager.removeIndexable(project);
+
+        int documents = indexManager.rebuild();
+
+        TermQuery query = new TermQuery(new Term("key",
+                project.getClass().getName().toLowerCase() + "#" + project.getId()));
+
+        // verify the project is back in the index
+        IndexSearcher indexSearcher = indexManager.getIndexSearcher();
+        Hits hits = indexSearcher.search(query);
+        int results = hits.length();
+
+        // remove our project
+        databaseManager.beginTransaction();
+        databaseManager.getEntityManager().remove(project);
+        databaseManager.commitTransaction();
+        indexManager.getIndexQueue().flush();
+
+        logger.info("Documents rebuilt: " + documents + ", hits returned: " + results);
+
+        assertTrue(documents > 0);
+        assertTrue(results == 1);
+    }
+
+    public void testReconcile() throws Exception {
+
+        // create a new project
+        Project project = new Project();
+        project.setName("Test Project");
+
+        // perisist the project
+        DataBaseManager databaseManager = DataBaseManager.getInstance();
+        databaseManager.beginTransaction();
+        databaseManager.getEntityManager().persist(project);
+        databaseManager.commitTransaction();
+
+        // lose the project's document and index a project that isn't in the database
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.getIndexQueue().flush();
+        indexManager.removeIndexable(project);
+
+        Project projectMissing = new Project();
+        projectMissing.setId(Long.valueOf(284299));
+        projectMissing.setName("Missing Project");
+        indexManager.addIndexable(projectMissing);
+
+        int differences = indexManager.reconcile();
+
+        String className = project.getClass().getName().toLowerCase();
+
+        // verify the project is back in the index and the missing project is gone
+        IndexSearcher indexSearcher = indexManager.getIndexSearcher();
+        int results = indexSearcher.search(new TermQuery(new Term("key", className + "#" + project.getId()))).length();
+        int resultsMissing = indexSearcher.search(
+                new TermQuery(new Term("key", className + "#" + projectMissing.getId()))).length();
+
+        // remove our project
+        databaseManager.beginTransaction();
+        databaseManager.getEntityManager().remove(project);
+        databaseManager.commitTransaction();
+        indexManager.getIndexQueue().flush();
+
+        logger.info("Differences fixed: " + differences);
+
+        assertTrue(differences >= 2);
+        assertTrue(results == 1);
+        assertTrue(resultsMissing == 0);
+    }
 }
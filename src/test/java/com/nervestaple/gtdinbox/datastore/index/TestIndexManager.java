@@ -56,9 +56,12 @@ public class TestIndexManager extends TestCase {
 
         IndexManager indexManager = IndexManager.getInstance();
 
-        IndexWriter indexWriter = indexManager.getIndexWriter();
+        for (IndexPartition partition : IndexPartition.values()) {
 
-        assertNotNull(indexWriter);
+            IndexWriter indexWriter = indexManager.getIndexWriter(partition);
+
+            assertNotNull(indexWriter);
+        }
     }
 
     public void testGetIndexReader() throws Exception {
@@ -165,6 +168,107 @@ public class TestIndexManager extends TestCase {
         assertTrue(name.equals(project.getName()));
     }
 
+    public void testUpdateReplacesKeyDocument() throws Exception {
+
+        Project project = new Project();
+        project.setId(Long.valueOf(284262));
+        project.setName("Oogedy Booegedy Boo");
+
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.addIndexable(project);
+
+        project.setName("Ooh La La");
+        indexManager.updateIndexable(project);
+
+        project.setName("Ooh Ee Ooh Ah Ah");
+        indexManager.updateIndexable(project);
+
+        String key = DocumentBuilder.getKey(project.getClass().getName().toLowerCase(), project.getId().toString());
+
+        // verify there's exactly one document with the project's key
+        IndexSearcher indexSearcher = indexManager.getIndexSearcher();
+        Hits hits = indexSearcher.search(new TermQuery(new Term(DocumentBuilder.FIELD_KEY, key)));
+        int results = hits.length();
+
+        indexManager.removeIndexable(project);
+
+        logger.info("Hits: " + results);
+        assertTrue(results == 1);
+    }
+
+    public void testSearchPages() throws Exception {
+
+        IndexManager indexManager = IndexManager.getInstance();
+
+        Project[] projects = new Project[3];
+        for (int index = 0; index < projects.length; index++) {
+
+            projects[index] = new Project();
+            projects[index].setId(Long.valueOf(284270 + index));
+            projects[index].setName("Zyzzyva " + index);
+            indexManager.addIndexable(projects[index]);
+        }
+
+        TermQuery query = new TermQuery(new Term("name", "zyzzyva"));
+
+        SearchPage searchPage1 = indexManager.search(query, 2);
+        SearchPage searchPage2 = indexManager.search(searchPage1.getNextCursor());
+
+        for (int index = 0; index < projects.length; index++) {
+            indexManager.removeIndexable(projects[index]);
+        }
+
+        logger.info("Total hits: " + searchPage1.getTotalHits());
+        assertTrue(searchPage1.getTotalHits() == 3);
+        assertTrue(searchPage1.getHits().size() == 2);
+        assertTrue(searchPage1.hasNextPage());
+        assertTrue(searchPage2.getHits().size() == 1);
+        assertFalse(searchPage2.hasNextPage());
+        assertTrue(searchPage2.getHits().get(0).getName().startsWith("Zyzzyva"));
+    }
+
+    public void testSearchCacheMissAfterChange() throws Exception {
+
+        IndexManager indexManager = IndexManager.getInstance();
+
+        Project project1 = new Project();
+        project1.setId(Long.valueOf(284280));
+        project1.setName("Quokka 1");
+
+        Project project2 = new Project();
+        project2.setId(Long.valueOf(284281));
+        project2.setName("Quokka 2");
+
+        TermQuery query = new TermQuery(new Term("name", "quokka"));
+
+        try {
+
+            indexManager.addIndexable(project1);
+
+            SearchPage searchPageFirst = indexManager.search(query, 10);
+
+            long misses = indexManager.getQueryResultCache().getMisses();
+            long hits = indexManager.getQueryResultCache().getHits();
+
+            // the same search on the same searcher is answered by the cache
+            indexManager.search(query, 10);
+            assertEquals(hits + 1, indexManager.getQueryResultCache().getHits());
+
+            // a commit opens a new searcher, the cached result belongs to the old one
+            indexManager.addIndexable(project2);
+
+            SearchPage searchPageChanged = indexManager.search(query, 10);
+
+            assertEquals(misses + 1, indexManager.getQueryResultCache().getMisses());
+            assertEquals(1, searchPageFirst.getTotalHits());
+            assertEquals(2, searchPageChanged.getTotalHits());
+        } finally {
+
+            indexManager.removeIndexable(project1);
+            indexManager.removeIndexable(project2);
+        }
+    }
+
     public void testRunSearch() throws Exception {
 
         Project project = new Project();
@@ -0,0 +1,153 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactory;
+import com.nervestaple.gtdinbox.configuration.ConfigurationFactoryException;
+import com.nervestaple.gtdinbox.model.project.Project;
+import junit.framework.TestCase;
+import org.apache.log4j.Logger;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+
+import java.io.File;
+
+/**
+ * Provides a test suite for the IndexQueue object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestIndexQueue extends TestCase {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    public void setUp() throws ConfigurationFactoryException {
+
+        ConfigurationFactory configurationFactory = ConfigurationFactory.getInstance();
+
+        if (!configurationFactory.isTestingConfiguration()) {
+            configurationFactory.setTestingConfiguration(true);
+        }
+
+        try {
+            configurationFactory.configure();
+        } catch (ConfigurationFactoryException e) {
+
+            File file = configurationFactory.getApplicationConfiguration().createDefaultDataStorageLocation();
+            configurationFactory.getApplicationConfiguration().setDataStorageLocation(file);
+        }
+
+        configurationFactory.configure();
+    }
+
+    public void testQueueIndexable() throws Exception {
+
+        Project project = new Project();
+        project.setId(Long.valueOf(284263));
+        project.setName("Oogedy Booegedy Boo");
+
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.queueIndexable(project);
+        indexManager.getIndexQueue().flush();
+
+        int results = countDocuments(indexManager, project);
+
+        indexManager.removeIndexable(project);
+
+        logger.info("Hits: " + results);
+        assertTrue(results == 1);
+        assertTrue(indexManager.getIndexQueue().getPendingCount() == 0);
+    }
+
+    public void testCoalesceUpdates() throws Exception {
+
+        Project project = new Project();
+        project.setId(Long.valueOf(284263));
+        project.setName("Oogedy Booegedy Boo");
+
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.queueIndexable(project);
+
+        project.setName("Ooh La La");
+        indexManager.queueIndexable(project);
+
+        project.setName("Ooh Ee Ooh Ah Ah");
+        indexManager.queueIndexable(project);
+
+        indexManager.getIndexQueue().flush();
+
+        IndexSearcher indexSearcher = indexManager.getIndexSearcher();
+        Hits hits = indexSearcher.search(buildQuery(project));
+        int results = hits.length();
+        String name = results > 0 ? hits.doc(0).get("name") : null;
+
+        indexManager.removeIndexable(project);
+
+        logger.info("Hits: " + results + ", name: " + name);
+        assertTrue(results == 1);
+        assertTrue(project.getName().equals(name));
+    }
+
+    public void testQueueRemoveIndexable() throws Exception {
+
+        Project project = new Project();
+        project.setId(Long.valueOf(284263));
+        project.setName("Oogedy Booegedy Boo");
+
+        IndexManager indexManager = IndexManager.getInstance();
+        indexManager.queueIndexable(project);
+        indexManager.queueRemoveIndexable(project);
+        indexManager.getIndexQueue().flush();
+
+        int results = countDocuments(indexManager, project);
+
+        logger.info("Hits: " + results);
+        assertTrue(results == 0);
+    }
+
+    public void testFlushEmptyQueue() throws Exception {
+
+        IndexQueue indexQueue = new IndexQueue(IndexManager.getInstance(), 1000, 60000);
+        String className = IndexSchema.getDocumentBuilder(Project.class).getClassName();
+
+        try {
+
+            // nothing is pending, the flush must not cut short the delay of the next batch
+            indexQueue.flush();
+
+            indexQueue.enqueue(new IndexOperation(IndexOperation.Type.REMOVE, className, "284264", null));
+            Thread.sleep(250);
+            indexQueue.enqueue(new IndexOperation(IndexOperation.Type.REMOVE, className, "284265", null));
+
+            assertEquals(2, indexQueue.getPendingCount());
+
+            indexQueue.flush();
+            assertEquals(0, indexQueue.getPendingCount());
+        } finally {
+
+            indexQueue.shutdown();
+        }
+    }
+
+    private int countDocuments(IndexManager indexManager, Project project) throws Exception {
+
+        IndexSearcher indexSearcher = indexManager.getIndexSearcher();
+        Hits hits = indexSearcher.search(buildQuery(project));
+
+        return (hits.length());
+    }
+
+    private Query buildQuery(Project project) {
+
+        TermQuery queryId = new TermQuery(new Term("id", project.getId().toString()));
+        TermQuery queryClass = new TermQuery(new Term("class", project.getClass().getName().toLowerCase()));
+
+        BooleanQuery query = new BooleanQuery();
+        query.add(new BooleanClause(queryId, BooleanClause.Occur.MUST));
+        query.add(new BooleanClause(queryClass, BooleanClause.Occur.MUST));
+
+        return (query);
+    }
+}
@@ -0,0 +1,84 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import com.nervestaple.gtdinbox.model.Indexable;
+import com.nervestaple.gtdinbox.model.item.actionitem.ActionItem;
+import com.nervestaple.gtdinbox.model.item.referenceitem.ReferenceItem;
+import com.nervestaple.gtdinbox.model.item.referenceitem.SimpleReferenceItem;
+import com.nervestaple.gtdinbox.model.project.Project;
+import junit.framework.TestCase;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+
+import java.util.List;
+
+/**
+ * Provides a test suite for the IndexSchema object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestIndexSchema extends TestCase {
+
+    public void testBuildActionItem() throws Exception {
+
+        Project project = new Project();
+        project.setId(Long.valueOf(1));
+        project.setName("Test Project");
+
+        ActionItem actionItem = new ActionItem();
+        actionItem.setId(Long.valueOf(2));
+        actionItem.setDescription("Test Action Item");
+        actionItem.setProject(project);
+
+        DocumentBuilder<Indexable> documentBuilder = IndexSchema.getDocumentBuilder(ActionItem.class);
+        Document document = documentBuilder.build(actionItem);
+
+        assertEquals("2", document.get(DocumentBuilder.FIELD_ID));
+        assertEquals(ActionItem.class.getName().toLowerCase(), document.get(DocumentBuilder.FIELD_CLASS));
+        assertEquals("Test Action Item", document.get("description"));
+        assertEquals("Test Project", document.get("parent"));
+        assertNull(document.get("completedDate"));
+    }
+
+    public void testSubclassUsesRegisteredClass() throws Exception {
+
+        DocumentBuilder<Indexable> documentBuilder = IndexSchema.getDocumentBuilder(SimpleReferenceItem.class);
+
+        assertTrue(documentBuilder.getIndexedClass() == ReferenceItem.class);
+    }
+
+    public void testUnknownClass() {
+
+        try {
+            IndexSchema.getDocumentBuilder(String.class);
+            fail("Expected an IndexManagerException");
+        } catch (IndexManagerException e) {
+
+            // expected
+        }
+    }
+
+    public void testCreateFieldsReadsValueOnce() {
+
+        final int[] calls = new int[1];
+
+        IndexField<ActionItem> field = new IndexField<ActionItem>("description", IndexField.Type.TEXT,
+                Field.Store.YES) {
+
+            public Object getValue(ActionItem object) {
+
+                calls[0]++;
+                return (object.getDescription());
+            }
+        };
+
+        ActionItem actionItem = new ActionItem();
+        actionItem.setDescription("Test Action Item");
+
+        List<Field> fields = field.createFields(actionItem);
+
+        assertEquals(1, fields.size());
+        assertEquals("Test Action Item", fields.get(0).stringValue());
+        assertEquals(1, calls[0]);
+    }
+}
@@ -0,0 +1,55 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import junit.framework.TestCase;
+
+/**
+ * Provides a test suite for the LatencyHistogram object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestLatencyHistogram extends TestCase {
+
+    public void testEmpty() {
+
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+        assertEquals(0, latencyHistogram.getCount());
+        assertEquals(0d, latencyHistogram.getMeanMillis(), 0.001);
+        assertEquals(0d, latencyHistogram.getPercentileMillis(0.99), 0.001);
+    }
+
+    public void testPercentiles() {
+
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+        // 90 fast operations of 1ms and 10 slow ones of 100ms
+        for (int index = 0; index < 90; index++) {
+            latencyHistogram.record(1000000);
+        }
+        for (int index = 0; index < 10; index++) {
+            latencyHistogram.record(100000000);
+        }
+
+        assertEquals(100, latencyHistogram.getCount());
+        assertEquals(10.9d, latencyHistogram.getMeanMillis(), 0.001);
+        assertEquals(100d, latencyHistogram.getMaxMillis(), 0.001);
+
+        // percentiles are known to within a factor of two
+        double median = latencyHistogram.getPercentileMillis(0.5);
+        assertTrue(median >= 1 && median <= 2);
+
+        double percentile99 = latencyHistogram.getPercentileMillis(0.99);
+        assertTrue(percentile99 >= 50 && percentile99 <= 100);
+    }
+
+    public void testReset() {
+
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        latencyHistogram.record(1000000, 5);
+        latencyHistogram.reset();
+
+        assertEquals(0, latencyHistogram.getCount());
+        assertEquals(0d, latencyHistogram.getMaxMillis(), 0.001);
+    }
+}
@@ -0,0 +1,64 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Provides a test suite for the PrefixTrie object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestPrefixTrie extends TestCase {
+
+    public void testCompleteHeaviestFirst() {
+
+        PrefixTrie prefixTrie = createPrefixTrie();
+
+        List<String> terms = prefixTrie.complete("ca", 3);
+
+        assertEquals(Arrays.asList("calendar", "call", "car"), terms);
+    }
+
+    public void testCompleteUnknownPrefix() {
+
+        PrefixTrie prefixTrie = createPrefixTrie();
+
+        assertTrue(prefixTrie.complete("x", 5).isEmpty());
+    }
+
+    public void testRemoveTerm() {
+
+        PrefixTrie prefixTrie = createPrefixTrie();
+
+        prefixTrie.add("calendar", -5);
+
+        assertEquals(0, prefixTrie.getWeight("calendar"));
+        assertEquals(4, prefixTrie.size());
+        assertEquals(Arrays.asList("call", "car", "cat"), prefixTrie.complete("ca", 5));
+    }
+
+    public void testRemoveMissingTerm() {
+
+        PrefixTrie prefixTrie = createPrefixTrie();
+
+        prefixTrie.add("cab", -1);
+
+        assertEquals(5, prefixTrie.size());
+        assertEquals(0, prefixTrie.getWeight("cab"));
+    }
+
+    private PrefixTrie createPrefixTrie() {
+
+        PrefixTrie prefixTrie = new PrefixTrie();
+        prefixTrie.add("call", 3);
+        prefixTrie.add("cat", 1);
+        prefixTrie.add("calendar", 5);
+        prefixTrie.add("car", 3);
+        prefixTrie.add("dog", 1);
+
+        return (prefixTrie);
+    }
+}
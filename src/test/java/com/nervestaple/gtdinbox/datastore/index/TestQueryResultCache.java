@@ -0,0 +1,76 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import junit.framework.TestCase;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+
+/**
+ * Provides a test suite for the QueryResultCache object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestQueryResultCache extends TestCase {
+
+    public void testHitSameGeneration() {
+
+        QueryResultCache queryResultCache = new QueryResultCache(4);
+        queryResultCache.put(createQuery("call"), 1, createResult(3, 3));
+
+        QueryResultCache.Result result = queryResultCache.get(createQuery("call"), 1, 2);
+
+        assertNotNull(result);
+        assertEquals(3, result.getTotalHits());
+        assertEquals(1, queryResultCache.getHits());
+        assertEquals(0, queryResultCache.getMisses());
+    }
+
+    public void testMissNewGeneration() {
+
+        QueryResultCache queryResultCache = new QueryResultCache(4);
+        queryResultCache.put(createQuery("call"), 1, createResult(3, 3));
+
+        assertNull(queryResultCache.get(createQuery("call"), 2, 2));
+        assertEquals(0, queryResultCache.size());
+        assertEquals(1, queryResultCache.getMisses());
+    }
+
+    public void testMissTooFewHits() {
+
+        QueryResultCache queryResultCache = new QueryResultCache(4);
+        queryResultCache.put(createQuery("call"), 1, createResult(2, 10));
+
+        assertNull(queryResultCache.get(createQuery("call"), 1, 4));
+        assertNotNull(queryResultCache.get(createQuery("call"), 1, 2));
+    }
+
+    public void testEvictLeastRecentlyUsed() {
+
+        QueryResultCache queryResultCache = new QueryResultCache(2);
+        queryResultCache.put(createQuery("call"), 1, createResult(1, 1));
+        queryResultCache.put(createQuery("email"), 1, createResult(1, 1));
+
+        // use the first query so that the second is the eldest
+        queryResultCache.get(createQuery("call"), 1, 1);
+        queryResultCache.put(createQuery("report"), 1, createResult(1, 1));
+
+        assertNotNull(queryResultCache.get(createQuery("call"), 1, 1));
+        assertNull(queryResultCache.get(createQuery("email"), 1, 1));
+    }
+
+    private TermQuery createQuery(String text) {
+
+        return (new TermQuery(new Term("description", text)));
+    }
+
+    private QueryResultCache.Result createResult(int size, int totalHits) {
+
+        ScoreDoc[] scoreDocs = new ScoreDoc[size];
+        for (int index = 0; index < size; index++) {
+            scoreDocs[index] = new ScoreDoc(index, 1.0f / (index + 1));
+        }
+
+        return (new QueryResultCache.Result(scoreDocs, totalHits));
+    }
+}
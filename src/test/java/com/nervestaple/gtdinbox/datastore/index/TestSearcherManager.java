@@ -0,0 +1,140 @@
+package com.nervestaple.gtdinbox.datastore.index;
+
+import junit.framework.TestCase;
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+
+/**
+ * Provides a test suite for the SearcherManager object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestSearcherManager extends TestCase {
+
+    /**
+     * Logger instance.
+     */
+    private Logger logger = Logger.getLogger(this.getClass());
+
+    /**
+     * Index directory.
+     */
+    private Directory directory;
+
+    public void setUp() throws Exception {
+
+        directory = new RAMDirectory();
+
+        IndexWriter indexWriter = new IndexWriter(directory, new StandardAnalyzer(), true);
+        indexWriter.addDocument(createDocument("1"));
+        indexWriter.close();
+    }
+
+    public void testAcquireSharesSearcher() throws Exception {
+
+        SearcherManager searcherManager = new SearcherManager(directory);
+
+        IndexSearcher indexSearcher1 = searcherManager.acquire();
+        IndexSearcher indexSearcher2 = searcherManager.acquire();
+
+        searcherManager.release(indexSearcher1);
+        searcherManager.release(indexSearcher2);
+
+        assertTrue(indexSearcher1 == indexSearcher2);
+    }
+
+    public void testRefreshAfterChange() throws Exception {
+
+        SearcherManager searcherManager = new SearcherManager(directory);
+
+        IndexSearcher indexSearcherOld = searcherManager.acquire();
+
+        IndexWriter indexWriter = new IndexWriter(directory, new StandardAnalyzer(), false);
+        indexWriter.addDocument(createDocument("2"));
+        indexWriter.close();
+
+        searcherManager.markStale();
+
+        IndexSearcher indexSearcherNew = searcherManager.acquire();
+
+        // the old searcher stays usable until it is released
+        int documentsOld = indexSearcherOld.getIndexReader().numDocs();
+        int documentsNew = indexSearcherNew.getIndexReader().numDocs();
+
+        searcherManager.release(indexSearcherOld);
+        searcherManager.release(indexSearcherNew);
+
+        logger.info("Old searcher: " + documentsOld + ", new searcher: " + documentsNew);
+        assertTrue(indexSearcherOld != indexSearcherNew);
+        assertTrue(documentsOld == 1);
+        assertTrue(documentsNew == 2);
+    }
+
+    public void testNoRefreshWithoutChange() throws Exception {
+
+        SearcherManager searcherManager = new SearcherManager(directory);
+
+        IndexSearcher indexSearcher1 = searcherManager.getIndexSearcher();
+
+        searcherManager.markStale();
+
+        IndexSearcher indexSearcher2 = searcherManager.getIndexSearcher();
+
+        assertTrue(indexSearcher1 == indexSearcher2);
+    }
+
+    public void testRefreshKeepsUnchangedPartitions() throws Exception {
+
+        Directory directoryOther = new RAMDirectory();
+
+        IndexWriter indexWriter = new IndexWriter(directoryOther, new StandardAnalyzer(), true);
+        indexWriter.addDocument(createDocument("3"));
+        indexWriter.close();
+
+        SearcherManager searcherManager = new SearcherManager(new Directory[]{directory, directoryOther});
+
+        IndexSearcher indexSearcherOld = searcherManager.acquire();
+        IndexSearcher[] partitionSearchersOld = searcherManager.getPartitionSearchers(indexSearcherOld);
+        long generationOld = searcherManager.getGeneration(indexSearcherOld);
+
+        indexWriter = new IndexWriter(directory, new StandardAnalyzer(), false);
+        indexWriter.addDocument(createDocument("2"));
+        indexWriter.close();
+
+        searcherManager.markStale();
+
+        IndexSearcher indexSearcherNew = searcherManager.acquire();
+        IndexSearcher[] partitionSearchersNew = searcherManager.getPartitionSearchers(indexSearcherNew);
+        long generationNew = searcherManager.getGeneration(indexSearcherNew);
+
+        int documentsNew = indexSearcherNew.getIndexReader().numDocs();
+
+        searcherManager.release(indexSearcherOld);
+
+        // the unchanged partition's reader is still open for the new searcher
+        int documentsOther = partitionSearchersNew[1].getIndexReader().numDocs();
+
+        searcherManager.release(indexSearcherNew);
+
+        assertTrue(documentsNew == 3);
+        assertTrue(documentsOther == 1);
+        assertTrue(partitionSearchersOld[0].getIndexReader() != partitionSearchersNew[0].getIndexReader());
+        assertTrue(partitionSearchersOld[1].getIndexReader() == partitionSearchersNew[1].getIndexReader());
+        assertTrue(generationNew > generationOld);
+    }
+
+    private Document createDocument(String id) {
+
+        Document document = new Document();
+        document.add(new Field("id", id, Field.Store.YES, Field.Index.UN_TOKENIZED));
+
+        return (document);
+    }
+}
@@ -0,0 +1,145 @@
+package com.nervestaple.gtdinbox.utility.batch;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides a test suite for the Batcher object.
+ *
+ * @author Christopher Miles
+ * @version 1.0
+ */
+public class TestBatcher extends TestCase {
+
+    /**
+     * Batches handed over by the batcher under test.
+     */
+    private List<List<String>> batches;
+
+    /**
+     * Batcher under test, it only hands a batch over on its own once ten elements are pending.
+     */
+    private Batcher<String> batcher;
+
+    public void setUp() {
+
+        batches = Collections.synchronizedList(new ArrayList<List<String>>());
+
+        batcher = new Batcher<>("GTDInbox-TestBatcher", 10, 60000, new BatchHandler<String>() {
+
+            public void handleBatch(List<String> batch) {
+
+                batches.add(batch);
+            }
+        });
+    }
+
+    public void tearDown() {
+
+        batcher.shutdown();
+    }
+
+    public void testFlush() {
+
+        batcher.add("one");
+        batcher.add("two");
+
+        assertEquals(2, batcher.getPendingCount());
+        assertTrue(batches.isEmpty());
+
+        batcher.flush();
+
+        assertEquals(0, batcher.getPendingCount());
+        assertEquals(Collections.singletonList(Arrays.asList("one", "two")), batches);
+    }
+
+    public void testBatchSize() throws Exception {
+
+        for (int index = 0; index < 10; index++) {
+            batcher.add("element " + index);
+        }
+
+        // the batch goes out without waiting for the delay
+        for (int wait = 0; wait < 50 && batches.isEmpty(); wait++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(1, batches.size());
+        assertEquals(10, batches.get(0).size());
+    }
+
+    public void testReplaceByKey() {
+
+        batcher.add("key", "first");
+        batcher.add("other", "other");
+        batcher.add("key", "second");
+
+        batcher.flush();
+
+        // the replacement moves to the end
+        assertEquals(Collections.singletonList(Arrays.asList("other", "second")), batches);
+    }
+
+    public void testFlushEmpty() throws Exception {
+
+        // nothing is pending, the flush must not cut short the delay of the next batch
+        batcher.flush();
+
+        batcher.add("one");
+        Thread.sleep(250);
+        batcher.add("two");
+
+        assertEquals(2, batcher.getPendingCount());
+
+        batcher.flush();
+
+        assertEquals(Collections.singletonList(Arrays.asList("one", "two")), batches);
+    }
+
+    public void testShutdown() {
+
+        batcher.add("one");
+        batcher.shutdown();
+
+        assertEquals(1, batches.size());
+        assertFalse(batcher.add("two"));
+    }
+
+    public void testIdleDelay() throws Exception {
+
+        Batcher<String> batcherIdle = new Batcher<>("GTDInbox-TestBatcher-Idle", 10, 500, 60000,
+                new BatchHandler<String>() {
+
+                    public void handleBatch(List<String> batch) {
+
+                        batches.add(batch);
+                    }
+                });
+
+        try {
+
+            // elements closer together than the idle delay keep the batch open
+            batcherIdle.add("one");
+            Thread.sleep(200);
+            batcherIdle.add("two");
+            Thread.sleep(200);
+            batcherIdle.add("three");
+
+            assertTrue(batches.isEmpty());
+
+            // and it goes out once they stop, long before the maximum delay
+            for (int wait = 0; wait < 50 && batches.isEmpty(); wait++) {
+                Thread.sleep(100);
+            }
+
+            assertEquals(Collections.singletonList(Arrays.asList("one", "two", "three")), batches);
+        } finally {
+
+            batcherIdle.shutdown();
+        }
+    }
+}